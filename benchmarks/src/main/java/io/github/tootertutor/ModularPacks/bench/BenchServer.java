@@ -0,0 +1,24 @@
+package io.github.tootertutor.ModularPacks.bench;
+
+import org.mockbukkit.mockbukkit.MockBukkit;
+
+/**
+ * Stand-in Paper server for benchmarks. ItemStack, ItemMeta and the registries
+ * all need a Server behind Bukkit; MockBukkit provides one in-process.
+ * - one per trial (JMH forks keep trials isolated)
+ */
+public final class BenchServer {
+
+    private BenchServer() {
+    }
+
+    public static void start() {
+        if (!MockBukkit.isMocked())
+            MockBukkit.mock();
+    }
+
+    public static void stop() {
+        if (MockBukkit.isMocked())
+            MockBukkit.unmock();
+    }
+}
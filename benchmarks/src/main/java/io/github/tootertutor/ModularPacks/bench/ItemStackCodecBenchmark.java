@@ -0,0 +1,94 @@
+package io.github.tootertutor.ModularPacks.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.tootertutor.ModularPacks.data.ItemStackCodec;
+
+/**
+ * Backpack contents encode/decode, plus decoding rows still stored in the old
+ * gzipped YAML format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemStackCodecBenchmark {
+
+    @Param({ "SINGLE_PAGE", "SIX_PAGES", "ENCHANTED", "SHULKERS" })
+    public Payloads.Kind payload;
+
+    private ItemStack[] contents;
+    private byte[] binary;
+    private byte[] legacy;
+
+    @Setup
+    public void setup() {
+        BenchServer.start();
+        contents = Payloads.build(payload);
+        binary = ItemStackCodec.toBytes(contents);
+        legacy = legacyBytes(contents);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchServer.stop();
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return ItemStackCodec.toBytes(contents);
+    }
+
+    @Benchmark
+    public ItemStack[] decode() {
+        return ItemStackCodec.fromBytes(binary);
+    }
+
+    @Benchmark
+    public ItemStack[] decodeLegacy() {
+        return ItemStackCodec.fromBytes(legacy);
+    }
+
+    // Same layout the pre-binary writer produced: gzip(YAML{size, items}).
+    private static byte[] legacyBytes(ItemStack[] contents) {
+        YamlConfiguration yaml = new YamlConfiguration();
+        yaml.set("size", contents.length);
+        List<Object> items = new ArrayList<>(contents.length);
+        for (ItemStack it : contents) {
+            items.add(it == null ? null : it.serialize());
+        }
+        yaml.set("items", items);
+
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                GZIPOutputStream gzip = new GZIPOutputStream(baos)) {
+            gzip.write(yaml.saveToString().getBytes(StandardCharsets.UTF_8));
+            gzip.finish();
+            return baos.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
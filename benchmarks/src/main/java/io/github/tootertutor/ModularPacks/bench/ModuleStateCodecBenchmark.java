@@ -0,0 +1,104 @@
+package io.github.tootertutor.ModularPacks.bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Material;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.tootertutor.ModularPacks.modules.FurnaceStateCodec;
+import io.github.tootertutor.ModularPacks.modules.TankStateCodec;
+
+/**
+ * Module snapshot codecs: a furnace mid-smelt and a tank holding fluid, plus
+ * the legacy YAML furnace snapshot for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModuleStateCodecBenchmark {
+
+    private FurnaceStateCodec.State furnace;
+    private byte[] furnaceBytes;
+    private byte[] furnaceLegacyBytes;
+    private TankStateCodec.State tank;
+    private byte[] tankBytes;
+
+    @Setup
+    public void setup() {
+        BenchServer.start();
+
+        furnace = new FurnaceStateCodec.State();
+        furnace.input = new ItemStack(Material.RAW_IRON, 48);
+        furnace.fuel = new ItemStack(Material.COAL, 12);
+        furnace.output = new ItemStack(Material.IRON_INGOT, 15);
+        furnace.burnTime = 900;
+        furnace.burnTotal = 1600;
+        furnace.cookTime = 120;
+        furnace.cookTotal = 200;
+        furnaceBytes = FurnaceStateCodec.encode(furnace);
+        furnaceLegacyBytes = legacyFurnace(furnace);
+
+        tank = new TankStateCodec.State();
+        tank.fluidBucketMaterial = "LAVA_BUCKET";
+        tank.fluidBuckets = 12;
+        tankBytes = TankStateCodec.encode(tank);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchServer.stop();
+    }
+
+    @Benchmark
+    public byte[] furnaceEncode() {
+        return FurnaceStateCodec.encode(furnace);
+    }
+
+    @Benchmark
+    public FurnaceStateCodec.State furnaceDecode() {
+        return FurnaceStateCodec.decode(furnaceBytes);
+    }
+
+    @Benchmark
+    public FurnaceStateCodec.State furnaceDecodeLegacy() {
+        return FurnaceStateCodec.decode(furnaceLegacyBytes);
+    }
+
+    @Benchmark
+    public byte[] tankEncode() {
+        return TankStateCodec.encode(tank);
+    }
+
+    @Benchmark
+    public TankStateCodec.State tankDecode() {
+        return TankStateCodec.decode(tankBytes);
+    }
+
+    // Same shape FurnaceStateCodec wrote before the binary layout.
+    private static byte[] legacyFurnace(FurnaceStateCodec.State s) {
+        YamlConfiguration yaml = new YamlConfiguration();
+        yaml.set("items", Arrays.asList(s.input.serialize(), s.fuel.serialize(), s.output.serialize()));
+        yaml.set("burnTime", s.burnTime);
+        yaml.set("burnTotal", s.burnTotal);
+        yaml.set("cookTime", s.cookTime);
+        yaml.set("cookTotal", s.cookTotal);
+        return yaml.saveToString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,124 @@
+package io.github.tootertutor.ModularPacks.bench;
+
+import java.util.List;
+import java.util.Random;
+
+import org.bukkit.Material;
+import org.bukkit.block.ShulkerBox;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.BlockStateMeta;
+import org.bukkit.inventory.meta.Damageable;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import net.kyori.adventure.text.Component;
+
+/**
+ * Backpack contents shaped like what servers actually store.
+ * - fixed seeds, so every fork benchmarks the same items
+ * - needs a stand-in server (see {@link BenchServer}) before use
+ */
+public final class Payloads {
+
+    public enum Kind {
+        /** One 54-slot page of everyday blocks/tools, ~1/4 empty. */
+        SINGLE_PAGE,
+        /** Six 54-slot pages of the same mix. */
+        SIX_PAGES,
+        /** 54 slots of named, enchanted, damaged gear. */
+        ENCHANTED,
+        /** 27 full shulker boxes (nested inventories). */
+        SHULKERS
+    }
+
+    private static final List<Material> COMMON = List.of(
+            Material.STONE, Material.COBBLESTONE, Material.DIRT, Material.OAK_LOG, Material.OAK_PLANKS,
+            Material.IRON_INGOT, Material.GOLD_INGOT, Material.DIAMOND, Material.REDSTONE, Material.COAL,
+            Material.TORCH, Material.BREAD, Material.COOKED_BEEF, Material.GLASS, Material.SAND);
+
+    private static final List<Material> TOOLS = List.of(
+            Material.DIAMOND_PICKAXE, Material.DIAMOND_SWORD, Material.IRON_SHOVEL, Material.BOW,
+            Material.NETHERITE_CHESTPLATE, Material.DIAMOND_HELMET, Material.ELYTRA);
+
+    private Payloads() {
+    }
+
+    public static ItemStack[] build(Kind kind) {
+        return switch (kind) {
+            case SINGLE_PAGE -> mixed(54, new Random(54));
+            case SIX_PAGES -> mixed(6 * 54, new Random(324));
+            case ENCHANTED -> enchanted(54, new Random(7));
+            case SHULKERS -> shulkers(27, new Random(27));
+        };
+    }
+
+    private static ItemStack[] mixed(int size, Random rnd) {
+        ItemStack[] out = new ItemStack[size];
+        for (int i = 0; i < size; i++) {
+            int roll = rnd.nextInt(8);
+            if (roll < 2)
+                continue;
+            if (roll == 2) {
+                out[i] = damaged(TOOLS.get(rnd.nextInt(TOOLS.size())), rnd);
+                continue;
+            }
+            Material m = COMMON.get(rnd.nextInt(COMMON.size()));
+            out[i] = new ItemStack(m, 1 + rnd.nextInt(m.getMaxStackSize()));
+        }
+        return out;
+    }
+
+    private static ItemStack[] enchanted(int size, Random rnd) {
+        List<Enchantment> enchants = List.of(Enchantment.SHARPNESS, Enchantment.UNBREAKING, Enchantment.MENDING,
+                Enchantment.EFFICIENCY, Enchantment.FORTUNE, Enchantment.PROTECTION);
+        ItemStack[] out = new ItemStack[size];
+        for (int i = 0; i < size; i++) {
+            ItemStack it = damaged(TOOLS.get(rnd.nextInt(TOOLS.size())), rnd);
+            ItemMeta meta = it.getItemMeta();
+            meta.displayName(Component.text("Relic #" + i));
+            meta.lore(List.of(Component.text("Found in a dungeon"), Component.text("Owner: Steve")));
+            for (int e = 0; e < 3; e++) {
+                meta.addEnchant(enchants.get(rnd.nextInt(enchants.size())), 1 + rnd.nextInt(5), true);
+            }
+            it.setItemMeta(meta);
+            out[i] = it;
+        }
+        return out;
+    }
+
+    private static ItemStack[] shulkers(int count, Random rnd) {
+        ItemStack[] out = new ItemStack[54];
+        for (int i = 0; i < count; i++) {
+            ItemStack box = new ItemStack(Material.SHULKER_BOX);
+            BlockStateMeta meta = (BlockStateMeta) box.getItemMeta();
+            ShulkerBox state = (ShulkerBox) meta.getBlockState();
+            ItemStack[] inner = mixed(27, rnd);
+            for (int s = 0; s < inner.length; s++) {
+                if (inner[s] == null)
+                    inner[s] = new ItemStack(Material.COBBLESTONE, 64);
+            }
+            state.getInventory().setContents(inner);
+            meta.setBlockState(state);
+            box.setItemMeta(meta);
+            out[i * 2] = box;
+        }
+        return out;
+    }
+
+    private static ItemStack damaged(Material m, Random rnd) {
+        ItemStack it = new ItemStack(m);
+        if (it.getItemMeta() instanceof Damageable d && m.getMaxDurability() > 0) {
+            d.setDamage(rnd.nextInt(m.getMaxDurability()));
+            it.setItemMeta(d);
+        }
+        return it;
+    }
+
+    public static ItemStack[] copy(ItemStack[] in) {
+        ItemStack[] out = new ItemStack[in.length];
+        for (int i = 0; i < in.length; i++) {
+            out[i] = in[i] == null ? null : in[i].clone();
+        }
+        return out;
+    }
+}
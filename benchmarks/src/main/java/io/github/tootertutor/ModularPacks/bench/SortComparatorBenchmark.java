@@ -0,0 +1,75 @@
+package io.github.tootertutor.ModularPacks.bench;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.tootertutor.ModularPacks.gui.BackpackSortMode;
+
+/**
+ * One full sort of a backpack's non-empty stacks per op, for every sort mode.
+ * Comparators are built per op because they keep their caches inside the
+ * comparator; packedKeys is what the sort button uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SortComparatorBenchmark {
+
+    @Param({ "REGISTRY", "CREATIVE_MENU", "ALPHABETICALLY", "COUNT", "TAGS" })
+    public BackpackSortMode mode;
+
+    @Param({ "SINGLE_PAGE", "SIX_PAGES", "ENCHANTED" })
+    public Payloads.Kind payload;
+
+    private List<ItemStack> items;
+
+    @Setup
+    public void setup() {
+        BenchServer.start();
+        items = new ArrayList<>();
+        for (ItemStack it : Payloads.build(payload)) {
+            if (it != null)
+                items.add(it);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchServer.stop();
+    }
+
+    @Benchmark
+    public List<ItemStack> sort() {
+        // The plugin handle isn't used by any comparator.
+        Comparator<ItemStack> cmp = BackpackSortMode.comparator(null, mode);
+        List<ItemStack> copy = new ArrayList<>(items);
+        copy.sort(cmp);
+        return copy;
+    }
+
+    @Benchmark
+    public List<ItemStack> packedKeys() {
+        List<ItemStack> copy = new ArrayList<>(items);
+        BackpackSortMode.sort(mode, copy);
+        return copy;
+    }
+}
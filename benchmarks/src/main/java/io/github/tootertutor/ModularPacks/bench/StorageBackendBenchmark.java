@@ -0,0 +1,123 @@
+package io.github.tootertutor.ModularPacks.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.tootertutor.ModularPacks.data.BackpackData;
+import io.github.tootertutor.ModularPacks.data.BackpackRepository;
+import io.github.tootertutor.ModularPacks.data.ItemStackCodec;
+import io.github.tootertutor.ModularPacks.data.LogBackpackRepository;
+import io.github.tootertutor.ModularPacks.data.SQLiteBackpackRepository;
+
+/**
+ * Storage.Backend SQLITE vs LOG, driven the way BackpackWriteQueue drives them.
+ * - saveBatch: one writer batch of {@code batch} backpacks (MAX_BATCH is 128),
+ * cycling through a pool of existing backpacks; per-row cost is the score
+ * divided by batch
+ * - load: a cache miss on an existing backpack
+ * - both with their shipped defaults (Slots off, Log.Sync on), in a fresh
+ * temp directory per trial
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBackendBenchmark {
+
+    private static final int BACKPACKS = 1024;
+    private static final String TYPE = "Large";
+
+    public enum Backend {
+        SQLITE, LOG
+    }
+
+    @Param({ "SQLITE", "LOG" })
+    public Backend backend;
+
+    @Param({ "1", "16", "128" })
+    public int batch;
+
+    @Param({ "SINGLE_PAGE", "SIX_PAGES" })
+    public Payloads.Kind payload;
+
+    private Path dir;
+    private BackpackRepository repo;
+    private List<BackpackData> snapshots;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        BenchServer.start();
+        dir = Files.createTempDirectory("modularpacks-bench");
+        File folder = dir.toFile();
+        Logger logger = Logger.getLogger("StorageBackendBenchmark");
+        repo = switch (backend) {
+            case SQLITE -> new SQLiteBackpackRepository(folder, logger, () -> false);
+            case LOG -> new LogBackpackRepository(folder, logger, () -> true, () -> 0.5);
+        };
+        repo.init();
+
+        byte[] bytes = ItemStackCodec.toBytes(Payloads.build(payload));
+        UUID owner = UUID.randomUUID();
+        snapshots = new ArrayList<>(BACKPACKS);
+        for (int i = 0; i < BACKPACKS; i++) {
+            BackpackData data = new BackpackData(UUID.randomUUID(), TYPE);
+            data.contentsBytes(bytes);
+            repo.ensureBackpackExists(data.backpackId(), TYPE, owner, "Bench");
+            snapshots.add(data);
+        }
+        repo.saveBatch(snapshots);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        repo.close();
+        BenchServer.stop();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    @Benchmark
+    public void saveBatch() {
+        List<BackpackData> rows = new ArrayList<>(batch);
+        for (int i = 0; i < batch; i++) {
+            rows.add(snapshots.get(next));
+            next = (next + 1) % BACKPACKS;
+        }
+        repo.saveBatch(rows);
+    }
+
+    @Benchmark
+    public BackpackData load() {
+        BackpackData data = snapshots.get(next);
+        next = (next + 1) % BACKPACKS;
+        return repo.loadOrCreate(data.backpackId(), TYPE);
+    }
+}
@@ -0,0 +1,89 @@
+package io.github.tootertutor.ModularPacks.modules;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.github.tootertutor.ModularPacks.bench.BenchServer;
+import io.github.tootertutor.ModularPacks.bench.Payloads;
+
+/**
+ * BackpackInventoryUtil.insertIntoContents (magnet pickups, restock returns).
+ * Lives in the plugin's package because the util is package-private.
+ * - MERGE: stack tops up partial stacks already in the backpack
+ * - EMPTY_SLOT: nothing to merge with, lands in the first free slot
+ * - FULL: scans everything and returns the stack untouched
+ * The util mutates both arguments, so every call works on fresh copies.
+ * Copying costs about as much as the insert itself and can't be hidden in a
+ * per-invocation setup, so copyOnly measures the copies alone. Subtract it
+ * from copyAndInsert (time and gc.alloc.rate.norm) to get the insert.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InsertIntoContentsBenchmark {
+
+    public enum Case {
+        MERGE, EMPTY_SLOT, FULL
+    }
+
+    @Param({ "MERGE", "EMPTY_SLOT", "FULL" })
+    public Case scenario;
+
+    @Param({ "SINGLE_PAGE", "SIX_PAGES" })
+    public Payloads.Kind payload;
+
+    private ItemStack[] template;
+    private ItemStack incoming;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        BenchServer.start();
+        template = Payloads.build(payload);
+        switch (scenario) {
+            case MERGE -> incoming = new ItemStack(Material.COBBLESTONE, 32);
+            case EMPTY_SLOT -> incoming = new ItemStack(Material.EMERALD, 16);
+            case FULL -> {
+                for (int i = 0; i < template.length; i++) {
+                    if (template[i] == null)
+                        template[i] = new ItemStack(Material.BEDROCK, 64);
+                }
+                incoming = new ItemStack(Material.EMERALD, 16);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchServer.stop();
+    }
+
+    @Benchmark
+    public void copyOnly(Blackhole bh) {
+        bh.consume(Payloads.copy(template));
+        bh.consume(incoming.clone());
+    }
+
+    @Benchmark
+    public ItemStack copyAndInsert() {
+        return BackpackInventoryUtil.insertIntoContents(Payloads.copy(template), incoming.clone());
+    }
+}
@@ -1,5 +1,6 @@
 package io.github.tootertutor.ModularPacks;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
@@ -16,7 +17,9 @@ import io.github.tootertutor.ModularPacks.gui.BackpackMenuHolder;
 import io.github.tootertutor.ModularPacks.gui.ModuleScreenHolder;
 import io.github.tootertutor.ModularPacks.item.BackpackItems;
 import io.github.tootertutor.ModularPacks.item.Keys;
+import io.github.tootertutor.ModularPacks.modules.ActiveCarrierRegistry;
 import io.github.tootertutor.ModularPacks.modules.AnvilModuleLogic;
+import io.github.tootertutor.ModularPacks.perf.Perf;
 
 /**
  * Tracks active backpack "sessions" (open backpack GUI or a module GUI for that
@@ -127,7 +130,11 @@ public final class BackpackSessionManager {
 
     /**
      * Refresh all online players' backpack items that point at this backpackId.
-     * Throttled to avoid scanning inventories too frequently (magnet/feeding).
+     * Throttled to avoid refreshing too frequently (magnet/feeding).
+     * - only the slots the carrier registry has on file for this backpack are
+     * touched
+     * - a slot that no longer holds it means the index is behind: that player is
+     * rescanned and fully checked instead
      */
     public void refreshLinkedBackpacksThrottled(UUID backpackId, BackpackData data) {
         if (backpackId == null || data == null)
@@ -145,27 +152,67 @@ public final class BackpackSessionManager {
 
         int totalSlots = type.rows() * 9;
         Keys keys = plugin.keys();
+        long t0 = Perf.start();
 
-        for (Player p : Bukkit.getOnlinePlayers()) {
-            ItemStack[] contents = p.getInventory().getContents();
-            if (contents != null) {
-                for (int i = 0; i < contents.length; i++) {
-                    ItemStack it = contents[i];
-                    if (!isLinkedBackpack(keys, it, backpackId))
-                        continue;
-                    if (backpackItems.refreshInPlace(it, type, backpackId, data, totalSlots)) {
-                        p.getInventory().setItem(i, it);
-                    }
+        if (plugin.engines() == null) {
+            for (Player p : Bukkit.getOnlinePlayers()) {
+                refreshAllSlots(p, keys, type, backpackId, data, totalSlots);
+            }
+            Perf.LINKED_REFRESH.stop(t0);
+            return;
+        }
+
+        ActiveCarrierRegistry carriers = plugin.engines().carriers();
+        for (Map.Entry<UUID, int[]> e : new ArrayList<>(carriers.locations(backpackId).entrySet())) {
+            Player p = Bukkit.getPlayer(e.getKey());
+            if (p == null || !p.isOnline())
+                continue;
+
+            boolean stale = false;
+            for (int slot : e.getValue()) {
+                ItemStack it = slot == ActiveCarrierRegistry.CURSOR_SLOT ? p.getItemOnCursor()
+                        : p.getInventory().getItem(slot);
+                if (!isLinkedBackpack(keys, it, backpackId)) {
+                    stale = true;
+                    continue;
+                }
+                if (!backpackItems.refreshInPlace(it, type, backpackId, data, totalSlots))
+                    continue;
+                if (slot == ActiveCarrierRegistry.CURSOR_SLOT) {
+                    p.setItemOnCursor(it);
+                } else {
+                    p.getInventory().setItem(slot, it);
                 }
             }
 
-            ItemStack cursor = p.getItemOnCursor();
-            if (isLinkedBackpack(keys, cursor, backpackId)) {
-                if (backpackItems.refreshInPlace(cursor, type, backpackId, data, totalSlots)) {
-                    p.setItemOnCursor(cursor);
+            if (stale) {
+                carriers.rescanNow(p);
+                refreshAllSlots(p, keys, type, backpackId, data, totalSlots);
+            }
+        }
+        Perf.LINKED_REFRESH.stop(t0);
+    }
+
+    private void refreshAllSlots(Player p, Keys keys, BackpackTypeDef type, UUID backpackId, BackpackData data,
+            int totalSlots) {
+        ItemStack[] contents = p.getInventory().getContents();
+        if (contents != null) {
+            for (int i = 0; i < contents.length; i++) {
+                ItemStack it = contents[i];
+                if (!isLinkedBackpack(keys, it, backpackId))
+                    continue;
+                if (backpackItems.refreshInPlace(it, type, backpackId, data, totalSlots)) {
+                    p.getInventory().setItem(i, it);
                 }
             }
         }
+
+        ItemStack cursor = p.getItemOnCursor();
+        if (isLinkedBackpack(keys, cursor, backpackId)) {
+            if (backpackItems.refreshInPlace(cursor, type, backpackId, data, totalSlots)) {
+                p.setItemOnCursor(cursor);
+            }
+        }
     }
 
     private boolean isViewerStillInSession(UUID viewerId, UUID backpackId) {
@@ -8,6 +8,7 @@ import io.github.tootertutor.ModularPacks.commands.CommandRouter;
 import io.github.tootertutor.ModularPacks.commands.sub.GiveSubcommand;
 import io.github.tootertutor.ModularPacks.commands.sub.ListSubcommand;
 import io.github.tootertutor.ModularPacks.commands.sub.OpenSubcommand;
+import io.github.tootertutor.ModularPacks.commands.sub.PerfSubcommand;
 import io.github.tootertutor.ModularPacks.commands.sub.RecipeSubcommand;
 import io.github.tootertutor.ModularPacks.commands.sub.RefreshSkullsSubcommand;
 import io.github.tootertutor.ModularPacks.commands.sub.RecoverSubcommand;
@@ -15,7 +16,17 @@ import io.github.tootertutor.ModularPacks.commands.sub.ReloadSubcommand;
 import io.github.tootertutor.ModularPacks.commands.sub.SetTypeSubcommand;
 import io.github.tootertutor.ModularPacks.config.ConfigManager;
 import io.github.tootertutor.ModularPacks.config.LangManager;
+import io.github.tootertutor.ModularPacks.data.BackpackDataCache;
+import io.github.tootertutor.ModularPacks.data.BackpackPrefetcher;
+import io.github.tootertutor.ModularPacks.data.BackpackRepository;
+import io.github.tootertutor.ModularPacks.data.BackpackSlotCompaction;
+import io.github.tootertutor.ModularPacks.data.LogBackpackRepository;
+import io.github.tootertutor.ModularPacks.data.LogStoreCompaction;
+import io.github.tootertutor.ModularPacks.data.ModuleStateCodecs;
 import io.github.tootertutor.ModularPacks.data.SQLiteBackpackRepository;
+import io.github.tootertutor.ModularPacks.data.VoidLogArchive;
+import io.github.tootertutor.ModularPacks.data.VoidLogQueue;
+import io.github.tootertutor.ModularPacks.data.VoidLogRetention;
 import io.github.tootertutor.ModularPacks.gui.BackpackMenuRenderer;
 import io.github.tootertutor.ModularPacks.item.Keys;
 import io.github.tootertutor.ModularPacks.listeners.AnvilModuleListener;
@@ -34,19 +45,30 @@ import io.github.tootertutor.ModularPacks.listeners.RecipePreviewListener;
 import io.github.tootertutor.ModularPacks.listeners.RestockModuleListener;
 import io.github.tootertutor.ModularPacks.listeners.SmithingModuleListener;
 import io.github.tootertutor.ModularPacks.listeners.StonecutterModuleListener;
+import io.github.tootertutor.ModularPacks.modules.FurnaceStateCodec;
 import io.github.tootertutor.ModularPacks.modules.ModuleEngineService;
+import io.github.tootertutor.ModularPacks.modules.TankStateCodec;
+import io.github.tootertutor.ModularPacks.perf.Perf;
+import io.github.tootertutor.ModularPacks.perf.PerfCsvDumper;
 import io.github.tootertutor.ModularPacks.recipes.RecipeManager;
 
 public final class ModularPacksPlugin extends JavaPlugin {
 
     private ConfigManager configManager;
     private LangManager langManager;
-    private SQLiteBackpackRepository repository;
+    private BackpackRepository repository;
+    private BackpackDataCache cache;
+    private VoidLogQueue voidLog;
+    private VoidLogArchive voidArchive;
+    private VoidLogRetention voidRetention;
+    private BackpackSlotCompaction slotCompaction;
+    private LogStoreCompaction logCompaction;
     private Keys keys;
     private ModuleEngineService engines;
     private ClickDebugListener clickDebug;
     private RecipeManager recipes;
     private BackpackSessionManager sessions;
+    private PerfCsvDumper perfDumper;
 
     @Override
     public void onEnable() {
@@ -57,21 +79,61 @@ public final class ModularPacksPlugin extends JavaPlugin {
 
         this.configManager = new ConfigManager(this);
         this.configManager.reload();
+        Perf.enabled(cfg().perfEnabled());
+
+        ModuleStateCodecs.register(FurnaceStateCodec.CODEC, "Blasting", "Smoking");
+        ModuleStateCodecs.register(TankStateCodec.CODEC);
 
         this.langManager = new LangManager(this);
         this.langManager.reload();
 
-        this.repository = new SQLiteBackpackRepository(this);
+        boolean log = cfg().storageBackend().equals("LOG");
+        // each backend only sees its own data; don't let a config change hide every backpack
+        boolean otherHasData = log ? SQLiteBackpackRepository.hasData(getDataFolder())
+                : LogBackpackRepository.hasData(getDataFolder());
+        if (otherHasData && !cfg().storageAllowBackendSwitch()) {
+            getLogger().severe("Storage.Backend is " + cfg().storageBackend() + " but backpacks were saved with "
+                    + (log ? "SQLITE (backpacks.db)" : "LOG (store/)") + "; they would all open empty. "
+                    + "Switch the backend back, or set Storage.AllowBackendSwitch: true to start anyway.");
+            Bukkit.getPluginManager().disablePlugin(this);
+            return;
+        }
+        this.repository = log
+                ? new LogBackpackRepository(this)
+                : new SQLiteBackpackRepository(this);
         this.repository.init();
+        getLogger().info("Storage backend: " + cfg().storageBackend());
 
         this.sessions = new BackpackSessionManager(this);
 
+        this.cache = new BackpackDataCache(this, repository);
+        this.cache.start();
+
+        this.voidLog = new VoidLogQueue(this, repository);
+        this.voidLog.start();
+
+        this.voidArchive = new VoidLogArchive(this);
+        this.voidRetention = new VoidLogRetention(this, repository, voidArchive);
+        this.voidRetention.apply();
+
+        if (repository instanceof SQLiteBackpackRepository sqlite) {
+            this.slotCompaction = new BackpackSlotCompaction(this, sqlite);
+            this.slotCompaction.apply();
+        }
+        if (repository instanceof LogBackpackRepository log) {
+            this.logCompaction = new LogStoreCompaction(this, log);
+            this.logCompaction.apply();
+        }
+
         this.engines = new ModuleEngineService(this);
         this.engines.start();
 
         this.recipes = new RecipeManager(this);
         this.recipes.reload();
         Bukkit.getPluginManager().registerEvents(this.recipes, this);
+        Bukkit.getPluginManager().registerEvents(this.engines.carriers(), this);
+        Bukkit.getPluginManager().registerEvents(this.engines.items(), this);
+        Bukkit.getPluginManager().registerEvents(new BackpackPrefetcher(this), this);
 
         BackpackMenuRenderer renderer = new BackpackMenuRenderer(this);
 
@@ -107,9 +169,13 @@ public final class ModularPacksPlugin extends JavaPlugin {
         router.register(new SetTypeSubcommand(this));
         router.register(new RefreshSkullsSubcommand(this));
         router.register(new RecipeSubcommand(this));
+        router.register(new PerfSubcommand(this));
         getCommand("backpack").setExecutor(router);
         getCommand("backpack").setTabCompleter(router);
 
+        this.perfDumper = new PerfCsvDumper(this);
+        this.perfDumper.apply();
+
         getLogger().info("modularpacks enabled.");
 
     }
@@ -119,16 +185,36 @@ public final class ModularPacksPlugin extends JavaPlugin {
         if (clickDebug != null)
             clickDebug.stop();
 
+        if (perfDumper != null)
+            perfDumper.stop();
+
+        // before recipes go away: stopping settles lazily simulated furnaces
+        if (engines != null)
+            engines.stop();
+
         // remove recipes on disable so reloads don't duplicate
         if (recipes != null)
             recipes.close();
 
+        // write back anything still dirty before the connection goes away
+        if (cache != null)
+            cache.stop();
+
+        if (voidLog != null)
+            voidLog.shutdown();
+
+        if (voidRetention != null)
+            voidRetention.stop();
+
+        if (slotCompaction != null)
+            slotCompaction.stop();
+
+        if (logCompaction != null)
+            logCompaction.stop();
+
         if (repository != null)
             repository.close();
 
-        if (engines != null)
-            engines.stop();
-
         getLogger().info("modularpacks disabled.");
     }
 
@@ -140,14 +226,30 @@ public final class ModularPacksPlugin extends JavaPlugin {
         return langManager;
     }
 
-    public SQLiteBackpackRepository repo() {
+    public BackpackRepository repo() {
         return repository;
     }
 
+    public BackpackDataCache cache() {
+        return cache;
+    }
+
+    public VoidLogQueue voidLog() {
+        return voidLog;
+    }
+
+    public VoidLogArchive voidArchive() {
+        return voidArchive;
+    }
+
     public Keys keys() {
         return keys;
     }
 
+    public ModuleEngineService engines() {
+        return engines;
+    }
+
     public RecipeManager recipes() {
         return recipes;
     }
@@ -156,11 +258,26 @@ public final class ModularPacksPlugin extends JavaPlugin {
         return sessions;
     }
 
+    public PerfCsvDumper perfDumper() {
+        return perfDumper;
+    }
+
     public void reloadAll() {
         cfg().reload();
         lang().reload();
+        Perf.enabled(cfg().perfEnabled());
+        if (perfDumper != null)
+            perfDumper.apply();
+        if (voidRetention != null)
+            voidRetention.apply();
+        if (slotCompaction != null)
+            slotCompaction.apply();
+        if (logCompaction != null)
+            logCompaction.apply();
         if (recipes != null)
             recipes.reload();
+        if (engines != null)
+            engines.items().invalidateEligibility();
 
         boolean wantClickLog = cfg().debugClickLog();
         if (wantClickLog && clickDebug == null) {
@@ -233,7 +233,7 @@ public final class GiveSubcommand implements Subcommand {
             return;
         try {
             java.util.UUID id = java.util.UUID.fromString(idStr);
-            plugin.repo().ensureBackpackExists(id, typeId, owner.getUniqueId(), owner.getName());
+            plugin.cache().ensureBackpackExists(id, typeId, owner.getUniqueId(), owner.getName());
         } catch (IllegalArgumentException ignored) {
         }
     }
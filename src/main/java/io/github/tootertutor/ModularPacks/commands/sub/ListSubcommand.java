@@ -10,7 +10,7 @@ import org.bukkit.entity.Player;
 import io.github.tootertutor.ModularPacks.ModularPacksPlugin;
 import io.github.tootertutor.ModularPacks.commands.CommandContext;
 import io.github.tootertutor.ModularPacks.commands.Subcommand;
-import io.github.tootertutor.ModularPacks.data.SQLiteBackpackRepository.BackpackSummary;
+import io.github.tootertutor.ModularPacks.data.BackpackRepository.BackpackSummary;
 import net.kyori.adventure.text.Component;
 
 public final class ListSubcommand implements Subcommand {
@@ -12,7 +12,7 @@ import org.bukkit.entity.Player;
 import io.github.tootertutor.ModularPacks.ModularPacksPlugin;
 import io.github.tootertutor.ModularPacks.commands.CommandContext;
 import io.github.tootertutor.ModularPacks.commands.Subcommand;
-import io.github.tootertutor.ModularPacks.data.SQLiteBackpackRepository.BackpackSummary;
+import io.github.tootertutor.ModularPacks.data.BackpackRepository.BackpackSummary;
 import io.github.tootertutor.ModularPacks.gui.BackpackMenuRenderer;
 import net.kyori.adventure.text.Component;
 
@@ -67,7 +67,7 @@ public final class OpenSubcommand implements Subcommand {
                 return;
             }
 
-            String type = plugin.repo().findBackpackType(id);
+            String type = plugin.cache().findBackpackType(id);
             if (type == null) {
                 ctx.sender().sendMessage(Component.text("Backpack not found in DB: " + id));
                 return;
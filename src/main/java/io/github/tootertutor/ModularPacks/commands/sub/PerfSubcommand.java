@@ -0,0 +1,127 @@
+package io.github.tootertutor.ModularPacks.commands.sub;
+
+import java.io.File;
+import java.util.List;
+import java.util.Locale;
+
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+
+import io.github.tootertutor.ModularPacks.ModularPacksPlugin;
+import io.github.tootertutor.ModularPacks.commands.CommandContext;
+import io.github.tootertutor.ModularPacks.commands.Subcommand;
+import io.github.tootertutor.ModularPacks.perf.Perf;
+import io.github.tootertutor.ModularPacks.perf.PerfStat;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+
+public final class PerfSubcommand implements Subcommand {
+
+    private final ModularPacksPlugin plugin;
+
+    public PerfSubcommand(ModularPacksPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public String name() {
+        return "perf";
+    }
+
+    @Override
+    public String description() {
+        return "Show ModularPacks timings (1m/5m/all), reset, or dump to CSV";
+    }
+
+    @Override
+    public String permission() {
+        return "modularpacks.admin";
+    }
+
+    @Override
+    public void execute(CommandContext ctx) {
+        CommandSender sender = ctx.sender();
+        if (!sender.hasPermission("modularpacks.admin")) {
+            sender.sendMessage(Component.text("You do not have permission."));
+            return;
+        }
+
+        String mode = ctx.size() >= 1 ? ctx.arg(0).toLowerCase(Locale.ROOT) : "1m";
+        switch (mode) {
+            case "reset" -> {
+                Perf.resetAll();
+                sender.sendMessage(Component.text("Perf counters reset."));
+            }
+            case "dump" -> {
+                Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+                    Component msg;
+                    try {
+                        File f = plugin.perfDumper().dump(60);
+                        msg = Component.text("Wrote perf/" + f.getName());
+                    } catch (Exception ex) {
+                        msg = Component.text("Dump failed: " + ex.getMessage());
+                    }
+                    Component reply = msg;
+                    Bukkit.getScheduler().runTask(plugin, () -> sender.sendMessage(reply));
+                });
+            }
+            case "1m" -> show(sender, 60, "last 1m");
+            case "5m" -> show(sender, 300, "last 5m");
+            case "all" -> show(sender, 0, "since reset");
+            default -> sender.sendMessage(Component.text("Usage: /backpack perf [1m|5m|all|reset|dump]"));
+        }
+    }
+
+    private void show(CommandSender sender, int windowSeconds, String label) {
+        if (!Perf.enabled()) {
+            sender.sendMessage(Component.text("Perf metrics are disabled (Perf.Enabled in config.yml).",
+                    NamedTextColor.YELLOW));
+            return;
+        }
+
+        sender.sendMessage(Component.text("ModularPacks perf (" + label + ")", NamedTextColor.GOLD));
+
+        long hits = 0L, misses = 0L;
+        for (PerfStat stat : Perf.all()) {
+            PerfStat.Snapshot s = stat.snapshot(windowSeconds);
+            if (stat == Perf.CACHE_HIT)
+                hits = s.count();
+            else if (stat == Perf.CACHE_MISS)
+                misses = s.count();
+            if (s.count() == 0)
+                continue;
+            sender.sendMessage(Component.text(line(s)));
+        }
+
+        long lookups = hits + misses;
+        if (lookups > 0) {
+            sender.sendMessage(Component.text(String.format(Locale.ROOT, "cache hit ratio: %.1f%% (%d/%d)",
+                    hits * 100.0 / lookups, hits, lookups)));
+        }
+    }
+
+    private static String line(PerfStat.Snapshot s) {
+        return switch (s.unit()) {
+            case NANOS -> String.format(Locale.ROOT, "%s: n=%d %.1f/s avg=%s p95=%s max=%s total=%s",
+                    s.name(), s.count(), s.perSecond(), ms(s.avg()), ms(s.p95()), ms(s.max()), ms(s.sum()));
+            case BYTES -> String.format(Locale.ROOT, "%s: n=%d avg=%.0fB p95=%dB max=%dB total=%dKiB",
+                    s.name(), s.count(), s.avg(), s.p95(), s.max(), s.sum() / 1024);
+            case COUNT -> String.format(Locale.ROOT, "%s: n=%d %.1f/s", s.name(), s.count(), s.perSecond());
+        };
+    }
+
+    private static String ms(double nanos) {
+        return String.format(Locale.ROOT, "%.3fms", nanos / 1_000_000.0);
+    }
+
+    @Override
+    public List<String> tabComplete(CommandContext ctx) {
+        if (ctx.size() <= 1) {
+            String prefix = ctx.size() == 0 || ctx.arg(0) == null ? "" : ctx.arg(0).toLowerCase(Locale.ROOT);
+            return List.of("1m", "5m", "all", "reset", "dump").stream()
+                    .filter(s -> s.startsWith(prefix))
+                    .toList();
+        }
+        return List.of();
+    }
+}
@@ -15,9 +15,9 @@ import org.bukkit.inventory.ItemStack;
 import io.github.tootertutor.ModularPacks.ModularPacksPlugin;
 import io.github.tootertutor.ModularPacks.commands.CommandContext;
 import io.github.tootertutor.ModularPacks.commands.Subcommand;
+import io.github.tootertutor.ModularPacks.data.BackpackRepository.VoidedItemRecord;
+import io.github.tootertutor.ModularPacks.data.BackpackRepository.VoidedItemSummary;
 import io.github.tootertutor.ModularPacks.data.ItemStackCodec;
-import io.github.tootertutor.ModularPacks.data.SQLiteBackpackRepository.VoidedItemRecord;
-import io.github.tootertutor.ModularPacks.data.SQLiteBackpackRepository.VoidedItemSummary;
 import io.github.tootertutor.ModularPacks.item.BackpackItems;
 import net.kyori.adventure.text.Component;
 
@@ -74,6 +74,7 @@ public final class RecoverSubcommand implements Subcommand {
     private void handleVoid(CommandContext ctx) {
         if (ctx.size() < 3) {
             ctx.sender().sendMessage(Component.text("Usage: /backpack recover void <player|uuid> list [limit] [all]"));
+            ctx.sender().sendMessage(Component.text("   or: /backpack recover void <player|uuid> archive [limit] [all]"));
             ctx.sender().sendMessage(Component.text("   or: /backpack recover void <player|uuid> <id|latest> [receiver]"));
             return;
         }
@@ -85,21 +86,13 @@ public final class RecoverSubcommand implements Subcommand {
         }
 
         String action = ctx.arg(2);
+        if ("archive".equalsIgnoreCase(action)) {
+            handleVoidArchiveList(ctx, playerUuid);
+            return;
+        }
         if ("list".equalsIgnoreCase(action)) {
-            int limit = 20;
-            boolean includeRecovered = false;
-            for (int i = 3; i < ctx.size(); i++) {
-                String a = ctx.arg(i);
-                if (a == null)
-                    continue;
-                if ("all".equalsIgnoreCase(a) || "--all".equalsIgnoreCase(a) || "recovered".equalsIgnoreCase(a)) {
-                    includeRecovered = true;
-                    continue;
-                }
-                Integer n = parseInt(a);
-                if (n != null)
-                    limit = clamp(n, 1, 200);
-            }
+            int limit = listLimit(ctx);
+            boolean includeRecovered = listIncludesRecovered(ctx);
 
             List<VoidedItemSummary> rows = plugin.repo().listVoidedItemsByPlayer(playerUuid, limit, includeRecovered);
             if (rows.isEmpty()) {
@@ -110,11 +103,7 @@ public final class RecoverSubcommand implements Subcommand {
             ctx.sender().sendMessage(Component.text(
                     "Voided items for " + playerUuid + " (showing " + rows.size() + (includeRecovered ? ", including recovered" : ", unrecovered only") + "):"));
             for (VoidedItemSummary row : rows) {
-                String when = Instant.ofEpochMilli(row.createdAt).toString();
-                String status = row.recoveredAt == null ? "UNRECOVERED" : "RECOVERED";
-                String backpackShort = row.backpackId == null ? "?" : (row.backpackId.length() >= 8 ? row.backpackId.substring(0, 8) + "…" : row.backpackId);
-                ctx.sender().sendMessage(Component.text(
-                        " - #" + row.id + " [" + status + "] " + when + " " + row.itemType + " x" + row.amount + " (bp " + backpackShort + ")"));
+                sendRow(ctx.sender(), row.id, row.recoveredAt, row.createdAt, row.itemType, row.amount, row.backpackId);
             }
             return;
         }
@@ -137,6 +126,20 @@ public final class RecoverSubcommand implements Subcommand {
         }
 
         VoidedItemRecord rec = plugin.repo().getVoidedItem(id);
+        if (rec == null) {
+            // Retention may have moved it to the archive; search that off-thread.
+            final long archivedId = id;
+            ctx.sender().sendMessage(Component.text("#" + id + " is not in the database; searching the archive..."));
+            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+                VoidedItemRecord archived = plugin.voidArchive().find(archivedId);
+                Bukkit.getScheduler().runTask(plugin, () -> recoverVoided(ctx, playerUuid, archivedId, archived, true));
+            });
+            return;
+        }
+        recoverVoided(ctx, playerUuid, id, rec, false);
+    }
+
+    private void recoverVoided(CommandContext ctx, UUID playerUuid, long id, VoidedItemRecord rec, boolean archived) {
         if (rec == null) {
             ctx.sender().sendMessage(Component.text("Voided item not found: #" + id));
             return;
@@ -164,6 +167,16 @@ public final class RecoverSubcommand implements Subcommand {
             return;
         }
 
+        UUID recoveredByUuid = (ctx.sender() instanceof Player p) ? p.getUniqueId() : null;
+        String recoveredByName = ctx.sender().getName();
+        if (archived) {
+            // Re-inserted as recovered, so the archive copy can't be handed out twice.
+            if (!plugin.repo().restoreArchivedVoidedItem(rec, recoveredByUuid, recoveredByName)) {
+                ctx.sender().sendMessage(Component.text("That voided item was already recovered: #" + id));
+                return;
+            }
+        }
+
         ItemStack item = decoded[0].clone();
         Map<Integer, ItemStack> leftovers = receiver.getInventory().addItem(item);
         if (!leftovers.isEmpty()) {
@@ -172,13 +185,70 @@ public final class RecoverSubcommand implements Subcommand {
             }
         }
 
-        UUID recoveredByUuid = (ctx.sender() instanceof Player p) ? p.getUniqueId() : null;
-        String recoveredByName = ctx.sender().getName();
-        plugin.repo().markVoidedItemRecovered(id, recoveredByUuid, recoveredByName);
+        if (!archived)
+            plugin.repo().markVoidedItemRecovered(id, recoveredByUuid, recoveredByName);
 
         ctx.sender().sendMessage(Component.text("Recovered voided item #" + id + " to " + receiver.getName() + "."));
     }
 
+    private void handleVoidArchiveList(CommandContext ctx, UUID playerUuid) {
+        int limit = listLimit(ctx);
+        boolean includeRecovered = listIncludesRecovered(ctx);
+
+        ctx.sender().sendMessage(Component.text("Searching the void log archive for " + playerUuid + "..."));
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            List<VoidedItemRecord> found = plugin.voidArchive().searchByPlayer(playerUuid.toString(), limit,
+                    includeRecovered);
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                List<VoidedItemRecord> rows = new ArrayList<>();
+                for (VoidedItemRecord rec : found) {
+                    // restored from the archive since: the database row is the truth
+                    if (!includeRecovered && plugin.repo().getVoidedItem(rec.id) != null)
+                        continue;
+                    rows.add(rec);
+                }
+                if (rows.isEmpty()) {
+                    ctx.sender().sendMessage(Component.text("No archived voided items found for " + playerUuid + "."));
+                    return;
+                }
+                ctx.sender().sendMessage(Component.text("Archived voided items for " + playerUuid + " (showing "
+                        + rows.size() + (includeRecovered ? ", including recovered" : ", unrecovered only") + "):"));
+                for (VoidedItemRecord rec : rows) {
+                    sendRow(ctx.sender(), rec.id, rec.recoveredAt, rec.createdAt, rec.itemType, rec.amount,
+                            rec.backpackId);
+                }
+            });
+        });
+    }
+
+    private static void sendRow(CommandSender sender, long id, Long recoveredAt, long createdAt, String itemType,
+            int amount, String backpackId) {
+        String when = Instant.ofEpochMilli(createdAt).toString();
+        String status = recoveredAt == null ? "UNRECOVERED" : "RECOVERED";
+        String backpackShort = backpackId == null ? "?" : (backpackId.length() >= 8 ? backpackId.substring(0, 8) + "…" : backpackId);
+        sender.sendMessage(Component.text(
+                " - #" + id + " [" + status + "] " + when + " " + itemType + " x" + amount + " (bp " + backpackShort + ")"));
+    }
+
+    private static int listLimit(CommandContext ctx) {
+        int limit = 20;
+        for (int i = 3; i < ctx.size(); i++) {
+            Integer n = parseInt(ctx.arg(i));
+            if (n != null)
+                limit = clamp(n, 1, 200);
+        }
+        return limit;
+    }
+
+    private static boolean listIncludesRecovered(CommandContext ctx) {
+        for (int i = 3; i < ctx.size(); i++) {
+            String a = ctx.arg(i);
+            if ("all".equalsIgnoreCase(a) || "--all".equalsIgnoreCase(a) || "recovered".equalsIgnoreCase(a))
+                return true;
+        }
+        return false;
+    }
+
     private void handleBackpack(CommandContext ctx) {
         if (ctx.size() < 3) {
             ctx.sender().sendMessage(Component.text("Usage: /backpack recover backpack <player> <backpackUuid>"));
@@ -197,7 +267,7 @@ public final class RecoverSubcommand implements Subcommand {
             return;
         }
 
-        String typeId = plugin.repo().findBackpackType(backpackId);
+        String typeId = plugin.cache().findBackpackType(backpackId);
         if (typeId == null) {
             ctx.sender().sendMessage(Component.text("Backpack not found in DB: " + backpackId));
             return;
@@ -211,12 +281,13 @@ public final class RecoverSubcommand implements Subcommand {
             }
         }
 
-        plugin.repo().ensureBackpackExists(backpackId, typeId, target.getUniqueId(), target.getName());
+        plugin.cache().ensureBackpackExists(backpackId, typeId, target.getUniqueId(), target.getName());
         ctx.sender().sendMessage(Component.text("Recreated backpack item " + typeId + " (" + backpackId + ") for " + target.getName() + "."));
     }
 
     private void sendUsage(CommandSender sender) {
         sender.sendMessage(Component.text("Usage: /backpack recover void <player|uuid> list [limit] [all]"));
+        sender.sendMessage(Component.text("   or: /backpack recover void <player|uuid> archive [limit] [all]"));
         sender.sendMessage(Component.text("   or: /backpack recover void <player|uuid> <id|latest> [receiver]"));
         sender.sendMessage(Component.text("   or: /backpack recover backpack <player> <backpackUuid>"));
     }
@@ -236,7 +307,7 @@ public final class RecoverSubcommand implements Subcommand {
                 return filterPrefix(out, prefix);
             }
             if (ctx.size() == 3) {
-                return filterPrefix(List.of("list", "latest"), safeLower(ctx.arg(2)));
+                return filterPrefix(List.of("list", "archive", "latest"), safeLower(ctx.arg(2)));
             }
             if (ctx.size() == 4) {
                 String prefix = safeLower(ctx.arg(3));
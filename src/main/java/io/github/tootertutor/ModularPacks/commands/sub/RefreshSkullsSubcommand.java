@@ -170,7 +170,7 @@ public final class RefreshSkullsSubcommand implements Subcommand {
 
         String typeId = typeIdCache.get(backpackId);
         if (typeId == null) {
-            String db = plugin.repo().findBackpackType(backpackId);
+            String db = plugin.cache().findBackpackType(backpackId);
             if (db != null && !db.isBlank()) {
                 typeId = db;
             } else {
@@ -198,11 +198,12 @@ public final class RefreshSkullsSubcommand implements Subcommand {
 
         BackpackData data = dataCache.get(backpackId);
         if (data == null) {
-            data = plugin.repo().loadOrCreate(backpackId, type.id());
+            data = plugin.cache().loadOrCreate(backpackId, type.id());
             dataCache.put(backpackId, data);
         }
 
-        return backpackItems.refreshInPlace(backpackItem, type, backpackId, data, type.rows() * 9);
+        // explicit refresh: rebuild even if the lore fingerprint still matches
+        return backpackItems.refreshInPlace(backpackItem, type, backpackId, data, type.rows() * 9, true);
     }
 
     private boolean isBackpack(ItemStack item) {
@@ -12,7 +12,6 @@ import io.github.tootertutor.ModularPacks.ModularPacksPlugin;
 import io.github.tootertutor.ModularPacks.commands.CommandContext;
 import io.github.tootertutor.ModularPacks.commands.Subcommand;
 import io.github.tootertutor.ModularPacks.data.BackpackData;
-import io.github.tootertutor.ModularPacks.data.ItemStackCodec;
 import io.github.tootertutor.ModularPacks.item.BackpackItems;
 import io.github.tootertutor.ModularPacks.item.Keys;
 import net.kyori.adventure.text.Component;
@@ -78,18 +77,18 @@ public final class SetTypeSubcommand implements Subcommand {
             return;
         }
 
-        String currentDbType = plugin.repo().findBackpackType(backpackId);
+        String currentDbType = plugin.cache().findBackpackType(backpackId);
         String effectiveOldType = (currentDbType != null ? currentDbType : oldTypeId);
 
-        BackpackData data = plugin.repo().loadOrCreate(backpackId, effectiveOldType);
+        BackpackData data = plugin.cache().loadOrCreate(backpackId, effectiveOldType);
 
         int oldSize = plugin.cfg().findType(effectiveOldType) != null
                 ? plugin.cfg().findType(effectiveOldType).rows() * 9
-                : data.contentsBytes() == null ? 0 : ItemStackCodec.fromBytes(data.contentsBytes()).length;
+                : data.contents().length;
         int newSize = newType.rows() * 9;
 
         if (newSize < oldSize && !force) {
-            ItemStack[] logical = ItemStackCodec.fromBytes(data.contentsBytes());
+            ItemStack[] logical = data.contents();
             for (int i = newSize; i < logical.length; i++) {
                 if (logical[i] != null && !logical[i].getType().isAir()) {
                     ctx.sender().sendMessage(Component.text(
@@ -101,7 +100,7 @@ public final class SetTypeSubcommand implements Subcommand {
 
         // Update DB row type (contents preserved; resize handled by render/load).
         data.backpackType(newType.id());
-        plugin.repo().saveBackpack(data);
+        plugin.cache().saveBackpack(data);
         plugin.sessions().refreshLinkedBackpacksThrottled(backpackId, data);
 
         ItemStack updated = backpackItems.createExisting(backpackId, newType.id());
@@ -7,6 +7,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 import org.bukkit.NamespacedKey;
@@ -44,6 +45,46 @@ public final class ConfigManager {
     // Item types that cannot be inserted into backpacks (e.g. by Magnet)
     private Set<Material> backpackInsertBlacklist = Set.of();
 
+    // Storage (BackpackData write-back cache)
+    private int cacheMaxEntries = 2048;
+    private int cacheFlushIntervalTicks = 40;
+    private int cacheIdleEvictTicks = 1200;
+    private boolean prefetchAdjacentPages = false;
+    private boolean prefetchOnJoin = true;
+    private int prefetchMaxPerPlayer = 32;
+    private int prefetchQuitGraceTicks = 1200;
+    private int voidLogAggregateWindowMillis = 2000;
+    private int voidLogMaxQueued = 4096;
+    private int voidLogRetentionIntervalMinutes = 60;
+    private int voidLogRetentionChunkSize = 500;
+    private int voidLogMaxAgeDays = 90;
+    private int voidLogMaxRowsPerPlayer = 1000;
+    private int voidLogPurgeRecoveredAfterDays = 14;
+    private boolean voidLogArchive = true;
+    private boolean slotStorageEnabled = false;
+    private int slotCompactIntervalMinutes = 30;
+    private int slotCompactChunkSize = 200;
+    private String storageBackend = "SQLITE";
+    private boolean storageAllowBackendSwitch = false;
+    private int logCompactIntervalMinutes = 10;
+    private double logCompactGarbageRatio = 0.5;
+    private boolean logSync = true;
+
+    // Engine
+    private int engineCarrierResyncTicks = 200;
+    private int engineBudgetFeedingMicros = 500;
+    private int engineBudgetMagnetMicros = 2000;
+    private int engineBudgetRestockMicros = 1000;
+    private int engineBudgetFurnaceMicros = 1000;
+
+    // Perf metrics (/backpack perf)
+    private boolean perfEnabled = true;
+    private int perfCsvDumpIntervalSeconds = 0;
+
+    // Hash of every upgrade's id and display name (shown in backpack lore); same
+    // value for the same config across restarts
+    private int upgradeNamesHash;
+
     // Backpack types by name
     private final Map<String, BackpackTypeDef> types = new HashMap<>();
 
@@ -92,6 +133,51 @@ public final class ConfigManager {
         }
         backpackInsertBlacklist = Collections.unmodifiableSet(bl);
 
+        cacheMaxEntries = Math.max(16, cfg.getInt("modularpacks.Storage.Cache.MaxEntries", 2048));
+        cacheFlushIntervalTicks = Math.max(1, cfg.getInt("modularpacks.Storage.Cache.FlushIntervalTicks", 40));
+        cacheIdleEvictTicks = Math.max(20, cfg.getInt("modularpacks.Storage.Cache.IdleEvictTicks", 1200));
+        prefetchAdjacentPages = cfg.getBoolean("modularpacks.Storage.Cache.PrefetchAdjacentPages", false);
+        prefetchOnJoin = cfg.getBoolean("modularpacks.Storage.Cache.PrefetchOnJoin.Enabled", true);
+        prefetchMaxPerPlayer = Math.max(1, Math.min(256,
+                cfg.getInt("modularpacks.Storage.Cache.PrefetchOnJoin.MaxPerPlayer", 32)));
+        prefetchQuitGraceTicks = Math.max(0,
+                cfg.getInt("modularpacks.Storage.Cache.PrefetchOnJoin.QuitGraceTicks", 1200));
+        voidLogAggregateWindowMillis = Math.max(0,
+                cfg.getInt("modularpacks.Storage.VoidLog.AggregateWindowMillis", 2000));
+        voidLogMaxQueued = Math.max(64, cfg.getInt("modularpacks.Storage.VoidLog.MaxQueued", 4096));
+        voidLogRetentionIntervalMinutes = Math.max(0,
+                cfg.getInt("modularpacks.Storage.VoidLog.Retention.IntervalMinutes", 60));
+        voidLogRetentionChunkSize = Math.max(50, Math.min(5000,
+                cfg.getInt("modularpacks.Storage.VoidLog.Retention.ChunkSize", 500)));
+        voidLogMaxAgeDays = Math.max(0, cfg.getInt("modularpacks.Storage.VoidLog.Retention.MaxAgeDays", 90));
+        voidLogMaxRowsPerPlayer = Math.max(0,
+                cfg.getInt("modularpacks.Storage.VoidLog.Retention.MaxRowsPerPlayer", 1000));
+        voidLogPurgeRecoveredAfterDays = Math.max(0,
+                cfg.getInt("modularpacks.Storage.VoidLog.Retention.PurgeRecoveredAfterDays", 14));
+        voidLogArchive = cfg.getBoolean("modularpacks.Storage.VoidLog.Retention.Archive", true);
+        slotStorageEnabled = cfg.getBoolean("modularpacks.Storage.Slots.Enabled", false);
+        slotCompactIntervalMinutes = Math.max(0,
+                cfg.getInt("modularpacks.Storage.Slots.CompactIntervalMinutes", 30));
+        slotCompactChunkSize = Math.max(10, Math.min(5000,
+                cfg.getInt("modularpacks.Storage.Slots.ChunkSize", 200)));
+        storageBackend = "LOG".equalsIgnoreCase(cfg.getString("modularpacks.Storage.Backend", "SQLITE").trim())
+                ? "LOG"
+                : "SQLITE";
+        storageAllowBackendSwitch = cfg.getBoolean("modularpacks.Storage.AllowBackendSwitch", false);
+        logCompactIntervalMinutes = Math.max(0, cfg.getInt("modularpacks.Storage.Log.CompactIntervalMinutes", 10));
+        logCompactGarbageRatio = Math.max(0.1, Math.min(0.95,
+                cfg.getDouble("modularpacks.Storage.Log.CompactGarbageRatio", 0.5)));
+        logSync = cfg.getBoolean("modularpacks.Storage.Log.Sync", true);
+
+        engineCarrierResyncTicks = Math.max(20, cfg.getInt("modularpacks.Engine.CarrierResyncTicks", 200));
+        engineBudgetFeedingMicros = Math.max(0, cfg.getInt("modularpacks.Engine.TickBudgetMicros.Feeding", 500));
+        engineBudgetMagnetMicros = Math.max(0, cfg.getInt("modularpacks.Engine.TickBudgetMicros.Magnet", 2000));
+        engineBudgetRestockMicros = Math.max(0, cfg.getInt("modularpacks.Engine.TickBudgetMicros.Restock", 1000));
+        engineBudgetFurnaceMicros = Math.max(0, cfg.getInt("modularpacks.Engine.TickBudgetMicros.Furnace", 1000));
+
+        perfEnabled = cfg.getBoolean("modularpacks.Perf.Enabled", true);
+        perfCsvDumpIntervalSeconds = Math.max(0, cfg.getInt("modularpacks.Perf.CsvDumpIntervalSeconds", 0));
+
         // Backpack types
         ConfigurationSection typesSec = cfg.getConfigurationSection("BackpackTypes");
         if (typesSec != null) {
@@ -148,6 +234,12 @@ public final class ConfigManager {
                                 secondaryAction, ScreenType.from(screenType)));
             }
         }
+
+        int names = 0;
+        for (Map.Entry<String, UpgradeDef> e : upgrades.entrySet()) {
+            names += 31 * e.getKey().hashCode() + Objects.hashCode(e.getValue().displayName());
+        }
+        upgradeNamesHash = names;
     }
 
     public boolean resizeGui() {
@@ -178,6 +270,137 @@ public final class ConfigManager {
         return backpackInsertBlacklist;
     }
 
+    public int cacheMaxEntries() {
+        return cacheMaxEntries;
+    }
+
+    public int cacheFlushIntervalTicks() {
+        return cacheFlushIntervalTicks;
+    }
+
+    public int cacheIdleEvictTicks() {
+        return cacheIdleEvictTicks;
+    }
+
+    public boolean prefetchAdjacentPages() {
+        return prefetchAdjacentPages;
+    }
+
+    public boolean prefetchOnJoin() {
+        return prefetchOnJoin;
+    }
+
+    public int prefetchMaxPerPlayer() {
+        return prefetchMaxPerPlayer;
+    }
+
+    public int prefetchQuitGraceTicks() {
+        return prefetchQuitGraceTicks;
+    }
+
+    public int upgradeNamesHash() {
+        return upgradeNamesHash;
+    }
+
+    public int voidLogAggregateWindowMillis() {
+        return voidLogAggregateWindowMillis;
+    }
+
+    public int voidLogMaxQueued() {
+        return voidLogMaxQueued;
+    }
+
+    public int voidLogRetentionIntervalMinutes() {
+        return voidLogRetentionIntervalMinutes;
+    }
+
+    public int voidLogRetentionChunkSize() {
+        return voidLogRetentionChunkSize;
+    }
+
+    public int voidLogMaxAgeDays() {
+        return voidLogMaxAgeDays;
+    }
+
+    public int voidLogMaxRowsPerPlayer() {
+        return voidLogMaxRowsPerPlayer;
+    }
+
+    public int voidLogPurgeRecoveredAfterDays() {
+        return voidLogPurgeRecoveredAfterDays;
+    }
+
+    public boolean voidLogArchive() {
+        return voidLogArchive;
+    }
+
+    public boolean slotStorageEnabled() {
+        return slotStorageEnabled;
+    }
+
+    public int slotCompactIntervalMinutes() {
+        return slotCompactIntervalMinutes;
+    }
+
+    public int slotCompactChunkSize() {
+        return slotCompactChunkSize;
+    }
+
+    /**
+     * SQLITE or LOG. Only read at startup.
+     */
+    public String storageBackend() {
+        return storageBackend;
+    }
+
+    /**
+     * Start on Backend even if the other backend's store has data. Only read at
+     * startup.
+     */
+    public boolean storageAllowBackendSwitch() {
+        return storageAllowBackendSwitch;
+    }
+
+    public int logCompactIntervalMinutes() {
+        return logCompactIntervalMinutes;
+    }
+
+    public double logCompactGarbageRatio() {
+        return logCompactGarbageRatio;
+    }
+
+    public boolean logSync() {
+        return logSync;
+    }
+
+    public int engineCarrierResyncTicks() {
+        return engineCarrierResyncTicks;
+    }
+
+    public int engineBudgetFeedingMicros() {
+        return engineBudgetFeedingMicros;
+    }
+
+    public int engineBudgetMagnetMicros() {
+        return engineBudgetMagnetMicros;
+    }
+
+    public int engineBudgetRestockMicros() {
+        return engineBudgetRestockMicros;
+    }
+
+    public int engineBudgetFurnaceMicros() {
+        return engineBudgetFurnaceMicros;
+    }
+
+    public boolean perfEnabled() {
+        return perfEnabled;
+    }
+
+    public int perfCsvDumpIntervalSeconds() {
+        return perfCsvDumpIntervalSeconds;
+    }
+
     public boolean isAllowedInBackpack(ItemStack stack) {
         if (stack == null || stack.getType().isAir())
             return true;
@@ -11,6 +11,7 @@ public final class LangManager {
 
     private final ModularPacksPlugin plugin;
     private YamlConfiguration lang;
+    private int contentHash;
 
     public LangManager(ModularPacksPlugin plugin) {
         this.plugin = plugin;
@@ -22,6 +23,14 @@ public final class LangManager {
             plugin.saveResource("lang/en_us.yml", false);
         }
         this.lang = YamlConfiguration.loadConfiguration(f);
+        this.contentHash = lang.saveToString().hashCode();
+    }
+
+    /**
+     * Hash of the loaded lang file; same value for the same file across restarts.
+     */
+    public int contentHash() {
+        return contentHash;
     }
 
     public String get(String path, String fallback) {
@@ -42,7 +42,7 @@ public final class Placeholders {
             return lore == null ? List.of() : lore;
 
         if (type == null) {
-            String typeId = backpackId == null ? null : plugin.repo().findBackpackType(backpackId);
+            String typeId = backpackId == null ? null : plugin.cache().findBackpackType(backpackId);
             type = typeId == null ? null : plugin.cfg().findType(typeId);
         }
 
@@ -50,10 +50,10 @@ public final class Placeholders {
 
         BackpackData data = null;
         if (backpackId != null) {
-            String effectiveType = type != null ? type.id() : plugin.repo().findBackpackType(backpackId);
+            String effectiveType = type != null ? type.id() : plugin.cache().findBackpackType(backpackId);
             if (effectiveType == null || effectiveType.isBlank())
                 effectiveType = "Unknown";
-            data = plugin.repo().loadOrCreate(backpackId, effectiveType);
+            data = plugin.cache().loadOrCreate(backpackId, effectiveType);
         }
 
         return expandBackpackLore(plugin, type, backpackId, data, totalSlots, lore);
@@ -90,18 +90,10 @@ public final class Placeholders {
         List<String> installedModuleLines = new ArrayList<>();
 
         if (data != null) {
-            ItemStack[] decoded = ItemStackCodec.fromBytes(data.contentsBytes());
-
-            int effectiveTotalSlots = totalSlots > 0 ? totalSlots : decoded.length;
-
-            int limit = Math.min(decoded.length, Math.max(0, effectiveTotalSlots));
-            for (int i = 0; i < limit; i++) {
-                ItemStack it = decoded[i];
-                if (it == null || it.getType().isAir())
-                    continue;
-                usedSlots++;
-                itemCount += Math.max(0, it.getAmount());
-            }
+            // counted from stored bytes where a page was never opened (no decode)
+            BackpackData.Usage usage = data.usage(totalSlots);
+            usedSlots = usage.usedSlots();
+            itemCount = usage.itemCount();
 
             installedModules = data.installedModules().size();
 
@@ -0,0 +1,473 @@
+package io.github.tootertutor.ModularPacks.data;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Key/value store as one append-only file plus an in-memory index of where
+ * each key's newest value lives (used by {@link LogBackpackRepository}).
+ * - every write appends records (op, key length, value length, key, value,
+ * CRC32); an overwritten or deleted key leaves its old record behind as garbage
+ * - open() rebuilds the index by scanning the file; a torn or corrupt tail
+ * (crash mid-append) is cut off at the last good record
+ * - compact() rewrites only live records to a new file and swaps it in; writes
+ * and reads keep going while the copy (and its sync) runs
+ * - locks: writeLock serializes appends, which write and sync the file before
+ * taking lock just to publish the new index entries; get() holds lock only for
+ * the index lookup and reads positionally, so it never waits on a write or a
+ * sync. Order: compactLock, writeLock, lock
+ */
+final class AppendOnlyLog {
+
+    private static final int MAGIC = 0x4D504C31; // "MPL1"
+    private static final int FILE_HEADER = 4;
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final int RECORD_HEADER = 1 + 2 + 4; // op, key length, value length
+    private static final int RECORD_TRAILER = 4; // CRC32 of header + key + value
+    private static final int MAX_VALUE = 1 << 28;
+
+    /**
+     * One key to write; a null value deletes the key.
+     */
+    record Entry(String key, byte[] value) {
+    }
+
+    private record Loc(long valueOffset, int valueLength, int recordLength) {
+    }
+
+    private final File file;
+    private final boolean sync;
+
+    private final Object lock = new Object(); // channel, index, size, liveBytes
+    private final Object writeLock = new Object(); // one append (or compaction swap) at a time
+    private final Object compactLock = new Object();
+    private FileChannel channel;
+    private Map<String, Loc> index = new HashMap<>();
+    private long size; // end of the last good record
+    private long liveBytes; // records the index still points at
+
+    AppendOnlyLog(File file, boolean sync) {
+        this.file = file;
+        this.sync = sync;
+    }
+
+    /**
+     * Whether file holds anything past its header (live or not); the file isn't
+     * opened for writing.
+     */
+    static boolean hasRecords(File file) {
+        return file.isFile() && file.length() > FILE_HEADER;
+    }
+
+    /**
+     * Opens (or creates) the file and indexes it.
+     *
+     * @return number of bytes cut off a damaged tail
+     */
+    long open() throws IOException {
+        File dir = file.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs())
+            throw new IOException("Could not create " + dir);
+        // left over from a compaction that didn't finish; the original is intact
+        Files.deleteIfExists(compactFile().toPath());
+
+        synchronized (lock) {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            if (channel.size() == 0L) {
+                ByteBuffer header = ByteBuffer.allocate(FILE_HEADER).putInt(MAGIC).flip();
+                writeFully(channel, header, 0L);
+                channel.force(true);
+            }
+
+            long end = scan();
+            long cut = channel.size() - end;
+            if (cut > 0L) {
+                channel.truncate(end);
+                channel.force(true);
+            }
+            size = end;
+            return cut;
+        }
+    }
+
+    void close() throws IOException {
+        synchronized (compactLock) {
+            synchronized (writeLock) {
+                synchronized (lock) {
+                    if (channel != null)
+                        channel.close();
+                    channel = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Newest value for key, or null.
+     */
+    byte[] get(String key) throws IOException {
+        while (true) {
+            FileChannel ch;
+            Loc loc;
+            synchronized (lock) {
+                ch = openChannel();
+                loc = index.get(key);
+            }
+            if (loc == null)
+                return null;
+            try {
+                byte[] out = new byte[loc.valueLength()];
+                readFully(ch, ByteBuffer.wrap(out), loc.valueOffset());
+                return out;
+            } catch (ClosedByInterruptException ex) {
+                // the next caller reopens it
+                throw ex;
+            } catch (ClosedChannelException swapped) {
+                // compaction swapped the file under us; look the key up again
+            }
+        }
+    }
+
+    /**
+     * Keys that currently have a value, in no particular order.
+     */
+    List<String> keys() {
+        synchronized (lock) {
+            return new ArrayList<>(index.keySet());
+        }
+    }
+
+    /**
+     * Appends every entry with one write (and one sync), then makes them visible
+     * to get() together. Only the publishing step takes the index lock.
+     */
+    void write(List<Entry> batch) throws IOException {
+        if (batch == null || batch.isEmpty())
+            return;
+
+        List<byte[]> keys = new ArrayList<>(batch.size());
+        long total = 0L;
+        for (Entry e : batch) {
+            byte[] key = e.key().getBytes(StandardCharsets.UTF_8);
+            if (key.length > 0xFFFF)
+                throw new IOException("Key too long: " + e.key());
+            int valueLength = e.value() == null ? 0 : e.value().length;
+            if (valueLength > MAX_VALUE)
+                throw new IOException("Value too large for " + e.key() + ": " + valueLength);
+            keys.add(key);
+            total += RECORD_HEADER + key.length + valueLength + RECORD_TRAILER;
+        }
+        if (total > Integer.MAX_VALUE - 64)
+            throw new IOException("Batch too large: " + total + " bytes");
+
+        ByteBuffer buf = ByteBuffer.allocate((int) total);
+        CRC32 crc = new CRC32();
+        for (int i = 0; i < batch.size(); i++) {
+            byte[] value = batch.get(i).value();
+            int start = buf.position();
+            buf.put(value == null ? DELETE : PUT);
+            buf.putShort((short) keys.get(i).length);
+            buf.putInt(value == null ? 0 : value.length);
+            buf.put(keys.get(i));
+            if (value != null)
+                buf.put(value);
+            crc.reset();
+            crc.update(buf.array(), start, buf.position() - start);
+            buf.putInt((int) crc.getValue());
+        }
+        buf.flip();
+
+        synchronized (writeLock) {
+            // size only moves under writeLock, so base stays valid; nothing past it is
+            // visible until published below
+            long base;
+            while (true) {
+                FileChannel ch;
+                synchronized (lock) {
+                    ch = openChannel();
+                    base = size;
+                }
+                try {
+                    writeFully(ch, buf, base);
+                    if (sync)
+                        ch.force(false);
+                    break;
+                } catch (ClosedByInterruptException ex) {
+                    throw ex;
+                } catch (ClosedChannelException closedByReader) {
+                    // an interrupted reader closed the channel; write the same bytes again
+                    buf.rewind();
+                }
+            }
+
+            synchronized (lock) {
+                size = base + total;
+                long offset = base;
+                for (int i = 0; i < batch.size(); i++) {
+                    Entry e = batch.get(i);
+                    int keyLength = keys.get(i).length;
+                    int valueLength = e.value() == null ? 0 : e.value().length;
+                    int recordLength = RECORD_HEADER + keyLength + valueLength + RECORD_TRAILER;
+                    if (e.value() == null)
+                        drop(index.remove(e.key()));
+                    else
+                        put(e.key(), new Loc(offset + RECORD_HEADER + keyLength, valueLength, recordLength));
+                    offset += recordLength;
+                }
+            }
+        }
+    }
+
+    /**
+     * Bytes past the header that no live key points at.
+     */
+    long garbageBytes() {
+        synchronized (lock) {
+            return Math.max(0L, size - FILE_HEADER - liveBytes);
+        }
+    }
+
+    long sizeBytes() {
+        synchronized (lock) {
+            return size;
+        }
+    }
+
+    /**
+     * Rewrites the file with only live records. Writes that land while live
+     * records are being copied are carried over at the end, with appends held
+     * off; reads only wait for the final swap.
+     *
+     * @return bytes reclaimed
+     */
+    long compact() throws IOException {
+        synchronized (compactLock) {
+            FileChannel src;
+            Map<String, Loc> live;
+            long copiedUpTo;
+            synchronized (lock) {
+                src = openChannel();
+                live = new HashMap<>(index);
+                copiedUpTo = size;
+            }
+
+            File tmp = compactFile();
+            try (FileChannel out = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                long pos = writeFully(out, ByteBuffer.allocate(FILE_HEADER).putInt(MAGIC).flip(), 0L);
+
+                // copy whole records so their CRC comes along; no lock, src only grows
+                Map<String, Loc> moved = new HashMap<>(live.size() * 2);
+                for (Map.Entry<String, Loc> e : live.entrySet()) {
+                    Loc loc = e.getValue();
+                    long recordStart = loc.valueOffset() + loc.valueLength() + RECORD_TRAILER - loc.recordLength();
+                    ByteBuffer record = ByteBuffer.allocate(loc.recordLength());
+                    readFully(src, record, recordStart);
+                    record.flip();
+                    long newStart = pos;
+                    pos = writeFully(out, record, pos);
+                    moved.put(e.getKey(),
+                            new Loc(newStart + (loc.valueOffset() - recordStart), loc.valueLength(),
+                                    loc.recordLength()));
+                }
+                // the bulk of the sync, with nothing held
+                out.force(true);
+
+                synchronized (writeLock) {
+                    // no appends from here on; size and index only change under writeLock
+                    long oldSize;
+                    Map<String, Loc> current;
+                    synchronized (lock) {
+                        if (channel != src)
+                            throw new ClosedChannelException();
+                        oldSize = size;
+                        current = index;
+                    }
+
+                    // records appended since the snapshot, verbatim
+                    long tailStart = pos;
+                    long tail = oldSize - copiedUpTo;
+                    long done = 0L;
+                    out.position(tailStart);
+                    while (done < tail) {
+                        done += src.transferTo(copiedUpTo + done, tail - done, out);
+                    }
+                    long newSize = tailStart + tail;
+                    if (tail > 0L)
+                        out.force(true);
+
+                    Map<String, Loc> rebuilt = new HashMap<>(current.size() * 2);
+                    long newLive = 0L;
+                    for (Map.Entry<String, Loc> e : current.entrySet()) {
+                        Loc loc = e.getValue();
+                        Loc now = loc.equals(live.get(e.getKey())) ? moved.get(e.getKey())
+                                : new Loc(loc.valueOffset() - copiedUpTo + tailStart, loc.valueLength(),
+                                        loc.recordLength());
+                        rebuilt.put(e.getKey(), now);
+                        newLive += now.recordLength();
+                    }
+
+                    synchronized (lock) {
+                        if (channel != src)
+                            throw new ClosedChannelException();
+
+                        // some platforms can't replace a file that is still open
+                        src.close();
+                        try {
+                            move(tmp, file);
+                        } catch (IOException ex) {
+                            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ,
+                                    StandardOpenOption.WRITE);
+                            throw ex;
+                        }
+                        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+                        index = rebuilt;
+                        size = newSize;
+                        liveBytes = newLive;
+                        return oldSize - newSize;
+                    }
+                }
+            } finally {
+                Files.deleteIfExists(tmp.toPath());
+            }
+        }
+    }
+
+    /*
+     * ======================================================
+     * Internals
+     * ======================================================
+     */
+
+    /**
+     * Indexes every good record.
+     *
+     * @return offset just past the last good record
+     */
+    private long scan() throws IOException {
+        index = new HashMap<>();
+        liveBytes = 0L;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC)
+                throw new IOException(file + " is not a ModularPacks log");
+
+            long pos = FILE_HEADER;
+            CRC32 crc = new CRC32();
+            byte[] header = new byte[RECORD_HEADER];
+            while (true) {
+                try {
+                    in.readFully(header);
+                } catch (EOFException end) {
+                    return pos;
+                }
+                ByteBuffer h = ByteBuffer.wrap(header);
+                byte op = h.get();
+                int keyLength = h.getShort() & 0xFFFF;
+                int valueLength = h.getInt();
+                if ((op != PUT && op != DELETE) || valueLength < 0 || valueLength > MAX_VALUE)
+                    return pos;
+
+                byte[] key = new byte[keyLength];
+                byte[] value = new byte[valueLength];
+                int stored;
+                try {
+                    in.readFully(key);
+                    in.readFully(value);
+                    stored = in.readInt();
+                } catch (EOFException torn) {
+                    return pos;
+                }
+                crc.reset();
+                crc.update(header);
+                crc.update(key);
+                crc.update(value);
+                if ((int) crc.getValue() != stored)
+                    return pos;
+
+                int recordLength = RECORD_HEADER + keyLength + valueLength + RECORD_TRAILER;
+                String k = new String(key, StandardCharsets.UTF_8);
+                if (op == DELETE)
+                    drop(index.remove(k));
+                else
+                    put(k, new Loc(pos + RECORD_HEADER + keyLength, valueLength, recordLength));
+                pos += recordLength;
+            }
+        }
+    }
+
+    private void put(String key, Loc loc) {
+        drop(index.put(key, loc));
+        liveBytes += loc.recordLength();
+    }
+
+    private void drop(Loc old) {
+        if (old != null)
+            liveBytes -= old.recordLength();
+    }
+
+    /**
+     * The current channel, reopened if an interrupted read or write closed it
+     * (FileChannel does that). Call with the lock held.
+     */
+    private FileChannel openChannel() throws IOException {
+        if (channel == null)
+            throw new ClosedChannelException();
+        if (!channel.isOpen())
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return channel;
+    }
+
+    private File compactFile() {
+        return new File(file.getPath() + ".compact");
+    }
+
+    private static void move(File from, File to) throws IOException {
+        try {
+            Files.move(from.toPath(), to.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @return position after the written bytes
+     */
+    private static long writeFully(FileChannel ch, ByteBuffer buf, long pos) throws IOException {
+        while (buf.hasRemaining()) {
+            pos += ch.write(buf, pos);
+        }
+        return pos;
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer buf, long pos) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = ch.read(buf, pos);
+            if (n < 0)
+                throw new EOFException("Unexpected end of log at " + pos);
+            pos += n;
+        }
+    }
+}
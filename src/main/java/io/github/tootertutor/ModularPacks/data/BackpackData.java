@@ -1,12 +1,26 @@
 package io.github.tootertutor.ModularPacks.data;
 
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
+import org.bukkit.inventory.ItemStack;
+
+import io.github.tootertutor.ModularPacks.modules.InstalledModuleIndex;
+import io.github.tootertutor.ModularPacks.perf.Perf;
+
 /**
  * Backpack persistent state (per backpack UUID).
- * - contents: full logical storage (rows*9), NOT just current page
+ * - contents: full logical storage (rows*9), NOT just current page. Kept as a
+ * live ItemStack[] once decoded
+ * - every slot's serialized bytes are kept next to it; only slots marked
+ * stale are re-serialized, and only slots whose bytes actually changed are
+ * reported to the persistence layer (backpack_slots delta saves)
+ * - slots are decoded on first use; a paginated menu only decodes the page it
+ * shows (see {@link #contentsOfSize(int, int, int)}), and {@link #usage(int)}
+ * counts stacks without decoding them
  * - installedModules: slotIndex (0..upgradeSlots-1) -> moduleId
  * - installedSnapshots: moduleId -> serialized ItemStack snapshot (fallback
  * safety)
@@ -16,12 +30,22 @@ public final class BackpackData {
     private final UUID backpackId;
     private String backpackType;
 
-    private byte[] contentsBytes; // ItemStack[] bytes
+    private byte[] contentsBytes; // ItemStack[] bytes as loaded; split into slotBytes on first use
+    private byte[][] slotBytes; // per-slot bytes (null = empty) as of the last refresh
+    private ItemStack[] contents; // decoded view, built on first use
+    private final BitSet staleSlots = new BitSet(); // contents may differ from slotBytes
+    private final BitSet changedSlots = new BitSet(); // slotBytes changed since the last snapshot
+    private final BitSet undecodedSlots = new BitSet(); // contents[i] not yet decoded from slotBytes[i]
+    private final BitSet decodingSlots = new BitSet(); // handed out by undecodedBytes, result not back yet
+    private int contentsVersion;
+    private int[] peekedAmounts; // stack size read from slotBytes of undecoded slots; 0 = not read, -1 = unreadable
 
     private final Map<Integer, UUID> installedModules = new HashMap<>();
     private final Map<UUID, byte[]> installedSnapshots = new HashMap<>();
     private final Map<UUID, byte[]> moduleStates = new HashMap<>();
 
+    private InstalledModuleIndex moduleIndex; // derived, never persisted
+
     public BackpackData(UUID backpackId, String backpackType) {
         this.backpackId = backpackId;
         this.backpackType = backpackType;
@@ -39,12 +63,361 @@ public final class BackpackData {
         this.backpackType = type;
     }
 
+    /**
+     * Whole contents as one {@link ItemStackCodec} payload. Stale slots are
+     * serialized first; on a snapshot this only joins bytes.
+     */
     public byte[] contentsBytes() {
-        return contentsBytes;
+        if (slotBytes == null && staleSlots.isEmpty())
+            return contentsBytes;
+        refreshSlots();
+        return ItemStackCodec.joinSlots(slotBytes);
     }
 
     public void contentsBytes(byte[] bytes) {
         this.contentsBytes = bytes;
+        this.slotBytes = null;
+        this.contents = null;
+        this.staleSlots.clear();
+        this.changedSlots.clear();
+        this.undecodedSlots.clear();
+        this.decodingSlots.clear();
+        this.peekedAmounts = null;
+        this.contentsVersion++;
+    }
+
+    /**
+     * Loads contents from per-slot rows (backpack_slots); the array length is the
+     * logical size.
+     */
+    public void slotBytes(byte[][] slots) {
+        this.contentsBytes = null;
+        this.slotBytes = slots == null ? new byte[0][] : slots;
+        this.contents = null;
+        this.staleSlots.clear();
+        this.changedSlots.clear();
+        this.undecodedSlots.clear();
+        this.decodingSlots.clear();
+        this.peekedAmounts = null;
+        this.contentsVersion++;
+    }
+
+    /**
+     * Live logical contents. Callers that mutate the array (or the stacks in it)
+     * must call {@link #markContentsDirty()} or {@link #markSlotsDirty}
+     * afterwards.
+     */
+    public ItemStack[] contents() {
+        return decoded(0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Live contents resized to exactly {@code size} slots (extra slots are
+     * dropped, missing ones are empty).
+     */
+    public ItemStack[] contentsOfSize(int size) {
+        ItemStack[] current = contents();
+        if (current.length == size)
+            return current;
+        ItemStack[] resized = new ItemStack[Math.max(0, size)];
+        System.arraycopy(current, 0, resized, 0, Math.min(current.length, resized.length));
+        contents(resized);
+        return resized;
+    }
+
+    /**
+     * Same live array as {@link #contentsOfSize(int)}, but only slots
+     * {@code from} (inclusive) to {@code to} (exclusive) are guaranteed to be
+     * decoded. Entries outside the range may still be null placeholders for
+     * stored stacks, so callers must not read or write them.
+     */
+    public ItemStack[] contentsOfSize(int size, int from, int to) {
+        ItemStack[] current = decoded(from, to);
+        if (current.length == size)
+            return current;
+        // resizing copies every slot
+        return contentsOfSize(size);
+    }
+
+    /**
+     * Same live array as {@link #contentsOfSize(int)} without decoding anything
+     * new: slots that aren't decoded yet read as null.
+     */
+    public ItemStack[] decodedContentsOfSize(int size) {
+        return contentsOfSize(size, 0, 0);
+    }
+
+    public void contents(ItemStack[] items) {
+        // the old slot bytes are the baseline for what changed
+        ensureSlotBytes();
+        this.contents = items == null ? new ItemStack[0] : items;
+        this.undecodedSlots.clear();
+        this.staleSlots.set(0, this.contents.length);
+        this.contentsVersion++;
+    }
+
+    /**
+     * Serialized bytes of the slots in range that aren't decoded yet and aren't
+     * already handed out (null for the rest), for decoding off the main thread;
+     * null if there's nothing left to decode. The slots stay handed out until
+     * {@link #installDecoded} or {@link #abandonDecode} gets the same array.
+     */
+    public byte[][] undecodedBytes(int from, int to) {
+        if (contents == null)
+            decoded(0, 0);
+        from = Math.max(0, from);
+        to = Math.min(contents.length, to);
+
+        byte[][] out = null;
+        for (int i = undecodedSlots.nextSetBit(from); i >= 0 && i < to; i = undecodedSlots.nextSetBit(i + 1)) {
+            if (decodingSlots.get(i))
+                continue;
+            if (out == null)
+                out = new byte[to - from][];
+            out[i - from] = slotBytes[i];
+            decodingSlots.set(i);
+        }
+        return out;
+    }
+
+    /**
+     * Installs stacks decoded off-thread from {@link #undecodedBytes}. Slots
+     * that were decoded or reloaded in the meantime are left alone.
+     */
+    public void installDecoded(int from, byte[][] source, ItemStack[] decoded) {
+        if (contents == null || source == null || decoded == null)
+            return;
+        abandonDecode(from, source);
+        int n = Math.min(source.length, decoded.length);
+        for (int k = 0; k < n; k++) {
+            int i = from + k;
+            if (source[k] == null || i >= contents.length || !undecodedSlots.get(i))
+                continue;
+            // same array instance = the slot wasn't reloaded since
+            if (slotBytes[i] != source[k])
+                continue;
+            contents[i] = decoded[k];
+            undecodedSlots.clear(i);
+        }
+    }
+
+    /**
+     * Hands back slots from {@link #undecodedBytes} whose decode failed, so a
+     * later call can hand them out again.
+     */
+    public void abandonDecode(int from, byte[][] source) {
+        if (slotBytes == null || source == null)
+            return;
+        for (int k = 0; k < source.length; k++) {
+            int i = from + k;
+            // a reload since then already reset the slot
+            if (source[k] != null && i < slotBytes.length && slotBytes[i] == source[k])
+                decodingSlots.clear(i);
+        }
+    }
+
+    /**
+     * Any slot may have changed.
+     */
+    public void markContentsDirty() {
+        if (contents == null)
+            return;
+        staleSlots.set(0, contents.length);
+        contentsVersion++;
+    }
+
+    /**
+     * Only slots {@code from} (inclusive) to {@code to} (exclusive) changed.
+     */
+    public void markSlotsDirty(int from, int to) {
+        if (contents == null)
+            return;
+        from = Math.max(0, from);
+        to = Math.min(contents.length, to);
+        if (from >= to)
+            return;
+        staleSlots.set(from, to);
+        contentsVersion++;
+    }
+
+    public void markSlotDirty(int slot) {
+        markSlotsDirty(slot, slot + 1);
+    }
+
+    public record Usage(int usedSlots, int itemCount) {
+    }
+
+    /**
+     * Non-empty slots and total item count among the first {@code totalSlots}
+     * slots (all of them if 0 or less). Slots that aren't decoded yet are counted
+     * from their stored bytes; one is only decoded if its bytes can't be read
+     * that way.
+     */
+    public Usage usage(int totalSlots) {
+        ItemStack[] live = decoded(0, 0);
+        int limit = totalSlots > 0 ? Math.min(live.length, totalSlots) : live.length;
+        int used = 0;
+        int count = 0;
+        for (int i = 0; i < limit; i++) {
+            int amount = undecodedSlots.get(i) ? peekAmount(i) : 0;
+            if (amount < 0) {
+                decoded(i, i + 1);
+                amount = 0;
+            }
+            if (amount == 0) {
+                ItemStack it = live[i];
+                if (it == null || it.getType().isAir())
+                    continue;
+                amount = Math.max(0, it.getAmount());
+            }
+            used++;
+            count += amount;
+        }
+        return new Usage(used, count);
+    }
+
+    private int peekAmount(int slot) {
+        if (peekedAmounts == null || peekedAmounts.length != slotBytes.length)
+            peekedAmounts = new int[slotBytes.length];
+        int amount = peekedAmounts[slot];
+        if (amount == 0) {
+            amount = ItemStackCodec.peekAmount(slotBytes[slot]);
+            if (amount <= 0)
+                amount = -1;
+            peekedAmounts[slot] = amount;
+        }
+        return amount;
+    }
+
+    /**
+     * Bumped on every contents change; lets callers skip work for an unchanged
+     * backpack.
+     */
+    public int contentsVersion() {
+        return contentsVersion;
+    }
+
+    /**
+     * Live array with slots {@code from}..{@code to} decoded; the array itself
+     * is built on first use, with every stored slot still pending.
+     */
+    private ItemStack[] decoded(int from, int to) {
+        if (contents == null) {
+            ensureSlotBytes();
+            if (contents == null) {
+                contents = new ItemStack[slotBytes.length];
+                for (int i = 0; i < slotBytes.length; i++) {
+                    if (slotBytes[i] != null)
+                        undecodedSlots.set(i);
+                }
+            }
+        }
+
+        from = Math.max(0, from);
+        to = Math.min(contents.length, to);
+        int first = undecodedSlots.nextSetBit(from);
+        if (first < 0 || first >= to)
+            return contents;
+
+        long t0 = Perf.start();
+        long bytes = 0;
+        for (int i = first; i >= 0 && i < to; i = undecodedSlots.nextSetBit(i + 1)) {
+            contents[i] = ItemStackCodec.itemFromBytes(slotBytes[i]);
+            bytes += slotBytes[i].length;
+        }
+        undecodedSlots.clear(from, to);
+        Perf.CODEC_DECODE.stop(t0);
+        Perf.CODEC_DECODE_BYTES.record(bytes);
+        return contents;
+    }
+
+    /**
+     * Splits the loaded payload into slot bytes (no item is decoded).
+     */
+    private void ensureSlotBytes() {
+        if (slotBytes != null)
+            return;
+        slotBytes = ItemStackCodec.splitSlots(contentsBytes);
+        if (slotBytes == null) {
+            // legacy payload: decode once; every slot is serialized on the next refresh
+            contents = ItemStackCodec.fromBytes(contentsBytes);
+            slotBytes = new byte[contents.length][];
+            staleSlots.set(0, contents.length);
+        }
+        contentsBytes = null;
+    }
+
+    /**
+     * Re-serializes stale slots and records which ones really changed. Must run
+     * on the main thread unless nothing is stale (snapshots never are).
+     */
+    private void refreshSlots() {
+        ensureSlotBytes();
+        if (contents == null)
+            return;
+        if (slotBytes.length != contents.length)
+            slotBytes = Arrays.copyOf(slotBytes, contents.length);
+        if (staleSlots.isEmpty())
+            return;
+
+        long t0 = Perf.start();
+        int encoded = 0;
+        for (int i = staleSlots.nextSetBit(0); i >= 0 && i < contents.length; i = staleSlots.nextSetBit(i + 1)) {
+            // never decoded, so never changed; its bytes are still current
+            if (undecodedSlots.get(i))
+                continue;
+            byte[] raw = ItemStackCodec.itemToBytes(contents[i]);
+            encoded++;
+            if (!Arrays.equals(raw, slotBytes[i])) {
+                slotBytes[i] = raw;
+                changedSlots.set(i);
+            }
+        }
+        staleSlots.clear();
+        Perf.CODEC_ENCODE.stop(t0);
+        Perf.SLOTS_ENCODED.record(encoded);
+    }
+
+    /*
+     * ======================================================
+     * Snapshots (BackpackDataCache -> BackpackWriteQueue)
+     * ======================================================
+     */
+
+    /**
+     * Number of logical slots in a snapshot.
+     */
+    int slotCount() {
+        return slotBytes == null ? 0 : slotBytes.length;
+    }
+
+    byte[] slotBytes(int slot) {
+        return slotBytes == null || slot >= slotBytes.length ? null : slotBytes[slot];
+    }
+
+    /**
+     * Slots whose bytes changed since the previous snapshot.
+     */
+    BitSet changedSlots() {
+        return changedSlots;
+    }
+
+    /**
+     * Treats every slot as changed, so the next save rewrites all of them
+     * (last write wins, same as a full blob).
+     */
+    void markAllSlotsChanged() {
+        refreshSlots();
+        changedSlots.set(0, slotBytes.length);
+    }
+
+    /**
+     * Carries over changes of an older snapshot this one replaces before it was
+     * written.
+     */
+    void absorbChanges(BackpackData older) {
+        if (older != null && older != this)
+            changedSlots.or(older.changedSlots);
     }
 
     public Map<Integer, UUID> installedModules() {
@@ -59,4 +432,38 @@ public final class BackpackData {
         return moduleStates;
     }
 
+    public InstalledModuleIndex moduleIndex() {
+        return moduleIndex;
+    }
+
+    public void moduleIndex(InstalledModuleIndex index) {
+        this.moduleIndex = index;
+    }
+
+    /**
+     * Detached snapshot for handing off to the writer thread. Stale slots are
+     * serialized here (on the calling thread) and the set of changed slots moves
+     * to the snapshot; byte arrays are shared since they're always replaced
+     * rather than mutated in place.
+     */
+    public BackpackData snapshot() {
+        BackpackData out = copy();
+        out.changedSlots.or(changedSlots);
+        changedSlots.clear();
+        return out;
+    }
+
+    /**
+     * Detached copy with the same contents; pending changes stay with this one.
+     */
+    public BackpackData copy() {
+        refreshSlots();
+        BackpackData out = new BackpackData(backpackId, backpackType);
+        out.slotBytes = slotBytes.clone();
+        out.installedModules.putAll(installedModules);
+        out.installedSnapshots.putAll(installedSnapshots);
+        out.moduleStates.putAll(moduleStates);
+        return out;
+    }
+
 }
@@ -0,0 +1,331 @@
+package io.github.tootertutor.ModularPacks.data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import io.github.tootertutor.ModularPacks.ModularPacksPlugin;
+import io.github.tootertutor.ModularPacks.perf.Perf;
+
+/**
+ * Write-back cache of {@link BackpackData} in front of the
+ * {@link BackpackRepository}.
+ * - one shared instance per backpack UUID, so menus, module screens and engines
+ * all see the same state
+ * - saveBackpack() only marks the entry dirty; dirty entries are snapshotted on
+ * a timer, before eviction, and on shutdown and handed to the
+ * {@link BackpackWriteQueue}, so storage never runs on the server thread for saves
+ * - clean entries that no session is locked to are evicted after an idle period
+ * (or least-recently-used first when over capacity)
+ * - {@link BackpackPrefetcher} adds entries read off the main thread; they are
+ * held (never idle-evicted) until released
+ */
+public final class BackpackDataCache {
+
+    private final ModularPacksPlugin plugin;
+    private final BackpackRepository repo;
+    private final BackpackWriteQueue writer;
+
+    // access-ordered: iteration starts at the least recently used entry
+    private final LinkedHashMap<UUID, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    private BukkitTask task;
+
+    // login prefetch: a flush after a prefetch began makes what it read stale
+    private volatile long flushSeq;
+    private final AtomicInteger prefetching = new AtomicInteger();
+    private final Map<UUID, Long> flushedAt = new HashMap<>(); // only while prefetching
+    private final Map<UUID, Integer> holds = new HashMap<>();
+
+    private static final class Entry {
+        private BackpackData data;
+        private boolean dirty;
+        private int lastAccessTick;
+
+        private Entry(BackpackData data, int now) {
+            this.data = data;
+            this.lastAccessTick = now;
+        }
+    }
+
+    public BackpackDataCache(ModularPacksPlugin plugin, BackpackRepository repo) {
+        this.plugin = plugin;
+        this.repo = repo;
+        this.writer = new BackpackWriteQueue(plugin, repo);
+    }
+
+    public void start() {
+        if (task != null)
+            return;
+        writer.start();
+        long period = Math.max(1, plugin.cfg().cacheFlushIntervalTicks());
+        task = Bukkit.getScheduler().runTaskTimer(plugin, this::maintain, period, period);
+    }
+
+    /**
+     * Stops the maintenance task and blocks until every dirty entry is committed.
+     */
+    public void stop() {
+        if (task != null)
+            task.cancel();
+        task = null;
+        flushAll();
+        writer.shutdown();
+        entries.clear();
+        holds.clear();
+    }
+
+    public BackpackData loadOrCreate(UUID backpackId, String backpackType) {
+        int now = Bukkit.getCurrentTick();
+        Entry e = entries.get(backpackId);
+        if (e != null) {
+            e.lastAccessTick = now;
+            Perf.CACHE_HIT.inc();
+            return e.data;
+        }
+        Perf.CACHE_MISS.inc();
+
+        // read-your-writes: a queued snapshot is newer than the DB row
+        BackpackData queued = writer.latest(backpackId);
+        BackpackData data = queued != null ? queued.copy() : repo.loadOrCreate(backpackId, backpackType);
+        entries.put(backpackId, new Entry(data, now));
+        trimToCapacity(backpackId);
+        return data;
+    }
+
+    /**
+     * Marks the backpack dirty; the actual DB write happens on the next flush.
+     */
+    public void saveBackpack(BackpackData data) {
+        if (data == null)
+            return;
+
+        int now = Bukkit.getCurrentTick();
+        Entry e = entries.get(data.backpackId());
+        if (e == null) {
+            e = new Entry(data, now);
+            entries.put(data.backpackId(), e);
+        } else {
+            // A detached copy wins over whatever we had cached (last write wins, same as
+            // the DB would have done). Its changes are relative to its own load, so
+            // every slot is written.
+            if (e.data != data)
+                data.markAllSlotsChanged();
+            e.data = data;
+            e.lastAccessTick = now;
+        }
+        e.dirty = true;
+    }
+
+    public String findBackpackType(UUID backpackId) {
+        if (backpackId == null)
+            return null;
+        Entry e = entries.get(backpackId);
+        if (e != null)
+            return e.data.backpackType();
+        BackpackData queued = writer.latest(backpackId);
+        if (queued != null)
+            return queued.backpackType();
+        return repo.findBackpackType(backpackId);
+    }
+
+    public void ensureBackpackExists(UUID backpackId, String backpackType, UUID ownerUuid, String ownerName) {
+        repo.ensureBackpackExists(backpackId, backpackType, ownerUuid, ownerName);
+        if (backpackId == null || backpackType == null)
+            return;
+
+        // Keep the cached row in line with the metadata update so the next flush
+        // doesn't write the old type back.
+        writer.retype(backpackId, backpackType);
+        touched(backpackId);
+        Entry e = entries.get(backpackId);
+        if (e != null)
+            e.data.backpackType(backpackType);
+    }
+
+    public boolean isCached(UUID backpackId) {
+        return backpackId != null && entries.containsKey(backpackId);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int pendingWrites() {
+        return writer.pendingCount();
+    }
+
+    public void flushAll() {
+        for (Entry e : entries.values()) {
+            flush(e);
+        }
+    }
+
+    private void maintain() {
+        flushAll();
+
+        int now = Bukkit.getCurrentTick();
+        int idleTicks = plugin.cfg().cacheIdleEvictTicks();
+
+        Iterator<Map.Entry<UUID, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<UUID, Entry> me = it.next();
+            Entry e = me.getValue();
+            if (now - e.lastAccessTick < idleTicks || holds.containsKey(me.getKey()))
+                continue;
+            if (!isEvictable(me.getKey(), e))
+                continue;
+            it.remove();
+        }
+    }
+
+    private void trimToCapacity(UUID keep) {
+        int max = plugin.cfg().cacheMaxEntries();
+        if (entries.size() <= max)
+            return;
+
+        List<UUID> evict = new ArrayList<>();
+        int over = entries.size() - max;
+        for (Map.Entry<UUID, Entry> me : entries.entrySet()) {
+            if (evict.size() >= over)
+                break;
+            if (me.getKey().equals(keep))
+                continue;
+            Entry e = me.getValue();
+            if (e.dirty)
+                flush(e);
+            if (isEvictable(me.getKey(), e))
+                evict.add(me.getKey());
+        }
+        // If everything is pinned we simply run over capacity until sessions close.
+        for (UUID id : evict) {
+            entries.remove(id);
+        }
+    }
+
+    private boolean isEvictable(UUID backpackId, Entry e) {
+        if (e.dirty)
+            return false;
+        // Open backpack GUIs and module screens hold a session lock.
+        return plugin.sessions() == null || plugin.sessions().lockedTo(backpackId) == null;
+    }
+
+    private void flush(Entry e) {
+        if (!e.dirty)
+            return;
+        // The writer retries failed batches itself, so the entry is clean once queued.
+        writer.submit(e.data.snapshot());
+        e.dirty = false;
+        touched(e.data.backpackId());
+    }
+
+    private void touched(UUID backpackId) {
+        long seq = flushSeq + 1;
+        flushSeq = seq;
+        if (prefetching.get() > 0)
+            flushedAt.put(backpackId, seq);
+    }
+
+    /*
+     * ======================================================
+     * Login prefetch (BackpackPrefetcher)
+     * ======================================================
+     */
+
+    /**
+     * Starts a prefetch; any thread. Only read backpacks that aren't in a
+     * {@link #writesInProgress()} taken after this call, and hand the result
+     * and the returned mark to {@link #installPrefetched} (or call
+     * {@link #cancelPrefetch}).
+     */
+    public long beginPrefetch() {
+        prefetching.incrementAndGet();
+        return flushSeq;
+    }
+
+    /**
+     * Backpacks the database may not be up to date for yet; any thread.
+     */
+    public Set<UUID> writesInProgress() {
+        return writer.busyIds();
+    }
+
+    /**
+     * Adds prefetched backpacks as clean entries, skipping ones that were
+     * cached or saved since the prefetch began. Stops at MaxEntries rather than
+     * evicting anything for them.
+     *
+     * @return ids that were added
+     */
+    public List<UUID> installPrefetched(long mark, List<BackpackData> loaded) {
+        try {
+            int now = Bukkit.getCurrentTick();
+            int max = plugin.cfg().cacheMaxEntries();
+            List<UUID> added = new ArrayList<>();
+            for (BackpackData data : loaded) {
+                if (entries.size() >= max)
+                    break;
+                UUID id = data.backpackId();
+                if (entries.containsKey(id) || writer.latest(id) != null)
+                    continue;
+                Long flushed = flushedAt.get(id);
+                if (flushed != null && flushed > mark)
+                    continue;
+                entries.put(id, new Entry(data, now));
+                added.add(id);
+            }
+            Perf.CACHE_PREFETCHED.record(added.size());
+            return added;
+        } finally {
+            endPrefetch();
+        }
+    }
+
+    /**
+     * Ends a prefetch that has nothing to install. Main thread.
+     */
+    public void cancelPrefetch() {
+        endPrefetch();
+    }
+
+    private void endPrefetch() {
+        if (prefetching.decrementAndGet() <= 0)
+            flushedAt.clear();
+    }
+
+    /**
+     * Keeps a cached backpack from idle eviction until {@link #release}; holds
+     * are counted.
+     */
+    public void hold(UUID backpackId) {
+        holds.merge(backpackId, 1, Integer::sum);
+    }
+
+    /**
+     * Drops one hold. When the last one goes, the entry is evicted right away
+     * if nothing used it after sinceTick.
+     */
+    public void release(UUID backpackId, int sinceTick) {
+        Integer n = holds.get(backpackId);
+        if (n == null)
+            return;
+        if (n > 1) {
+            holds.put(backpackId, n - 1);
+            return;
+        }
+        holds.remove(backpackId);
+
+        Entry e = entries.get(backpackId);
+        if (e != null && e.lastAccessTick <= sinceTick && isEvictable(backpackId, e))
+            entries.remove(backpackId);
+    }
+}
@@ -0,0 +1,213 @@
+package io.github.tootertutor.ModularPacks.data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.scheduler.BukkitTask;
+
+import io.github.tootertutor.ModularPacks.ModularPacksPlugin;
+
+/**
+ * Warms {@link BackpackDataCache} for players who log in
+ * (Storage.Cache.PrefetchOnJoin).
+ * - pre-login (async): the backpacks the player owns are read and decoded
+ * while the login is still being processed, and added to the cache on join
+ * - join: backpacks in the inventory that weren't covered are read and decoded
+ * on an async task the same way
+ * - the cache holds the added entries while the player is online and releases
+ * them QuitGraceTicks after they leave
+ */
+public final class BackpackPrefetcher implements Listener {
+
+    // a pre-login whose join never came (kicked at login, disconnected)
+    private static final long STALE_MS = 60_000L;
+    private static final long SWEEP_TICKS = 20L * 30L;
+
+    private record Ready(long mark, List<BackpackData> loaded, long at) {
+    }
+
+    private final ModularPacksPlugin plugin;
+
+    private final Map<UUID, Ready> ready = new ConcurrentHashMap<>();
+    private final Map<UUID, List<UUID>> held = new HashMap<>();
+
+    @SuppressWarnings("unused")
+    private final BukkitTask sweepTask;
+
+    public BackpackPrefetcher(ModularPacksPlugin plugin) {
+        this.plugin = plugin;
+        // pre-logins that never join are swept here, not on the next join, so a
+        // run of refused logins can't keep the cache's prefetch window open
+        this.sweepTask = Bukkit.getScheduler().runTaskTimer(plugin, this::dropStale, SWEEP_TICKS, SWEEP_TICKS);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPreLogin(AsyncPlayerPreLoginEvent e) {
+        if (e.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED || !plugin.cfg().prefetchOnJoin())
+            return;
+
+        BackpackDataCache cache = plugin.cache();
+        long mark = cache.beginPrefetch();
+        List<BackpackData> loaded;
+        try {
+            loaded = load(e.getUniqueId(), List.of());
+        } catch (RuntimeException ex) {
+            loaded = List.of();
+            plugin.getLogger().warning("Backpack prefetch for " + e.getName() + " failed: " + ex.getMessage());
+        }
+        Ready previous = ready.put(e.getUniqueId(), new Ready(mark, loaded, System.currentTimeMillis()));
+        if (previous != null)
+            cancelLater();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent e) {
+        Player player = e.getPlayer();
+        UUID playerId = player.getUniqueId();
+        BackpackDataCache cache = plugin.cache();
+
+        Set<UUID> covered = new LinkedHashSet<>();
+        Ready r = ready.remove(playerId);
+        if (r != null) {
+            for (BackpackData data : r.loaded()) {
+                covered.add(data.backpackId());
+            }
+            hold(playerId, cache.installPrefetched(r.mark(), r.loaded()));
+        } else if (!plugin.cfg().prefetchOnJoin()) {
+            return;
+        }
+        held.computeIfAbsent(playerId, k -> new ArrayList<>());
+
+        List<UUID> carried = new ArrayList<>();
+        int max = plugin.cfg().prefetchMaxPerPlayer();
+        for (ItemStack item : player.getInventory().getContents()) {
+            UUID id = backpackId(item);
+            if (id != null && carried.size() < max && !covered.contains(id) && !cache.isCached(id)
+                    && !carried.contains(id))
+                carried.add(id);
+        }
+        if (carried.isEmpty())
+            return;
+
+        long mark = cache.beginPrefetch();
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            List<BackpackData> loaded;
+            try {
+                loaded = load(null, carried);
+            } catch (RuntimeException ex) {
+                loaded = List.of();
+                plugin.getLogger().warning("Backpack prefetch for " + player.getName() + " failed: "
+                        + ex.getMessage());
+            }
+            List<BackpackData> result = loaded;
+            if (!plugin.isEnabled())
+                return;
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                List<UUID> added = cache.installPrefetched(mark, result);
+                if (held.containsKey(playerId))
+                    hold(playerId, added);
+            });
+        });
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent e) {
+        List<UUID> ids = held.remove(e.getPlayer().getUniqueId());
+        if (ids == null || ids.isEmpty())
+            return;
+
+        int quitTick = Bukkit.getCurrentTick();
+        Runnable release = () -> {
+            for (UUID id : ids) {
+                plugin.cache().release(id, quitTick);
+            }
+        };
+        int grace = plugin.cfg().prefetchQuitGraceTicks();
+        if (grace <= 0)
+            release.run();
+        else
+            Bukkit.getScheduler().runTaskLater(plugin, release, grace);
+    }
+
+    /**
+     * Reads and decodes off the main thread; skips backpacks with a write still
+     * on its way to storage (their cache miss reads the queued copy anyway).
+     */
+    private List<BackpackData> load(UUID ownerUuid, List<UUID> ids) {
+        Set<UUID> busy = plugin.cache().writesInProgress();
+        List<UUID> wanted = new ArrayList<>(ids);
+        wanted.removeAll(busy);
+
+        List<BackpackData> out = new ArrayList<>();
+        for (BackpackData data : plugin.repo().loadExisting(ownerUuid, wanted, plugin.cfg().prefetchMaxPerPlayer())) {
+            if (busy.contains(data.backpackId()))
+                continue;
+            try {
+                data.contents();
+            } catch (RuntimeException ex) {
+                // left for the main thread, which reports it when the backpack is opened
+                continue;
+            }
+            out.add(data);
+        }
+        return out;
+    }
+
+    private void hold(UUID playerId, List<UUID> ids) {
+        if (ids.isEmpty())
+            return;
+        List<UUID> list = held.computeIfAbsent(playerId, k -> new ArrayList<>());
+        for (UUID id : ids) {
+            plugin.cache().hold(id);
+            list.add(id);
+        }
+    }
+
+    private void dropStale() {
+        long cutoff = System.currentTimeMillis() - STALE_MS;
+        Iterator<Ready> it = ready.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().at() < cutoff) {
+                it.remove();
+                plugin.cache().cancelPrefetch();
+            }
+        }
+    }
+
+    private void cancelLater() {
+        if (plugin.isEnabled())
+            Bukkit.getScheduler().runTask(plugin, () -> plugin.cache().cancelPrefetch());
+    }
+
+    private UUID backpackId(ItemStack item) {
+        if (item == null || item.getType().isAir() || !item.hasItemMeta())
+            return null;
+        ItemMeta meta = item.getItemMeta();
+        String idStr = meta.getPersistentDataContainer().get(plugin.keys().BACKPACK_ID, PersistentDataType.STRING);
+        if (idStr == null || idStr.isBlank())
+            return null;
+        try {
+            return UUID.fromString(idStr);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+}
@@ -1,5 +1,264 @@
 package io.github.tootertutor.ModularPacks.data;
 
-public class BackpackRepository {
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
+/**
+ * Persistent storage for backpacks, their installed modules and the Void audit
+ * log, selected with Storage.Backend.
+ * - {@link SQLiteBackpackRepository}: backpacks.db (default)
+ * - {@link LogBackpackRepository}: append-only logs with an in-memory index
+ * - saveBatch / logVoidedItems are only called from one writer thread at a
+ * time, loadExisting from any thread; everything else from the main thread
+ * - failures surface as RuntimeException, like the rest of the data layer
+ */
+public interface BackpackRepository {
+
+    void init();
+
+    void close();
+
+    /*
+     * ======================================================
+     * Backpacks
+     * ======================================================
+     */
+
+    /**
+     * Stored contents and modules, or an empty backpack (which is created).
+     */
+    BackpackData loadOrCreate(UUID backpackId, String backpackType);
+
+    /**
+     * Stored backpacks among backpackIds plus the most recently saved ones
+     * owned by ownerUuid (may be null), at most limit in total. Nothing is
+     * created. Safe to call off the main thread (login prefetch).
+     */
+    List<BackpackData> loadExisting(UUID ownerUuid, Collection<UUID> backpackIds, int limit);
+
+    /**
+     * Stored type, or null if the backpack doesn't exist.
+     */
+    String findBackpackType(UUID backpackId);
+
+    /**
+     * Creates the backpack if needed and updates its type and owner (a null
+     * owner keeps the stored one).
+     */
+    void ensureBackpackExists(UUID backpackId, String backpackType, UUID ownerUuid, String ownerName);
+
+    /**
+     * Oldest first.
+     */
+    List<BackpackSummary> listBackpacksByOwner(UUID ownerUuid);
+
+    /**
+     * Oldest first, at most limit (clamped to 1..500).
+     */
+    List<BackpackSummary> listUnownedBackpacks(int limit);
+
+    void saveBackpack(BackpackData data);
+
+    void saveModules(UUID backpackId, Map<Integer, UUID> slotToModule, Map<UUID, byte[]> snapshots,
+            Map<UUID, byte[]> states);
+
+    /**
+     * Writes several snapshots (contents + modules) at once. Only call this from
+     * a single thread at a time.
+     */
+    void saveBatch(List<BackpackData> batch);
+
+    /*
+     * ======================================================
+     * Void log
+     * ======================================================
+     */
+
+    /**
+     * @return the new row id, or -1
+     */
+    long logVoidedItem(VoidedItemRecord rec);
+
+    /**
+     * Writes several rows at once. Only call this from a single thread at a time
+     * (VoidLogQueue).
+     */
+    void logVoidedItems(List<VoidedItemRecord> batch);
+
+    /**
+     * Newest first, at most limit (clamped to 1..200).
+     */
+    List<VoidedItemSummary> listVoidedItemsByPlayer(UUID playerUuid, int limit, boolean includeRecovered);
+
+    VoidedItemRecord getVoidedItem(long id);
+
+    /**
+     * @return false if the row doesn't exist or was already recovered
+     */
+    boolean markVoidedItemRecovered(long id, UUID recoveredBy, String recoveredByName);
+
+    /**
+     * Puts an archived row back (with its original id) as already recovered, so
+     * the archive copy can't be recovered twice.
+     */
+    boolean restoreArchivedVoidedItem(VoidedItemRecord rec, UUID recoveredBy, String recoveredByName);
+
+    /*
+     * ======================================================
+     * Void log retention (VoidLogRetention, async)
+     * ======================================================
+     */
+
+    /**
+     * Oldest rows past either cutoff: unrecovered rows created before
+     * createdBefore, recovered rows recovered before recoveredBefore. Pass 0 to
+     * skip a cutoff.
+     */
+    List<VoidedItemRecord> expiredVoidedItems(long createdBefore, long recoveredBefore, int limit);
+
+    /**
+     * Players with more than maxRows log rows.
+     */
+    List<String> playersOverVoidLimit(int maxRows);
+
+    /**
+     * Up to limit of this player's rows beyond the newest keep, oldest first.
+     */
+    List<VoidedItemRecord> voidedItemsBeyond(String playerUuid, int keep, int limit);
+
+    /**
+     * Deletes rows. A row whose recovered_at changed since it was read
+     * (recovered meanwhile) is left alone.
+     *
+     * @return number of rows deleted
+     */
+    int deleteVoidedItems(List<VoidedItemRecord> rows);
+
+    /**
+     * Hands space freed by deleted rows back, doing at most about maxPages of
+     * work where the backend can bound it.
+     */
+    void compactVoidLog(int maxPages);
+
+    record BackpackSummary(
+            UUID backpackId,
+            String backpackType,
+            String ownerUuid,
+            String ownerName,
+            long createdAt,
+            long updatedAt) {
+    }
+
+    final class VoidedItemSummary {
+        public final long id;
+        public final long createdAt;
+        public final String playerUuid;
+        public final String playerName;
+        public final String backpackId;
+        public final String backpackType;
+        public final String voidModuleId;
+        public final String itemType;
+        public final int amount;
+        public final String world;
+        public final Double x;
+        public final Double y;
+        public final Double z;
+        public final Long recoveredAt;
+        public final String recoveredBy;
+        public final String recoveredByName;
+
+        public VoidedItemSummary(
+                long id,
+                long createdAt,
+                String playerUuid,
+                String playerName,
+                String backpackId,
+                String backpackType,
+                String voidModuleId,
+                String itemType,
+                int amount,
+                String world,
+                Double x,
+                Double y,
+                Double z,
+                Long recoveredAt,
+                String recoveredBy,
+                String recoveredByName) {
+            this.id = id;
+            this.createdAt = createdAt;
+            this.playerUuid = playerUuid;
+            this.playerName = playerName;
+            this.backpackId = backpackId;
+            this.backpackType = backpackType;
+            this.voidModuleId = voidModuleId;
+            this.itemType = itemType;
+            this.amount = amount;
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.recoveredAt = recoveredAt;
+            this.recoveredBy = recoveredBy;
+            this.recoveredByName = recoveredByName;
+        }
+    }
+
+    final class VoidedItemRecord {
+        public final Long id;
+        public final long createdAt;
+        public final String playerUuid;
+        public final String playerName;
+        public final String backpackId;
+        public final String backpackType;
+        public final String voidModuleId;
+        public final String itemType;
+        public final int amount;
+        public final byte[] itemBytes;
+        public final String world;
+        public final Double x;
+        public final Double y;
+        public final Double z;
+        public final Long recoveredAt;
+        public final String recoveredBy;
+        public final String recoveredByName;
+
+        public VoidedItemRecord(
+                Long id,
+                long createdAt,
+                String playerUuid,
+                String playerName,
+                String backpackId,
+                String backpackType,
+                String voidModuleId,
+                String itemType,
+                int amount,
+                byte[] itemBytes,
+                String world,
+                Double x,
+                Double y,
+                Double z,
+                Long recoveredAt,
+                String recoveredBy,
+                String recoveredByName) {
+            this.id = id;
+            this.createdAt = createdAt;
+            this.playerUuid = playerUuid;
+            this.playerName = playerName;
+            this.backpackId = backpackId;
+            this.backpackType = backpackType;
+            this.voidModuleId = voidModuleId;
+            this.itemType = itemType;
+            this.amount = amount;
+            this.itemBytes = itemBytes;
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.recoveredAt = recoveredAt;
+            this.recoveredBy = recoveredBy;
+            this.recoveredByName = recoveredByName;
+        }
+    }
 }
@@ -0,0 +1,124 @@
+package io.github.tootertutor.ModularPacks.data;
+
+import java.util.List;
+
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import io.github.tootertutor.ModularPacks.ModularPacksPlugin;
+
+/**
+ * Background upkeep for backpack_slots (Storage.Slots).
+ * - moves backpacks still in the other layout over (blob -> slots while
+ * enabled, slots -> blob while disabled), ChunkSize per transaction, without
+ * decoding items; the writer does the same for anything it saves meanwhile
+ * - deletes slot rows no backpack refers to any more, then hands freed pages
+ * back
+ */
+public final class BackpackSlotCompaction {
+
+    // pause between chunks so the backpack writer gets the write lock
+    private static final long CHUNK_PAUSE_MS = 50L;
+    private static final int COMPACT_PAGES = 2048;
+
+    private final ModularPacksPlugin plugin;
+    private final SQLiteBackpackRepository repo;
+
+    private final Object runLock = new Object();
+    private volatile boolean stopping;
+    private BukkitTask task;
+
+    public BackpackSlotCompaction(ModularPacksPlugin plugin, SQLiteBackpackRepository repo) {
+        this.plugin = plugin;
+        this.repo = repo;
+    }
+
+    /**
+     * (Re)schedules the job from config. Safe to call on reload.
+     */
+    public void apply() {
+        if (task != null)
+            task.cancel();
+        task = null;
+        stopping = false;
+
+        int minutes = plugin.cfg().slotCompactIntervalMinutes();
+        if (minutes <= 0)
+            return;
+        long period = minutes * 60L * 20L;
+        // first run shortly after startup, not in the middle of it
+        task = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::run, 20L * 90L, period);
+    }
+
+    /**
+     * Cancels the job and waits for a chunk in progress to finish.
+     */
+    public void stop() {
+        stopping = true;
+        if (task != null)
+            task.cancel();
+        task = null;
+        synchronized (runLock) {
+            // nothing; just waits for run() to let go
+        }
+    }
+
+    private void run() {
+        synchronized (runLock) {
+            if (stopping)
+                return;
+            try {
+                boolean toSlots = plugin.cfg().slotStorageEnabled();
+                int converted = convertAll(toSlots);
+                int orphans = deleteOrphans();
+                if (converted > 0 || orphans > 0) {
+                    repo.compactBackpackStorage(COMPACT_PAGES);
+                    plugin.getLogger().info("Backpack storage: moved " + converted + " backpack(s) to the "
+                            + (toSlots ? "slot" : "blob") + " layout, removed " + orphans + " orphaned slot row(s).");
+                }
+            } catch (RuntimeException ex) {
+                plugin.getLogger().warning("Backpack slot compaction failed: " + ex.getMessage()
+                        + (ex.getCause() == null ? "" : ": " + ex.getCause().getMessage()));
+            }
+        }
+    }
+
+    private int convertAll(boolean toSlots) {
+        int chunk = plugin.cfg().slotCompactChunkSize();
+        int converted = 0;
+        String after = "";
+        while (!stopping) {
+            List<String> ids = repo.backpacksToConvert(toSlots, after, chunk);
+            if (ids.isEmpty())
+                break;
+            converted += repo.convertLayout(ids, toSlots);
+            after = ids.get(ids.size() - 1);
+            if (ids.size() < chunk)
+                break;
+            pause();
+        }
+        return converted;
+    }
+
+    private int deleteOrphans() {
+        int chunk = plugin.cfg().slotCompactChunkSize();
+        int removed = 0;
+        while (!stopping) {
+            int n = repo.deleteOrphanSlots(chunk);
+            removed += n;
+            if (n < chunk)
+                break;
+            pause();
+        }
+        return removed;
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(CHUNK_PAUSE_MS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            stopping = true;
+        }
+    }
+}
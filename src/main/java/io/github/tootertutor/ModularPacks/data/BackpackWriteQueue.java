@@ -0,0 +1,310 @@
+package io.github.tootertutor.ModularPacks.data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import io.github.tootertutor.ModularPacks.ModularPacksPlugin;
+
+/**
+ * Single writer thread between {@link BackpackDataCache} and the repository.
+ * - submit() takes a detached snapshot; a newer snapshot of the same backpack
+ * replaces one that hasn't been written yet and inherits its changed slots
+ * - pending snapshots are committed in batched transactions; when a batch
+ * fails its rows are retried one by one, and a row that keeps failing on its
+ * own is set aside (quarantined) so it can't hold up everything else
+ * - latest() exposes queued / in-flight snapshots so a cache miss never reads a
+ * row that is older than what was already saved
+ */
+public final class BackpackWriteQueue {
+
+    private static final int MAX_BATCH = 128;
+    private static final long RETRY_DELAY_MS = 1000L;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long SHUTDOWN_WAIT_MS = 10_000L;
+
+    private final ModularPacksPlugin plugin;
+    private final BackpackRepository repo;
+
+    private final Object lock = new Object();
+    // insertion-ordered so the oldest change is written first
+    private final LinkedHashMap<UUID, BackpackData> pending = new LinkedHashMap<>();
+    private final Map<UUID, BackpackData> inFlight = new LinkedHashMap<>();
+    // failed on their own MAX_ATTEMPTS times; retried when resubmitted and on shutdown
+    private final Map<UUID, BackpackData> quarantined = new LinkedHashMap<>();
+    // type changes that arrived while the snapshot was being written; applied after
+    private final Map<UUID, String> retyped = new HashMap<>();
+    // writer thread only
+    private final Map<UUID, Integer> attempts = new HashMap<>();
+
+    private Thread thread;
+    private boolean stopping;
+
+    public BackpackWriteQueue(ModularPacksPlugin plugin, BackpackRepository repo) {
+        this.plugin = plugin;
+        this.repo = repo;
+    }
+
+    public void start() {
+        synchronized (lock) {
+            if (thread != null)
+                return;
+            stopping = false;
+            thread = new Thread(this::run, "ModularPacks-Writer");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Queues a snapshot for writing. The caller must not mutate it afterwards.
+     */
+    public void submit(BackpackData snapshot) {
+        if (snapshot == null)
+            return;
+        synchronized (lock) {
+            // re-put so a coalesced entry moves to the back of the line
+            snapshot.absorbChanges(pending.remove(snapshot.backpackId()));
+            snapshot.absorbChanges(quarantined.remove(snapshot.backpackId()));
+            pending.put(snapshot.backpackId(), snapshot);
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Newest snapshot that hasn't been committed yet, or null if the DB is up to
+     * date for this backpack.
+     */
+    public BackpackData latest(UUID backpackId) {
+        if (backpackId == null)
+            return null;
+        synchronized (lock) {
+            BackpackData d = pending.get(backpackId);
+            if (d != null)
+                return d;
+            d = inFlight.get(backpackId);
+            if (d != null) {
+                String type = retyped.get(backpackId);
+                if (type == null)
+                    return d;
+                BackpackData c = d.copy();
+                c.backpackType(type);
+                return c;
+            }
+            return quarantined.get(backpackId);
+        }
+    }
+
+    /**
+     * Keeps a queued snapshot in line with a metadata-only type change, so it
+     * doesn't write the old type back over it. A snapshot being written right
+     * now is left alone and queued again with the new type once its batch is
+     * done.
+     */
+    public void retype(UUID backpackId, String backpackType) {
+        synchronized (lock) {
+            if (inFlight.containsKey(backpackId))
+                retyped.put(backpackId, backpackType);
+            BackpackData d = pending.get(backpackId);
+            if (d != null)
+                d.backpackType(backpackType);
+            d = quarantined.get(backpackId);
+            if (d != null)
+                d.backpackType(backpackType);
+        }
+    }
+
+    /**
+     * Backpacks with a snapshot queued or being written; any thread.
+     */
+    public Set<UUID> busyIds() {
+        synchronized (lock) {
+            Set<UUID> out = new HashSet<>(pending.keySet());
+            out.addAll(inFlight.keySet());
+            out.addAll(quarantined.keySet());
+            return out;
+        }
+    }
+
+    public int pendingCount() {
+        synchronized (lock) {
+            return pending.size() + inFlight.size() + quarantined.size();
+        }
+    }
+
+    /**
+     * Stops the writer and makes sure everything submitted so far is committed
+     * before returning.
+     */
+    public void shutdown() {
+        Thread t;
+        synchronized (lock) {
+            stopping = true;
+            lock.notifyAll();
+            t = thread;
+            thread = null;
+        }
+
+        if (t != null) {
+            try {
+                t.join(SHUTDOWN_WAIT_MS);
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+            if (t.isAlive()) {
+                plugin.getLogger().severe("Backpack writer did not finish in time; " + pendingCount()
+                        + " backpack(s) may not have been saved.");
+                return;
+            }
+        }
+
+        // The writer gives up on failures during shutdown; try once more from here.
+        List<BackpackData> rest;
+        synchronized (lock) {
+            rest = new ArrayList<>(pending.values());
+            rest.addAll(quarantined.values());
+            pending.clear();
+            quarantined.clear();
+        }
+        if (rest.isEmpty())
+            return;
+        try {
+            repo.saveBatch(rest);
+        } catch (RuntimeException ex) {
+            int failed = 0;
+            for (BackpackData d : rest) {
+                if (!saveOne(d))
+                    failed++;
+            }
+            if (failed > 0)
+                plugin.getLogger().severe("Failed to save " + failed + " backpack(s) on shutdown: " + ex.getMessage());
+        }
+    }
+
+    private void run() {
+        while (true) {
+            List<BackpackData> batch = new ArrayList<>();
+            synchronized (lock) {
+                while (pending.isEmpty() && !stopping) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException ignored) {
+                        stopping = true;
+                    }
+                }
+                if (pending.isEmpty())
+                    return;
+
+                Iterator<Map.Entry<UUID, BackpackData>> it = pending.entrySet().iterator();
+                while (it.hasNext() && batch.size() < MAX_BATCH) {
+                    Map.Entry<UUID, BackpackData> me = it.next();
+                    batch.add(me.getValue());
+                    inFlight.put(me.getKey(), me.getValue());
+                    it.remove();
+                }
+            }
+
+            List<BackpackData> failed = List.of();
+            try {
+                repo.saveBatch(batch);
+                if (!attempts.isEmpty()) {
+                    for (BackpackData d : batch) {
+                        attempts.remove(d.backpackId());
+                    }
+                }
+            } catch (RuntimeException ex) {
+                plugin.getLogger().warning(describe(ex));
+                failed = batch.size() > 1 ? saveEach(batch) : batch;
+                for (BackpackData d : batch) {
+                    if (!failed.contains(d))
+                        attempts.remove(d.backpackId());
+                }
+            }
+            boolean ok = failed.isEmpty();
+            // a failure only counts against a row when it is the only one failing, not when
+            // the whole store is unavailable
+            boolean isolated = !ok && (batch.size() == 1 || failed.size() < batch.size());
+
+            synchronized (lock) {
+                for (BackpackData d : batch) {
+                    UUID id = d.backpackId();
+                    inFlight.remove(id);
+                    String type = retyped.remove(id);
+                    if (type == null)
+                        continue;
+                    // it went out with the old type; failed rows are put back below anyway
+                    d.backpackType(type);
+                    if (!failed.contains(d) && !pending.containsKey(id))
+                        pending.put(id, d);
+                }
+                for (BackpackData d : failed) {
+                    UUID id = d.backpackId();
+                    int n = isolated ? attempts.merge(id, 1, Integer::sum) : attempts.getOrDefault(id, 0);
+                    BackpackData newer = pending.get(id);
+                    if (n >= MAX_ATTEMPTS && newer == null) {
+                        attempts.remove(id);
+                        quarantined.put(id, d);
+                        plugin.getLogger().severe("Backpack " + id + " failed to save " + n
+                                + " times in a row; leaving it out of further batches until it changes again"
+                                + " or the server stops.");
+                        continue;
+                    }
+                    // Put it back unless a newer snapshot already replaced it; that one then
+                    // also has to write the slots this one didn't, and gets its own attempts.
+                    if (newer != null) {
+                        newer.absorbChanges(d);
+                        attempts.remove(id);
+                    } else {
+                        pending.put(id, d);
+                    }
+                }
+                if (!ok && stopping)
+                    return; // shutdown() retries what's left
+            }
+
+            if (!ok) {
+                try {
+                    Thread.sleep(RETRY_DELAY_MS);
+                } catch (InterruptedException ignored) {
+                    synchronized (lock) {
+                        stopping = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Saves each snapshot in its own transaction.
+     *
+     * @return the ones that failed
+     */
+    private List<BackpackData> saveEach(List<BackpackData> batch) {
+        List<BackpackData> failed = new ArrayList<>();
+        for (BackpackData d : batch) {
+            if (!saveOne(d))
+                failed.add(d);
+        }
+        return failed;
+    }
+
+    private boolean saveOne(BackpackData d) {
+        try {
+            repo.saveBatch(List.of(d));
+            return true;
+        } catch (RuntimeException ex) {
+            plugin.getLogger().warning("Backpack " + d.backpackId() + ": " + describe(ex));
+            return false;
+        }
+    }
+
+    private static String describe(RuntimeException ex) {
+        return ex.getMessage() + (ex.getCause() == null ? "" : ": " + ex.getCause().getMessage());
+    }
+}
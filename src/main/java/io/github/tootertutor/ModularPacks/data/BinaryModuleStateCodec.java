@@ -0,0 +1,143 @@
+package io.github.tootertutor.ModularPacks.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.bukkit.inventory.ItemStack;
+
+import io.github.tootertutor.ModularPacks.perf.Perf;
+
+/**
+ * Base for module state codecs using the compact binary layout.
+ * - "MPMS" magic, codec version byte, then fixed-width fields written by the
+ * subclass; items and strings are length-prefixed (-1 = none)
+ * - anything without the magic is handed to decodeLegacy (the old YAML
+ * snapshots); it's rewritten in binary the next time the state is saved
+ * - corrupt binary payloads decode to the default state instead of throwing
+ */
+public abstract class BinaryModuleStateCodec<S> implements ModuleStateCodec<S> {
+
+    private static final byte[] MAGIC = { 'M', 'P', 'M', 'S' };
+
+    /**
+     * Current layout version written by encode().
+     */
+    protected abstract int version();
+
+    protected abstract S empty();
+
+    protected abstract void write(DataOutputStream out, S state) throws IOException;
+
+    /**
+     * @param version layout version found in the payload (1..version())
+     */
+    protected abstract S read(DataInputStream in, int version) throws IOException;
+
+    protected abstract S decodeLegacy(byte[] bytes);
+
+    @Override
+    public final byte[] encode(S state) {
+        long t0 = Perf.start();
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream(64);
+                DataOutputStream out = new DataOutputStream(baos)) {
+            out.write(MAGIC);
+            out.writeByte(version());
+            write(out, state);
+            out.flush();
+            return baos.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to encode " + id() + " module state", e);
+        } finally {
+            Perf.MODULE_STATE_ENCODE.stop(t0);
+        }
+    }
+
+    @Override
+    public final S decode(byte[] bytes) {
+        if (bytes == null || bytes.length == 0)
+            return empty();
+
+        long t0 = Perf.start();
+        try {
+            if (!isBinary(bytes)) {
+                Perf.MODULE_STATE_LEGACY.inc();
+                return decodeLegacy(bytes);
+            }
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+                in.skipBytes(MAGIC.length);
+                int v = in.readUnsignedByte();
+                if (v < 1 || v > version())
+                    return empty();
+                return read(in, v);
+            } catch (IOException | RuntimeException e) {
+                return empty();
+            }
+        } finally {
+            Perf.MODULE_STATE_DECODE.stop(t0);
+        }
+    }
+
+    /**
+     * True when the bytes use the binary layout (as opposed to legacy YAML).
+     */
+    public static boolean isBinary(byte[] bytes) {
+        if (bytes == null || bytes.length < MAGIC.length + 1)
+            return false;
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (bytes[i] != MAGIC[i])
+                return false;
+        }
+        return true;
+    }
+
+    /*
+     * ======================================================
+     * Field helpers
+     * ======================================================
+     */
+
+    protected static void writeItem(DataOutputStream out, ItemStack item) throws IOException {
+        // serializeAsBytes rejects air / empty stacks
+        if (item == null || item.getType().isAir() || item.getAmount() <= 0) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] raw = item.serializeAsBytes();
+        out.writeInt(raw.length);
+        out.write(raw);
+    }
+
+    protected static ItemStack readItem(DataInputStream in) throws IOException {
+        int len = in.readInt();
+        if (len < 0)
+            return null;
+        if (len > in.available())
+            throw new IOException("Corrupt item length " + len);
+        byte[] raw = new byte[len];
+        in.readFully(raw);
+        return ItemStack.deserializeBytes(raw);
+    }
+
+    protected static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeShort(-1);
+            return;
+        }
+        byte[] raw = s.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(raw.length);
+        out.write(raw);
+    }
+
+    protected static String readString(DataInputStream in) throws IOException {
+        int len = in.readShort();
+        if (len < 0)
+            return null;
+        byte[] raw = new byte[len];
+        in.readFully(raw);
+        return new String(raw, StandardCharsets.UTF_8);
+    }
+}
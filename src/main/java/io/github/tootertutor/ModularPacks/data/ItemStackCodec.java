@@ -2,21 +2,33 @@ package io.github.tootertutor.ModularPacks.data;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.inventory.ItemStack;
 
+import io.github.tootertutor.ModularPacks.perf.Perf;
+
+/**
+ * ItemStack[] <-> bytes.
+ * - writes the binary format: "MPIS" magic, version byte, array size, then only
+ * the non-empty slots as (slot, Paper serializeAsBytes) pairs
+ * - still reads the legacy gzipped YAML format (1F 8B); those rows are rewritten
+ * in the binary format the next time the backpack is saved
+ */
 public final class ItemStackCodec {
 
+    private static final byte[] MAGIC = { 'M', 'P', 'I', 'S' };
+    private static final int VERSION = 1;
+
     private ItemStackCodec() {
     }
 
@@ -27,19 +39,34 @@ public final class ItemStackCodec {
      */
 
     public static byte[] toBytes(ItemStack[] contents) {
-        String yaml = toYaml(contents);
-        return gzip(yaml.getBytes(StandardCharsets.UTF_8));
+        long t0 = Perf.start();
+        byte[] out = toBinary(contents);
+        Perf.CODEC_ENCODE.stop(t0);
+        Perf.CODEC_ENCODE_BYTES.record(out.length);
+        return out;
     }
 
     public static ItemStack[] fromBytes(byte[] bytes) {
         if (bytes == null || bytes.length == 0)
             return new ItemStack[0];
 
+        long t0 = Perf.start();
+        try {
+            return decode(bytes);
+        } finally {
+            Perf.CODEC_DECODE.stop(t0);
+            Perf.CODEC_DECODE_BYTES.record(bytes.length);
+        }
+    }
+
+    private static ItemStack[] decode(byte[] bytes) {
+        if (isBinary(bytes))
+            return fromBinary(bytes);
+
         // GZIP header = 1F 8B
         boolean gz = bytes.length >= 2 && (bytes[0] == (byte) 0x1F) && (bytes[1] == (byte) 0x8B);
         if (!gz) {
-            // Not a gzipped ItemStack payload (might be FurnaceStateCodec or something
-            // else)
+            // Not an ItemStack payload (might be FurnaceStateCodec or something else)
             return new ItemStack[0];
         }
 
@@ -48,6 +75,161 @@ public final class ItemStackCodec {
         return fromYaml(yamlStr);
     }
 
+    /**
+     * True for payloads written by {@link #toBytes} in either format.
+     */
+    public static boolean isItemStackPayload(byte[] bytes) {
+        if (bytes == null || bytes.length < 2)
+            return false;
+        return isBinary(bytes) || (bytes[0] == (byte) 0x1F && bytes[1] == (byte) 0x8B);
+    }
+
+    /*
+     * ======================================================
+     * Per-slot API (BackpackData slot tracking, backpack_slots)
+     * ======================================================
+     */
+
+    /**
+     * One stack in Paper's byte form, or null for an empty slot.
+     */
+    public static byte[] itemToBytes(ItemStack item) {
+        if (isEmpty(item))
+            return null;
+        return item.serializeAsBytes();
+    }
+
+    public static ItemStack itemFromBytes(byte[] raw) {
+        if (raw == null || raw.length == 0)
+            return null;
+        return ItemStack.deserializeBytes(raw);
+    }
+
+    /**
+     * Stack size of one serialized stack, read straight from its NBT without
+     * building the ItemStack; 0 if the bytes can't be read that way (callers
+     * then decode the slot).
+     */
+    public static int peekAmount(byte[] raw) {
+        // Paper writes NbtIo.writeCompressed: a gzipped root compound
+        if (raw == null || raw.length < 2 || raw[0] != (byte) 0x1F || raw[1] != (byte) 0x8B)
+            return 0;
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(raw)))) {
+            if (in.readUnsignedByte() != TAG_COMPOUND)
+                return 0;
+            in.skipNBytes(in.readUnsignedShort()); // root name
+            while (true) {
+                int type = in.readUnsignedByte();
+                if (type == TAG_END)
+                    return 1; // the item codec defaults a missing count to 1
+                String name = in.readUTF();
+                if (type == TAG_INT && name.equals("count"))
+                    return Math.max(0, in.readInt());
+                if (type == TAG_BYTE && name.equals("Count")) // before 1.20.5
+                    return Math.max(0, in.readByte());
+                skipTag(in, type);
+            }
+        } catch (IOException | RuntimeException e) {
+            return 0;
+        }
+    }
+
+    public static ItemStack[] fromSlots(byte[][] slots) {
+        if (slots == null)
+            return new ItemStack[0];
+
+        long t0 = Perf.start();
+        long total = 0;
+        ItemStack[] items = new ItemStack[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            byte[] raw = slots[i];
+            if (raw == null)
+                continue;
+            items[i] = ItemStack.deserializeBytes(raw);
+            total += raw.length;
+        }
+        Perf.CODEC_DECODE.stop(t0);
+        Perf.CODEC_DECODE_BYTES.record(total);
+        return items;
+    }
+
+    /**
+     * Builds the same payload as {@link #toBytes} from already serialized slots,
+     * without touching any ItemStack (safe off the main thread).
+     */
+    public static byte[] joinSlots(byte[][] slots) {
+        if (slots == null)
+            slots = new byte[0][];
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(baos)) {
+
+            int count = 0;
+            for (byte[] raw : slots) {
+                if (raw != null)
+                    count++;
+            }
+
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(slots.length);
+            out.writeInt(count);
+
+            for (int i = 0; i < slots.length; i++) {
+                byte[] raw = slots[i];
+                if (raw == null)
+                    continue;
+                out.writeInt(i);
+                out.writeInt(raw.length);
+                out.write(raw);
+            }
+
+            out.flush();
+            return baos.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to join ItemStack slots", e);
+        }
+    }
+
+    /**
+     * Splits a binary payload into its serialized slots without deserializing
+     * them. Empty input gives no slots; legacy YAML payloads give null (they
+     * have to be decoded on the main thread).
+     */
+    public static byte[][] splitSlots(byte[] bytes) {
+        if (bytes == null || bytes.length == 0)
+            return new byte[0][];
+        if (!isBinary(bytes))
+            return isItemStackPayload(bytes) ? null : new byte[0][];
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            in.skipBytes(MAGIC.length);
+
+            int version = in.readUnsignedByte();
+            if (version != VERSION)
+                throw new IOException("Unsupported ItemStack payload version " + version);
+
+            int size = in.readInt();
+            int count = in.readInt();
+            if (size < 0 || count < 0 || count > size)
+                throw new IOException("Corrupt ItemStack payload header");
+
+            byte[][] slots = new byte[size][];
+            for (int n = 0; n < count; n++) {
+                int slot = in.readInt();
+                int len = in.readInt();
+                if (slot < 0 || slot >= size || len < 0 || len > in.available())
+                    throw new IOException("Corrupt ItemStack payload entry " + n);
+
+                byte[] raw = new byte[len];
+                in.readFully(raw);
+                slots[slot] = raw;
+            }
+            return slots;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to split ItemStack[] bytes", e);
+        }
+    }
+
     public static String toBase64(byte[] bytes) {
         return Base64.getEncoder().encodeToString(bytes);
     }
@@ -58,29 +240,139 @@ public final class ItemStackCodec {
 
     /*
      * ======================================================
-     * YAML serialization
+     * Binary serialization
      * ======================================================
      */
 
-    private static String toYaml(ItemStack[] contents) {
-        YamlConfiguration yaml = new YamlConfiguration();
+    private static boolean isBinary(byte[] bytes) {
+        if (bytes.length < MAGIC.length + 1)
+            return false;
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (bytes[i] != MAGIC[i])
+                return false;
+        }
+        return true;
+    }
 
-        // Fixed-size safeguard
-        yaml.set("size", contents.length);
+    private static byte[] toBinary(ItemStack[] contents) {
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(baos)) {
+
+            int count = 0;
+            for (ItemStack item : contents) {
+                if (!isEmpty(item))
+                    count++;
+            }
+
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(contents.length);
+            out.writeInt(count);
+
+            for (int i = 0; i < contents.length; i++) {
+                ItemStack item = contents[i];
+                if (isEmpty(item))
+                    continue;
+                byte[] raw = item.serializeAsBytes();
+                out.writeInt(i);
+                out.writeInt(raw.length);
+                out.write(raw);
+            }
 
-        List<Object> serialized = new ArrayList<>(contents.length);
-        for (ItemStack item : contents) {
-            serialized.add(item == null ? null : item.serialize());
+            out.flush();
+            return baos.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to serialize ItemStack[] to bytes", e);
         }
-        yaml.set("items", serialized);
+    }
 
-        try {
-            return yaml.saveToString();
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to serialize ItemStack[] to YAML", e);
+    private static ItemStack[] fromBinary(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            in.skipBytes(MAGIC.length);
+
+            int version = in.readUnsignedByte();
+            if (version != VERSION)
+                throw new IOException("Unsupported ItemStack payload version " + version);
+
+            int size = in.readInt();
+            int count = in.readInt();
+            if (size < 0 || count < 0 || count > size)
+                throw new IOException("Corrupt ItemStack payload header");
+
+            ItemStack[] items = new ItemStack[size];
+            for (int n = 0; n < count; n++) {
+                int slot = in.readInt();
+                int len = in.readInt();
+                if (slot < 0 || slot >= size || len < 0 || len > in.available())
+                    throw new IOException("Corrupt ItemStack payload entry " + n);
+
+                byte[] raw = new byte[len];
+                in.readFully(raw);
+                items[slot] = ItemStack.deserializeBytes(raw);
+            }
+            return items;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to deserialize ItemStack[] bytes", e);
         }
     }
 
+    private static boolean isEmpty(ItemStack item) {
+        // serializeAsBytes rejects air / empty stacks
+        return item == null || item.getType().isAir() || item.getAmount() <= 0;
+    }
+
+    /*
+     * ======================================================
+     * NBT peeking (stack size without deserializing)
+     * ======================================================
+     */
+
+    private static final int TAG_END = 0;
+    private static final int TAG_BYTE = 1;
+    private static final int TAG_INT = 3;
+    private static final int TAG_COMPOUND = 10;
+
+    private static void skipTag(DataInputStream in, int type) throws IOException {
+        switch (type) {
+            case 1 -> in.skipNBytes(1);
+            case 2 -> in.skipNBytes(2);
+            case 3, 5 -> in.skipNBytes(4);
+            case 4, 6 -> in.skipNBytes(8);
+            case 7 -> in.skipNBytes(length(in));
+            case 8 -> in.skipNBytes(in.readUnsignedShort());
+            case 9 -> {
+                int elementType = in.readUnsignedByte();
+                int n = length(in);
+                for (int i = 0; i < n; i++) {
+                    skipTag(in, elementType);
+                }
+            }
+            case 10 -> {
+                int t;
+                while ((t = in.readUnsignedByte()) != TAG_END) {
+                    in.skipNBytes(in.readUnsignedShort());
+                    skipTag(in, t);
+                }
+            }
+            case 11 -> in.skipNBytes(4L * length(in));
+            case 12 -> in.skipNBytes(8L * length(in));
+            default -> throw new IOException("Unknown NBT tag " + type);
+        }
+    }
+
+    private static int length(DataInputStream in) throws IOException {
+        int n = in.readInt();
+        if (n < 0)
+            throw new IOException("Negative NBT length " + n);
+        return n;
+    }
+
+    /*
+     * ======================================================
+     * YAML serialization (legacy, read-only)
+     * ======================================================
+     */
+
     private static ItemStack[] fromYaml(String yamlStr) {
         YamlConfiguration yaml = new YamlConfiguration();
         try {
@@ -124,19 +416,6 @@ public final class ItemStackCodec {
      * ======================================================
      */
 
-    private static byte[] gzip(byte[] input) {
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                GZIPOutputStream gzip = new GZIPOutputStream(baos)) {
-
-            gzip.write(input);
-            gzip.finish();
-            return baos.toByteArray();
-
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to GZIP-compress ItemStack data", e);
-        }
-    }
-
     private static byte[] gunzip(byte[] input) {
         try (ByteArrayInputStream bais = new ByteArrayInputStream(input);
                 GZIPInputStream gzip = new GZIPInputStream(bais);
@@ -0,0 +1,794 @@
+package io.github.tootertutor.ModularPacks.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.logging.Logger;
+
+import io.github.tootertutor.ModularPacks.ModularPacksPlugin;
+import io.github.tootertutor.ModularPacks.perf.Perf;
+
+/**
+ * Log-structured backend (Storage.Backend: LOG): two {@link AppendOnlyLog}s in
+ * plugins/ModularPacks/store/.
+ * - backpacks.log: meta:&lt;id&gt; (type, owner, timestamps),
+ * contents:&lt;id&gt; (the {@link ItemStackCodec} payload) and
+ * modules:&lt;id&gt;; every backpack's meta is kept in memory, so lookups and
+ * owner listings never touch the disk
+ * - voided.log: v:&lt;id&gt; rows in the {@link VoidLogArchive} encoding, plus
+ * the id counter so ids are never reused; id, time, player and recovery time
+ * of every row are kept in memory for listings and retention
+ * - a save is one appended write (synced with Storage.Log.Sync); space taken by
+ * overwritten values comes back when {@link LogStoreCompaction} rewrites a log
+ * - slot-level delta saves (Storage.Slots) are SQLite-only; this backend
+ * always writes the whole contents payload
+ */
+public final class LogBackpackRepository implements BackpackRepository {
+
+    private static final String META = "meta:";
+    private static final String CONTENTS = "contents:";
+    private static final String MODULES = "modules:";
+    private static final String VOIDED = "v:";
+    private static final String NEXT_ID = "next-id";
+
+    // logs smaller than this are never worth rewriting
+    private static final long MIN_COMPACT_GARBAGE = 1L << 20;
+
+    private record VoidMeta(long id, long createdAt, String playerUuid, Long recoveredAt) {
+    }
+
+    private static final Comparator<VoidMeta> BY_TIME = Comparator.comparingLong(VoidMeta::createdAt)
+            .thenComparingLong(VoidMeta::id);
+    private static final Comparator<BackpackSummary> OLDEST_FIRST = Comparator
+            .comparingLong(BackpackSummary::createdAt)
+            .thenComparing(s -> s.backpackId().toString());
+
+    private final File dataFolder;
+    private final Logger logger;
+    private final BooleanSupplier sync; // Storage.Log.Sync, read on init
+    private final DoubleSupplier compactGarbageRatio; // Storage.Log.CompactGarbageRatio
+    private AppendOnlyLog backpackLog;
+    private AppendOnlyLog voidLog;
+
+    // meta of every backpack; written under backpackLock, read from anywhere
+    private final Map<UUID, BackpackSummary> backpacks = new ConcurrentHashMap<>();
+    private final Object backpackLock = new Object();
+
+    private final TreeMap<Long, VoidMeta> voidById = new TreeMap<>();
+    private final Map<String, NavigableSet<VoidMeta>> voidByPlayer = new HashMap<>();
+    private long nextVoidId = 1L;
+    private final Object voidLock = new Object();
+
+    public LogBackpackRepository(ModularPacksPlugin plugin) {
+        this(plugin.getDataFolder(), plugin.getLogger(), () -> plugin.cfg().logSync(),
+                () -> plugin.cfg().logCompactGarbageRatio());
+    }
+
+    /**
+     * Without a plugin instance (benchmarks, tools).
+     */
+    public LogBackpackRepository(File dataFolder, Logger logger, BooleanSupplier sync,
+            DoubleSupplier compactGarbageRatio) {
+        this.dataFolder = dataFolder;
+        this.logger = logger;
+        this.sync = sync;
+        this.compactGarbageRatio = compactGarbageRatio;
+    }
+
+    /**
+     * Whether the store in dataFolder has any records; doesn't create it.
+     */
+    public static boolean hasData(File dataFolder) {
+        File dir = new File(dataFolder, "store");
+        return AppendOnlyLog.hasRecords(new File(dir, "backpacks.log"))
+                || AppendOnlyLog.hasRecords(new File(dir, "voided.log"));
+    }
+
+    @Override
+    public void init() {
+        File dir = new File(dataFolder, "store");
+        boolean sync = this.sync.getAsBoolean();
+        backpackLog = new AppendOnlyLog(new File(dir, "backpacks.log"), sync);
+        voidLog = new AppendOnlyLog(new File(dir, "voided.log"), sync);
+
+        try {
+            warnIfCut("backpacks.log", backpackLog.open());
+            warnIfCut("voided.log", voidLog.open());
+
+            for (String key : backpackLog.keys()) {
+                if (!key.startsWith(META))
+                    continue;
+                BackpackSummary s = decodeMeta(UUID.fromString(key.substring(META.length())),
+                        backpackLog.get(key));
+                backpacks.put(s.backpackId(), s);
+            }
+
+            synchronized (voidLock) {
+                for (String key : voidLog.keys()) {
+                    if (key.equals(NEXT_ID)) {
+                        DataInputStream in = new DataInputStream(new ByteArrayInputStream(voidLog.get(key)));
+                        nextVoidId = Math.max(nextVoidId, in.readLong());
+                    } else if (key.startsWith(VOIDED)) {
+                        VoidedItemRecord rec = decodeVoided(voidLog.get(key));
+                        index(rec);
+                        nextVoidId = Math.max(nextVoidId, rec.id + 1);
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            throw new RuntimeException("Failed to open the backpack store in " + dir, e);
+        }
+    }
+
+    private void warnIfCut(String name, long cut) {
+        if (cut > 0L)
+            logger.warning("Dropped " + cut + " byte(s) of an unfinished write at the end of " + name
+                    + " (server stopped mid-save).");
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (voidLog != null)
+                voidLog.close();
+        } catch (IOException ignored) {
+        }
+        try {
+            if (backpackLog != null)
+                backpackLog.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /*
+     * ======================================================
+     * Backpacks
+     * ======================================================
+     */
+
+    @Override
+    public BackpackData loadOrCreate(UUID backpackId, String backpackType) {
+        BackpackData data = new BackpackData(backpackId, backpackType);
+
+        long t0 = Perf.start();
+        try {
+            BackpackSummary meta = backpacks.get(backpackId);
+            if (meta == null) {
+                synchronized (backpackLock) {
+                    if (!backpacks.containsKey(backpackId)) {
+                        long now = System.currentTimeMillis();
+                        putMeta(new BackpackSummary(backpackId, backpackType, null, null, now, now), List.of());
+                    }
+                }
+                return data;
+            }
+
+            read(meta, data);
+            return data;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load backpack " + backpackId, e);
+        } finally {
+            Perf.STORE_LOAD.stop(t0);
+        }
+    }
+
+    @Override
+    public List<BackpackData> loadExisting(UUID ownerUuid, Collection<UUID> backpackIds, int limit) {
+        Set<UUID> ids = new LinkedHashSet<>();
+        for (UUID id : backpackIds) {
+            if (ids.size() >= limit)
+                break;
+            ids.add(id);
+        }
+        if (ownerUuid != null && ids.size() < limit) {
+            List<BackpackSummary> owned = listBackpacksByOwner(ownerUuid);
+            owned.sort(Comparator.comparingLong(BackpackSummary::updatedAt).reversed());
+            for (BackpackSummary s : owned) {
+                if (ids.size() >= limit)
+                    break;
+                ids.add(s.backpackId());
+            }
+        }
+
+        List<BackpackData> out = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            BackpackSummary meta = backpacks.get(id);
+            if (meta == null)
+                continue;
+            long t0 = Perf.start();
+            try {
+                BackpackData data = new BackpackData(id, meta.backpackType());
+                read(meta, data);
+                out.add(data);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to load backpack " + id, e);
+            } finally {
+                Perf.STORE_LOAD.stop(t0);
+            }
+        }
+        return out;
+    }
+
+    private void read(BackpackSummary meta, BackpackData data) throws IOException {
+        data.backpackType(meta.backpackType());
+        data.contentsBytes(backpackLog.get(CONTENTS + meta.backpackId()));
+        byte[] modules = backpackLog.get(MODULES + meta.backpackId());
+        if (modules != null)
+            decodeModules(modules, data);
+    }
+
+    @Override
+    public String findBackpackType(UUID backpackId) {
+        if (backpackId == null)
+            return null;
+        BackpackSummary meta = backpacks.get(backpackId);
+        return meta == null ? null : meta.backpackType();
+    }
+
+    @Override
+    public void ensureBackpackExists(UUID backpackId, String backpackType, UUID ownerUuid, String ownerName) {
+        if (backpackId == null || backpackType == null)
+            return;
+
+        long now = System.currentTimeMillis();
+        synchronized (backpackLock) {
+            BackpackSummary old = backpacks.get(backpackId);
+            String owner = ownerUuid == null ? null : ownerUuid.toString();
+            BackpackSummary meta = new BackpackSummary(
+                    backpackId,
+                    backpackType,
+                    owner != null ? owner : old == null ? null : old.ownerUuid(),
+                    ownerName != null ? ownerName : old == null ? null : old.ownerName(),
+                    old == null ? now : old.createdAt(),
+                    now);
+            try {
+                putMeta(meta, List.of());
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to ensure backpack exists " + backpackId, e);
+            }
+        }
+    }
+
+    @Override
+    public List<BackpackSummary> listBackpacksByOwner(UUID ownerUuid) {
+        if (ownerUuid == null)
+            return List.of();
+        String owner = ownerUuid.toString();
+        List<BackpackSummary> out = new ArrayList<>();
+        for (BackpackSummary s : backpacks.values()) {
+            if (owner.equals(s.ownerUuid()))
+                out.add(s);
+        }
+        out.sort(OLDEST_FIRST);
+        return out;
+    }
+
+    @Override
+    public List<BackpackSummary> listUnownedBackpacks(int limit) {
+        limit = Math.max(1, Math.min(500, limit));
+        List<BackpackSummary> out = new ArrayList<>();
+        for (BackpackSummary s : backpacks.values()) {
+            if (s.ownerUuid() == null)
+                out.add(s);
+        }
+        out.sort(OLDEST_FIRST);
+        return out.size() > limit ? new ArrayList<>(out.subList(0, limit)) : out;
+    }
+
+    @Override
+    public void saveBackpack(BackpackData data) {
+        // whole payload every time, so there are no pending slot changes to hand over
+        saveBatch(List.of(data));
+    }
+
+    @Override
+    public void saveModules(UUID backpackId, Map<Integer, UUID> slotToModule, Map<UUID, byte[]> snapshots,
+            Map<UUID, byte[]> states) {
+        try {
+            append(backpackLog, List.of(new AppendOnlyLog.Entry(MODULES + backpackId,
+                    encodeModules(slotToModule, snapshots, states))));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to save modules for " + backpackId, e);
+        }
+    }
+
+    /**
+     * Writes meta, contents and modules of every snapshot with one append.
+     */
+    @Override
+    public void saveBatch(List<BackpackData> batch) {
+        if (batch == null || batch.isEmpty())
+            return;
+
+        long now = System.currentTimeMillis();
+        try {
+            List<AppendOnlyLog.Entry> entries = new ArrayList<>(batch.size() * 2);
+            for (BackpackData data : batch) {
+                String id = data.backpackId().toString();
+                entries.add(new AppendOnlyLog.Entry(CONTENTS + id, data.contentsBytes()));
+                entries.add(new AppendOnlyLog.Entry(MODULES + id,
+                        encodeModules(data.installedModules(), data.installedSnapshots(), data.moduleStates())));
+            }
+
+            synchronized (backpackLock) {
+                List<BackpackSummary> metas = new ArrayList<>(batch.size());
+                for (BackpackData data : batch) {
+                    BackpackSummary old = backpacks.get(data.backpackId());
+                    metas.add(new BackpackSummary(
+                            data.backpackId(),
+                            data.backpackType(),
+                            old == null ? null : old.ownerUuid(),
+                            old == null ? null : old.ownerName(),
+                            old == null ? now : old.createdAt(),
+                            now));
+                }
+                putMetas(metas, entries);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to save " + batch.size() + " backpack(s)", e);
+        }
+    }
+
+    private void putMeta(BackpackSummary meta, List<AppendOnlyLog.Entry> with) throws IOException {
+        putMetas(List.of(meta), with);
+    }
+
+    /**
+     * Appends the metas together with the other entries, then publishes them.
+     * Call with backpackLock held.
+     */
+    private void putMetas(List<BackpackSummary> metas, List<AppendOnlyLog.Entry> with) throws IOException {
+        List<AppendOnlyLog.Entry> entries = new ArrayList<>(with);
+        for (BackpackSummary meta : metas) {
+            entries.add(new AppendOnlyLog.Entry(META + meta.backpackId(), encodeMeta(meta)));
+        }
+        append(backpackLog, entries);
+        for (BackpackSummary meta : metas) {
+            backpacks.put(meta.backpackId(), meta);
+        }
+    }
+
+    /*
+     * ======================================================
+     * Void log
+     * ======================================================
+     */
+
+    @Override
+    public long logVoidedItem(VoidedItemRecord rec) {
+        if (rec == null || rec.itemBytes == null)
+            return -1;
+        synchronized (voidLock) {
+            long id = nextVoidId;
+            appendVoided(List.of(withId(rec, id)), "Failed to log voided item");
+            return id;
+        }
+    }
+
+    @Override
+    public void logVoidedItems(List<VoidedItemRecord> batch) {
+        if (batch == null || batch.isEmpty())
+            return;
+        synchronized (voidLock) {
+            List<VoidedItemRecord> rows = new ArrayList<>(batch.size());
+            long id = nextVoidId;
+            for (VoidedItemRecord rec : batch) {
+                rows.add(withId(rec, id++));
+            }
+            appendVoided(rows, "Failed to log " + batch.size() + " voided item(s)");
+        }
+    }
+
+    @Override
+    public List<VoidedItemSummary> listVoidedItemsByPlayer(UUID playerUuid, int limit, boolean includeRecovered) {
+        if (playerUuid == null)
+            return List.of();
+        limit = Math.max(1, Math.min(200, limit));
+
+        List<Long> ids = new ArrayList<>();
+        synchronized (voidLock) {
+            NavigableSet<VoidMeta> rows = voidByPlayer.get(playerUuid.toString());
+            if (rows != null) {
+                for (VoidMeta m : rows.descendingSet()) {
+                    if (ids.size() >= limit)
+                        break;
+                    if (includeRecovered || m.recoveredAt() == null)
+                        ids.add(m.id());
+                }
+            }
+        }
+
+        List<VoidedItemSummary> out = new ArrayList<>(ids.size());
+        for (long id : ids) {
+            VoidedItemRecord rec = getVoidedItem(id);
+            if (rec != null)
+                out.add(summaryOf(rec));
+        }
+        return out;
+    }
+
+    @Override
+    public VoidedItemRecord getVoidedItem(long id) {
+        if (id <= 0)
+            return null;
+        try {
+            byte[] raw = voidLog.get(VOIDED + id);
+            return raw == null ? null : decodeVoided(raw);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to get voided item " + id, e);
+        }
+    }
+
+    @Override
+    public boolean markVoidedItemRecovered(long id, UUID recoveredBy, String recoveredByName) {
+        if (id <= 0)
+            return false;
+        synchronized (voidLock) {
+            VoidedItemRecord rec = getVoidedItem(id);
+            if (rec == null || rec.recoveredAt != null)
+                return false;
+            appendVoided(List.of(recovered(rec, recoveredBy, recoveredByName)),
+                    "Failed to mark voided item recovered " + id);
+            return true;
+        }
+    }
+
+    @Override
+    public boolean restoreArchivedVoidedItem(VoidedItemRecord rec, UUID recoveredBy, String recoveredByName) {
+        if (rec == null || rec.id == null || rec.itemBytes == null)
+            return false;
+        synchronized (voidLock) {
+            if (voidById.containsKey(rec.id))
+                return false;
+            appendVoided(List.of(recovered(rec, recoveredBy, recoveredByName)),
+                    "Failed to restore archived voided item " + rec.id);
+            return true;
+        }
+    }
+
+    /*
+     * ======================================================
+     * Void log retention (VoidLogRetention, async)
+     * ======================================================
+     */
+
+    @Override
+    public List<VoidedItemRecord> expiredVoidedItems(long createdBefore, long recoveredBefore, int limit) {
+        limit = Math.max(1, limit);
+        List<Long> ids = new ArrayList<>();
+        synchronized (voidLock) {
+            for (VoidMeta m : voidById.values()) {
+                if (ids.size() >= limit)
+                    break;
+                boolean expired = m.recoveredAt() == null ? m.createdAt() < createdBefore
+                        : m.recoveredAt() < recoveredBefore;
+                if (expired)
+                    ids.add(m.id());
+            }
+        }
+        return readVoided(ids);
+    }
+
+    @Override
+    public List<String> playersOverVoidLimit(int maxRows) {
+        synchronized (voidLock) {
+            List<String> out = new ArrayList<>();
+            for (Map.Entry<String, NavigableSet<VoidMeta>> e : voidByPlayer.entrySet()) {
+                if (e.getValue().size() > maxRows)
+                    out.add(e.getKey());
+            }
+            return out;
+        }
+    }
+
+    @Override
+    public List<VoidedItemRecord> voidedItemsBeyond(String playerUuid, int keep, int limit) {
+        List<Long> ids = new ArrayList<>();
+        synchronized (voidLock) {
+            NavigableSet<VoidMeta> rows = voidByPlayer.get(playerUuid);
+            if (rows != null) {
+                // oldest first, stopping short of the newest keep
+                int take = Math.min(Math.max(1, limit), rows.size() - Math.max(0, keep));
+                Iterator<VoidMeta> it = rows.iterator();
+                while (ids.size() < take && it.hasNext()) {
+                    ids.add(it.next().id());
+                }
+            }
+        }
+        return readVoided(ids);
+    }
+
+    @Override
+    public int deleteVoidedItems(List<VoidedItemRecord> rows) {
+        if (rows == null || rows.isEmpty())
+            return 0;
+
+        synchronized (voidLock) {
+            List<AppendOnlyLog.Entry> entries = new ArrayList<>(rows.size());
+            List<VoidMeta> gone = new ArrayList<>(rows.size());
+            for (VoidedItemRecord rec : rows) {
+                VoidMeta m = rec.id == null ? null : voidById.get(rec.id);
+                if (m == null || !Objects.equals(m.recoveredAt(), rec.recoveredAt))
+                    continue;
+                entries.add(new AppendOnlyLog.Entry(VOIDED + m.id(), null));
+                gone.add(m);
+            }
+            if (entries.isEmpty())
+                return 0;
+
+            try {
+                append(voidLog, entries);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to delete " + rows.size() + " voided item(s)", e);
+            }
+            for (VoidMeta m : gone) {
+                unindex(m);
+            }
+            return gone.size();
+        }
+    }
+
+    /**
+     * Rewrites voided.log once enough of it is deleted rows; maxPages doesn't
+     * apply here.
+     */
+    @Override
+    public void compactVoidLog(int maxPages) {
+        try {
+            compact(voidLog, compactGarbageRatio.getAsDouble());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to compact voided.log", e);
+        }
+    }
+
+    /*
+     * ======================================================
+     * Compaction (LogStoreCompaction, async)
+     * ======================================================
+     */
+
+    /**
+     * Rewrites every log where at least garbageRatio of the file is overwritten
+     * or deleted values.
+     *
+     * @return bytes reclaimed
+     */
+    public long compact(double garbageRatio) {
+        long reclaimed = 0L;
+        try {
+            reclaimed += compact(backpackLog, garbageRatio);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to compact backpacks.log", e);
+        }
+        try {
+            reclaimed += compact(voidLog, garbageRatio);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to compact voided.log", e);
+        }
+        return reclaimed;
+    }
+
+    private static long compact(AppendOnlyLog log, double garbageRatio) throws IOException {
+        long garbage = log.garbageBytes();
+        if (garbage < MIN_COMPACT_GARBAGE || garbage < garbageRatio * log.sizeBytes())
+            return 0L;
+        long t0 = Perf.start();
+        try {
+            return log.compact();
+        } finally {
+            Perf.STORE_COMPACT.stop(t0);
+        }
+    }
+
+    /*
+     * ======================================================
+     * Internals
+     * ======================================================
+     */
+
+    private static void append(AppendOnlyLog log, List<AppendOnlyLog.Entry> entries) throws IOException {
+        long bytes = 0L;
+        for (AppendOnlyLog.Entry e : entries) {
+            if (e.value() != null)
+                bytes += e.value().length;
+        }
+        long t0 = Perf.start();
+        try {
+            log.write(entries);
+        } finally {
+            Perf.STORE_APPEND.stop(t0);
+        }
+        Perf.STORE_APPEND_BYTES.record(bytes);
+    }
+
+    /**
+     * Appends rows (plus the id counter) and indexes them. Call with voidLock
+     * held.
+     */
+    private void appendVoided(List<VoidedItemRecord> rows, String failure) {
+        long next = nextVoidId;
+        List<AppendOnlyLog.Entry> entries = new ArrayList<>(rows.size() + 1);
+        try {
+            for (VoidedItemRecord rec : rows) {
+                entries.add(new AppendOnlyLog.Entry(VOIDED + rec.id, encodeVoided(rec)));
+                next = Math.max(next, rec.id + 1);
+            }
+            if (next != nextVoidId) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(8);
+                new DataOutputStream(bytes).writeLong(next);
+                entries.add(new AppendOnlyLog.Entry(NEXT_ID, bytes.toByteArray()));
+            }
+            append(voidLog, entries);
+        } catch (IOException e) {
+            throw new RuntimeException(failure, e);
+        }
+
+        nextVoidId = next;
+        for (VoidedItemRecord rec : rows) {
+            VoidMeta old = voidById.get(rec.id);
+            if (old != null)
+                unindex(old);
+            index(rec);
+        }
+    }
+
+    private List<VoidedItemRecord> readVoided(List<Long> ids) {
+        List<VoidedItemRecord> out = new ArrayList<>(ids.size());
+        for (long id : ids) {
+            VoidedItemRecord rec = getVoidedItem(id);
+            if (rec != null)
+                out.add(rec);
+        }
+        return out;
+    }
+
+    private void index(VoidedItemRecord rec) {
+        VoidMeta m = new VoidMeta(rec.id, rec.createdAt, rec.playerUuid, rec.recoveredAt);
+        voidById.put(m.id(), m);
+        if (m.playerUuid() != null)
+            voidByPlayer.computeIfAbsent(m.playerUuid(), k -> new TreeSet<>(BY_TIME)).add(m);
+    }
+
+    private void unindex(VoidMeta m) {
+        voidById.remove(m.id());
+        if (m.playerUuid() == null)
+            return;
+        NavigableSet<VoidMeta> rows = voidByPlayer.get(m.playerUuid());
+        if (rows == null)
+            return;
+        rows.remove(m);
+        if (rows.isEmpty())
+            voidByPlayer.remove(m.playerUuid());
+    }
+
+    private static VoidedItemRecord withId(VoidedItemRecord r, long id) {
+        return new VoidedItemRecord(id, r.createdAt, r.playerUuid, r.playerName, r.backpackId, r.backpackType,
+                r.voidModuleId, r.itemType, r.amount, r.itemBytes, r.world, r.x, r.y, r.z, r.recoveredAt,
+                r.recoveredBy, r.recoveredByName);
+    }
+
+    private static VoidedItemRecord recovered(VoidedItemRecord r, UUID recoveredBy, String recoveredByName) {
+        return new VoidedItemRecord(r.id, r.createdAt, r.playerUuid, r.playerName, r.backpackId, r.backpackType,
+                r.voidModuleId, r.itemType, r.amount, r.itemBytes, r.world, r.x, r.y, r.z,
+                System.currentTimeMillis(), recoveredBy == null ? null : recoveredBy.toString(), recoveredByName);
+    }
+
+    private static VoidedItemSummary summaryOf(VoidedItemRecord r) {
+        return new VoidedItemSummary(r.id, r.createdAt, r.playerUuid, r.playerName, r.backpackId, r.backpackType,
+                r.voidModuleId, r.itemType, r.amount, r.world, r.x, r.y, r.z, r.recoveredAt, r.recoveredBy,
+                r.recoveredByName);
+    }
+
+    private static byte[] encodeVoided(VoidedItemRecord rec) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128 + rec.itemBytes.length);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            VoidLogArchive.write(out, rec);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static VoidedItemRecord decodeVoided(byte[] raw) throws IOException {
+        return VoidLogArchive.read(new DataInputStream(new ByteArrayInputStream(raw)));
+    }
+
+    private static byte[] encodeMeta(BackpackSummary meta) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeString(out, meta.backpackType());
+            writeString(out, meta.ownerUuid());
+            writeString(out, meta.ownerName());
+            out.writeLong(meta.createdAt());
+            out.writeLong(meta.updatedAt());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static BackpackSummary decodeMeta(UUID backpackId, byte[] raw) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+        String type = readString(in);
+        String owner = readString(in);
+        String ownerName = readString(in);
+        long createdAt = in.readLong();
+        long updatedAt = in.readLong();
+        return new BackpackSummary(backpackId, type, owner, ownerName, createdAt, updatedAt);
+    }
+
+    private static byte[] encodeModules(Map<Integer, UUID> slotToModule, Map<UUID, byte[]> snapshots,
+            Map<UUID, byte[]> states) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(slotToModule.size());
+            for (Map.Entry<Integer, UUID> e : slotToModule.entrySet()) {
+                UUID moduleId = e.getValue();
+                out.writeInt(e.getKey());
+                out.writeLong(moduleId.getMostSignificantBits());
+                out.writeLong(moduleId.getLeastSignificantBits());
+                writeBytes(out, snapshots.get(moduleId));
+                writeBytes(out, states.get(moduleId));
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void decodeModules(byte[] raw, BackpackData data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+        int n = in.readInt();
+        for (int i = 0; i < n; i++) {
+            int slotIndex = in.readInt();
+            UUID moduleId = new UUID(in.readLong(), in.readLong());
+            byte[] snapshot = readBytes(in);
+            byte[] state = readBytes(in);
+            if (state != null)
+                data.moduleStates().put(moduleId, state);
+
+            data.installedModules().put(slotIndex, moduleId);
+            if (snapshot != null)
+                data.installedSnapshots().put(moduleId, snapshot);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null)
+            out.writeUTF(s);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] b) throws IOException {
+        out.writeInt(b == null ? -1 : b.length);
+        if (b != null)
+            out.write(b);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int len = in.readInt();
+        if (len < 0)
+            return null;
+        byte[] b = new byte[len];
+        in.readFully(b);
+        return b;
+    }
+}
@@ -0,0 +1,70 @@
+package io.github.tootertutor.ModularPacks.data;
+
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import io.github.tootertutor.ModularPacks.ModularPacksPlugin;
+
+/**
+ * Background compaction for {@link LogBackpackRepository} (Storage.Log).
+ * - rewrites a log once CompactGarbageRatio of it is overwritten or deleted
+ * values; saves keep appending to the old file while live records are copied
+ */
+public final class LogStoreCompaction {
+
+    private final ModularPacksPlugin plugin;
+    private final LogBackpackRepository repo;
+
+    private final Object runLock = new Object();
+    private volatile boolean stopping;
+    private BukkitTask task;
+
+    public LogStoreCompaction(ModularPacksPlugin plugin, LogBackpackRepository repo) {
+        this.plugin = plugin;
+        this.repo = repo;
+    }
+
+    /**
+     * (Re)schedules the job from config. Safe to call on reload.
+     */
+    public void apply() {
+        if (task != null)
+            task.cancel();
+        task = null;
+        stopping = false;
+
+        int minutes = plugin.cfg().logCompactIntervalMinutes();
+        if (minutes <= 0)
+            return;
+        long period = minutes * 60L * 20L;
+        task = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::run, period, period);
+    }
+
+    /**
+     * Cancels the job and waits for a compaction in progress to finish.
+     */
+    public void stop() {
+        stopping = true;
+        if (task != null)
+            task.cancel();
+        task = null;
+        synchronized (runLock) {
+            // nothing; just waits for run() to let go
+        }
+    }
+
+    private void run() {
+        synchronized (runLock) {
+            if (stopping)
+                return;
+            try {
+                long reclaimed = repo.compact(plugin.cfg().logCompactGarbageRatio());
+                if (reclaimed > 0L)
+                    plugin.getLogger().info("Backpack store compaction reclaimed " + (reclaimed >> 10) + " KiB.");
+            } catch (RuntimeException ex) {
+                plugin.getLogger().warning("Backpack store compaction failed: " + ex.getMessage()
+                        + (ex.getCause() == null ? "" : ": " + ex.getCause().getMessage()));
+            }
+        }
+    }
+}
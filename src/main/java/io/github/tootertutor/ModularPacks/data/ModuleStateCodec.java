@@ -1,9 +1,16 @@
 package io.github.tootertutor.ModularPacks.data;
 
-public interface ModuleStateCodec {
+/**
+ * Encodes one module type's persisted state (BackpackData module state bytes).
+ * Implementations are looked up through {@link ModuleStateCodecs}.
+ */
+public interface ModuleStateCodec<S> {
     String id(); // e.g. "Tank", "Smelting"
 
-    byte[] encode(Object state);
+    byte[] encode(S state);
 
-    Object decode(byte[] bytes);
+    /**
+     * Never returns null; empty or unreadable bytes decode to a default state.
+     */
+    S decode(byte[] bytes);
 }
@@ -0,0 +1,59 @@
+package io.github.tootertutor.ModularPacks.data;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Registry of module state codecs, keyed by codec id and any module types that
+ * share the codec (e.g. Blasting/Smoking use the Smelting codec).
+ * Lookups are case-insensitive.
+ */
+public final class ModuleStateCodecs {
+
+    private static final Map<String, ModuleStateCodec<?>> BY_TYPE = new HashMap<>();
+
+    private ModuleStateCodecs() {
+    }
+
+    public static synchronized void register(ModuleStateCodec<?> codec, String... aliases) {
+        BY_TYPE.put(key(codec.id()), codec);
+        for (String alias : aliases) {
+            BY_TYPE.put(key(alias), codec);
+        }
+    }
+
+    /**
+     * Codec for a module type, or null when that module has no structured state.
+     */
+    public static synchronized ModuleStateCodec<?> forType(String moduleType) {
+        if (moduleType == null)
+            return null;
+        return BY_TYPE.get(key(moduleType));
+    }
+
+    /**
+     * Re-encodes a legacy (non-binary) payload with the module type's codec.
+     * Returns the input unchanged when it's already binary, empty, an old
+     * ItemStack[] payload (ScreenRouter converts those), or the type has no
+     * codec.
+     */
+    public static byte[] migrate(String moduleType, byte[] bytes) {
+        if (bytes == null || bytes.length == 0 || BinaryModuleStateCodec.isBinary(bytes))
+            return bytes;
+        if (ItemStackCodec.isItemStackPayload(bytes))
+            return bytes;
+        ModuleStateCodec<?> codec = forType(moduleType);
+        if (codec == null)
+            return bytes;
+        return reencode(codec, bytes);
+    }
+
+    private static <S> byte[] reencode(ModuleStateCodec<S> codec, byte[] bytes) {
+        return codec.encode(codec.decode(bytes));
+    }
+
+    private static String key(String s) {
+        return s.trim().toLowerCase(Locale.ROOT);
+    }
+}
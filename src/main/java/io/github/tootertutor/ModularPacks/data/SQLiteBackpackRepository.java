@@ -8,26 +8,112 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Logger;
 
 import io.github.tootertutor.ModularPacks.ModularPacksPlugin;
+import io.github.tootertutor.ModularPacks.perf.Perf;
 
-public final class SQLiteBackpackRepository {
+/**
+ * SQLite backend (Storage.Backend: SQLITE): backpacks.db in WAL mode with one
+ * connection per user (main thread, backpack writer, void log, slot
+ * maintenance, login prefetch).
+ */
+public final class SQLiteBackpackRepository implements BackpackRepository {
 
-    private final ModularPacksPlugin plugin;
+    private final File dataFolder;
+    private final Logger logger;
+    private final BooleanSupplier slotStorage; // Storage.Slots.Enabled, read per save
     private Connection connection;
+    // Used only by BackpackWriteQueue's thread so its transactions never interleave
+    // with main-thread statements.
+    private Connection writerConnection;
+    // voided_items writes off the main thread (VoidLogQueue, VoidLogRetention),
+    // serialized on auditLock.
+    private Connection auditConnection;
+    private final Object auditLock = new Object();
+    // backpack_slots migration/compaction (BackpackSlotCompaction, async),
+    // serialized on maintenanceLock.
+    private Connection maintenanceConnection;
+    private final Object maintenanceLock = new Object();
+    // login prefetch reads (BackpackPrefetcher, async), serialized on readerLock.
+    private Connection readerConnection;
+    private final Object readerLock = new Object();
 
     public SQLiteBackpackRepository(ModularPacksPlugin plugin) {
-        this.plugin = plugin;
+        this(plugin.getDataFolder(), plugin.getLogger(), () -> plugin.cfg().slotStorageEnabled());
     }
 
+    /**
+     * Without a plugin instance (benchmarks, tools).
+     */
+    public SQLiteBackpackRepository(File dataFolder, Logger logger, BooleanSupplier slotStorage) {
+        this.dataFolder = dataFolder;
+        this.logger = logger;
+        this.slotStorage = slotStorage;
+    }
+
+    /**
+     * Whether backpacks.db in dataFolder holds any backpacks or voided items;
+     * doesn't create the file.
+     */
+    public static boolean hasData(File dataFolder) {
+        File dbFile = new File(dataFolder, "backpacks.db");
+        if (!dbFile.isFile())
+            return false;
+        try (Connection c = DriverManager.getConnection("jdbc:sqlite:" + dbFile.getAbsolutePath());
+                Statement st = c.createStatement()) {
+            for (String table : new String[] { "backpacks", "voided_items" }) {
+                try (ResultSet rs = st.executeQuery("SELECT 1 FROM " + table + " LIMIT 1")) {
+                    if (rs.next())
+                        return true;
+                } catch (SQLException missingTable) {
+                    // an older or half-created file; nothing stored in that table
+                }
+            }
+            return false;
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to read " + dbFile, e);
+        }
+    }
+
+    @Override
     public void init() {
         try {
-            File dbFile = new File(plugin.getDataFolder(), "backpacks.db");
+            File dbFile = new File(dataFolder, "backpacks.db");
             String url = "jdbc:sqlite:" + dbFile.getAbsolutePath();
             connection = DriverManager.getConnection(url);
+            writerConnection = DriverManager.getConnection(url);
+            auditConnection = DriverManager.getConnection(url);
+            maintenanceConnection = DriverManager.getConnection(url);
+            readerConnection = DriverManager.getConnection(url);
+
+            // WAL lets the main thread keep reading while the writer commits.
+            try (Statement st = connection.createStatement()) {
+                // only takes effect on a new database; lets retention hand freed pages back
+                st.execute("PRAGMA auto_vacuum=INCREMENTAL");
+                st.execute("PRAGMA journal_mode=WAL");
+                st.execute("PRAGMA busy_timeout=5000");
+            }
+            try (Statement st = writerConnection.createStatement()) {
+                st.execute("PRAGMA busy_timeout=5000");
+            }
+            try (Statement st = auditConnection.createStatement()) {
+                st.execute("PRAGMA busy_timeout=5000");
+            }
+            try (Statement st = maintenanceConnection.createStatement()) {
+                st.execute("PRAGMA busy_timeout=5000");
+            }
+            try (Statement st = readerConnection.createStatement()) {
+                st.execute("PRAGMA busy_timeout=5000");
+            }
 
             try (Statement st = connection.createStatement()) {
                 st.executeUpdate("""
@@ -57,6 +143,27 @@ public final class SQLiteBackpackRepository {
                     st.executeUpdate("ALTER TABLE backpacks ADD COLUMN updated_at INTEGER");
                 } catch (SQLException ignored) {
                 }
+                // 1 = contents live in backpack_slots (contents is NULL), slot_count slots
+                try {
+                    st.executeUpdate("ALTER TABLE backpacks ADD COLUMN slot_layout INTEGER NOT NULL DEFAULT 0");
+                } catch (SQLException ignored) {
+                }
+                try {
+                    st.executeUpdate("ALTER TABLE backpacks ADD COLUMN slot_count INTEGER");
+                } catch (SQLException ignored) {
+                }
+
+                // One row per non-empty slot (Storage.Slots); version = save time that
+                // last wrote the slot.
+                st.executeUpdate("""
+                            CREATE TABLE IF NOT EXISTS backpack_slots (
+                              backpack_id TEXT NOT NULL,
+                              slot_index INTEGER NOT NULL,
+                              item_bytes BLOB NOT NULL,
+                              version INTEGER NOT NULL,
+                              PRIMARY KEY (backpack_id, slot_index)
+                            );
+                        """);
 
                 st.executeUpdate("""
                             CREATE TABLE IF NOT EXISTS backpack_modules (
@@ -115,7 +222,28 @@ public final class SQLiteBackpackRepository {
         }
     }
 
+    @Override
     public void close() {
+        try {
+            if (readerConnection != null)
+                readerConnection.close();
+        } catch (SQLException ignored) {
+        }
+        try {
+            if (maintenanceConnection != null)
+                maintenanceConnection.close();
+        } catch (SQLException ignored) {
+        }
+        try {
+            if (auditConnection != null)
+                auditConnection.close();
+        } catch (SQLException ignored) {
+        }
+        try {
+            if (writerConnection != null)
+                writerConnection.close();
+        } catch (SQLException ignored) {
+        }
         try {
             if (connection != null)
                 connection.close();
@@ -123,60 +251,149 @@ public final class SQLiteBackpackRepository {
         }
     }
 
+    @Override
     public BackpackData loadOrCreate(UUID backpackId, String backpackType) {
         BackpackData data = new BackpackData(backpackId, backpackType);
 
+        long t0 = Perf.start();
         try {
-            // backpacks row
-            try (PreparedStatement ps = connection.prepareStatement(
-                    "SELECT backpack_type, contents FROM backpacks WHERE backpack_id = ?")) {
-                ps.setString(1, backpackId.toString());
-                try (ResultSet rs = ps.executeQuery()) {
-                    if (rs.next()) {
-                        data.backpackType(rs.getString("backpack_type"));
-                        data.contentsBytes(rs.getBytes("contents"));
-                    } else {
-                        // insert new
-                        try (PreparedStatement ins = connection.prepareStatement(
-                                "INSERT INTO backpacks(backpack_id, backpack_type, contents) VALUES(?,?,?)")) {
-                            ins.setString(1, backpackId.toString());
-                            ins.setString(2, backpackType);
-                            ins.setBytes(3, null);
-                            ins.executeUpdate();
+            if (!readRow(connection, data)) {
+                // insert new
+                try (PreparedStatement ins = connection.prepareStatement(
+                        "INSERT INTO backpacks(backpack_id, backpack_type, contents) VALUES(?,?,?)")) {
+                    ins.setString(1, backpackId.toString());
+                    ins.setString(2, backpackType);
+                    ins.setBytes(3, null);
+                    ins.executeUpdate();
+                }
+            }
+            readModules(connection, data);
+            return data;
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to load backpack " + backpackId, e);
+        } finally {
+            Perf.SQL_LOAD.stop(t0);
+        }
+    }
+
+    /**
+     * Reads on the reader connection, so it never joins a main-thread
+     * transaction.
+     */
+    @Override
+    public List<BackpackData> loadExisting(UUID ownerUuid, Collection<UUID> backpackIds, int limit) {
+        synchronized (readerLock) {
+            Connection c = readerConnection;
+            Set<UUID> ids = new LinkedHashSet<>();
+            for (UUID id : backpackIds) {
+                if (ids.size() >= limit)
+                    break;
+                ids.add(id);
+            }
+
+            try {
+                if (ownerUuid != null && ids.size() < limit) {
+                    try (PreparedStatement ps = c.prepareStatement("""
+                            SELECT backpack_id
+                              FROM backpacks
+                             WHERE owner_uuid = ?
+                             ORDER BY COALESCE(updated_at, 0) DESC
+                             LIMIT ?
+                            """)) {
+                        ps.setString(1, ownerUuid.toString());
+                        ps.setInt(2, limit);
+                        try (ResultSet rs = ps.executeQuery()) {
+                            while (rs.next() && ids.size() < limit) {
+                                ids.add(UUID.fromString(rs.getString("backpack_id")));
+                            }
                         }
                     }
                 }
-            }
 
-            // modules
-            try (PreparedStatement ps = connection.prepareStatement(
-                    "SELECT slot_index, module_id, module_snapshot, module_state FROM backpack_modules WHERE backpack_id = ?")) {
-                ps.setString(1, backpackId.toString());
-                try (ResultSet rs = ps.executeQuery()) {
-                    while (rs.next()) {
-                        int slotIndex = rs.getInt("slot_index");
-                        UUID moduleId = UUID.fromString(rs.getString("module_id"));
-                        byte[] snapshot = rs.getBytes("module_snapshot");
-                        byte[] state = rs.getBytes("module_state");
-                        if (state != null)
-                            data.moduleStates().put(moduleId, state);
-
-                        data.installedModules().put(slotIndex, moduleId);
-                        if (snapshot != null)
-                            data.installedSnapshots().put(moduleId, snapshot);
+                List<BackpackData> out = new ArrayList<>(ids.size());
+                for (UUID id : ids) {
+                    long t0 = Perf.start();
+                    BackpackData data = new BackpackData(id, null);
+                    if (readRow(c, data)) {
+                        readModules(c, data);
+                        out.add(data);
                     }
+                    Perf.SQL_LOAD.stop(t0);
                 }
+                return out;
+            } catch (SQLException e) {
+                throw new RuntimeException("Failed to prefetch backpacks"
+                        + (ownerUuid == null ? "" : " of " + ownerUuid), e);
             }
+        }
+    }
 
-            return data;
-        } catch (SQLException e) {
-            throw new RuntimeException("Failed to load backpack " + backpackId, e);
+    /**
+     * Fills in type and contents from the backpacks row.
+     *
+     * @return false if there is no row
+     */
+    private static boolean readRow(Connection c, BackpackData data) throws SQLException {
+        String id = data.backpackId().toString();
+        try (PreparedStatement ps = c.prepareStatement(
+                "SELECT backpack_type, contents, slot_layout, slot_count FROM backpacks WHERE backpack_id = ?")) {
+            ps.setString(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next())
+                    return false;
+                data.backpackType(rs.getString("backpack_type"));
+                if (rs.getInt("slot_layout") == 1)
+                    data.slotBytes(loadSlots(c, id, rs.getInt("slot_count")));
+                else
+                    data.contentsBytes(rs.getBytes("contents"));
+                return true;
+            }
         }
     }
 
+    private static void readModules(Connection c, BackpackData data) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(
+                "SELECT slot_index, module_id, module_snapshot, module_state FROM backpack_modules WHERE backpack_id = ?")) {
+            ps.setString(1, data.backpackId().toString());
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int slotIndex = rs.getInt("slot_index");
+                    UUID moduleId = UUID.fromString(rs.getString("module_id"));
+                    byte[] snapshot = rs.getBytes("module_snapshot");
+                    byte[] state = rs.getBytes("module_state");
+                    if (state != null)
+                        data.moduleStates().put(moduleId, state);
+
+                    data.installedModules().put(slotIndex, moduleId);
+                    if (snapshot != null)
+                        data.installedSnapshots().put(moduleId, snapshot);
+                }
+            }
+        }
+    }
+
+    private static byte[][] loadSlots(Connection c, String backpackId, int slotCount) throws SQLException {
+        byte[][] slots = new byte[Math.max(0, slotCount)][];
+        try (PreparedStatement ps = c.prepareStatement(
+                "SELECT slot_index, item_bytes FROM backpack_slots WHERE backpack_id = ? AND slot_index < ?")) {
+            ps.setString(1, backpackId);
+            ps.setInt(2, slots.length);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int slot = rs.getInt("slot_index");
+                    if (slot >= 0)
+                        slots[slot] = rs.getBytes("item_bytes");
+                }
+            }
+        }
+        return slots;
+    }
+
+    @Override
     public String findBackpackType(UUID backpackId) {
         if (backpackId == null)
             return null;
+        long t0 = Perf.start();
         try (PreparedStatement ps = connection.prepareStatement(
                 "SELECT backpack_type FROM backpacks WHERE backpack_id = ?")) {
             ps.setString(1, backpackId.toString());
@@ -187,15 +404,19 @@ public final class SQLiteBackpackRepository {
             }
         } catch (SQLException e) {
             throw new RuntimeException("Failed to query backpack type " + backpackId, e);
+        } finally {
+            Perf.SQL_FIND_TYPE.stop(t0);
         }
         return null;
     }
 
+    @Override
     public void ensureBackpackExists(UUID backpackId, String backpackType, UUID ownerUuid, String ownerName) {
         if (backpackId == null || backpackType == null)
             return;
 
         long now = System.currentTimeMillis();
+        long t0 = Perf.start();
 
         try (PreparedStatement ins = connection.prepareStatement("""
                 INSERT OR IGNORE INTO backpacks(backpack_id, backpack_type, contents, owner_uuid, owner_name, created_at, updated_at)
@@ -229,9 +450,12 @@ public final class SQLiteBackpackRepository {
             upd.executeUpdate();
         } catch (SQLException e) {
             throw new RuntimeException("Failed to update backpack metadata " + backpackId, e);
+        } finally {
+            Perf.SQL_ENSURE.stop(t0);
         }
     }
 
+    @Override
     public List<BackpackSummary> listBackpacksByOwner(UUID ownerUuid) {
         if (ownerUuid == null)
             return List.of();
@@ -260,24 +484,38 @@ public final class SQLiteBackpackRepository {
         }
     }
 
+    @Override
     public void saveBackpack(BackpackData data) {
-        try (PreparedStatement ps = connection.prepareStatement(
-                "UPDATE backpacks SET backpack_type = ?, contents = ?, updated_at = ? WHERE backpack_id = ?")) {
-            ps.setString(1, data.backpackType());
-            ps.setBytes(2, data.contentsBytes());
-            ps.setLong(3, System.currentTimeMillis());
-            ps.setString(4, data.backpackId().toString());
-            ps.executeUpdate();
+        long t0 = Perf.start();
+        BackpackData snapshot = data.snapshot();
+        try {
+            connection.setAutoCommit(false);
+            writeContents(connection, List.of(snapshot), System.currentTimeMillis());
+            connection.commit();
         } catch (SQLException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException ignored) {
+            }
+            // keep the unwritten slots for the next save
+            data.absorbChanges(snapshot);
             throw new RuntimeException("Failed to save backpack " + data.backpackId(), e);
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException ignored) {
+            }
+            Perf.SQL_SAVE.stop(t0);
         }
 
         saveModules(data.backpackId(), data.installedModules(), data.installedSnapshots(), data.moduleStates());
 
     }
 
+    @Override
     public void saveModules(UUID backpackId, Map<Integer, UUID> slotToModule, Map<UUID, byte[]> snapshots,
             Map<UUID, byte[]> states) {
+        long t0 = Perf.start();
         try {
             connection.setAutoCommit(false);
 
@@ -314,9 +552,212 @@ public final class SQLiteBackpackRepository {
                 connection.setAutoCommit(true);
             } catch (SQLException ignored) {
             }
+            Perf.SQL_SAVE_MODULES.stop(t0);
+        }
+    }
+
+    /**
+     * Writes several backpacks (row + modules) in one transaction on the writer
+     * connection. Only call this from a single thread at a time.
+     */
+    @Override
+    public void saveBatch(List<BackpackData> batch) {
+        if (batch == null || batch.isEmpty())
+            return;
+
+        Connection c = writerConnection;
+        try {
+            c.setAutoCommit(false);
+
+            long now = System.currentTimeMillis();
+            long t0 = Perf.start();
+            writeContents(c, batch, now);
+            Perf.SQL_BATCH_UPDATE.stop(t0);
+
+            try (PreparedStatement del = c.prepareStatement(
+                    "DELETE FROM backpack_modules WHERE backpack_id = ?");
+                    PreparedStatement ins = c.prepareStatement(
+                            "INSERT INTO backpack_modules(backpack_id, slot_index, module_id, module_snapshot, module_state) VALUES(?,?,?,?,?)")) {
+
+                for (BackpackData data : batch) {
+                    String id = data.backpackId().toString();
+
+                    del.setString(1, id);
+                    del.addBatch();
+
+                    for (Map.Entry<Integer, UUID> e : data.installedModules().entrySet()) {
+                        UUID moduleId = e.getValue();
+                        ins.setString(1, id);
+                        ins.setInt(2, e.getKey());
+                        ins.setString(3, moduleId.toString());
+                        ins.setBytes(4, data.installedSnapshots().get(moduleId));
+                        ins.setBytes(5, data.moduleStates().get(moduleId));
+                        ins.addBatch();
+                    }
+                }
+
+                // deletes must land before the re-inserts
+                t0 = Perf.start();
+                del.executeBatch();
+                Perf.SQL_BATCH_DELETE.stop(t0);
+
+                t0 = Perf.start();
+                ins.executeBatch();
+                Perf.SQL_BATCH_INSERT.stop(t0);
+            }
+
+            t0 = Perf.start();
+            c.commit();
+            Perf.SQL_COMMIT.stop(t0);
+        } catch (SQLException e) {
+            try {
+                c.rollback();
+            } catch (SQLException ignored) {
+            }
+            throw new RuntimeException("Failed to save " + batch.size() + " backpack(s)", e);
+        } finally {
+            try {
+                c.setAutoCommit(true);
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Writes the contents part of each snapshot, inside the caller's transaction.
+     * - blob layout: the whole contents column; a row still stored as slots is
+     * converted and its slot rows dropped (only then)
+     * - slot layout: only the snapshot's changed slots are upserted/deleted;
+     * a row still stored as a blob (or written by the blob layout since) gets
+     * every slot, since the snapshot always has all of them
+     */
+    private void writeContents(Connection c, List<BackpackData> batch, long now) throws SQLException {
+        if (!slotStorage.getAsBoolean()) {
+            try (PreparedStatement upd = c.prepareStatement("""
+                    UPDATE backpacks SET backpack_type = ?, contents = ?, updated_at = ?
+                     WHERE backpack_id = ? AND slot_layout = 0
+                    """);
+                    PreparedStatement convert = c.prepareStatement("""
+                            UPDATE backpacks
+                               SET backpack_type = ?, contents = ?, slot_layout = 0, slot_count = NULL, updated_at = ?
+                             WHERE backpack_id = ? AND slot_layout = 1
+                            """);
+                    PreparedStatement clear = c.prepareStatement(
+                            "DELETE FROM backpack_slots WHERE backpack_id = ?")) {
+                for (BackpackData data : batch) {
+                    upd.setString(1, data.backpackType());
+                    upd.setBytes(2, data.contentsBytes());
+                    upd.setLong(3, now);
+                    upd.setString(4, data.backpackId().toString());
+                    upd.addBatch();
+                }
+                int[] counts = upd.executeBatch();
+
+                // rows the blob update missed are either gone or still stored as slots
+                boolean cleared = false;
+                for (int i = 0; i < batch.size(); i++) {
+                    if (i < counts.length && counts[i] != 0)
+                        continue;
+                    BackpackData data = batch.get(i);
+                    String id = data.backpackId().toString();
+                    convert.setString(1, data.backpackType());
+                    convert.setBytes(2, data.contentsBytes());
+                    convert.setLong(3, now);
+                    convert.setString(4, id);
+                    if (convert.executeUpdate() > 0) {
+                        clear.setString(1, id);
+                        clear.addBatch();
+                        cleared = true;
+                    }
+                }
+                if (cleared)
+                    clear.executeBatch();
+            }
+            return;
+        }
+
+        try (PreparedStatement delta = c.prepareStatement("""
+                UPDATE backpacks SET backpack_type = ?, slot_count = ?, updated_at = ?
+                 WHERE backpack_id = ? AND slot_layout = 1
+                """);
+                PreparedStatement full = c.prepareStatement("""
+                        UPDATE backpacks
+                           SET backpack_type = ?, contents = NULL, slot_layout = 1, slot_count = ?, updated_at = ?
+                         WHERE backpack_id = ?
+                        """);
+                PreparedStatement clear = c.prepareStatement(
+                        "DELETE FROM backpack_slots WHERE backpack_id = ?");
+                PreparedStatement trim = c.prepareStatement(
+                        "DELETE FROM backpack_slots WHERE backpack_id = ? AND slot_index >= ?");
+                PreparedStatement del = c.prepareStatement(
+                        "DELETE FROM backpack_slots WHERE backpack_id = ? AND slot_index = ?");
+                PreparedStatement put = c.prepareStatement(
+                        "INSERT OR REPLACE INTO backpack_slots(backpack_id, slot_index, item_bytes, version) VALUES(?,?,?,?)")) {
+
+            for (BackpackData data : batch) {
+                String id = data.backpackId().toString();
+                int size = data.slotCount();
+                int written = 0;
+
+                delta.setString(1, data.backpackType());
+                delta.setInt(2, size);
+                delta.setLong(3, now);
+                delta.setString(4, id);
+                if (delta.executeUpdate() > 0) {
+                    BitSet changed = data.changedSlots();
+                    for (int i = changed.nextSetBit(0); i >= 0 && i < size; i = changed.nextSetBit(i + 1)) {
+                        byte[] raw = data.slotBytes(i);
+                        if (raw == null) {
+                            del.setString(1, id);
+                            del.setInt(2, i);
+                            del.addBatch();
+                        } else {
+                            put.setString(1, id);
+                            put.setInt(2, i);
+                            put.setBytes(3, raw);
+                            put.setLong(4, now);
+                            put.addBatch();
+                        }
+                        written++;
+                    }
+                    trim.setString(1, id);
+                    trim.setInt(2, size);
+                    trim.addBatch();
+                } else {
+                    // clear now so the batched inserts below land after it
+                    clear.setString(1, id);
+                    clear.executeUpdate();
+
+                    full.setString(1, data.backpackType());
+                    full.setInt(2, size);
+                    full.setLong(3, now);
+                    full.setString(4, id);
+                    full.addBatch();
+
+                    for (int i = 0; i < size; i++) {
+                        byte[] raw = data.slotBytes(i);
+                        if (raw == null)
+                            continue;
+                        put.setString(1, id);
+                        put.setInt(2, i);
+                        put.setBytes(3, raw);
+                        put.setLong(4, now);
+                        put.addBatch();
+                        written++;
+                    }
+                    Perf.SLOTS_FULL_REWRITE.inc();
+                }
+                Perf.SLOTS_WRITTEN.record(written);
+            }
+
+            full.executeBatch();
+            trim.executeBatch();
+            del.executeBatch();
+            put.executeBatch();
         }
     }
 
+    @Override
     public List<BackpackSummary> listUnownedBackpacks(int limit) {
         limit = Math.max(1, Math.min(500, limit));
         try (PreparedStatement ps = connection.prepareStatement("""
@@ -345,19 +786,12 @@ public final class SQLiteBackpackRepository {
         }
     }
 
-    public record BackpackSummary(
-            UUID backpackId,
-            String backpackType,
-            String ownerUuid,
-            String ownerName,
-            long createdAt,
-            long updatedAt) {
-    }
-
+    @Override
     public long logVoidedItem(VoidedItemRecord rec) {
         if (rec == null || rec.itemBytes == null)
             return -1;
 
+        long t0 = Perf.start();
         try (PreparedStatement ps = connection.prepareStatement("""
                 INSERT INTO voided_items(
                     created_at,
@@ -404,9 +838,82 @@ public final class SQLiteBackpackRepository {
             return -1;
         } catch (SQLException e) {
             throw new RuntimeException("Failed to log voided item", e);
+        } finally {
+            Perf.SQL_VOID_LOG.stop(t0);
+        }
+    }
+
+    /**
+     * Inserts several void log rows in one transaction on the audit connection.
+     * Only call this from a single thread at a time (VoidLogQueue).
+     */
+    @Override
+    public void logVoidedItems(List<VoidedItemRecord> batch) {
+        if (batch == null || batch.isEmpty())
+            return;
+
+        synchronized (auditLock) {
+            insertVoidedItems(batch);
+        }
+    }
+
+    private void insertVoidedItems(List<VoidedItemRecord> batch) {
+        Connection c = auditConnection;
+        long t0 = Perf.start();
+        try {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement("""
+                    INSERT INTO voided_items(
+                        created_at,
+                        player_uuid,
+                        player_name,
+                        backpack_id,
+                        backpack_type,
+                        void_module_id,
+                        item_type,
+                        amount,
+                        item_bytes,
+                        world,
+                        x,
+                        y,
+                        z
+                    ) VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?)
+                    """)) {
+                for (VoidedItemRecord rec : batch) {
+                    ps.setLong(1, rec.createdAt);
+                    ps.setString(2, rec.playerUuid);
+                    ps.setString(3, rec.playerName);
+                    ps.setString(4, rec.backpackId);
+                    ps.setString(5, rec.backpackType);
+                    ps.setString(6, rec.voidModuleId);
+                    ps.setString(7, rec.itemType);
+                    ps.setInt(8, rec.amount);
+                    ps.setBytes(9, rec.itemBytes);
+                    ps.setString(10, rec.world);
+                    ps.setObject(11, rec.x);
+                    ps.setObject(12, rec.y);
+                    ps.setObject(13, rec.z);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            c.commit();
+        } catch (SQLException e) {
+            try {
+                c.rollback();
+            } catch (SQLException ignored) {
+            }
+            throw new RuntimeException("Failed to log " + batch.size() + " voided item(s)", e);
+        } finally {
+            try {
+                c.setAutoCommit(true);
+            } catch (SQLException ignored) {
+            }
+            Perf.SQL_VOID_LOG.stop(t0);
         }
     }
 
+    @Override
     public List<VoidedItemSummary> listVoidedItemsByPlayer(UUID playerUuid, int limit, boolean includeRecovered) {
         if (playerUuid == null)
             return List.of();
@@ -436,7 +943,7 @@ public final class SQLiteBackpackRepository {
             try (ResultSet rs = ps.executeQuery()) {
                 List<VoidedItemSummary> out = new ArrayList<>();
                 while (rs.next()) {
-                    out.add(VoidedItemSummary.from(rs));
+                    out.add(summaryFrom(rs));
                 }
                 return out;
             }
@@ -445,6 +952,7 @@ public final class SQLiteBackpackRepository {
         }
     }
 
+    @Override
     public VoidedItemRecord getVoidedItem(long id) {
         if (id <= 0)
             return null;
@@ -458,13 +966,395 @@ public final class SQLiteBackpackRepository {
             try (ResultSet rs = ps.executeQuery()) {
                 if (!rs.next())
                     return null;
-                return VoidedItemRecord.from(rs);
+                return recordFrom(rs);
             }
         } catch (SQLException e) {
             throw new RuntimeException("Failed to get voided item " + id, e);
         }
     }
 
+    /*
+     * ======================================================
+     * backpack_slots migration/compaction (BackpackSlotCompaction, async)
+     * ======================================================
+     */
+
+    /**
+     * Ids after {@code afterId} still stored in the other layout, in id order, so
+     * rows that can't be converted don't hold up the rest.
+     */
+    public List<String> backpacksToConvert(boolean toSlots, String afterId, int limit) {
+        String sql = toSlots
+                ? "SELECT backpack_id FROM backpacks WHERE slot_layout = 0 AND contents IS NOT NULL AND backpack_id > ? ORDER BY backpack_id LIMIT ?"
+                : "SELECT backpack_id FROM backpacks WHERE slot_layout = 1 AND backpack_id > ? ORDER BY backpack_id LIMIT ?";
+        synchronized (maintenanceLock) {
+            try (PreparedStatement ps = maintenanceConnection.prepareStatement(sql)) {
+                ps.setString(1, afterId == null ? "" : afterId);
+                ps.setInt(2, Math.max(1, limit));
+                try (ResultSet rs = ps.executeQuery()) {
+                    List<String> out = new ArrayList<>();
+                    while (rs.next()) {
+                        out.add(rs.getString("backpack_id"));
+                    }
+                    return out;
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException("Failed to list backpacks to convert", e);
+            }
+        }
+    }
+
+    /**
+     * Moves backpacks between the blob and slot layouts in one transaction
+     * without decoding any item. Legacy YAML blobs are left alone (they need the
+     * main thread); they move over on their next save.
+     *
+     * @return number of backpacks converted
+     */
+    public int convertLayout(List<String> ids, boolean toSlots) {
+        if (ids == null || ids.isEmpty())
+            return 0;
+
+        synchronized (maintenanceLock) {
+            Connection c = maintenanceConnection;
+            try {
+                c.setAutoCommit(false);
+                int converted = 0;
+                long now = System.currentTimeMillis();
+                for (String id : ids) {
+                    if (toSlots ? blobToSlots(c, id, now) : slotsToBlob(c, id))
+                        converted++;
+                }
+                c.commit();
+                return converted;
+            } catch (SQLException e) {
+                try {
+                    c.rollback();
+                } catch (SQLException ignored) {
+                }
+                throw new RuntimeException("Failed to convert " + ids.size() + " backpack(s)", e);
+            } finally {
+                try {
+                    c.setAutoCommit(true);
+                } catch (SQLException ignored) {
+                }
+            }
+        }
+    }
+
+    private boolean blobToSlots(Connection c, String id, long now) throws SQLException {
+        byte[] blob;
+        try (PreparedStatement ps = c.prepareStatement(
+                "SELECT contents FROM backpacks WHERE backpack_id = ? AND slot_layout = 0")) {
+            ps.setString(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next())
+                    return false;
+                blob = rs.getBytes("contents");
+            }
+        }
+
+        byte[][] slots;
+        try {
+            slots = ItemStackCodec.splitSlots(blob);
+        } catch (RuntimeException ex) {
+            logger.warning("Not converting backpack " + id + ": " + ex.getMessage());
+            return false;
+        }
+        if (slots == null)
+            return false;
+
+        try (PreparedStatement clear = c.prepareStatement("DELETE FROM backpack_slots WHERE backpack_id = ?")) {
+            clear.setString(1, id);
+            clear.executeUpdate();
+        }
+        try (PreparedStatement put = c.prepareStatement(
+                "INSERT INTO backpack_slots(backpack_id, slot_index, item_bytes, version) VALUES(?,?,?,?)")) {
+            for (int i = 0; i < slots.length; i++) {
+                if (slots[i] == null)
+                    continue;
+                put.setString(1, id);
+                put.setInt(2, i);
+                put.setBytes(3, slots[i]);
+                put.setLong(4, now);
+                put.addBatch();
+            }
+            put.executeBatch();
+        }
+        try (PreparedStatement upd = c.prepareStatement("""
+                UPDATE backpacks SET contents = NULL, slot_layout = 1, slot_count = ?
+                 WHERE backpack_id = ? AND slot_layout = 0
+                """)) {
+            upd.setInt(1, slots.length);
+            upd.setString(2, id);
+            upd.executeUpdate();
+        }
+        return true;
+    }
+
+    private boolean slotsToBlob(Connection c, String id) throws SQLException {
+        int slotCount;
+        try (PreparedStatement ps = c.prepareStatement(
+                "SELECT slot_count FROM backpacks WHERE backpack_id = ? AND slot_layout = 1")) {
+            ps.setString(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next())
+                    return false;
+                slotCount = rs.getInt("slot_count");
+            }
+        }
+
+        byte[] blob = ItemStackCodec.joinSlots(loadSlots(c, id, slotCount));
+        try (PreparedStatement upd = c.prepareStatement("""
+                UPDATE backpacks SET contents = ?, slot_layout = 0, slot_count = NULL
+                 WHERE backpack_id = ? AND slot_layout = 1
+                """)) {
+            upd.setBytes(1, blob);
+            upd.setString(2, id);
+            upd.executeUpdate();
+        }
+        try (PreparedStatement clear = c.prepareStatement("DELETE FROM backpack_slots WHERE backpack_id = ?")) {
+            clear.setString(1, id);
+            clear.executeUpdate();
+        }
+        return true;
+    }
+
+    /**
+     * Deletes up to {@code limit} slot rows nothing refers to any more (backpack
+     * gone, back in the blob layout, or slot past the backpack's size).
+     */
+    public int deleteOrphanSlots(int limit) {
+        synchronized (maintenanceLock) {
+            try (PreparedStatement ps = maintenanceConnection.prepareStatement("""
+                    DELETE FROM backpack_slots WHERE rowid IN (
+                        SELECT s.rowid
+                          FROM backpack_slots s
+                          LEFT JOIN backpacks b ON b.backpack_id = s.backpack_id
+                         WHERE b.backpack_id IS NULL OR b.slot_layout <> 1 OR s.slot_index >= b.slot_count
+                         LIMIT ?
+                    )
+                    """)) {
+                ps.setInt(1, Math.max(1, limit));
+                return ps.executeUpdate();
+            } catch (SQLException e) {
+                throw new RuntimeException("Failed to delete orphaned backpack slots", e);
+            }
+        }
+    }
+
+    /**
+     * Same as {@link #compactVoidLog}, on the maintenance connection.
+     */
+    public void compactBackpackStorage(int maxPages) {
+        synchronized (maintenanceLock) {
+            try (Statement st = maintenanceConnection.createStatement()) {
+                st.execute("PRAGMA incremental_vacuum(" + Math.max(1, maxPages) + ")");
+            } catch (SQLException e) {
+                throw new RuntimeException("Failed to compact backpacks.db", e);
+            }
+        }
+    }
+
+    /*
+     * ======================================================
+     * voided_items retention (VoidLogRetention, async)
+     * ======================================================
+     */
+
+    /**
+     * Oldest rows past either cutoff: unrecovered rows created before
+     * createdBefore, recovered rows recovered before recoveredBefore. Pass 0 to
+     * skip a cutoff.
+     */
+    @Override
+    public List<VoidedItemRecord> expiredVoidedItems(long createdBefore, long recoveredBefore, int limit) {
+        synchronized (auditLock) {
+            try (PreparedStatement ps = auditConnection.prepareStatement("""
+                    SELECT id, created_at, player_uuid, player_name, backpack_id, backpack_type, void_module_id,
+                           item_type, amount, item_bytes, world, x, y, z, recovered_at, recovered_by, recovered_by_name
+                      FROM voided_items
+                     WHERE (recovered_at IS NULL AND created_at < ?)
+                        OR (recovered_at IS NOT NULL AND recovered_at < ?)
+                     ORDER BY id ASC
+                     LIMIT ?
+                    """)) {
+                ps.setLong(1, createdBefore);
+                ps.setLong(2, recoveredBefore);
+                ps.setInt(3, Math.max(1, limit));
+                return readVoidedItems(ps);
+            } catch (SQLException e) {
+                throw new RuntimeException("Failed to select expired voided items", e);
+            }
+        }
+    }
+
+    /**
+     * Players with more than maxRows log rows.
+     */
+    @Override
+    public List<String> playersOverVoidLimit(int maxRows) {
+        synchronized (auditLock) {
+            try (PreparedStatement ps = auditConnection.prepareStatement("""
+                    SELECT player_uuid
+                      FROM voided_items
+                     WHERE player_uuid IS NOT NULL
+                     GROUP BY player_uuid
+                    HAVING COUNT(*) > ?
+                    """)) {
+                ps.setInt(1, maxRows);
+                try (ResultSet rs = ps.executeQuery()) {
+                    List<String> out = new ArrayList<>();
+                    while (rs.next()) {
+                        out.add(rs.getString(1));
+                    }
+                    return out;
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException("Failed to count voided items per player", e);
+            }
+        }
+    }
+
+    /**
+     * Up to limit of this player's rows beyond the newest keep, oldest first.
+     */
+    @Override
+    public List<VoidedItemRecord> voidedItemsBeyond(String playerUuid, int keep, int limit) {
+        synchronized (auditLock) {
+            try (PreparedStatement ps = auditConnection.prepareStatement("""
+                    SELECT * FROM (
+                        SELECT id, created_at, player_uuid, player_name, backpack_id, backpack_type, void_module_id,
+                               item_type, amount, item_bytes, world, x, y, z, recovered_at, recovered_by,
+                               recovered_by_name
+                          FROM voided_items
+                         WHERE player_uuid = ?
+                         ORDER BY created_at DESC, id DESC
+                         LIMIT -1 OFFSET ?
+                    )
+                     ORDER BY created_at ASC, id ASC
+                     LIMIT ?
+                    """)) {
+                ps.setString(1, playerUuid);
+                ps.setInt(2, Math.max(0, keep));
+                ps.setInt(3, Math.max(1, limit));
+                return readVoidedItems(ps);
+            } catch (SQLException e) {
+                throw new RuntimeException("Failed to select excess voided items for " + playerUuid, e);
+            }
+        }
+    }
+
+    /**
+     * Deletes rows in one transaction. A row whose recovered_at changed since it
+     * was read (recovered meanwhile) is left alone.
+     *
+     * @return number of rows deleted
+     */
+    @Override
+    public int deleteVoidedItems(List<VoidedItemRecord> rows) {
+        if (rows == null || rows.isEmpty())
+            return 0;
+
+        synchronized (auditLock) {
+            Connection c = auditConnection;
+            try {
+                c.setAutoCommit(false);
+                int deleted = 0;
+                try (PreparedStatement ps = c.prepareStatement(
+                        "DELETE FROM voided_items WHERE id = ? AND COALESCE(recovered_at, 0) = ?")) {
+                    for (VoidedItemRecord rec : rows) {
+                        ps.setLong(1, rec.id);
+                        ps.setLong(2, rec.recoveredAt == null ? 0L : rec.recoveredAt);
+                        ps.addBatch();
+                    }
+                    for (int n : ps.executeBatch()) {
+                        if (n > 0)
+                            deleted += n;
+                    }
+                }
+                c.commit();
+                return deleted;
+            } catch (SQLException e) {
+                try {
+                    c.rollback();
+                } catch (SQLException ignored) {
+                }
+                throw new RuntimeException("Failed to delete " + rows.size() + " voided item(s)", e);
+            } finally {
+                try {
+                    c.setAutoCommit(true);
+                } catch (SQLException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns up to maxPages free pages to the filesystem. Only does anything on
+     * databases created with auto_vacuum=INCREMENTAL; older files reuse freed
+     * pages for new rows instead.
+     */
+    @Override
+    public void compactVoidLog(int maxPages) {
+        synchronized (auditLock) {
+            try (Statement st = auditConnection.createStatement()) {
+                st.execute("PRAGMA incremental_vacuum(" + Math.max(1, maxPages) + ")");
+            } catch (SQLException e) {
+                throw new RuntimeException("Failed to compact backpacks.db", e);
+            }
+        }
+    }
+
+    /**
+     * Puts an archived row back (with its original id) as already recovered, so
+     * the archive copy can't be recovered twice.
+     */
+    @Override
+    public boolean restoreArchivedVoidedItem(VoidedItemRecord rec, UUID recoveredBy, String recoveredByName) {
+        if (rec == null || rec.id == null || rec.itemBytes == null)
+            return false;
+
+        try (PreparedStatement ps = connection.prepareStatement("""
+                INSERT OR IGNORE INTO voided_items(
+                    id, created_at, player_uuid, player_name, backpack_id, backpack_type, void_module_id,
+                    item_type, amount, item_bytes, world, x, y, z, recovered_at, recovered_by, recovered_by_name
+                ) VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?)
+                """)) {
+            ps.setLong(1, rec.id);
+            ps.setLong(2, rec.createdAt);
+            ps.setString(3, rec.playerUuid);
+            ps.setString(4, rec.playerName);
+            ps.setString(5, rec.backpackId);
+            ps.setString(6, rec.backpackType);
+            ps.setString(7, rec.voidModuleId);
+            ps.setString(8, rec.itemType);
+            ps.setInt(9, rec.amount);
+            ps.setBytes(10, rec.itemBytes);
+            ps.setString(11, rec.world);
+            ps.setObject(12, rec.x);
+            ps.setObject(13, rec.y);
+            ps.setObject(14, rec.z);
+            ps.setLong(15, System.currentTimeMillis());
+            ps.setString(16, recoveredBy == null ? null : recoveredBy.toString());
+            ps.setString(17, recoveredByName);
+            return ps.executeUpdate() > 0;
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to restore archived voided item " + rec.id, e);
+        }
+    }
+
+    private static List<VoidedItemRecord> readVoidedItems(PreparedStatement ps) throws SQLException {
+        try (ResultSet rs = ps.executeQuery()) {
+            List<VoidedItemRecord> out = new ArrayList<>();
+            while (rs.next()) {
+                out.add(recordFrom(rs));
+            }
+            return out;
+        }
+    }
+
+    @Override
     public boolean markVoidedItemRecovered(long id, UUID recoveredBy, String recoveredByName) {
         if (id <= 0)
             return false;
@@ -487,155 +1377,44 @@ public final class SQLiteBackpackRepository {
         }
     }
 
-    public static final class VoidedItemSummary {
-        public final long id;
-        public final long createdAt;
-        public final String playerUuid;
-        public final String playerName;
-        public final String backpackId;
-        public final String backpackType;
-        public final String voidModuleId;
-        public final String itemType;
-        public final int amount;
-        public final String world;
-        public final Double x;
-        public final Double y;
-        public final Double z;
-        public final Long recoveredAt;
-        public final String recoveredBy;
-        public final String recoveredByName;
-
-        private VoidedItemSummary(
-                long id,
-                long createdAt,
-                String playerUuid,
-                String playerName,
-                String backpackId,
-                String backpackType,
-                String voidModuleId,
-                String itemType,
-                int amount,
-                String world,
-                Double x,
-                Double y,
-                Double z,
-                Long recoveredAt,
-                String recoveredBy,
-                String recoveredByName) {
-            this.id = id;
-            this.createdAt = createdAt;
-            this.playerUuid = playerUuid;
-            this.playerName = playerName;
-            this.backpackId = backpackId;
-            this.backpackType = backpackType;
-            this.voidModuleId = voidModuleId;
-            this.itemType = itemType;
-            this.amount = amount;
-            this.world = world;
-            this.x = x;
-            this.y = y;
-            this.z = z;
-            this.recoveredAt = recoveredAt;
-            this.recoveredBy = recoveredBy;
-            this.recoveredByName = recoveredByName;
-        }
-
-        private static VoidedItemSummary from(ResultSet rs) throws SQLException {
-            return new VoidedItemSummary(
-                    rs.getLong("id"),
-                    rs.getLong("created_at"),
-                    rs.getString("player_uuid"),
-                    rs.getString("player_name"),
-                    rs.getString("backpack_id"),
-                    rs.getString("backpack_type"),
-                    rs.getString("void_module_id"),
-                    rs.getString("item_type"),
-                    rs.getInt("amount"),
-                    rs.getString("world"),
-                    (Double) rs.getObject("x"),
-                    (Double) rs.getObject("y"),
-                    (Double) rs.getObject("z"),
-                    (Long) rs.getObject("recovered_at"),
-                    rs.getString("recovered_by"),
-                    rs.getString("recovered_by_name"));
-        }
-    }
-
-    public static final class VoidedItemRecord {
-        public final Long id;
-        public final long createdAt;
-        public final String playerUuid;
-        public final String playerName;
-        public final String backpackId;
-        public final String backpackType;
-        public final String voidModuleId;
-        public final String itemType;
-        public final int amount;
-        public final byte[] itemBytes;
-        public final String world;
-        public final Double x;
-        public final Double y;
-        public final Double z;
-        public final Long recoveredAt;
-        public final String recoveredBy;
-        public final String recoveredByName;
-
-        public VoidedItemRecord(
-                Long id,
-                long createdAt,
-                String playerUuid,
-                String playerName,
-                String backpackId,
-                String backpackType,
-                String voidModuleId,
-                String itemType,
-                int amount,
-                byte[] itemBytes,
-                String world,
-                Double x,
-                Double y,
-                Double z,
-                Long recoveredAt,
-                String recoveredBy,
-                String recoveredByName) {
-            this.id = id;
-            this.createdAt = createdAt;
-            this.playerUuid = playerUuid;
-            this.playerName = playerName;
-            this.backpackId = backpackId;
-            this.backpackType = backpackType;
-            this.voidModuleId = voidModuleId;
-            this.itemType = itemType;
-            this.amount = amount;
-            this.itemBytes = itemBytes;
-            this.world = world;
-            this.x = x;
-            this.y = y;
-            this.z = z;
-            this.recoveredAt = recoveredAt;
-            this.recoveredBy = recoveredBy;
-            this.recoveredByName = recoveredByName;
-        }
-
-        private static VoidedItemRecord from(ResultSet rs) throws SQLException {
-            return new VoidedItemRecord(
-                    rs.getLong("id"),
-                    rs.getLong("created_at"),
-                    rs.getString("player_uuid"),
-                    rs.getString("player_name"),
-                    rs.getString("backpack_id"),
-                    rs.getString("backpack_type"),
-                    rs.getString("void_module_id"),
-                    rs.getString("item_type"),
-                    rs.getInt("amount"),
-                    rs.getBytes("item_bytes"),
-                    rs.getString("world"),
-                    (Double) rs.getObject("x"),
-                    (Double) rs.getObject("y"),
-                    (Double) rs.getObject("z"),
-                    (Long) rs.getObject("recovered_at"),
-                    rs.getString("recovered_by"),
-                    rs.getString("recovered_by_name"));
-        }
+    private static VoidedItemSummary summaryFrom(ResultSet rs) throws SQLException {
+        return new VoidedItemSummary(
+                rs.getLong("id"),
+                rs.getLong("created_at"),
+                rs.getString("player_uuid"),
+                rs.getString("player_name"),
+                rs.getString("backpack_id"),
+                rs.getString("backpack_type"),
+                rs.getString("void_module_id"),
+                rs.getString("item_type"),
+                rs.getInt("amount"),
+                rs.getString("world"),
+                (Double) rs.getObject("x"),
+                (Double) rs.getObject("y"),
+                (Double) rs.getObject("z"),
+                (Long) rs.getObject("recovered_at"),
+                rs.getString("recovered_by"),
+                rs.getString("recovered_by_name"));
+    }
+
+    private static VoidedItemRecord recordFrom(ResultSet rs) throws SQLException {
+        return new VoidedItemRecord(
+                rs.getLong("id"),
+                rs.getLong("created_at"),
+                rs.getString("player_uuid"),
+                rs.getString("player_name"),
+                rs.getString("backpack_id"),
+                rs.getString("backpack_type"),
+                rs.getString("void_module_id"),
+                rs.getString("item_type"),
+                rs.getInt("amount"),
+                rs.getBytes("item_bytes"),
+                rs.getString("world"),
+                (Double) rs.getObject("x"),
+                (Double) rs.getObject("y"),
+                (Double) rs.getObject("z"),
+                (Long) rs.getObject("recovered_at"),
+                rs.getString("recovered_by"),
+                rs.getString("recovered_by_name"));
     }
 }
@@ -0,0 +1,283 @@
+package io.github.tootertutor.ModularPacks.data;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import io.github.tootertutor.ModularPacks.ModularPacksPlugin;
+import io.github.tootertutor.ModularPacks.data.BackpackRepository.VoidedItemRecord;
+
+/**
+ * Sidecar archive for voided_items rows removed by retention.
+ * - one gzip file per month (void-archive/voided-items-YYYY-MM.gz); each append
+ * adds a gzip member, which GZIPInputStream reads back as one stream
+ * - a row archived again later (e.g. purged after being recovered) supersedes
+ * the earlier copy; rows still in the database always win over the archive
+ * - searches stream the files and only keep (and only read item bytes of) the
+ * rows they are after; still call them off the main thread
+ * - a file that ends mid-member (crash mid-append) is read up to the torn
+ * member; anything else unreadable is logged, as the results are partial
+ */
+public final class VoidLogArchive {
+
+    private static final int RECORD = 1;
+    private static final long ANY_ID = -1L;
+
+    private final ModularPacksPlugin plugin;
+    private final File dir;
+
+    public VoidLogArchive(ModularPacksPlugin plugin) {
+        this.plugin = plugin;
+        this.dir = new File(plugin.getDataFolder(), "void-archive");
+    }
+
+    public synchronized void append(List<VoidedItemRecord> rows) throws IOException {
+        if (rows == null || rows.isEmpty())
+            return;
+        if (!dir.isDirectory() && !dir.mkdirs())
+            throw new IOException("Could not create " + dir);
+
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        File file = new File(dir, String.format("voided-items-%04d-%02d.gz", today.getYear(), today.getMonthValue()));
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(new FileOutputStream(file, true))))) {
+            for (VoidedItemRecord rec : rows) {
+                out.writeByte(RECORD);
+                write(out, rec);
+            }
+        }
+    }
+
+    /**
+     * Archived rows for a player, newest first.
+     */
+    public synchronized List<VoidedItemRecord> searchByPlayer(String playerUuid, int limit,
+            boolean includeRecovered) {
+        Map<Long, VoidedItemRecord> byId = new LinkedHashMap<>();
+        for (File file : files(false)) {
+            scan(file, ANY_ID, playerUuid, byId);
+        }
+        List<VoidedItemRecord> out = new ArrayList<>();
+        for (VoidedItemRecord rec : byId.values()) {
+            if (includeRecovered || rec.recoveredAt == null)
+                out.add(rec);
+        }
+        out.sort(Comparator.comparingLong((VoidedItemRecord r) -> r.createdAt)
+                .thenComparingLong(r -> r.id)
+                .reversed());
+        return out.size() > limit ? new ArrayList<>(out.subList(0, limit)) : out;
+    }
+
+    /**
+     * Newest archived copy of a row. Reads months newest first and stops at the
+     * first file that has it (the whole file, as a later member supersedes an
+     * earlier one).
+     */
+    public synchronized VoidedItemRecord find(long id) {
+        Map<Long, VoidedItemRecord> byId = new LinkedHashMap<>(2);
+        for (File file : files(true)) {
+            scan(file, id, null, byId);
+            VoidedItemRecord rec = byId.get(id);
+            if (rec != null)
+                return rec;
+        }
+        return null;
+    }
+
+    private List<File> files(boolean newestFirst) {
+        File[] files = dir.listFiles((d, name) -> name.startsWith("voided-items-") && name.endsWith(".gz"));
+        if (files == null)
+            return List.of();
+        Comparator<File> byName = Comparator.comparing(File::getName);
+        Arrays.sort(files, newestFirst ? byName.reversed() : byName);
+        return Arrays.asList(files);
+    }
+
+    /**
+     * Puts the rows of one file that match id (or ANY_ID) and playerUuid (or
+     * null) into byId; later copies replace earlier ones.
+     */
+    private void scan(File file, long id, String playerUuid, Map<Long, VoidedItemRecord> byId) {
+        long length = file.length();
+        CountingInputStream raw;
+        try {
+            raw = new CountingInputStream(new FileInputStream(file));
+        } catch (IOException ex) {
+            warnPartial(file, 0L, length, 0L, ex.getMessage());
+            return;
+        }
+        long rows = 0L;
+        try (raw; DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(raw)))) {
+            while (true) {
+                int tag;
+                try {
+                    tag = in.readUnsignedByte();
+                } catch (EOFException end) {
+                    break;
+                }
+                if (tag != RECORD)
+                    throw new IOException("Unknown record tag " + tag);
+                VoidedItemRecord rec = read(in, id, playerUuid);
+                if (rec != null)
+                    byId.put(rec.id, rec);
+                rows++;
+            }
+            // GZIPInputStream ends quietly at a member header it can't read
+            if (raw.count < length)
+                warnPartial(file, raw.count, length, rows, "unreadable gzip member");
+        } catch (EOFException ex) {
+            // ran out of file inside the last member: a torn append, nothing after it
+            if (raw.count < length)
+                warnPartial(file, raw.count, length, rows, ex.getMessage());
+        } catch (IOException ex) {
+            warnPartial(file, raw.count, length, rows, ex.getMessage());
+        }
+    }
+
+    private void warnPartial(File file, long offset, long length, long rows, String why) {
+        plugin.getLogger().warning("Void archive " + file.getName() + " is unreadable at byte " + offset + " of "
+                + length + " (" + why + "); only the " + rows
+                + " rows before it were searched, archive results are incomplete.");
+    }
+
+    /**
+     * Compressed bytes read so far, for locating a bad member.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0)
+                count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0)
+                count += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+
+    /**
+     * Row encoding shared with {@link LogBackpackRepository}.
+     */
+    static void write(DataOutputStream out, VoidedItemRecord rec) throws IOException {
+        out.writeLong(rec.id);
+        out.writeLong(rec.createdAt);
+        writeString(out, rec.playerUuid);
+        writeString(out, rec.playerName);
+        writeString(out, rec.backpackId);
+        writeString(out, rec.backpackType);
+        writeString(out, rec.voidModuleId);
+        writeString(out, rec.itemType);
+        out.writeInt(rec.amount);
+        out.writeInt(rec.itemBytes.length);
+        out.write(rec.itemBytes);
+        writeString(out, rec.world);
+        writeDouble(out, rec.x);
+        writeDouble(out, rec.y);
+        writeDouble(out, rec.z);
+        out.writeBoolean(rec.recoveredAt != null);
+        if (rec.recoveredAt != null)
+            out.writeLong(rec.recoveredAt);
+        writeString(out, rec.recoveredBy);
+        writeString(out, rec.recoveredByName);
+    }
+
+    static VoidedItemRecord read(DataInputStream in) throws IOException {
+        return read(in, ANY_ID, null);
+    }
+
+    /**
+     * Reads one row, or skips past it (item bytes unread) and returns null if it
+     * doesn't match wantId / wantPlayer.
+     */
+    private static VoidedItemRecord read(DataInputStream in, long wantId, String wantPlayer) throws IOException {
+        long id = in.readLong();
+        long createdAt = in.readLong();
+        String playerUuid = readString(in);
+        boolean match = (wantId == ANY_ID || id == wantId)
+                && (wantPlayer == null || wantPlayer.equalsIgnoreCase(playerUuid));
+        String playerName = readString(in);
+        String backpackId = readString(in);
+        String backpackType = readString(in);
+        String voidModuleId = readString(in);
+        String itemType = readString(in);
+        int amount = in.readInt();
+        int len = in.readInt();
+        if (len < 0 || len > (1 << 24))
+            throw new IOException("Corrupt item length " + len);
+        byte[] itemBytes = null;
+        if (match) {
+            itemBytes = new byte[len];
+            in.readFully(itemBytes);
+        } else {
+            in.skipNBytes(len);
+        }
+        String world = readString(in);
+        Double x = readDouble(in);
+        Double y = readDouble(in);
+        Double z = readDouble(in);
+        Long recoveredAt = in.readBoolean() ? in.readLong() : null;
+        String recoveredBy = readString(in);
+        String recoveredByName = readString(in);
+        if (!match)
+            return null;
+        return new VoidedItemRecord(id, createdAt, playerUuid, playerName, backpackId, backpackType, voidModuleId,
+                itemType, amount, itemBytes, world, x, y, z, recoveredAt, recoveredBy, recoveredByName);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null)
+            out.writeUTF(s);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeDouble(DataOutputStream out, Double d) throws IOException {
+        out.writeBoolean(d != null);
+        if (d != null)
+            out.writeDouble(d);
+    }
+
+    private static Double readDouble(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readDouble() : null;
+    }
+}
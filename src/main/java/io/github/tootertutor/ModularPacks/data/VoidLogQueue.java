@@ -0,0 +1,277 @@
+package io.github.tootertutor.ModularPacks.data;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import io.github.tootertutor.ModularPacks.ModularPacksPlugin;
+import io.github.tootertutor.ModularPacks.data.BackpackRepository.VoidedItemRecord;
+import io.github.tootertutor.ModularPacks.perf.Perf;
+
+/**
+ * Writer thread for the voided_items audit log.
+ * - offer() only queues; rows are serialized and inserted off the main thread
+ * in batched transactions
+ * - identical items voided by the same player/backpack/module within
+ * Storage.VoidLog.AggregateWindowMillis become one row with the summed amount
+ * (up to a full stack, so the row still decodes as one ItemStack)
+ * - the queue is bounded (Storage.VoidLog.MaxQueued); when full offer() returns
+ * false and the caller must not destroy the item
+ * - shutdown() writes whatever is still queued
+ */
+public final class VoidLogQueue {
+
+    private static final int MAX_BATCH = 256;
+    private static final long RETRY_DELAY_MS = 1000L;
+    private static final long SHUTDOWN_WAIT_MS = 10_000L;
+
+    private record AggKey(UUID playerId, UUID backpackId, UUID voidModuleId, Material type) {
+    }
+
+    private static final class Pending {
+        private final AggKey key;
+        private final long createdAt;
+        private final String playerName;
+        private final String backpackType;
+        private final ItemStack stack;
+        private final String world;
+        private final Double x;
+        private final Double y;
+        private final Double z;
+
+        private Pending(AggKey key, long createdAt, String playerName, String backpackType, ItemStack stack,
+                Location loc) {
+            this.key = key;
+            this.createdAt = createdAt;
+            this.playerName = playerName;
+            this.backpackType = backpackType;
+            this.stack = stack;
+            this.world = (loc == null || loc.getWorld() == null) ? null : loc.getWorld().getName();
+            this.x = loc == null ? null : loc.getX();
+            this.y = loc == null ? null : loc.getY();
+            this.z = loc == null ? null : loc.getZ();
+        }
+    }
+
+    private final ModularPacksPlugin plugin;
+    private final BackpackRepository repo;
+
+    private final Object lock = new Object();
+    // creation-ordered; the head is always the oldest row
+    private final ArrayDeque<Pending> queued = new ArrayDeque<>();
+    // rows still accepting amounts from identical items
+    private final Map<AggKey, Pending> open = new HashMap<>();
+
+    private Thread thread;
+    private boolean stopping;
+
+    public VoidLogQueue(ModularPacksPlugin plugin, BackpackRepository repo) {
+        this.plugin = plugin;
+        this.repo = repo;
+    }
+
+    public void start() {
+        synchronized (lock) {
+            if (thread != null)
+                return;
+            stopping = false;
+            thread = new Thread(this::run, "ModularPacks-VoidLog");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Queues a voided stack for the audit log.
+     *
+     * @return false when the queue is full (or stopped); the item must be left
+     *         alone in that case
+     */
+    public boolean offer(Player player, UUID backpackId, String backpackType, UUID voidModuleId, ItemStack stack,
+            Location loc) {
+        if (player == null || backpackId == null || voidModuleId == null || stack == null || stack.getType().isAir())
+            return false;
+
+        long now = System.currentTimeMillis();
+        long window = plugin.cfg().voidLogAggregateWindowMillis();
+        AggKey key = new AggKey(player.getUniqueId(), backpackId, voidModuleId, stack.getType());
+
+        synchronized (lock) {
+            if (thread == null || stopping)
+                return false;
+
+            Pending p = open.get(key);
+            if (p != null && now - p.createdAt < window && p.stack.isSimilar(stack)
+                    && p.stack.getAmount() + stack.getAmount() <= p.stack.getMaxStackSize()) {
+                p.stack.setAmount(p.stack.getAmount() + stack.getAmount());
+                Perf.VOID_LOG_AGGREGATED.inc();
+                return true;
+            }
+
+            if (queued.size() >= plugin.cfg().voidLogMaxQueued()) {
+                Perf.VOID_LOG_REJECTED.inc();
+                return false;
+            }
+
+            p = new Pending(key, now, player.getName(), backpackType, stack.clone(), loc);
+            queued.addLast(p);
+            open.put(key, p);
+            Perf.VOID_LOG_QUEUED.inc();
+            lock.notifyAll();
+            return true;
+        }
+    }
+
+    public int pendingCount() {
+        synchronized (lock) {
+            return queued.size();
+        }
+    }
+
+    /**
+     * Stops the writer and writes every queued row before returning.
+     */
+    public void shutdown() {
+        Thread t;
+        synchronized (lock) {
+            stopping = true;
+            lock.notifyAll();
+            t = thread;
+            thread = null;
+        }
+
+        if (t != null) {
+            try {
+                t.join(SHUTDOWN_WAIT_MS);
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+            if (t.isAlive()) {
+                plugin.getLogger().severe("Void log writer did not finish in time; " + pendingCount()
+                        + " voided item record(s) may be lost.");
+                return;
+            }
+        }
+
+        // The writer gives up on failures during shutdown; try once more from here.
+        List<Pending> rest;
+        synchronized (lock) {
+            rest = new ArrayList<>(queued);
+            queued.clear();
+            open.clear();
+        }
+        if (rest.isEmpty())
+            return;
+        try {
+            repo.logVoidedItems(toRecords(rest));
+        } catch (RuntimeException ex) {
+            plugin.getLogger().severe("Failed to log " + rest.size() + " voided item(s) on shutdown: "
+                    + ex.getMessage());
+        }
+    }
+
+    private void run() {
+        while (true) {
+            List<Pending> batch = new ArrayList<>();
+            synchronized (lock) {
+                // wait for the oldest row's aggregation window to close
+                while (!stopping) {
+                    Pending head = queued.peekFirst();
+                    long wait;
+                    if (head == null) {
+                        wait = 0L;
+                    } else {
+                        wait = head.createdAt + plugin.cfg().voidLogAggregateWindowMillis()
+                                - System.currentTimeMillis();
+                        if (wait <= 0L)
+                            break;
+                    }
+                    try {
+                        lock.wait(wait);
+                    } catch (InterruptedException ignored) {
+                        stopping = true;
+                    }
+                }
+                if (queued.isEmpty())
+                    return;
+
+                long cutoff = System.currentTimeMillis() - plugin.cfg().voidLogAggregateWindowMillis();
+                while (!queued.isEmpty() && batch.size() < MAX_BATCH) {
+                    Pending p = queued.peekFirst();
+                    if (!stopping && p.createdAt > cutoff)
+                        break;
+                    queued.pollFirst();
+                    open.remove(p.key, p);
+                    batch.add(p);
+                }
+            }
+
+            boolean ok;
+            try {
+                repo.logVoidedItems(toRecords(batch));
+                ok = true;
+            } catch (RuntimeException ex) {
+                ok = false;
+                plugin.getLogger().warning(ex.getMessage() + (ex.getCause() == null ? "" : ": " + ex.getCause().getMessage()));
+            }
+
+            if (!ok) {
+                synchronized (lock) {
+                    // back to the front, oldest first
+                    for (int i = batch.size() - 1; i >= 0; i--) {
+                        queued.addFirst(batch.get(i));
+                    }
+                    if (stopping)
+                        return; // shutdown() retries what's left
+                }
+                try {
+                    Thread.sleep(RETRY_DELAY_MS);
+                } catch (InterruptedException ignored) {
+                    synchronized (lock) {
+                        stopping = true;
+                    }
+                }
+            }
+        }
+    }
+
+    private List<VoidedItemRecord> toRecords(List<Pending> batch) {
+        List<VoidedItemRecord> out = new ArrayList<>(batch.size());
+        for (Pending p : batch) {
+            byte[] bytes;
+            try {
+                bytes = ItemStackCodec.toBytes(new ItemStack[] { p.stack });
+            } catch (RuntimeException ex) {
+                plugin.getLogger().warning("Failed to serialize voided item: " + ex.getMessage());
+                continue;
+            }
+            out.add(new VoidedItemRecord(
+                    null,
+                    p.createdAt,
+                    p.key.playerId().toString(),
+                    p.playerName,
+                    p.key.backpackId().toString(),
+                    p.backpackType,
+                    p.key.voidModuleId().toString(),
+                    p.stack.getType().name(),
+                    p.stack.getAmount(),
+                    bytes,
+                    p.world,
+                    p.x,
+                    p.y,
+                    p.z,
+                    null,
+                    null,
+                    null));
+        }
+        return out;
+    }
+}
@@ -0,0 +1,154 @@
+package io.github.tootertutor.ModularPacks.data;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import io.github.tootertutor.ModularPacks.ModularPacksPlugin;
+import io.github.tootertutor.ModularPacks.config.ConfigManager;
+import io.github.tootertutor.ModularPacks.data.BackpackRepository.VoidedItemRecord;
+
+/**
+ * Background cleanup for voided_items (Storage.VoidLog.Retention).
+ * - unrecovered rows older than MaxAgeDays, recovered rows older than
+ * PurgeRecoveredAfterDays, and each player's rows beyond MaxRowsPerPlayer are
+ * removed
+ * - works in ChunkSize transactions on an async task, so the Void log writer
+ * and main-thread reads are never blocked for long
+ * - with Archive enabled, rows are appended to {@link VoidLogArchive} before
+ * they're deleted; /backpack recover can still find them there
+ */
+public final class VoidLogRetention {
+
+    // pause between chunks so other connections get the write lock
+    private static final long CHUNK_PAUSE_MS = 50L;
+    private static final int COMPACT_PAGES = 2048;
+
+    private final ModularPacksPlugin plugin;
+    private final BackpackRepository repo;
+    private final VoidLogArchive archive;
+
+    private final Object runLock = new Object();
+    private volatile boolean stopping;
+    private BukkitTask task;
+
+    public VoidLogRetention(ModularPacksPlugin plugin, BackpackRepository repo, VoidLogArchive archive) {
+        this.plugin = plugin;
+        this.repo = repo;
+        this.archive = archive;
+    }
+
+    /**
+     * (Re)schedules the job from config. Safe to call on reload.
+     */
+    public void apply() {
+        if (task != null)
+            task.cancel();
+        task = null;
+        stopping = false;
+
+        int minutes = plugin.cfg().voidLogRetentionIntervalMinutes();
+        if (minutes <= 0)
+            return;
+        long period = minutes * 60L * 20L;
+        // first run shortly after startup, not in the middle of it
+        task = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::run, 20L * 60L, period);
+    }
+
+    /**
+     * Cancels the job and waits for a chunk in progress to finish.
+     */
+    public void stop() {
+        stopping = true;
+        if (task != null)
+            task.cancel();
+        task = null;
+        synchronized (runLock) {
+            // nothing; just waits for run() to let go
+        }
+    }
+
+    private void run() {
+        synchronized (runLock) {
+            if (stopping)
+                return;
+            try {
+                int removed = runOnce();
+                if (removed > 0) {
+                    repo.compactVoidLog(COMPACT_PAGES);
+                    plugin.getLogger().info("Void log retention removed " + removed + " row(s)"
+                            + (plugin.cfg().voidLogArchive() ? " (archived)." : "."));
+                }
+            } catch (RuntimeException ex) {
+                plugin.getLogger().warning("Void log retention failed: " + ex.getMessage()
+                        + (ex.getCause() == null ? "" : ": " + ex.getCause().getMessage()));
+            }
+        }
+    }
+
+    private int runOnce() {
+        ConfigManager cfg = plugin.cfg();
+        int chunk = cfg.voidLogRetentionChunkSize();
+        long now = System.currentTimeMillis();
+
+        long createdBefore = cfg.voidLogMaxAgeDays() <= 0 ? 0L
+                : now - TimeUnit.DAYS.toMillis(cfg.voidLogMaxAgeDays());
+        long recoveredBefore = cfg.voidLogPurgeRecoveredAfterDays() <= 0 ? 0L
+                : now - TimeUnit.DAYS.toMillis(cfg.voidLogPurgeRecoveredAfterDays());
+
+        int removed = 0;
+        if (createdBefore > 0L || recoveredBefore > 0L) {
+            while (!stopping) {
+                List<VoidedItemRecord> rows = repo.expiredVoidedItems(createdBefore, recoveredBefore, chunk);
+                if (rows.isEmpty())
+                    break;
+                int n = expire(rows);
+                removed += n;
+                if (n == 0 || rows.size() < chunk)
+                    break;
+                pause();
+            }
+        }
+
+        int maxRows = cfg.voidLogMaxRowsPerPlayer();
+        if (maxRows > 0) {
+            for (String playerUuid : repo.playersOverVoidLimit(maxRows)) {
+                while (!stopping) {
+                    List<VoidedItemRecord> rows = repo.voidedItemsBeyond(playerUuid, maxRows, chunk);
+                    if (rows.isEmpty())
+                        break;
+                    int n = expire(rows);
+                    removed += n;
+                    if (n == 0 || rows.size() < chunk)
+                        break;
+                    pause();
+                }
+            }
+        }
+        return removed;
+    }
+
+    private int expire(List<VoidedItemRecord> rows) {
+        if (plugin.cfg().voidLogArchive()) {
+            try {
+                archive.append(rows);
+            } catch (IOException ex) {
+                // never delete what couldn't be archived
+                throw new RuntimeException("Failed to archive voided items", ex);
+            }
+        }
+        return repo.deleteVoidedItems(rows);
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(CHUNK_PAUSE_MS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            stopping = true;
+        }
+    }
+}
@@ -35,7 +35,7 @@ public final class BackpackMenuRenderer {
         if (type == null)
             return null;
 
-        BackpackData data = plugin.repo().loadOrCreate(backpackId, type.id());
+        BackpackData data = plugin.cache().loadOrCreate(backpackId, type.id());
 
         boolean paginated = type.rows() > 5;
         boolean hasNavRow = paginated || type.upgradeSlots() > 0;
@@ -84,7 +84,7 @@ public final class BackpackMenuRenderer {
         if (type == null)
             return null;
 
-        BackpackData data = plugin.repo().loadOrCreate(backpackId, type.id());
+        BackpackData data = plugin.cache().loadOrCreate(backpackId, type.id());
 
         boolean paginated = type.rows() > 5;
         boolean hasNavRow = paginated || type.upgradeSlots() > 0;
@@ -188,18 +188,17 @@ public final class BackpackMenuRenderer {
         int visibleStorage = SlotLayout.storageAreaSize(invSize, hasNavRow);
 
         // load logical contents
-        ItemStack[] logical = ItemStackCodec.fromBytes(holder.data().contentsBytes());
-        int logicalSize = holder.logicalSlots();
-
-        if (logical.length != logicalSize) {
-            ItemStack[] resized = new ItemStack[logicalSize];
-            System.arraycopy(logical, 0, resized, 0, Math.min(logical.length, logicalSize));
-            logical = resized;
-        }
+        // (normalized to the logical size so it stays stable; paginated menus only
+        // decode the page being shown)
+        int pageStart = holder.paginated() ? holder.page() * 45 : 0;
+        ItemStack[] logical = holder.paginated()
+                ? holder.data().contentsOfSize(holder.logicalSlots(), pageStart, pageStart + 45)
+                : holder.data().contentsOfSize(holder.logicalSlots());
+        int logicalSize = logical.length;
 
         // draw storage area
         if (holder.paginated()) {
-            int offset = holder.page() * 45; // still 45 per page logically
+            int offset = pageStart; // still 45 per page logically
             int maxLogical = holder.logicalSlots();
 
             for (int i = 0; i < storageSize; i++) {
@@ -231,10 +230,48 @@ public final class BackpackMenuRenderer {
                     inv.setItem(i, blocked);
                 }
             }
+            prefetchAdjacentPages(holder);
         }
+    }
 
-        // write-back normalized logical array (so size stays stable)
-        holder.data().contentsBytes(ItemStackCodec.toBytes(logical));
+    /**
+     * Decodes the pages next to the current one off the main thread, so flipping
+     * to them doesn't have to (Storage.Cache.PrefetchAdjacentPages). Slots
+     * already being decoded for an earlier render aren't handed out again.
+     */
+    private void prefetchAdjacentPages(BackpackMenuHolder holder) {
+        if (!plugin.cfg().prefetchAdjacentPages())
+            return;
+
+        BackpackData data = holder.data();
+        int pageCount = pageCount(holder);
+        for (int page : new int[] { holder.page() - 1, holder.page() + 1 }) {
+            if (page < 0 || page >= pageCount)
+                continue;
+            int from = page * 45;
+            byte[][] source = data.undecodedBytes(from, Math.min(from + 45, holder.logicalSlots()));
+            if (source == null)
+                continue;
+
+            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+                ItemStack[] decoded;
+                try {
+                    decoded = ItemStackCodec.fromSlots(source);
+                } catch (RuntimeException ex) {
+                    // decoded on the main thread when the page is opened instead
+                    decoded = null;
+                }
+                ItemStack[] result = decoded;
+                if (!plugin.isEnabled())
+                    return;
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    if (result == null)
+                        data.abandonDecode(from, source);
+                    else
+                        data.installDecoded(from, source, result);
+                });
+            });
+        }
     }
 
     public void saveVisibleStorageToData(BackpackMenuHolder holder) {
@@ -244,14 +281,8 @@ public final class BackpackMenuRenderer {
         int invSize = inv.getSize();
         int visibleStorage = SlotLayout.storageAreaSize(invSize, hasNavRow);
 
-        ItemStack[] logical = ItemStackCodec.fromBytes(holder.data().contentsBytes());
-        int logicalSize = holder.logicalSlots();
-
-        if (logical.length != logicalSize) {
-            ItemStack[] resized = new ItemStack[logicalSize];
-            System.arraycopy(logical, 0, resized, 0, Math.min(logical.length, logicalSize));
-            logical = resized;
-        }
+        int from;
+        int to;
 
         if (holder.paginated()) {
             int offset = holder.page() * 45;
@@ -259,6 +290,7 @@ public final class BackpackMenuRenderer {
             int storageSize = hasNavRow ? invSize2 - 9 : invSize2;
             int valid = validVisibleSlots(holder, storageSize);
             int saveSlots = Math.min(valid, storageSize);
+            ItemStack[] logical = holder.data().contentsOfSize(holder.logicalSlots(), offset, offset + saveSlots);
 
             for (int i = 0; i < saveSlots; i++) {
 
@@ -269,15 +301,21 @@ public final class BackpackMenuRenderer {
                 ItemStack it = inv.getItem(i);
                 logical[logicalIndex] = (it == null ? null : it.clone());
             }
+            from = offset;
+            to = offset + saveSlots;
         } else {
+            ItemStack[] logical = holder.data().contentsOfSize(holder.logicalSlots());
             int limit = Math.min(logical.length, visibleStorage);
             for (int i = 0; i < limit; i++) {
                 ItemStack it = inv.getItem(i);
                 logical[i] = (it == null ? null : it.clone());
             }
+            from = 0;
+            to = limit;
         }
 
-        holder.data().contentsBytes(ItemStackCodec.toBytes(logical));
+        // Only the visible page was copied; other pages keep their serialized bytes.
+        holder.data().markSlotsDirty(from, to);
 
     }
 
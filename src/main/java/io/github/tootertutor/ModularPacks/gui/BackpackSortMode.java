@@ -1,8 +1,10 @@
 package io.github.tootertutor.ModularPacks.gui;
 
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.EnumMap;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
@@ -51,6 +53,239 @@ public enum BackpackSortMode {
         };
     }
 
+    /*
+     * ======================================================
+     * Packed keys
+     * ======================================================
+     */
+
+    // low bits of each sort entry hold the stack's index in the input list
+    private static final int INDEX_BITS = 20;
+    private static final int MAX_PACKED = 1 << INDEX_BITS;
+    private static final long INDEX_MASK = MAX_PACKED - 1L;
+    private static final int INSERTION_SORT_MAX = 16;
+
+    /**
+     * Sorts the list in place; same order as {@link #comparator}, but cheaper.
+     * - each stack's primary key is packed into a long once, next to its index,
+     * and the longs are sorted as primitives
+     * - only stacks whose keys tie are compared further (names, component
+     * indices), and those tie-breaks are computed lazily, once per stack
+     */
+    public static void sort(BackpackSortMode mode, List<ItemStack> items) {
+        int n = items == null ? 0 : items.size();
+        if (n < 2)
+            return;
+        if (n >= MAX_PACKED) {
+            items.sort(comparator(null, mode));
+            return;
+        }
+
+        SortKeys keys = new SortKeys(mode, items);
+        long[] packed = new long[n];
+        for (int i = 0; i < n; i++) {
+            packed[i] = (keys.primary(i) << INDEX_BITS) | i;
+        }
+        // ties come out in input order, so runs below only need a stable sort
+        Arrays.sort(packed);
+
+        long[] scratch = null;
+        int start = 0;
+        while (start < n) {
+            long k = packed[start] >>> INDEX_BITS;
+            int end = start + 1;
+            while (end < n && (packed[end] >>> INDEX_BITS) == k)
+                end++;
+            if (end - start > 1) {
+                if (end - start > INSERTION_SORT_MAX && scratch == null)
+                    scratch = new long[n];
+                sortRun(packed, start, end, keys, scratch);
+            }
+            start = end;
+        }
+
+        ItemStack[] sorted = new ItemStack[n];
+        for (int i = 0; i < n; i++) {
+            sorted[i] = items.get((int) (packed[i] & INDEX_MASK));
+        }
+        for (int i = 0; i < n; i++) {
+            items.set(i, sorted[i]);
+        }
+    }
+
+    /**
+     * Stable sort of packed[from, to) by the tie-break order.
+     */
+    private static void sortRun(long[] packed, int from, int to, SortKeys keys, long[] scratch) {
+        if (to - from <= INSERTION_SORT_MAX) {
+            for (int i = from + 1; i < to; i++) {
+                long v = packed[i];
+                int j = i - 1;
+                while (j >= from && keys.compareTies(packed[j], v) > 0) {
+                    packed[j + 1] = packed[j];
+                    j--;
+                }
+                packed[j + 1] = v;
+            }
+            return;
+        }
+
+        int mid = (from + to) >>> 1;
+        sortRun(packed, from, mid, keys, scratch);
+        sortRun(packed, mid, to, keys, scratch);
+        if (keys.compareTies(packed[mid - 1], packed[mid]) <= 0)
+            return;
+
+        System.arraycopy(packed, from, scratch, from, to - from);
+        int i = from;
+        int j = mid;
+        for (int k = from; k < to; k++) {
+            if (j >= to || (i < mid && keys.compareTies(scratch[i], scratch[j]) <= 0))
+                packed[k] = scratch[i++];
+            else
+                packed[k] = scratch[j++];
+        }
+    }
+
+    /**
+     * Per-sort key storage, indexed by position in the input list.
+     * Primary keys (all non-negative, at most 43 bits):
+     * - REGISTRY: registry index
+     * - CREATIVE_MENU: creative tab, then registry index
+     * - COUNT: amount (descending), then registry index
+     * - TAGS: component count (descending)
+     * - ALPHABETICALLY: name group, short-name length, first two characters
+     */
+    private static final class SortKeys {
+        private final BackpackSortMode mode;
+        private final List<ItemStack> items;
+        private final int[] registry;
+        private final String[] names;
+        private final int[][] components;
+
+        private SortKeys(BackpackSortMode mode, List<ItemStack> items) {
+            int n = items.size();
+            this.mode = mode;
+            this.items = items;
+            this.registry = new int[n];
+            this.names = new String[n];
+            this.components = mode == TAGS ? new int[n][] : null;
+            for (int i = 0; i < n; i++) {
+                registry[i] = materialRegistryIndex(type(items.get(i)));
+            }
+        }
+
+        private long primary(int i) {
+            ItemStack it = items.get(i);
+            long reg = Math.min(registry[i], 0xFFFF);
+            return switch (mode) {
+                case REGISTRY -> registry[i] & 0x7FFFFFFFL;
+                case CREATIVE_MENU -> ((long) Math.min(creativeCategoryIndex(type(it)), 0xFF) << 16) | reg;
+                case COUNT -> ((long) (0xFFFF - Math.min(Math.max(amount(it), 0), 0xFFFF)) << 16) | reg;
+                case TAGS -> 0xFFFF - Math.min(dataComponentCount(it), 0xFFFF);
+                case ALPHABETICALLY -> alphaPrefix(name(i));
+            };
+        }
+
+        private int compareTies(long a, long b) {
+            int ia = (int) (a & INDEX_MASK);
+            int ib = (int) (b & INDEX_MASK);
+            switch (mode) {
+                case ALPHABETICALLY -> {
+                    int byName = String.CASE_INSENSITIVE_ORDER.compare(name(ia), name(ib));
+                    if (byName != 0)
+                        return byName;
+                    return Integer.compare(registry[ia], registry[ib]);
+                }
+                case TAGS -> {
+                    int byComponents = compareIndices(components(ia), components(ib));
+                    if (byComponents != 0)
+                        return byComponents;
+                    int byRegistry = Integer.compare(registry[ia], registry[ib]);
+                    if (byRegistry != 0)
+                        return byRegistry;
+                    return String.CASE_INSENSITIVE_ORDER.compare(displayName(ia), displayName(ib));
+                }
+                default -> {
+                    return String.CASE_INSENSITIVE_ORDER.compare(displayName(ia), displayName(ib));
+                }
+            }
+        }
+
+        // Alphabetical mode compares the stripped, lower-cased name; the rest use it as-is.
+        private String name(int i) {
+            String n = names[i];
+            if (n == null) {
+                String full = displayNameKey(items.get(i));
+                n = full == null ? "" : full.strip().toLowerCase(Locale.ROOT);
+                names[i] = n;
+            }
+            return n;
+        }
+
+        private String displayName(int i) {
+            String n = names[i];
+            if (n == null) {
+                n = displayNameKey(items.get(i));
+                names[i] = n;
+            }
+            return n;
+        }
+
+        private int[] components(int i) {
+            int[] c = components[i];
+            if (c == null) {
+                c = componentIndices(items.get(i));
+                components[i] = c;
+            }
+            return c;
+        }
+
+        /**
+         * Packs the {@link AlphaKey} order up to the first two characters; the
+         * full name only decides between stacks that share them.
+         */
+        private static long alphaPrefix(String lower) {
+            if (lower.isEmpty())
+                return 2L << 34;
+            int group;
+            int shortLen = 0;
+            if (!Character.isLetterOrDigit(lower.charAt(0))) {
+                group = 2;
+            } else if (lower.length() <= 2) {
+                group = 0;
+                shortLen = lower.length();
+            } else {
+                group = 1;
+            }
+            long c0 = fold(lower.charAt(0));
+            long c1 = lower.length() > 1 ? fold(lower.charAt(1)) : 0L;
+            return ((long) group << 34) | ((long) shortLen << 32) | (c0 << 16) | c1;
+        }
+
+        // same per-char folding as String.CASE_INSENSITIVE_ORDER
+        private static char fold(char c) {
+            return Character.toLowerCase(Character.toUpperCase(c));
+        }
+    }
+
+    private static int compareIndices(int[] aa, int[] bb) {
+        int n = Math.min(aa.length, bb.length);
+        for (int i = 0; i < n; i++) {
+            // "Registered first" component types should appear closer to the top-left slot.
+            int cmp = Integer.compare(aa[i], bb[i]);
+            if (cmp != 0)
+                return cmp;
+        }
+        return Integer.compare(aa.length, bb.length);
+    }
+
+    /*
+     * ======================================================
+     * Comparators
+     * ======================================================
+     */
+
     private static Comparator<ItemStack> byMaterialRegistryOrder() {
         // "Registered first" should appear closest to the top-left slot.
         return Comparator
@@ -200,15 +435,7 @@ public enum BackpackSortMode {
     private static int compareComponentIndices(Map<ItemStack, int[]> cache, ItemStack a, ItemStack b) {
         int[] aa = cache.computeIfAbsent(a, BackpackSortMode::componentIndices);
         int[] bb = cache.computeIfAbsent(b, BackpackSortMode::componentIndices);
-
-        int n = Math.min(aa.length, bb.length);
-        for (int i = 0; i < n; i++) {
-            // "Registered first" component types should appear closer to the top-left slot.
-            int cmp = Integer.compare(aa[i], bb[i]);
-            if (cmp != 0)
-                return cmp;
-        }
-        return Integer.compare(aa.length, bb.length);
+        return compareIndices(aa, bb);
     }
 
     private static int[] componentIndices(ItemStack it) {
@@ -228,7 +455,7 @@ public enum BackpackSortMode {
         for (DataComponentType t : types) {
             idx[i++] = dataComponentTypeRegistryIndex(t);
         }
-        java.util.Arrays.sort(idx);
+        Arrays.sort(idx);
         return idx;
     }
 
@@ -110,7 +110,7 @@ public final class ScreenRouter {
 
 		// Load saved state into this inventory (from the backpack row + moduleStates
 		// map)
-		BackpackData data = plugin.repo().loadOrCreate(backpackId, backpackType);
+		BackpackData data = plugin.cache().loadOrCreate(backpackId, backpackType);
 		byte[] state = data.moduleStates().get(moduleId);
 		if (state == null) {
 			player.openInventory(inv);
@@ -158,13 +158,13 @@ public final class ScreenRouter {
 		if (screenType == ScreenType.STONECUTTER) {
 			if (inv.getSize() > 1) {
 				inv.setItem(1, null);
-				StonecutterModuleLogic.updateResult(inv);
+				StonecutterModuleLogic.updateResult(plugin.recipes(), inv);
 			}
 		}
 		if (screenType == ScreenType.SMITHING) {
 			if (inv.getSize() > 3) {
 				inv.setItem(3, null);
-				SmithingModuleLogic.updateResult(inv);
+				SmithingModuleLogic.updateResult(plugin.recipes(), inv);
 			}
 		}
 
@@ -1,6 +1,7 @@
 package io.github.tootertutor.ModularPacks.item;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 
 import org.bukkit.inventory.ItemStack;
@@ -68,6 +69,23 @@ public final class BackpackItems {
 
     public boolean refreshInPlace(ItemStack item, BackpackTypeDef type, UUID backpackId, BackpackData data,
             int totalSlots) {
+        return refreshInPlace(item, type, backpackId, data, totalSlots, false);
+    }
+
+    /**
+     * Rebuilds name, PDC, model data, skull and lore from the backpack's data.
+     * - the item remembers a fingerprint of everything that is rendered (type
+     * name, lore, model data and skull from config, the lang file, used slots,
+     * item count, installed modules and their names); when it still matches,
+     * nothing is touched and false is returned, so callers skip the setItem /
+     * slot packet. It only hashes content, so it stays valid across restarts
+     * and changes as soon as an edited config or lang file is loaded
+     * - force rebuilds regardless (e.g. /backpack refreshskulls)
+     *
+     * @return true if the item meta was rewritten
+     */
+    public boolean refreshInPlace(ItemStack item, BackpackTypeDef type, UUID backpackId, BackpackData data,
+            int totalSlots, boolean force) {
         if (item == null || item.getType().isAir() || type == null || backpackId == null)
             return false;
 
@@ -75,6 +93,12 @@ public final class BackpackItems {
         if (meta == null)
             return false;
 
+        long fingerprint = fingerprint(type, backpackId, data, totalSlots);
+        Long stored = meta.getPersistentDataContainer().get(plugin.keys().BACKPACK_LORE_FINGERPRINT,
+                PersistentDataType.LONG);
+        if (!force && stored != null && stored == fingerprint)
+            return false;
+
         meta.displayName(Text.c(type.displayName()));
         meta.getPersistentDataContainer().set(plugin.keys().BACKPACK_ID, PersistentDataType.STRING, backpackId.toString());
         meta.getPersistentDataContainer().set(plugin.keys().BACKPACK_TYPE, PersistentDataType.STRING, type.id());
@@ -97,10 +121,46 @@ public final class BackpackItems {
             meta.lore(null);
         }
 
+        meta.getPersistentDataContainer().set(plugin.keys().BACKPACK_LORE_FINGERPRINT, PersistentDataType.LONG,
+                fingerprint);
         item.setItemMeta(meta);
         return true;
     }
 
+    /**
+     * Hash of the inputs {@link Placeholders#expandBackpackLore} and the rest of
+     * refreshInPlace read. Counting slots ({@link BackpackData#usage}) doesn't
+     * decode pages that were never opened, and is far cheaper than rebuilding
+     * and re-sending the meta.
+     */
+    private long fingerprint(BackpackTypeDef type, UUID backpackId, BackpackData data, int totalSlots) {
+        long h = 17L;
+        h = h * 31L + type.id().hashCode();
+        h = h * 31L + Objects.hashCode(type.displayName());
+        h = h * 31L + Objects.hashCode(type.lore());
+        h = h * 31L + type.customModelData();
+        h = h * 31L + Objects.hashCode(type.skullData());
+        h = h * 31L + type.rows();
+        h = h * 31L + type.upgradeSlots();
+        // backpackContents / backpackContentsEmpty and any lang placeholder the lore uses
+        h = h * 31L + plugin.lang().contentHash();
+        // module lines show the upgrade's display name
+        h = h * 31L + plugin.cfg().upgradeNamesHash();
+        h = h * 31L + backpackId.hashCode();
+        h = h * 31L + totalSlots;
+        if (data == null)
+            return h;
+
+        BackpackData.Usage usage = data.usage(totalSlots);
+        h = h * 31L + usage.usedSlots();
+        h = h * 31L + usage.itemCount();
+
+        // (slot, module id) pairs; Map.hashCode() doesn't depend on iteration order
+        h = h * 31L + data.installedModules().size();
+        h = h * 31L + data.installedModules().hashCode();
+        return h;
+    }
+
     public boolean isBackpack(ItemStack item) {
         if (item == null || !item.hasItemMeta())
             return false;
@@ -7,6 +7,7 @@ public final class Keys {
 
     public final NamespacedKey BACKPACK_ID; // UUID string
     public final NamespacedKey BACKPACK_TYPE; // e.g., "Leather"
+    public final NamespacedKey BACKPACK_LORE_FINGERPRINT; // long, see BackpackItems.refreshInPlace
 
     public final NamespacedKey MODULE_ID; // UUID string
     public final NamespacedKey MODULE_TYPE; // e.g., "Smelting"
@@ -22,6 +23,7 @@ public final class Keys {
     public Keys(JavaPlugin plugin) {
         BACKPACK_ID = new NamespacedKey(plugin, "backpack_id");
         BACKPACK_TYPE = new NamespacedKey(plugin, "backpack_type");
+        BACKPACK_LORE_FINGERPRINT = new NamespacedKey(plugin, "backpack_lore_fp");
 
         MODULE_ID = new NamespacedKey(plugin, "module_id");
         MODULE_TYPE = new NamespacedKey(plugin, "module_type");
@@ -1,31 +1,54 @@
 package io.github.tootertutor.ModularPacks.item;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.bukkit.Bukkit;
 import org.bukkit.inventory.meta.SkullMeta;
 
+import com.destroystokyo.paper.profile.PlayerProfile;
 import com.destroystokyo.paper.profile.ProfileProperty;
 
 public final class SkullTextureUtil {
 
+    // base64 texture -> profile; never mutated after creation (setPlayerProfile copies it)
+    private static final Map<String, PlayerProfile> PROFILES = new ConcurrentHashMap<>();
+
     private SkullTextureUtil() {
     }
 
     /**
      * Applies a Base64-encoded "textures" property to a player head.
      * The Base64 should be the standard Mojang textures payload (as used by most head databases).
+     * - the profile UUID is derived from the texture, so the same texture always
+     * has the same UUID and clients can reuse their cached skin
+     * - heads that already carry that profile are left alone
+     *
+     * @return true if the profile was (re)applied
      */
-    public static void applyBase64Texture(SkullMeta skullMeta, String base64Textures) {
+    public static boolean applyBase64Texture(SkullMeta skullMeta, String base64Textures) {
         if (skullMeta == null || base64Textures == null)
-            return;
+            return false;
         String value = base64Textures.trim();
         if (value.isEmpty())
-            return;
+            return false;
+
+        PlayerProfile profile = PROFILES.computeIfAbsent(value, SkullTextureUtil::createProfile);
+
+        PlayerProfile current = skullMeta.getPlayerProfile();
+        if (current != null && profile.getId().equals(current.getId()))
+            return false;
 
-        var profile = Bukkit.createProfile(UUID.randomUUID());
-        profile.setProperty(new ProfileProperty("textures", value));
         skullMeta.setPlayerProfile(profile);
+        return true;
     }
-}
 
+    private static PlayerProfile createProfile(String value) {
+        UUID id = UUID.nameUUIDFromBytes(("ModularPacks:skull:" + value).getBytes(StandardCharsets.UTF_8));
+        PlayerProfile profile = Bukkit.createProfile(id);
+        profile.setProperty(new ProfileProperty("textures", value));
+        return profile;
+    }
+}
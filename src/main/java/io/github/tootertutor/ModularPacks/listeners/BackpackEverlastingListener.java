@@ -54,7 +54,7 @@ public final class BackpackEverlastingListener implements Listener {
             return;
 
         // best-effort: keep owner info fresh for recovery
-        plugin.repo().ensureBackpackExists(ref.backpackId, ref.backpackType, e.getPlayer().getUniqueId(),
+        plugin.cache().ensureBackpackExists(ref.backpackId, ref.backpackType, e.getPlayer().getUniqueId(),
                 e.getPlayer().getName());
 
         if (hasEverlasting(ref.backpackId, ref.backpackType)) {
@@ -289,10 +289,10 @@ public final class BackpackEverlastingListener implements Listener {
         if (def == null || !def.enabled())
             return false;
 
-        String effectiveType = plugin.repo().findBackpackType(backpackId);
+        String effectiveType = plugin.cache().findBackpackType(backpackId);
         if (effectiveType == null || effectiveType.isBlank())
             effectiveType = backpackType;
-        BackpackData data = plugin.repo().loadOrCreate(backpackId, effectiveType);
+        BackpackData data = plugin.cache().loadOrCreate(backpackId, effectiveType);
 
         for (UUID moduleId : data.installedModules().values()) {
             if (moduleId == null)
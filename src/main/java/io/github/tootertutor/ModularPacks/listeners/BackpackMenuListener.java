@@ -31,6 +31,7 @@ import io.github.tootertutor.ModularPacks.config.Placeholders;
 import io.github.tootertutor.ModularPacks.config.ScreenType;
 import io.github.tootertutor.ModularPacks.data.BackpackData;
 import io.github.tootertutor.ModularPacks.data.ItemStackCodec;
+import io.github.tootertutor.ModularPacks.data.ModuleStateCodecs;
 import io.github.tootertutor.ModularPacks.gui.BackpackMenuHolder;
 import io.github.tootertutor.ModularPacks.gui.BackpackMenuRenderer;
 import io.github.tootertutor.ModularPacks.gui.BackpackSortMode;
@@ -42,6 +43,7 @@ import io.github.tootertutor.ModularPacks.item.Keys;
 import io.github.tootertutor.ModularPacks.modules.AnvilModuleLogic;
 import io.github.tootertutor.ModularPacks.modules.CraftingModuleUi;
 import io.github.tootertutor.ModularPacks.modules.FurnaceModuleLogic;
+import io.github.tootertutor.ModularPacks.modules.InstalledModuleIndex;
 import io.github.tootertutor.ModularPacks.modules.SmithingModuleUi;
 import io.github.tootertutor.ModularPacks.modules.StonecutterModuleUi;
 import io.github.tootertutor.ModularPacks.modules.FurnaceStateCodec;
@@ -475,23 +477,32 @@ public final class BackpackMenuListener implements Listener {
             if (!openHolder.backpackId().equals(holder.backpackId()))
                 return;
 
-            EjectResult moved = ejectProhibitedFromData(player, openHolder);
-            if (moved.backpacks > 0 || moved.blocked > 0) {
-                renderer.render(openHolder);
-                scheduleSave(player, openHolder);
-                if (moved.backpacks > 0) {
-                    player.sendMessage(Text.c("&cBackpacks can't be stored inside backpacks. Moved " + moved.backpacks
-                            + " backpack(s) back to you."));
-                }
-                if (moved.blocked > 0) {
-                    player.sendMessage(Text.c("&cSome items are blocked from backpacks by server config. Moved "
-                            + moved.blocked + " item(s) back to you."));
-                }
-                player.updateInventory();
-            }
+            ejectProhibitedAndRender(player, openHolder);
         });
     }
 
+    /**
+     * Ejects prohibited items from the decoded pages (see
+     * {@link #ejectProhibitedFromData}); runs on open and after every page
+     * change, so each page is checked once it is shown.
+     */
+    private void ejectProhibitedAndRender(Player player, BackpackMenuHolder holder) {
+        EjectResult moved = ejectProhibitedFromData(player, holder);
+        if (moved.backpacks > 0 || moved.blocked > 0) {
+            renderer.render(holder);
+            scheduleSave(player, holder);
+            if (moved.backpacks > 0) {
+                player.sendMessage(Text.c("&cBackpacks can't be stored inside backpacks. Moved " + moved.backpacks
+                        + " backpack(s) back to you."));
+            }
+            if (moved.blocked > 0) {
+                player.sendMessage(Text.c("&cSome items are blocked from backpacks by server config. Moved "
+                        + moved.blocked + " item(s) back to you."));
+            }
+            player.updateInventory();
+        }
+    }
+
     private boolean isBackpackHotbarSwap(Player player, InventoryClickEvent e) {
         if (player == null || e == null)
             return false;
@@ -570,7 +581,7 @@ public final class BackpackMenuListener implements Listener {
 
         // MODULE SCREEN CLOSE
         if (e.getInventory().getHolder() instanceof ModuleScreenHolder msh) {
-            BackpackData data = plugin.repo().loadOrCreate(msh.backpackId(), msh.backpackType());
+            BackpackData data = plugin.cache().loadOrCreate(msh.backpackId(), msh.backpackType());
             Inventory inv = e.getInventory();
 
             // Furnace-like: save as FurnaceStateCodec (preserve progress)
@@ -594,7 +605,7 @@ public final class BackpackMenuListener implements Listener {
                 }
 
                 data.moduleStates().put(msh.moduleId(), FurnaceStateCodec.encode(fs));
-                plugin.repo().saveBackpack(data);
+                plugin.cache().saveBackpack(data);
                 plugin.sessions().refreshLinkedBackpacksThrottled(msh.backpackId(), data);
                 plugin.sessions().onRelatedInventoryClose(player, msh.backpackId());
                 return;
@@ -657,7 +668,7 @@ public final class BackpackMenuListener implements Listener {
             }
 
             data.moduleStates().put(msh.moduleId(), ItemStackCodec.toBytes(items));
-            plugin.repo().saveBackpack(data);
+            plugin.cache().saveBackpack(data);
             plugin.sessions().refreshLinkedBackpacksThrottled(msh.backpackId(), data);
             plugin.sessions().onRelatedInventoryClose(player, msh.backpackId());
             return;
@@ -698,7 +709,7 @@ public final class BackpackMenuListener implements Listener {
                         + moved.blocked + " item(s) back to you."));
             }
 
-            plugin.repo().saveBackpack(holder.data());
+            plugin.cache().saveBackpack(holder.data());
             refreshBackpackItemsFor(player, holder);
             plugin.sessions().refreshLinkedBackpacksThrottled(holder.backpackId(), holder.data());
             plugin.sessions().onRelatedInventoryClose(player, holder.backpackId());
@@ -834,14 +845,10 @@ public final class BackpackMenuListener implements Listener {
         int movedBackpacks = 0;
         int movedBlocked = 0;
 
-        // Scan logical storage (all pages), not just currently-visible slots.
-        ItemStack[] logical = ItemStackCodec.fromBytes(holder.data().contentsBytes());
-        int logicalSize = holder.logicalSlots();
-        if (logical.length != logicalSize) {
-            ItemStack[] resized = new ItemStack[logicalSize];
-            System.arraycopy(logical, 0, resized, 0, Math.min(logical.length, logicalSize));
-            logical = resized;
-        }
+        // Scan logical storage (every decoded page, not just the visible one). Pages
+        // that were never shown stay undecoded (null here); they're checked when a
+        // page change or reopen shows them.
+        ItemStack[] logical = holder.data().decodedContentsOfSize(holder.logicalSlots());
 
         for (int i = 0; i < logical.length; i++) {
             ItemStack it = logical[i];
@@ -863,7 +870,7 @@ public final class BackpackMenuListener implements Listener {
         }
 
         if (movedBackpacks > 0 || movedBlocked > 0) {
-            holder.data().contentsBytes(ItemStackCodec.toBytes(logical));
+            holder.data().markContentsDirty();
             Bukkit.getScheduler().runTask(plugin, player::updateInventory);
         }
 
@@ -1577,8 +1584,8 @@ public final class BackpackMenuListener implements Listener {
         holder.data().installedModules().put(socketIndex, moduleId);
 
         // IMPORT module persistent state from the module item (so it carries across
-        // backpacks)
-        byte[] importedState = readModuleStateFromItem(cursor);
+        // backpacks); items still carrying the old YAML snapshot are converted here
+        byte[] importedState = ModuleStateCodecs.migrate(moduleType, readModuleStateFromItem(cursor));
         if (moduleType.equalsIgnoreCase("Tank") && importedState == null) {
             importedState = TankStateCodec.encode(new TankStateCodec.State());
         }
@@ -1623,6 +1630,9 @@ public final class BackpackMenuListener implements Listener {
         }
 
         // EXPORT module persistent state into the physical module item
+        // (furnaces cook lazily; catch up first so the item carries the real state)
+        if (plugin.engines() != null)
+            plugin.engines().settleFurnace(holder.data(), moduleId);
         byte[] state = holder.data().moduleStates().get(moduleId);
         if (item != null) {
             writeModuleStateToItem(item, state);
@@ -1853,31 +1863,25 @@ public final class BackpackMenuListener implements Listener {
         if (!plugin.cfg().isAllowedInBackpack(stack))
             return stack;
 
-        ItemStack[] logical = ItemStackCodec.fromBytes(holder.data().contentsBytes());
-        int logicalSize = holder.logicalSlots();
-
-        if (logical.length != logicalSize) {
-            ItemStack[] resized = new ItemStack[logicalSize];
-            System.arraycopy(logical, 0, resized, 0, Math.min(logical.length, logicalSize));
-            logical = resized;
-        }
-
         // Prefer inserting into the CURRENT page range first (prevents client-side
         // sorting mods from using shift-click to accidentally rewrite earlier pages).
+        // Only that page needs decoding unless it's full.
         if (holder.paginated()) {
             int start = holder.page() * 45;
-            int end = Math.min(start + 45, logical.length);
-            stack = insertIntoLogicalRange(logical, start, end, stack);
+            ItemStack[] page = holder.data().contentsOfSize(holder.logicalSlots(), start, start + 45);
+            int end = Math.min(start + 45, page.length);
+            stack = insertIntoLogicalRange(page, start, end, stack);
             if (stack == null || stack.getAmount() <= 0) {
-                holder.data().contentsBytes(ItemStackCodec.toBytes(logical));
+                holder.data().markSlotsDirty(start, end);
                 return null;
             }
         }
 
         // Fallback: insert anywhere (vanilla-ish behavior if current page is full)
+        ItemStack[] logical = holder.data().contentsOfSize(holder.logicalSlots());
         stack = insertIntoLogicalRange(logical, 0, logical.length, stack);
 
-        holder.data().contentsBytes(ItemStackCodec.toBytes(logical));
+        holder.data().markContentsDirty();
         return stack;
     }
 
@@ -1944,6 +1948,7 @@ public final class BackpackMenuListener implements Listener {
 
         if (!plugin.cfg().resizeGui()) {
             renderer.render(holder);
+            ejectProhibitedAndRender(player, holder);
             return;
         }
 
@@ -1969,24 +1974,7 @@ public final class BackpackMenuListener implements Listener {
         if (moduleType == null)
             return false;
 
-        // installedModules(): Map<Integer, UUID>
-        for (UUID moduleId : holder.data().installedModules().values()) {
-            if (moduleId == null)
-                continue;
-
-            byte[] snap = holder.data().installedSnapshots().get(moduleId);
-            if (snap == null)
-                continue;
-
-            ItemStack[] arr = ItemStackCodec.fromBytes(snap);
-            if (arr.length == 0 || arr[0] == null)
-                continue;
-
-            String t = getModuleType(arr[0]);
-            if (t != null && t.equalsIgnoreCase(moduleType))
-                return true;
-        }
-        return false;
+        return InstalledModuleIndex.of(plugin, holder.data()).isInstalled(moduleType);
     }
 
     private boolean isEmptySocket(ItemStack item) {
@@ -2074,7 +2062,7 @@ public final class BackpackMenuListener implements Listener {
                     && current.backpackId().equals(backpackId)) {
 
                 renderer.saveVisibleStorageToData(current);
-                plugin.repo().saveBackpack(current.data());
+                plugin.cache().saveBackpack(current.data());
                 refreshBackpackItemsFor(player, current);
                 plugin.sessions().refreshLinkedBackpacksThrottled(current.backpackId(), current.data());
                 dirtySinceTick.remove(player.getUniqueId());
@@ -2099,12 +2087,12 @@ public final class BackpackMenuListener implements Listener {
                 return;
             }
             renderer.saveVisibleStorageToData(current);
-            plugin.repo().saveBackpack(current.data());
+            plugin.cache().saveBackpack(current.data());
             refreshBackpackItemsFor(player, current);
             plugin.sessions().refreshLinkedBackpacksThrottled(current.backpackId(), current.data());
         } else {
             renderer.saveVisibleStorageToData(holder);
-            plugin.repo().saveBackpack(holder.data());
+            plugin.cache().saveBackpack(holder.data());
             refreshBackpackItemsFor(player, holder);
             plugin.sessions().refreshLinkedBackpacksThrottled(holder.backpackId(), holder.data());
         }
@@ -2280,14 +2268,9 @@ public final class BackpackMenuListener implements Listener {
         renderer.saveVisibleStorageToData(holder);
 
         int logicalSize = holder.logicalSlots();
-        ItemStack[] logical = ItemStackCodec.fromBytes(holder.data().contentsBytes());
-
-        if (logical.length != logicalSize) {
-            ItemStack[] resized = new ItemStack[logicalSize];
-            System.arraycopy(logical, 0, resized, 0, Math.min(logical.length, logicalSize));
-            logical = resized;
-        }
+        ItemStack[] logical = holder.data().contentsOfSize(logicalSize);
 
+        // One clone per stack; merging and sorting then work on these copies in place.
         List<ItemStack> items = new java.util.ArrayList<>(logical.length);
         for (ItemStack it : logical) {
             if (it == null || it.getType().isAir())
@@ -2299,67 +2282,69 @@ public final class BackpackMenuListener implements Listener {
         // predictably and we don't leave unnecessary partials).
         items = mergePartialStacks(items);
 
-        items.sort(BackpackSortMode.comparator(plugin, holder.sortMode()));
+        BackpackSortMode.sort(holder.sortMode(), items);
 
         ItemStack[] out = new ItemStack[logicalSize];
         for (int i = 0; i < Math.min(out.length, items.size()); i++) {
-            out[i] = items.get(i).clone();
+            out[i] = items.get(i);
         }
 
-        holder.data().contentsBytes(ItemStackCodec.toBytes(out));
+        holder.data().contents(out);
     }
 
+    /**
+     * Tops up earlier partial stacks in one pass. The input stacks are owned by
+     * the caller and are modified/reused.
+     * - at most one partial stack per similar kind is open at a time, so each
+     * stack is checked only against the open partials of its material
+     * - oversized stacks are split into full stacks
+     */
     private static List<ItemStack> mergePartialStacks(List<ItemStack> input) {
         if (input == null || input.isEmpty())
             return java.util.Collections.emptyList();
 
         java.util.ArrayList<ItemStack> merged = new java.util.ArrayList<>(input.size());
+        java.util.Map<Material, List<ItemStack>> open = new java.util.EnumMap<>(Material.class);
 
         for (ItemStack stack : input) {
             if (stack == null || stack.getType().isAir())
                 continue;
 
-            ItemStack remaining = stack.clone();
-
-            int maxStack = remaining.getMaxStackSize();
+            int maxStack = stack.getMaxStackSize();
             if (maxStack <= 1) {
-                merged.add(remaining);
+                merged.add(stack);
                 continue;
             }
 
-            // First, try to top up existing partial stacks.
-            for (int i = 0; i < merged.size() && remaining.getAmount() > 0; i++) {
-                ItemStack existing = merged.get(i);
-                if (existing == null || existing.getType().isAir())
-                    continue;
-                if (existing.getMaxStackSize() <= 1)
-                    continue;
-                if (!existing.isSimilar(remaining))
-                    continue;
-
-                int space = existing.getMaxStackSize() - existing.getAmount();
-                if (space <= 0)
-                    continue;
-
-                int move = Math.min(space, remaining.getAmount());
-                if (move <= 0)
-                    continue;
-
-                ItemStack topped = existing.clone();
-                topped.setAmount(existing.getAmount() + move);
-                merged.set(i, topped);
-
-                remaining.setAmount(remaining.getAmount() - move);
+            int remaining = stack.getAmount();
+            List<ItemStack> partials = open.get(stack.getType());
+            if (partials != null) {
+                for (int i = 0; i < partials.size(); i++) {
+                    ItemStack existing = partials.get(i);
+                    if (!existing.isSimilar(stack))
+                        continue;
+
+                    int move = Math.min(maxStack - existing.getAmount(), remaining);
+                    existing.setAmount(existing.getAmount() + move);
+                    remaining -= move;
+                    if (existing.getAmount() >= maxStack)
+                        partials.remove(i);
+                    break;
+                }
             }
 
-            // Then, split any leftover into full stacks.
-            while (remaining.getAmount() > 0) {
-                int toPlace = Math.min(remaining.getMaxStackSize(), remaining.getAmount());
-                ItemStack placed = remaining.clone();
+            // Then, split any leftover into full stacks; the last one may stay open.
+            ItemStack last = null;
+            while (remaining > 0) {
+                int toPlace = Math.min(maxStack, remaining);
+                ItemStack placed = last == null ? stack : stack.clone();
                 placed.setAmount(toPlace);
                 merged.add(placed);
-                remaining.setAmount(remaining.getAmount() - toPlace);
+                remaining -= toPlace;
+                last = placed;
             }
+            if (last != null && last.getAmount() < maxStack)
+                open.computeIfAbsent(stack.getType(), k -> new java.util.ArrayList<>(2)).add(last);
         }
 
         return merged;
@@ -51,7 +51,7 @@ public final class BackpackUseListener implements Listener {
         }
 
         e.setCancelled(true);
-        plugin.repo().ensureBackpackExists(backpackId, typeId, p.getUniqueId(), p.getName());
+        plugin.cache().ensureBackpackExists(backpackId, typeId, p.getUniqueId(), p.getName());
 
         if (!plugin.sessions().tryLock(p, backpackId, false)) {
             String lockedTo = plugin.sessions().lockedToName(backpackId);
@@ -317,7 +317,7 @@ public final class ModuleFilterScreenListener implements Listener {
         if (msh == null)
             return null;
 
-        BackpackData data = plugin.repo().loadOrCreate(msh.backpackId(), msh.backpackType());
+        BackpackData data = plugin.cache().loadOrCreate(msh.backpackId(), msh.backpackType());
         if (data == null)
             return null;
 
@@ -117,30 +117,31 @@ public final class ModuleRecipeListener implements Listener {
 
         if (screen == ScreenType.STONECUTTER) {
             if (ModuleClickHandler.handleShiftClickIntoInputs(plugin, e, player, top, new int[] { 0 }, item -> 0,
-                    () -> StonecutterModuleLogic.updateResult(top))) {
+                    () -> StonecutterModuleLogic.updateResult(plugin.recipes(), top))) {
                 return;
             }
 
-            if (StonecutterModuleLogic.handleClick(plugin, e, player))
+            if (StonecutterModuleLogic.handleClick(plugin, plugin.recipes(), e, player))
                 return;
 
             if (ModuleClickHandler.handleShiftClickOutOfInputs(plugin, e, player, top, raw -> raw == 0,
-                    () -> StonecutterModuleLogic.updateResult(top))) {
+                    () -> StonecutterModuleLogic.updateResult(plugin.recipes(), top))) {
                 return;
             }
         }
 
         if (screen == ScreenType.SMITHING) {
             if (ModuleClickHandler.handleShiftClickIntoInputs(plugin, e, player, top, new int[] { 0, 1, 2 },
-                    SmithingModuleLogic::preferredInsertSlot, () -> SmithingModuleLogic.updateResult(top))) {
+                    SmithingModuleLogic::preferredInsertSlot,
+                    () -> SmithingModuleLogic.updateResult(plugin.recipes(), top))) {
                 return;
             }
 
-            if (SmithingModuleLogic.handleClick(plugin, e, player))
+            if (SmithingModuleLogic.handleClick(plugin, plugin.recipes(), e, player))
                 return;
 
             if (ModuleClickHandler.handleShiftClickOutOfInputs(plugin, e, player, top, raw -> raw >= 0 && raw <= 2,
-                    () -> SmithingModuleLogic.updateResult(top))) {
+                    () -> SmithingModuleLogic.updateResult(plugin.recipes(), top))) {
                 return;
             }
         }
@@ -152,8 +153,8 @@ public final class ModuleRecipeListener implements Listener {
             Bukkit.getScheduler().runTask(plugin, () -> {
                 switch (screen) {
                     case CRAFTING -> CraftingModuleLogic.updateResult(plugin.recipes(), player, top);
-                    case STONECUTTER -> StonecutterModuleLogic.updateResult(top);
-                    case SMITHING -> SmithingModuleLogic.updateResult(top);
+                    case STONECUTTER -> StonecutterModuleLogic.updateResult(plugin.recipes(), top);
+                    case SMITHING -> SmithingModuleLogic.updateResult(plugin.recipes(), top);
                     default -> {
                     }
                 }
@@ -208,8 +209,8 @@ public final class ModuleRecipeListener implements Listener {
                 Bukkit.getScheduler().runTask(plugin, () -> {
                     switch (screen) {
                         case CRAFTING -> CraftingModuleLogic.updateResult(plugin.recipes(), player, top);
-                        case STONECUTTER -> StonecutterModuleLogic.updateResult(top);
-                        case SMITHING -> SmithingModuleLogic.updateResult(top);
+                        case STONECUTTER -> StonecutterModuleLogic.updateResult(plugin.recipes(), top);
+                        case SMITHING -> SmithingModuleLogic.updateResult(plugin.recipes(), top);
                         default -> {
                         }
                     }
@@ -53,7 +53,7 @@ public final class RestockModuleListener implements Listener {
 
         // Render threshold UI based on stored state; ignore whatever ScreenRouter
         // loaded.
-        BackpackData data = plugin.repo().loadOrCreate(msh.backpackId(), msh.backpackType());
+        BackpackData data = plugin.cache().loadOrCreate(msh.backpackId(), msh.backpackType());
         int threshold = readStoredThreshold(data, msh.moduleId());
         top.clear();
         writeThreshold(top, threshold);
@@ -253,7 +253,7 @@ public final class RestockModuleListener implements Listener {
         if (msh == null)
             return null;
 
-        BackpackData data = plugin.repo().loadOrCreate(msh.backpackId(), msh.backpackType());
+        BackpackData data = plugin.cache().loadOrCreate(msh.backpackId(), msh.backpackType());
         if (data == null)
             return null;
 
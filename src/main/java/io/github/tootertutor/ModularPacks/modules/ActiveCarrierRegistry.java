@@ -0,0 +1,336 @@
+package io.github.tootertutor.ModularPacks.modules;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.entity.PlayerDeathEvent;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.player.PlayerDropItemEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataType;
+
+import io.github.tootertutor.ModularPacks.ModularPacksPlugin;
+import io.github.tootertutor.ModularPacks.config.ScreenType;
+import io.github.tootertutor.ModularPacks.data.BackpackData;
+import io.github.tootertutor.ModularPacks.item.Keys;
+
+/**
+ * Which online players carry which backpacks, and what passive modules those
+ * backpacks have installed.
+ * - inventory-changing events only mark the player dirty; the engine rescans
+ * dirty players once at the start of its next pass
+ * - a slow full resync catches changes no event reports (/give, other plugins)
+ * - players carrying nothing with a passive module cost nothing per pass
+ * - also keeps backpackId -> (player, slots) so linked item refreshes only
+ * touch the items that point at the changed backpack
+ */
+public final class ActiveCarrierRegistry implements Listener {
+
+    /**
+     * Passive module types the engine cares about.
+     */
+    public enum Passive {
+        FEEDING, MAGNET, RESTOCK, JUKEBOX, FURNACE
+    }
+
+    public record Carried(UUID backpackId, String backpackType, Set<Passive> passives) {
+    }
+
+    /**
+     * Slot number used in {@link #locations(UUID)} for the item on the cursor.
+     */
+    public static final int CURSOR_SLOT = -1;
+
+    private final ModularPacksPlugin plugin;
+
+    private final Map<UUID, Map<UUID, Carried>> byPlayer = new HashMap<>();
+    // backpackId -> playerId -> slots holding an item for it
+    private final Map<UUID, Map<UUID, int[]>> byBackpack = new HashMap<>();
+    // playerId -> backpackIds with an entry in byBackpack
+    private final Map<UUID, Set<UUID>> located = new HashMap<>();
+    private final Set<UUID> dirty = new HashSet<>();
+    private int nextFullResyncTick;
+
+    ActiveCarrierRegistry(ModularPacksPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    public void markDirty(Player player) {
+        if (player != null)
+            dirty.add(player.getUniqueId());
+    }
+
+    public void markAllDirty() {
+        for (Player p : Bukkit.getOnlinePlayers()) {
+            dirty.add(p.getUniqueId());
+        }
+    }
+
+    /**
+     * Rescans players whose inventory may have changed. Called by the engine at
+     * the start of a pass.
+     */
+    void refresh() {
+        int now = Bukkit.getCurrentTick();
+        if (now >= nextFullResyncTick) {
+            nextFullResyncTick = now + plugin.cfg().engineCarrierResyncTicks();
+            markAllDirty();
+        }
+
+        syncDirty();
+    }
+
+    private void syncDirty() {
+        if (dirty.isEmpty())
+            return;
+
+        for (UUID playerId : dirty) {
+            Player player = Bukkit.getPlayer(playerId);
+            if (player == null || !player.isOnline()) {
+                forget(playerId);
+                continue;
+            }
+            rescan(player);
+        }
+        dirty.clear();
+    }
+
+    /**
+     * Where items for this backpack are: playerId -> inventory slots
+     * ({@link #CURSOR_SLOT} for the cursor). Players marked dirty are rescanned
+     * first; callers should still check the item in each slot, since an event
+     * may not have been applied yet.
+     */
+    public Map<UUID, int[]> locations(UUID backpackId) {
+        syncDirty();
+        Map<UUID, int[]> m = byBackpack.get(backpackId);
+        return m == null ? Map.of() : m;
+    }
+
+    /**
+     * Rescans one player right away (a location turned out to be stale).
+     */
+    public void rescanNow(Player player) {
+        if (player == null)
+            return;
+        dirty.remove(player.getUniqueId());
+        rescan(player);
+    }
+
+    /**
+     * Backpacks this player carries (any modules), in inventory order.
+     */
+    public Collection<Carried> carried(UUID playerId) {
+        Map<UUID, Carried> m = byPlayer.get(playerId);
+        return m == null ? Collections.emptyList() : m.values();
+    }
+
+    public boolean carries(UUID playerId, UUID backpackId) {
+        Map<UUID, Carried> m = byPlayer.get(playerId);
+        return m != null && m.containsKey(backpackId);
+    }
+
+    public Set<UUID> players() {
+        return byPlayer.keySet();
+    }
+
+    private void rescan(Player player) {
+        Keys keys = plugin.keys();
+        UUID playerId = player.getUniqueId();
+        Map<UUID, Carried> found = new LinkedHashMap<>();
+        Map<UUID, int[]> slots = new HashMap<>();
+
+        ItemStack[] contents = player.getInventory().getContents();
+        for (int i = 0; i < contents.length; i++) {
+            Carried c = read(keys, contents[i]);
+            if (c == null)
+                continue;
+            addSlot(slots, c.backpackId(), i);
+            if (found.containsKey(c.backpackId()))
+                continue;
+
+            found.put(c.backpackId(), new Carried(c.backpackId(), c.backpackType(),
+                    passivesOf(c.backpackId(), c.backpackType())));
+        }
+
+        // The cursor isn't "carried" for the engines, but its item still needs
+        // linked refreshes.
+        Carried onCursor = read(keys, player.getItemOnCursor());
+        if (onCursor != null)
+            addSlot(slots, onCursor.backpackId(), CURSOR_SLOT);
+
+        if (found.isEmpty()) {
+            byPlayer.remove(playerId);
+        } else {
+            byPlayer.put(playerId, found);
+        }
+
+        unlocate(playerId);
+        if (!slots.isEmpty()) {
+            for (Map.Entry<UUID, int[]> e : slots.entrySet()) {
+                byBackpack.computeIfAbsent(e.getKey(), k -> new HashMap<>()).put(playerId, e.getValue());
+            }
+            located.put(playerId, new HashSet<>(slots.keySet()));
+        }
+    }
+
+    // id + type only; passives are filled in by rescan
+    private static Carried read(Keys keys, ItemStack item) {
+        if (item == null || item.getType().isAir() || !item.hasItemMeta())
+            return null;
+        ItemMeta meta = item.getItemMeta();
+        var pdc = meta.getPersistentDataContainer();
+        String idStr = pdc.get(keys.BACKPACK_ID, PersistentDataType.STRING);
+        if (idStr == null || idStr.isBlank())
+            return null;
+        String type = pdc.get(keys.BACKPACK_TYPE, PersistentDataType.STRING);
+        if (type == null || type.isBlank())
+            return null;
+
+        try {
+            return new Carried(UUID.fromString(idStr), type, Set.of());
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private static void addSlot(Map<UUID, int[]> slots, UUID backpackId, int slot) {
+        int[] prev = slots.get(backpackId);
+        if (prev == null) {
+            slots.put(backpackId, new int[] { slot });
+            return;
+        }
+        int[] next = Arrays.copyOf(prev, prev.length + 1);
+        next[prev.length] = slot;
+        slots.put(backpackId, next);
+    }
+
+    private void unlocate(UUID playerId) {
+        Set<UUID> prev = located.remove(playerId);
+        if (prev == null)
+            return;
+        for (UUID backpackId : prev) {
+            Map<UUID, int[]> m = byBackpack.get(backpackId);
+            if (m == null)
+                continue;
+            m.remove(playerId);
+            if (m.isEmpty())
+                byBackpack.remove(backpackId);
+        }
+    }
+
+    private void forget(UUID playerId) {
+        byPlayer.remove(playerId);
+        unlocate(playerId);
+    }
+
+    private Set<Passive> passivesOf(UUID backpackId, String backpackType) {
+        if (plugin.cfg().findType(backpackType) == null)
+            return Set.of();
+
+        BackpackData data = plugin.cache().loadOrCreate(backpackId, backpackType);
+        InstalledModuleIndex index = InstalledModuleIndex.of(plugin, data);
+
+        Set<Passive> out = EnumSet.noneOf(Passive.class);
+        // Installed counts even when toggled off: toggling happens in the GUI and
+        // the engine checks the live flag anyway.
+        for (InstalledModuleIndex.Descriptor d : index.descriptors()) {
+            String t = d.moduleType();
+            if (t == null)
+                continue;
+            if (t.equalsIgnoreCase("Feeding"))
+                out.add(Passive.FEEDING);
+            else if (t.equalsIgnoreCase("Magnet"))
+                out.add(Passive.MAGNET);
+            else if (t.equalsIgnoreCase("Restock"))
+                out.add(Passive.RESTOCK);
+            else if (t.equalsIgnoreCase("Jukebox"))
+                out.add(Passive.JUKEBOX);
+            else {
+                var def = plugin.cfg().findUpgrade(t);
+                ScreenType st = def == null ? ScreenType.NONE : def.screenType();
+                if (st == ScreenType.SMELTING || st == ScreenType.BLASTING || st == ScreenType.SMOKING)
+                    out.add(Passive.FURNACE);
+            }
+        }
+        return out;
+    }
+
+    /*
+     * ======================================================
+     * Events (anything that can move a backpack in or out)
+     * ======================================================
+     */
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent e) {
+        markDirty(e.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent e) {
+        UUID id = e.getPlayer().getUniqueId();
+        forget(id);
+        dirty.remove(id);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onDeath(PlayerDeathEvent e) {
+        markDirty(e.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onRespawn(PlayerRespawnEvent e) {
+        markDirty(e.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPickup(EntityPickupItemEvent e) {
+        if (e.getEntity() instanceof Player player)
+            markDirty(player);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onDrop(PlayerDropItemEvent e) {
+        markDirty(e.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onClick(InventoryClickEvent e) {
+        if (e.getWhoClicked() instanceof Player player)
+            markDirty(player);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onDrag(InventoryDragEvent e) {
+        if (e.getWhoClicked() instanceof Player player)
+            markDirty(player);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onClose(InventoryCloseEvent e) {
+        // also covers module installs/removals done in the backpack GUI
+        if (e.getPlayer() instanceof Player player)
+            markDirty(player);
+    }
+}
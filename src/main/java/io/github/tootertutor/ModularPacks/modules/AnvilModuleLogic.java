@@ -63,7 +63,7 @@ public final class AnvilModuleLogic {
             return;
 
         // Load persisted left/right
-        BackpackData data = plugin.repo().loadOrCreate(backpackId, backpackType);
+        BackpackData data = plugin.cache().loadOrCreate(backpackId, backpackType);
         byte[] state = data.moduleStates().get(moduleId);
 
         ItemStack left = null;
@@ -133,9 +133,9 @@ public final class AnvilModuleLogic {
         // Persist ONLY slots 0/1
         byte[] bytes = ItemStackCodec.toBytes(new ItemStack[] { left, right });
 
-        BackpackData data = plugin.repo().loadOrCreate(session.backpackId(), session.backpackType());
+        BackpackData data = plugin.cache().loadOrCreate(session.backpackId(), session.backpackType());
         data.moduleStates().put(session.moduleId(), bytes);
-        plugin.repo().saveBackpack(data);
+        plugin.cache().saveBackpack(data);
         plugin.sessions().refreshLinkedBackpacksThrottled(session.backpackId(), data);
         plugin.sessions().onRelatedInventoryClose(player, session.backpackId());
     }
@@ -1,7 +1,9 @@
 package io.github.tootertutor.ModularPacks.modules;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -28,6 +30,17 @@ public final class CraftingModuleLogic {
     private static final int MATRIX_FIRST_SLOT = 1;
     private static final int MATRIX_SIZE = 9;
 
+    // Fallback-path results keyed by grid contents (null match = known miss).
+    // Cleared whenever RecipeManager's recipe generation changes.
+    private static final int MATCH_CACHE_MAX = 512;
+    private static final Map<MatrixKey, CachedMatch> MATCH_CACHE = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<MatrixKey, CachedMatch> eldest) {
+            return size() > MATCH_CACHE_MAX;
+        }
+    };
+    private static int matchCacheGeneration = -1;
+
     private CraftingModuleLogic() {
     }
 
@@ -240,28 +253,113 @@ public final class CraftingModuleLogic {
             return new CraftMatch(direct, out.clone(), consume);
         }
 
-        Iterator<Recipe> it = Bukkit.recipeIterator();
-        while (it.hasNext()) {
-            Recipe r = it.next();
-            if (r instanceof ShapedRecipe shaped) {
-                CraftMatch match = matchShaped(r, shaped, matrix);
-                if (match != null) {
-                    if (recipes != null && recipes.isDynamicRecipe(match.recipe)
-                            && !recipes.validateDynamicIngredients(match.recipe, matrix))
-                        continue;
-                    return match;
-                }
-            } else if (r instanceof ShapelessRecipe shapeless) {
-                CraftMatch match = matchShapeless(r, shapeless, matrix);
-                if (match != null) {
-                    if (recipes != null && recipes.isDynamicRecipe(match.recipe)
-                            && !recipes.validateDynamicIngredients(match.recipe, matrix))
-                        continue;
+        if (recipes == null) {
+            Iterator<Recipe> it = Bukkit.recipeIterator();
+            while (it.hasNext()) {
+                CraftMatch match = tryMatch(null, it.next(), matrix);
+                if (match != null)
                     return match;
+            }
+            return null;
+        }
+
+        if (matchCacheGeneration != recipes.generation()) {
+            MATCH_CACHE.clear();
+            matchCacheGeneration = recipes.generation();
+        }
+
+        MatrixKey key = MatrixKey.of(matrix);
+        CachedMatch cached = MATCH_CACHE.get(key);
+        if (cached != null) {
+            if (cached.match() == null)
+                return null;
+            // The key holds the exact items, but the cached result is for the grid it
+            // was made from; re-match that one recipe (cheap) for this grid.
+            CraftMatch again = tryMatch(recipes, cached.match().recipe, matrix);
+            if (again != null)
+                return again;
+        }
+
+        CraftMatch found = null;
+        for (Recipe r : recipes.craftingIndex().candidates(matrix)) {
+            found = tryMatch(recipes, r, matrix);
+            if (found != null)
+                break;
+        }
+        MATCH_CACHE.put(key, new CachedMatch(found));
+        return found;
+    }
+
+    private static CraftMatch tryMatch(RecipeManager recipes, Recipe r, ItemStack[] matrix) {
+        CraftMatch match = null;
+        if (r instanceof ShapedRecipe shaped) {
+            match = matchShaped(r, shaped, matrix);
+        } else if (r instanceof ShapelessRecipe shapeless) {
+            match = matchShapeless(r, shapeless, matrix);
+        }
+        if (match == null)
+            return null;
+        if (recipes != null && recipes.isDynamicRecipe(match.recipe)
+                && !recipes.validateDynamicIngredients(match.recipe, matrix))
+            return null;
+        return match;
+    }
+
+    private record CachedMatch(CraftMatch match) {
+    }
+
+    /**
+     * Normalized grid signature: material, meta and (capped) amount per slot.
+     * Amount matters because shapeless matching may take more than one item from
+     * a slot. Items with meta are kept (one of each) and compared with
+     * isSimilar, so a meta hash collision can't reuse another grid's result.
+     */
+    private static final class MatrixKey {
+        private final Material[] types = new Material[MATRIX_SIZE];
+        private final ItemStack[] withMeta = new ItemStack[MATRIX_SIZE];
+        private final byte[] amounts = new byte[MATRIX_SIZE];
+        private int hash;
+
+        static MatrixKey of(ItemStack[] matrix) {
+            MatrixKey k = new MatrixKey();
+            int[] metaHashes = new int[MATRIX_SIZE];
+            for (int i = 0; i < MATRIX_SIZE; i++) {
+                ItemStack in = matrix[i];
+                if (isEmpty(in))
+                    continue;
+                k.types[i] = in.getType();
+                if (in.hasItemMeta()) {
+                    k.withMeta[i] = in.asOne();
+                    metaHashes[i] = in.getItemMeta().hashCode();
                 }
+                k.amounts[i] = (byte) Math.min(MATRIX_SIZE, in.getAmount());
             }
+            k.hash = 31 * (31 * Arrays.hashCode(k.types) + Arrays.hashCode(metaHashes))
+                    + Arrays.hashCode(k.amounts);
+            return k;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof MatrixKey other))
+                return false;
+            if (hash != other.hash || !Arrays.equals(types, other.types) || !Arrays.equals(amounts, other.amounts))
+                return false;
+            for (int i = 0; i < MATRIX_SIZE; i++) {
+                ItemStack a = withMeta[i];
+                ItemStack b = other.withMeta[i];
+                if (a == null ? b != null : !a.isSimilar(b))
+                    return false;
+            }
+            return true;
         }
-        return null;
     }
 
     private static volatile boolean lookedUpCraftingMethod = false;
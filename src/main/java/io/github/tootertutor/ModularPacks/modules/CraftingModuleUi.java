@@ -56,7 +56,7 @@ public final class CraftingModuleUi {
         Inventory top = view.getTopInventory();
 
         // Load saved matrix into this view.
-        BackpackData data = plugin.repo().loadOrCreate(backpackId, backpackType);
+        BackpackData data = plugin.cache().loadOrCreate(backpackId, backpackType);
         byte[] state = data.moduleStates().get(moduleId);
 
         if (state != null && state.length > 0) {
@@ -113,9 +113,9 @@ public final class CraftingModuleUi {
             inv.setItem(i, null);
         }
 
-        BackpackData data = plugin.repo().loadOrCreate(session.backpackId(), session.backpackType());
+        BackpackData data = plugin.cache().loadOrCreate(session.backpackId(), session.backpackType());
         data.moduleStates().put(session.moduleId(), ItemStackCodec.toBytes(items));
-        plugin.repo().saveBackpack(data);
+        plugin.cache().saveBackpack(data);
         plugin.sessions().refreshLinkedBackpacksThrottled(session.backpackId(), data);
         plugin.sessions().onRelatedInventoryClose(player, session.backpackId());
     }
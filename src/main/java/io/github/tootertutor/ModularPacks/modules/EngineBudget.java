@@ -0,0 +1,32 @@
+package io.github.tootertutor.ModularPacks.modules;
+
+/**
+ * Wall-clock budget for one passive engine within a single server tick.
+ * - the first unit of work in a tick always runs, so deferred work can't
+ * starve
+ * - once the budget is spent, callers defer the rest to the next tick
+ * - a budget of 0 means unlimited
+ */
+final class EngineBudget {
+
+    private long budgetNanos;
+    private long usedNanos;
+    private boolean ranThisTick;
+
+    void reset(long budgetMicros) {
+        this.budgetNanos = Math.max(0L, budgetMicros) * 1000L;
+        this.usedNanos = 0L;
+        this.ranThisTick = false;
+    }
+
+    boolean tryEnter() {
+        if (budgetNanos <= 0L || !ranThisTick)
+            return true;
+        return usedNanos < budgetNanos;
+    }
+
+    void charge(long startNanos) {
+        usedNanos += System.nanoTime() - startNanos;
+        ranThisTick = true;
+    }
+}
@@ -1,31 +1,35 @@
 package io.github.tootertutor.ModularPacks.modules;
 
 import java.lang.reflect.Method;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.inventory.BlastingRecipe;
 import org.bukkit.inventory.CookingRecipe;
-import org.bukkit.inventory.FurnaceRecipe;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.Recipe;
-import org.bukkit.inventory.SmokingRecipe;
-import org.bukkit.inventory.meta.ItemMeta;
-import org.bukkit.persistence.PersistentDataType;
 import org.bukkit.inventory.view.FurnaceView;
 
 import io.github.tootertutor.ModularPacks.ModularPacksPlugin;
 import io.github.tootertutor.ModularPacks.config.ScreenType;
 import io.github.tootertutor.ModularPacks.data.BackpackData;
-import io.github.tootertutor.ModularPacks.data.ItemStackCodec;
 
 final class FurnaceEngine {
 
+    // Step size of the reference simulation (one engine period).
+    static final int ENGINE_STEP_TICKS = 10;
+    // How often a carried furnace's progress is written back, so a crash loses
+    // at most this much (plus the cache flush) instead of everything since the
+    // furnace was anchored.
+    static final int CHECKPOINT_TICKS = 60 * 20;
+
     private final ModularPacksPlugin plugin;
 
     FurnaceEngine(ModularPacksPlugin plugin) {
@@ -40,7 +44,7 @@ final class FurnaceEngine {
             ScreenType screenType,
             Inventory inv,
             int dtTicks) {
-        BackpackData data = plugin.repo().loadOrCreate(backpackId, backpackType);
+        BackpackData data = plugin.cache().loadOrCreate(backpackId, backpackType);
 
         byte[] bytes = data.moduleStates().get(moduleId);
         FurnaceStateCodec.State stored = FurnaceStateCodec.decode(bytes);
@@ -78,65 +82,334 @@ final class FurnaceEngine {
 
         // Persist
         data.moduleStates().put(moduleId, FurnaceStateCodec.encode(s));
-        plugin.repo().saveBackpack(data);
+        plugin.cache().saveBackpack(data);
     }
 
-    boolean tickInstalledFurnaces(BackpackData data, Set<UUID> openModuleIds, int dtTicks) {
+    /*
+     * ======================================================
+     * Installed (closed) furnaces: lazy simulation
+     * ======================================================
+     *
+     * A closed furnace's state is anchored at (simEpoch, simTick) and only
+     * settled when something looks at it: screen open, module removal, the
+     * backpack no longer being carried, or shutdown. Settling replays the same
+     * 10-tick steps the engine used to run, fast-forwarding whole fuel burns in
+     * closed form, so outputs and fuel use match per-pass ticking exactly.
+     * - time only counts while the backpack is carried (lastCarried)
+     * - epoch is per server run; anything anchored in another run is re-anchored
+     * - carried furnaces are also settled in place every CHECKPOINT_TICKS, as an
+     * unclean stop skips shutdown and re-anchoring drops the time since then
+     */
+
+    private final long epoch = System.currentTimeMillis();
+    // backpackId -> last engine pass that saw it carried
+    private final Map<UUID, Carry> lastCarried = new HashMap<>();
+    // moduleId -> state bytes we last anchored (identity), to skip decoding
+    private final Map<UUID, Armed> armed = new HashMap<>();
+
+    private record Carry(int tick, String backpackType) {
+    }
+
+    // checkedAt: tick the state was anchored, settled or last found idle
+    private record Armed(UUID backpackId, byte[] bytes, int checkedAt) {
+    }
+
+    /**
+     * Engine pass for a carried backpack. Normally a map lookup per furnace;
+     * decodes only to anchor furnaces that were just installed, closed or
+     * picked back up.
+     *
+     * @return true if any module state was rewritten
+     */
+    boolean touchInstalledFurnaces(UUID backpackId, String backpackType, BackpackData data, Set<UUID> openModuleIds,
+            int now) {
+        lastCarried.put(backpackId, new Carry(now, backpackType));
+
         boolean changedAny = false;
-        for (UUID moduleId : data.installedModules().values()) {
-            if (moduleId == null)
-                continue;
+        InstalledModuleIndex index = InstalledModuleIndex.of(plugin, data);
+        for (InstalledModuleIndex.Descriptor d : index.descriptors()) {
+            UUID moduleId = d.moduleId();
             if (openModuleIds != null && openModuleIds.contains(moduleId))
                 continue;
 
-            ScreenType st = resolveInstalledModuleScreenType(data, moduleId);
-            if (st != ScreenType.SMELTING && st != ScreenType.BLASTING && st != ScreenType.SMOKING)
+            byte[] bytes = data.moduleStates().get(moduleId);
+            Armed a = armed.get(moduleId);
+
+            ScreenType st = index.activeScreenType(moduleId);
+            if (!isFurnaceLike(st)) {
+                // Toggled off (or not a furnace): stop the clock where it is.
+                if (a != null) {
+                    changedAny |= settle(data, moduleId, furnaceTypeOf(d), now, true);
+                }
+                continue;
+            }
+
+            if (a != null && a.bytes() == bytes) {
+                if (now - a.checkedAt() >= CHECKPOINT_TICKS)
+                    changedAny |= checkpoint(data, moduleId, st, a, now);
                 continue;
+            }
 
-            byte[] stateBytes = data.moduleStates().get(moduleId);
-            FurnaceStateCodec.State s = FurnaceStateCodec.decode(stateBytes);
-            boolean changed = tickFurnaceLike(st, s, dtTicks);
-            if (!changed)
+            FurnaceStateCodec.State s = FurnaceStateCodec.decode(bytes);
+            if (s.simEpoch == epoch) {
+                // Reloaded copy of a state we anchored earlier this run.
+                armed.put(moduleId, new Armed(backpackId, bytes, s.simTick));
                 continue;
+            }
 
-            data.moduleStates().put(moduleId, FurnaceStateCodec.encode(s));
+            s.simEpoch = epoch;
+            s.simTick = now;
+            byte[] out = FurnaceStateCodec.encode(s);
+            data.moduleStates().put(moduleId, out);
+            armed.put(moduleId, new Armed(backpackId, out, now));
             changedAny = true;
         }
         return changedAny;
     }
 
-    private ScreenType resolveInstalledModuleScreenType(BackpackData data, UUID moduleId) {
-        byte[] snap = data.installedSnapshots().get(moduleId);
-        if (snap == null)
-            return ScreenType.NONE;
+    /**
+     * Brings one installed furnace up to date and stops its clock, so the
+     * caller can read/replace its state. Call before opening the furnace screen
+     * or taking the module out.
+     *
+     * @return true if the state was rewritten
+     */
+    boolean settleInstalledFurnace(BackpackData data, UUID moduleId) {
+        if (data == null || moduleId == null)
+            return false;
+        InstalledModuleIndex index = InstalledModuleIndex.of(plugin, data);
+        InstalledModuleIndex.Descriptor d = index.get(moduleId);
+        ScreenType st = d == null ? index.activeScreenType(moduleId) : furnaceTypeOf(d);
+        return settle(data, moduleId, st, Bukkit.getCurrentTick(), true);
+    }
+
+    /**
+     * Settles furnaces of backpacks no engine pass has seen for a while (dropped,
+     * stored, owner logged out), crediting time only up to the last pass.
+     */
+    void settleUncarried(int now, int staleAfterTicks) {
+        if (lastCarried.isEmpty())
+            return;
+
+        var it = lastCarried.entrySet().iterator();
+        while (it.hasNext()) {
+            var e = it.next();
+            if (now - e.getValue().tick() <= staleAfterTicks)
+                continue;
+            it.remove();
+            settleBackpack(e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * Settles everything (plugin disable) so nothing is lost across restarts.
+     */
+    void settleAll() {
+        for (var e : new ArrayList<>(lastCarried.entrySet())) {
+            settleBackpack(e.getKey(), e.getValue());
+        }
+        lastCarried.clear();
+        armed.clear();
+    }
 
-        ItemStack[] arr;
-        try {
-            arr = ItemStackCodec.fromBytes(snap);
-        } catch (Exception ex) {
-            return ScreenType.NONE;
+    private void settleBackpack(UUID backpackId, Carry carry) {
+        List<UUID> modules = new ArrayList<>();
+        for (var e : armed.entrySet()) {
+            if (e.getValue().backpackId().equals(backpackId))
+                modules.add(e.getKey());
         }
-        if (arr.length == 0 || arr[0] == null)
-            return ScreenType.NONE;
+        if (modules.isEmpty())
+            return;
 
-        ItemMeta meta = arr[0].getItemMeta();
-        if (meta == null)
-            return ScreenType.NONE;
+        BackpackData data = plugin.cache().loadOrCreate(backpackId, carry.backpackType());
+        InstalledModuleIndex index = InstalledModuleIndex.of(plugin, data);
+        // Credit up to one step past the last pass, same as a live pass would have.
+        int until = carry.tick() + ENGINE_STEP_TICKS;
 
-        var pdc = meta.getPersistentDataContainer();
-        String upgradeId = pdc.get(plugin.keys().MODULE_TYPE, PersistentDataType.STRING);
-        if (upgradeId == null)
-            return ScreenType.NONE;
+        boolean changed = false;
+        for (UUID moduleId : modules) {
+            InstalledModuleIndex.Descriptor d = index.get(moduleId);
+            if (d == null) {
+                armed.remove(moduleId);
+                continue;
+            }
+            changed |= settleAt(data, moduleId, furnaceTypeOf(d), until, true);
+        }
+        if (changed)
+            plugin.cache().saveBackpack(data);
+    }
+
+    private boolean settle(BackpackData data, UUID moduleId, ScreenType type, int now, boolean disarm) {
+        Carry carry = lastCarried.get(data.backpackId());
+        // Not carried since the last settle: no time to credit.
+        int until = carry == null ? Integer.MIN_VALUE : Math.min(now, carry.tick() + ENGINE_STEP_TICKS);
+        return settleAt(data, moduleId, type, until, disarm);
+    }
 
-        Byte enabled = pdc.get(plugin.keys().MODULE_ENABLED, PersistentDataType.BYTE);
-        if (enabled != null && enabled == 0)
-            return ScreenType.NONE;
+    private boolean settleAt(BackpackData data, UUID moduleId, ScreenType type, int until, boolean disarm) {
+        if (disarm)
+            armed.remove(moduleId);
 
-        var def = plugin.cfg().findUpgrade(upgradeId);
-        if (def == null || !def.enabled())
-            return ScreenType.NONE;
+        byte[] bytes = data.moduleStates().get(moduleId);
+        if (bytes == null)
+            return false;
+        FurnaceStateCodec.State s = FurnaceStateCodec.decode(bytes);
+        if (s.simEpoch != epoch)
+            return false;
+
+        if (until != Integer.MIN_VALUE && isFurnaceLike(type)) {
+            int steps = (until - s.simTick) / ENGINE_STEP_TICKS;
+            if (steps > 0) {
+                advance(type, s, steps);
+                s.simTick += steps * ENGINE_STEP_TICKS;
+            }
+        }
+        if (disarm) {
+            s.simEpoch = 0L;
+            s.simTick = 0;
+        }
 
-        return def.screenType();
+        byte[] out = FurnaceStateCodec.encode(s);
+        data.moduleStates().put(moduleId, out);
+        if (!disarm)
+            armed.put(moduleId, new Armed(data.backpackId(), out, s.simTick));
+        return true;
+    }
+
+    /**
+     * Settles an armed furnace in place and keeps it armed. A furnace that is
+     * sitting idle keeps its stored anchor, so it doesn't dirty the backpack.
+     *
+     * @return true if the state was rewritten
+     */
+    private boolean checkpoint(BackpackData data, UUID moduleId, ScreenType type, Armed a, int now) {
+        FurnaceStateCodec.State s = FurnaceStateCodec.decode(a.bytes());
+        if (s.simEpoch != epoch)
+            return false;
+        int steps = (now - s.simTick) / ENGINE_STEP_TICKS;
+        if (steps <= 0)
+            return false;
+
+        advance(type, s, steps);
+        if (Arrays.equals(FurnaceStateCodec.encode(s), a.bytes())) {
+            // nothing moved; settling later from the old anchor gives the same result
+            armed.put(moduleId, new Armed(a.backpackId(), a.bytes(), now));
+            return false;
+        }
+        s.simTick += steps * ENGINE_STEP_TICKS;
+        byte[] out = FurnaceStateCodec.encode(s);
+        data.moduleStates().put(moduleId, out);
+        armed.put(moduleId, new Armed(a.backpackId(), out, s.simTick));
+        return true;
+    }
+
+    /**
+     * Replays {@code steps} engine steps. Steady stretches (a lit fuel item
+     * cooking or burning down) are applied in one go; everything else goes
+     * through tickFurnaceLike one step at a time until nothing changes.
+     */
+    private void advance(ScreenType type, FurnaceStateCodec.State s, int steps) {
+        int left = steps;
+        while (left > 0) {
+            int done = steadyBurn(type, s, left);
+            if (done > 0) {
+                left -= done;
+                continue;
+            }
+            left--;
+            if (!tickFurnaceLike(type, s, ENGINE_STEP_TICKS))
+                return; // fixed point: further steps change nothing
+        }
+    }
+
+    /**
+     * Applies up to {@code maxSteps} steps of the currently lit fuel item in
+     * closed form, if none of them can light new fuel, run out of input or
+     * fill the output.
+     *
+     * @return steps applied, 0 if the stretch isn't steady
+     */
+    private int steadyBurn(ScreenType type, FurnaceStateCodec.State s, int maxSteps) {
+        if (s.burnTime <= 0)
+            return 0;
+
+        int burnSteps = (s.burnTime + ENGINE_STEP_TICKS - 1) / ENGINE_STEP_TICKS;
+        int k = Math.min(burnSteps, maxSteps);
+        int burned = Math.min(s.burnTime, k * ENGINE_STEP_TICKS);
+
+        boolean hasInput = s.input != null && !s.input.getType().isAir();
+        CookingRecipe<?> recipe = hasInput ? findCookingRecipe(type, s.input) : null;
+
+        boolean cooking = false;
+        int total = 0;
+        ItemStack result = null;
+        int producedPerCraft = 1;
+        int outputSpace = 0;
+        if (recipe != null) {
+            total = recipe.getCookingTime();
+            if (total <= 0)
+                total = 200;
+            if (s.cookTotal != total)
+                return 0; // first step resets progress; let it run normally
+            result = recipe.getResult();
+            if (result == null || result.getType().isAir())
+                return 0;
+            producedPerCraft = Math.max(1, result.getAmount());
+            if (s.output == null || s.output.getType().isAir()) {
+                outputSpace = result.getMaxStackSize();
+            } else if (s.output.isSimilar(result)) {
+                outputSpace = s.output.getMaxStackSize() - s.output.getAmount();
+            }
+            cooking = outputSpace >= producedPerCraft;
+        }
+
+        if (!cooking) {
+            // Lit but not cooking: burn decays, cook cools by 2 per tick.
+            s.burnTime -= burned;
+            s.cookTime = (int) Math.max(0L, s.cookTime - 2L * ENGINE_STEP_TICKS * k);
+        } else {
+            // Stop short of the step where input runs out or the output fills up;
+            // those go through tickFurnaceLike.
+            long craftsMax = Math.min(s.input.getAmount() - 1L,
+                    (long) (outputSpace - producedPerCraft) / producedPerCraft);
+            long progressMax = (craftsMax + 1) * total - 1 - s.cookTime;
+            if (burned > progressMax) {
+                k = (int) Math.max(0L, progressMax / ENGINE_STEP_TICKS);
+                if (k == 0)
+                    return 0;
+                burned = k * ENGINE_STEP_TICKS;
+            }
+
+            long cook = (long) s.cookTime + burned;
+            int crafts = (int) (cook / total);
+
+            s.burnTime -= burned;
+            s.cookTime = (int) (cook - (long) crafts * total);
+            if (crafts > 0) {
+                ItemStack in = s.input.clone();
+                in.setAmount(in.getAmount() - crafts);
+                s.input = in;
+                if (s.output == null || s.output.getType().isAir()) {
+                    s.output = result.clone();
+                    s.output.setAmount(producedPerCraft * crafts);
+                } else {
+                    s.output.setAmount(s.output.getAmount() + producedPerCraft * crafts);
+                }
+            }
+        }
+
+        if (s.burnTime <= 0 && (s.fuel == null || s.fuel.getType().isAir()))
+            s.burnTotal = 0;
+        return k;
+    }
+
+    private ScreenType furnaceTypeOf(InstalledModuleIndex.Descriptor d) {
+        var def = plugin.cfg().findUpgrade(d.moduleType());
+        return def == null ? ScreenType.NONE : def.screenType();
+    }
+
+    private static boolean isFurnaceLike(ScreenType st) {
+        return st == ScreenType.SMELTING || st == ScreenType.BLASTING || st == ScreenType.SMOKING;
     }
 
     private boolean tickFurnaceLike(ScreenType type, FurnaceStateCodec.State s, int dtTicks) {
@@ -329,24 +602,9 @@ final class FurnaceEngine {
     }
 
     private CookingRecipe<?> findCookingRecipe(ScreenType type, ItemStack input) {
-        Iterator<Recipe> it = Bukkit.recipeIterator();
-        while (it.hasNext()) {
-            Recipe r = it.next();
-            if (!(r instanceof CookingRecipe<?> cr))
-                continue;
-
-            boolean ok = (type == ScreenType.SMELTING && r instanceof FurnaceRecipe)
-                    || (type == ScreenType.BLASTING && r instanceof BlastingRecipe)
-                    || (type == ScreenType.SMOKING && r instanceof SmokingRecipe);
-
-            if (!ok)
-                continue;
-
-            if (cr.getInputChoice() != null && cr.getInputChoice().test(input)) {
-                return cr;
-            }
-        }
-        return null;
+        if (plugin.recipes() == null)
+            return null;
+        return plugin.recipes().findCookingRecipe(type, input);
     }
 
     private int fuelTicks(ItemStack fuel) {
@@ -75,7 +75,10 @@ public final class FurnaceModuleLogic {
             return;
 
         // Seed inventory + progress BEFORE opening.
-        BackpackData data = plugin.repo().loadOrCreate(backpackId, backpackType);
+        BackpackData data = plugin.cache().loadOrCreate(backpackId, backpackType);
+        // Closed furnaces cook lazily; catch up before showing it.
+        if (plugin.engines() != null && plugin.engines().settleFurnace(data, moduleId))
+            plugin.cache().saveBackpack(data);
         byte[] stateBytes = data.moduleStates().get(moduleId);
         FurnaceStateCodec.State s = FurnaceStateCodec.decode(stateBytes);
 
@@ -123,7 +126,7 @@ public final class FurnaceModuleLogic {
         inv.setItem(1, null);
         inv.setItem(2, null);
 
-        BackpackData data = plugin.repo().loadOrCreate(session.backpackId(), session.backpackType());
+        BackpackData data = plugin.cache().loadOrCreate(session.backpackId(), session.backpackType());
         byte[] existing = data.moduleStates().get(session.moduleId());
         FurnaceStateCodec.State old = FurnaceStateCodec.decode(existing);
 
@@ -138,7 +141,7 @@ public final class FurnaceModuleLogic {
         fs.cookTotal = old.cookTotal;
 
         data.moduleStates().put(session.moduleId(), FurnaceStateCodec.encode(fs));
-        plugin.repo().saveBackpack(data);
+        plugin.cache().saveBackpack(data);
         plugin.sessions().refreshLinkedBackpacksThrottled(session.backpackId(), data);
         plugin.sessions().onRelatedInventoryClose(player, session.backpackId());
     }
@@ -1,7 +1,9 @@
 package io.github.tootertutor.ModularPacks.modules;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -9,8 +11,18 @@ import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.inventory.ItemStack;
 
+import io.github.tootertutor.ModularPacks.data.BinaryModuleStateCodec;
+
+/**
+ * Furnace-like module state (Smelting, Blasting, Smoking).
+ * - v1 layout: burnTime, burnTotal, cookTime, cookTotal, simTick (ints),
+ * simEpoch (long), then input/fuel/output as length-prefixed item bytes
+ * - the old YAML snapshots still decode and are rewritten on the next save
+ */
 public final class FurnaceStateCodec {
 
+    public static final BinaryModuleStateCodec<State> CODEC = new Codec();
+
     private FurnaceStateCodec() {
     }
 
@@ -23,51 +35,97 @@ public final class FurnaceStateCodec {
         public int burnTotal;
         public int cookTime;
         public int cookTotal;
+
+        /**
+         * Lazy simulation anchor (see FurnaceEngine): progress is settled up to
+         * simTick of the server run identified by simEpoch. simEpoch 0 = not
+         * lazily running.
+         */
+        public int simTick;
+        public long simEpoch;
     }
 
     public static byte[] encode(State s) {
-        YamlConfiguration yaml = new YamlConfiguration();
+        return CODEC.encode(s);
+    }
 
-        List<Object> items = new ArrayList<>(3);
-        items.add(s.input == null ? null : s.input.serialize());
-        items.add(s.fuel == null ? null : s.fuel.serialize());
-        items.add(s.output == null ? null : s.output.serialize());
-        yaml.set("items", items);
+    public static State decode(byte[] bytes) {
+        return CODEC.decode(bytes);
+    }
 
-        yaml.set("burnTime", s.burnTime);
-        yaml.set("burnTotal", s.burnTotal);
-        yaml.set("cookTime", s.cookTime);
-        yaml.set("cookTotal", s.cookTotal);
+    private static final class Codec extends BinaryModuleStateCodec<State> {
 
-        return yaml.saveToString().getBytes(StandardCharsets.UTF_8);
-    }
+        @Override
+        public String id() {
+            return "Smelting";
+        }
 
-    public static State decode(byte[] bytes) {
-        State s = new State();
-        if (bytes == null || bytes.length == 0)
-            return s;
+        @Override
+        protected int version() {
+            return 1;
+        }
 
-        String str = new String(bytes, StandardCharsets.UTF_8);
-        YamlConfiguration yaml = new YamlConfiguration();
-        try {
-            yaml.loadFromString(str);
-        } catch (InvalidConfigurationException e) {
-            // If the old format was raw ItemStack[] bytes, just return empty state.
-            return s;
+        @Override
+        protected State empty() {
+            return new State();
         }
 
-        List<?> items = yaml.getList("items");
-        if (items != null) {
-            s.input = deserializeItem(items, 0);
-            s.fuel = deserializeItem(items, 1);
-            s.output = deserializeItem(items, 2);
+        @Override
+        protected void write(DataOutputStream out, State s) throws IOException {
+            out.writeInt(s.burnTime);
+            out.writeInt(s.burnTotal);
+            out.writeInt(s.cookTime);
+            out.writeInt(s.cookTotal);
+            out.writeInt(s.simTick);
+            out.writeLong(s.simEpoch);
+            writeItem(out, s.input);
+            writeItem(out, s.fuel);
+            writeItem(out, s.output);
+        }
+
+        @Override
+        protected State read(DataInputStream in, int version) throws IOException {
+            State s = new State();
+            s.burnTime = in.readInt();
+            s.burnTotal = in.readInt();
+            s.cookTime = in.readInt();
+            s.cookTotal = in.readInt();
+            s.simTick = in.readInt();
+            s.simEpoch = in.readLong();
+            s.input = readItem(in);
+            s.fuel = readItem(in);
+            s.output = readItem(in);
+            return s;
         }
 
-        s.burnTime = yaml.getInt("burnTime", 0);
-        s.burnTotal = yaml.getInt("burnTotal", 0);
-        s.cookTime = yaml.getInt("cookTime", 0);
-        s.cookTotal = yaml.getInt("cookTotal", 0);
-        return s;
+        @Override
+        protected State decodeLegacy(byte[] bytes) {
+            State s = new State();
+
+            String str = new String(bytes, StandardCharsets.UTF_8);
+            YamlConfiguration yaml = new YamlConfiguration();
+            try {
+                yaml.loadFromString(str);
+            } catch (InvalidConfigurationException e) {
+                // If the old format was raw ItemStack[] bytes, just return empty state.
+                return s;
+            }
+
+            List<?> items = yaml.getList("items");
+            if (items != null) {
+                s.input = deserializeItem(items, 0);
+                s.fuel = deserializeItem(items, 1);
+                s.output = deserializeItem(items, 2);
+            }
+
+            s.burnTime = yaml.getInt("burnTime", 0);
+            s.burnTotal = yaml.getInt("burnTotal", 0);
+            s.cookTime = yaml.getInt("cookTime", 0);
+            s.cookTotal = yaml.getInt("cookTotal", 0);
+            s.simTick = yaml.getInt("simTick", 0);
+            s.simEpoch = yaml.getLong("simEpoch", 0L);
+            return s;
+        }
     }
 
     @SuppressWarnings("unchecked")
@@ -0,0 +1,263 @@
+package io.github.tootertutor.ModularPacks.modules;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataType;
+
+import io.github.tootertutor.ModularPacks.ModularPacksPlugin;
+import io.github.tootertutor.ModularPacks.config.ScreenType;
+import io.github.tootertutor.ModularPacks.data.BackpackData;
+import io.github.tootertutor.ModularPacks.data.ItemStackCodec;
+
+/**
+ * Decoded view of a backpack's installed modules, shared by the engines.
+ * - one descriptor per installed module (type + enabled flag from the snapshot)
+ * - parsed module settings (whitelists, restock threshold), cached per state
+ * blob
+ * - kept on the BackpackData and rebuilt only when the installed modules or
+ * their snapshots change; snapshot/state byte arrays are always replaced, never
+ * mutated, so identity checks are enough to detect a change
+ */
+public final class InstalledModuleIndex {
+
+    public record Descriptor(UUID moduleId, int slot, String moduleType, boolean enabled, ItemStack snapshot) {
+    }
+
+    private final ModularPacksPlugin plugin;
+    private final Map<Integer, UUID> builtFrom;
+    private final Map<UUID, byte[]> builtSnapshots;
+    private final List<Descriptor> descriptors;
+    private final Map<UUID, Descriptor> byId;
+    private final Map<UUID, Settings> settings = new HashMap<>();
+
+    private InstalledModuleIndex(ModularPacksPlugin plugin, BackpackData data) {
+        this.plugin = plugin;
+        this.builtFrom = new HashMap<>(data.installedModules());
+        this.builtSnapshots = new HashMap<>();
+
+        List<Descriptor> list = new ArrayList<>();
+        for (Map.Entry<Integer, UUID> e : builtFrom.entrySet()) {
+            UUID moduleId = e.getValue();
+            if (moduleId == null)
+                continue;
+            byte[] snap = data.installedSnapshots().get(moduleId);
+            builtSnapshots.put(moduleId, snap);
+            list.add(describe(moduleId, e.getKey(), snap));
+        }
+        list.sort((a, b) -> Integer.compare(a.slot(), b.slot()));
+
+        this.descriptors = Collections.unmodifiableList(list);
+        this.byId = new HashMap<>();
+        for (Descriptor d : list) {
+            byId.put(d.moduleId(), d);
+        }
+    }
+
+    /**
+     * Index for this backpack, rebuilt if modules were installed/removed or a
+     * snapshot was rewritten since it was last built.
+     */
+    public static InstalledModuleIndex of(ModularPacksPlugin plugin, BackpackData data) {
+        InstalledModuleIndex idx = data.moduleIndex();
+        if (idx == null || !idx.matches(data)) {
+            idx = new InstalledModuleIndex(plugin, data);
+            data.moduleIndex(idx);
+        }
+        return idx;
+    }
+
+    public List<Descriptor> descriptors() {
+        return descriptors;
+    }
+
+    public Descriptor get(UUID moduleId) {
+        return moduleId == null ? null : byId.get(moduleId);
+    }
+
+    /**
+     * First installed module of this type that is toggled on and enabled in
+     * config, or null.
+     */
+    public UUID findActive(String moduleType) {
+        if (moduleType == null)
+            return null;
+        for (Descriptor d : descriptors) {
+            if (d.moduleType() == null || !d.moduleType().equalsIgnoreCase(moduleType))
+                continue;
+            if (isActive(d))
+                return d.moduleId();
+        }
+        return null;
+    }
+
+    public boolean isInstalled(String moduleType) {
+        if (moduleType == null)
+            return false;
+        for (Descriptor d : descriptors) {
+            if (d.moduleType() != null && d.moduleType().equalsIgnoreCase(moduleType))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Screen type of an active module, or NONE if it is toggled off / disabled.
+     */
+    public ScreenType activeScreenType(UUID moduleId) {
+        Descriptor d = get(moduleId);
+        if (d == null || !isActive(d))
+            return ScreenType.NONE;
+        return plugin.cfg().findUpgrade(d.moduleType()).screenType();
+    }
+
+    public Settings settings(BackpackData data, UUID moduleId) {
+        if (data == null || moduleId == null)
+            return Settings.EMPTY;
+        byte[] bytes = data.moduleStates().get(moduleId);
+        if (bytes == null || bytes.length == 0)
+            return Settings.EMPTY;
+
+        Settings s = settings.get(moduleId);
+        if (s == null || s.source != bytes) {
+            s = new Settings(bytes);
+            settings.put(moduleId, s);
+        }
+        return s;
+    }
+
+    private boolean isActive(Descriptor d) {
+        if (!d.enabled() || d.moduleType() == null)
+            return false;
+        // checked live so /backpack reload takes effect without a rebuild
+        var def = plugin.cfg().findUpgrade(d.moduleType());
+        return def != null && def.enabled();
+    }
+
+    private boolean matches(BackpackData data) {
+        Map<Integer, UUID> installed = data.installedModules();
+        if (installed.size() != builtFrom.size() || !installed.equals(builtFrom))
+            return false;
+        for (Map.Entry<UUID, byte[]> e : builtSnapshots.entrySet()) {
+            if (data.installedSnapshots().get(e.getKey()) != e.getValue())
+                return false;
+        }
+        return true;
+    }
+
+    private Descriptor describe(UUID moduleId, int slot, byte[] snap) {
+        ItemStack item = null;
+        if (snap != null) {
+            try {
+                ItemStack[] arr = ItemStackCodec.fromBytes(snap);
+                if (arr.length > 0)
+                    item = arr[0];
+            } catch (Exception ignored) {
+            }
+        }
+
+        String type = null;
+        boolean enabled = false;
+        if (item != null && item.hasItemMeta()) {
+            ItemMeta meta = item.getItemMeta();
+            var pdc = meta.getPersistentDataContainer();
+            type = pdc.get(plugin.keys().MODULE_TYPE, PersistentDataType.STRING);
+            Byte flag = pdc.get(plugin.keys().MODULE_ENABLED, PersistentDataType.BYTE);
+            enabled = flag == null || flag != 0;
+        }
+        return new Descriptor(moduleId, slot, type, enabled, item);
+    }
+
+    /**
+     * Settings parsed from an ItemStack[] module state (filter screens, restock).
+     * Each view is computed on first use.
+     */
+    public static final class Settings {
+
+        static final Settings EMPTY = new Settings(null);
+
+        private final byte[] source;
+        private ItemStack[] items;
+        private Set<Material> whitelist;
+        private List<Material> orderedWhitelist;
+        private Integer restockThreshold;
+        private List<ItemStack> restockWhitelist;
+
+        private Settings(byte[] source) {
+            this.source = source;
+        }
+
+        private ItemStack[] items() {
+            if (items == null) {
+                try {
+                    items = source == null ? new ItemStack[0] : ItemStackCodec.fromBytes(source);
+                } catch (Exception ex) {
+                    items = new ItemStack[0];
+                }
+            }
+            return items;
+        }
+
+        public Set<Material> whitelist() {
+            if (whitelist == null)
+                whitelist = Collections.unmodifiableSet(new LinkedHashSet<>(orderedWhitelist()));
+            return whitelist;
+        }
+
+        public List<Material> orderedWhitelist() {
+            if (orderedWhitelist == null) {
+                LinkedHashSet<Material> seen = new LinkedHashSet<>();
+                for (ItemStack it : items()) {
+                    if (it == null || it.getType().isAir())
+                        continue;
+                    seen.add(it.getType());
+                }
+                orderedWhitelist = List.copyOf(seen);
+            }
+            return orderedWhitelist;
+        }
+
+        public int restockThreshold() {
+            if (restockThreshold == null) {
+                ItemStack[] arr = items();
+                int raw = 0;
+                // Prefer merged-state index 9 (whitelist[0..8] + threshold[9]).
+                if (arr.length > 9 && arr[9] != null && !arr[9].getType().isAir()) {
+                    raw = arr[9].getAmount();
+                } else if (arr.length > 2 && arr[2] != null && !arr[2].getType().isAir()) {
+                    // Back-compat (old hopper-only): slot 2 is the center.
+                    raw = arr[2].getAmount();
+                }
+                restockThreshold = RestockEngine.clampThreshold(raw);
+            }
+            return restockThreshold;
+        }
+
+        public List<ItemStack> restockWhitelist() {
+            if (restockWhitelist == null) {
+                ItemStack[] arr = items();
+                int limit = Math.min(9, arr.length);
+                List<ItemStack> out = new ArrayList<>();
+                for (int i = 0; i < limit; i++) {
+                    ItemStack it = arr[i];
+                    if (it == null || it.getType().isAir())
+                        continue;
+                    ItemStack s = it.clone();
+                    s.setAmount(1);
+                    out.add(s);
+                }
+                restockWhitelist = Collections.unmodifiableList(out);
+            }
+            return restockWhitelist;
+        }
+    }
+}
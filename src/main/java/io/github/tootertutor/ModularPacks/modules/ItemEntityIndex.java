@@ -0,0 +1,306 @@
+package io.github.tootertutor.ModularPacks.modules;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Item;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.entity.ItemDespawnEvent;
+import org.bukkit.event.entity.ItemMergeEvent;
+import org.bukkit.event.entity.ItemSpawnEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataType;
+
+import com.destroystokyo.paper.event.entity.EntityAddToWorldEvent;
+import com.destroystokyo.paper.event.entity.EntityRemoveFromWorldEvent;
+
+import io.github.tootertutor.ModularPacks.ModularPacksPlugin;
+import io.github.tootertutor.ModularPacks.item.Keys;
+
+/**
+ * Item entities on the ground, bucketed per world and chunk, for the Magnet
+ * engine.
+ * - maintained from spawn/merge/pickup/despawn events, plus Paper's
+ * add/remove-from-world events for everything else (player drops, chunk
+ * loads, /kill)
+ * - items drift, so buckets are re-checked at most every SWEEP_TICKS, and only
+ * while magnets are querying
+ * - nearby() is computed once per tick per chunk of carriers; every carrier in
+ * that chunk filters the same candidate list by its own distance
+ * - whether a stack may be picked up at all (protected, blacklisted) is cached
+ * per entity until the config is reloaded
+ */
+public final class ItemEntityIndex implements Listener {
+
+    private static final int SWEEP_TICKS = 10;
+
+    static final class Entry {
+        private final Item item;
+        private UUID worldId;
+        private long chunk;
+
+        private Material material;
+        private boolean eligible;
+        private int generation = -1;
+
+        private Entry(Item item) {
+            this.item = item;
+        }
+
+        Item item() {
+            return item;
+        }
+
+        Material material() {
+            return material;
+        }
+    }
+
+    private record ClusterKey(UUID worldId, long chunk, int radius) {
+    }
+
+    private final ModularPacksPlugin plugin;
+
+    private final Map<UUID, Entry> byEntity = new HashMap<>();
+    private final Map<UUID, Map<Long, Set<Entry>>> byWorld = new HashMap<>();
+
+    private final Map<ClusterKey, List<Entry>> clusters = new HashMap<>();
+    private int clusterTick = Integer.MIN_VALUE;
+    private int lastSweepTick = Integer.MIN_VALUE;
+    private int generation;
+
+    ItemEntityIndex(ModularPacksPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Indexes every item entity already loaded (plugin enable / reload).
+     */
+    void rebuild() {
+        byEntity.clear();
+        byWorld.clear();
+        clusters.clear();
+        for (World world : Bukkit.getWorlds()) {
+            for (Item item : world.getEntitiesByClass(Item.class)) {
+                track(item);
+            }
+        }
+    }
+
+    /**
+     * Cached pickup eligibility depends on config (container rules, blacklist).
+     */
+    public void invalidateEligibility() {
+        generation++;
+    }
+
+    public int size() {
+        return byEntity.size();
+    }
+
+    /**
+     * Item entities in chunks that could be within range of the player. The list
+     * is shared with other carriers in the same chunk this tick; callers still
+     * check distance, validity and pickup delay.
+     */
+    List<Entry> nearby(Player player, double range) {
+        int now = Bukkit.getCurrentTick();
+        if (now != clusterTick) {
+            clusters.clear();
+            clusterTick = now;
+        }
+        if (now - lastSweepTick >= SWEEP_TICKS || now < lastSweepTick) {
+            sweep();
+            lastSweepTick = now;
+        }
+
+        Location at = player.getLocation();
+        int cx = at.getBlockX() >> 4;
+        int cz = at.getBlockZ() >> 4;
+        int radius = (int) Math.ceil(range / 16.0);
+        ClusterKey key = new ClusterKey(player.getWorld().getUID(), chunkKey(cx, cz), radius);
+
+        List<Entry> cached = clusters.get(key);
+        if (cached != null)
+            return cached;
+
+        List<Entry> out = new ArrayList<>();
+        Map<Long, Set<Entry>> chunks = byWorld.get(key.worldId());
+        if (chunks != null && !chunks.isEmpty()) {
+            for (int x = cx - radius; x <= cx + radius; x++) {
+                for (int z = cz - radius; z <= cz + radius; z++) {
+                    Set<Entry> bucket = chunks.get(chunkKey(x, z));
+                    if (bucket != null)
+                        out.addAll(bucket);
+                }
+            }
+        }
+        clusters.put(key, out);
+        return out;
+    }
+
+    /**
+     * Not a backpack/module and allowed in backpacks; cached per entity.
+     */
+    boolean eligible(Entry e) {
+        if (e.generation == generation)
+            return e.eligible;
+
+        ItemStack stack = e.item.getItemStack();
+        e.material = stack == null ? Material.AIR : stack.getType();
+        e.eligible = stack != null && !stack.getType().isAir()
+                // Never auto-pickup backpacks/modules (prevents nesting, module loss, etc.)
+                && !isProtected(stack)
+                // Container rules + admin blacklist
+                && plugin.cfg().isAllowedInBackpack(stack);
+        e.generation = generation;
+        return e.eligible;
+    }
+
+    private boolean isProtected(ItemStack stack) {
+        if (!stack.hasItemMeta())
+            return false;
+        ItemMeta meta = stack.getItemMeta();
+        if (meta == null)
+            return false;
+        var pdc = meta.getPersistentDataContainer();
+        Keys keys = plugin.keys();
+        return pdc.has(keys.BACKPACK_ID, PersistentDataType.STRING)
+                || pdc.has(keys.MODULE_ID, PersistentDataType.STRING);
+    }
+
+    /*
+     * ======================================================
+     * Bookkeeping
+     * ======================================================
+     */
+
+    private void track(Item item) {
+        // no isValid() check: ItemSpawnEvent fires before the entity is added;
+        // sweep() drops anything that never made it into the world
+        if (item == null)
+            return;
+        if (byEntity.containsKey(item.getUniqueId()))
+            return;
+
+        Entry e = new Entry(item);
+        Location loc = item.getLocation();
+        e.worldId = item.getWorld().getUID();
+        e.chunk = chunkKey(loc.getBlockX() >> 4, loc.getBlockZ() >> 4);
+        byEntity.put(item.getUniqueId(), e);
+        bucket(e).add(e);
+    }
+
+    private void untrack(Entity entity) {
+        Entry e = byEntity.remove(entity.getUniqueId());
+        if (e != null)
+            unbucket(e);
+    }
+
+    /**
+     * Drops dead entities and moves drifted ones to their current chunk.
+     */
+    private void sweep() {
+        Iterator<Entry> it = byEntity.values().iterator();
+        while (it.hasNext()) {
+            Entry e = it.next();
+            if (!e.item.isValid()) {
+                it.remove();
+                unbucket(e);
+                continue;
+            }
+
+            Location loc = e.item.getLocation();
+            UUID worldId = e.item.getWorld().getUID();
+            long chunk = chunkKey(loc.getBlockX() >> 4, loc.getBlockZ() >> 4);
+            if (chunk == e.chunk && worldId.equals(e.worldId))
+                continue;
+
+            unbucket(e);
+            e.worldId = worldId;
+            e.chunk = chunk;
+            bucket(e).add(e);
+        }
+        clusters.clear();
+    }
+
+    private Set<Entry> bucket(Entry e) {
+        return byWorld.computeIfAbsent(e.worldId, k -> new HashMap<>())
+                .computeIfAbsent(e.chunk, k -> new LinkedHashSet<>());
+    }
+
+    private void unbucket(Entry e) {
+        Map<Long, Set<Entry>> chunks = byWorld.get(e.worldId);
+        if (chunks == null)
+            return;
+        Set<Entry> set = chunks.get(e.chunk);
+        if (set == null)
+            return;
+        set.remove(e);
+        if (set.isEmpty())
+            chunks.remove(e.chunk);
+        if (chunks.isEmpty())
+            byWorld.remove(e.worldId);
+    }
+
+    private static long chunkKey(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    /*
+     * ======================================================
+     * Events
+     * ======================================================
+     */
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onSpawn(ItemSpawnEvent e) {
+        track(e.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onAdd(EntityAddToWorldEvent e) {
+        if (e.getEntity() instanceof Item item)
+            track(item);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onMerge(ItemMergeEvent e) {
+        // the target keeps its type and meta, so its cached eligibility still holds
+        untrack(e.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPickup(EntityPickupItemEvent e) {
+        // partial pickups leave the entity behind; hoppers are caught by onRemove
+        if (e.getRemaining() <= 0)
+            untrack(e.getItem());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onDespawn(ItemDespawnEvent e) {
+        untrack(e.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onRemove(EntityRemoveFromWorldEvent e) {
+        if (e.getEntity() instanceof Item)
+            untrack(e.getEntity());
+    }
+}
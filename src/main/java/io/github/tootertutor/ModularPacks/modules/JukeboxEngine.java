@@ -25,7 +25,6 @@ import io.github.tootertutor.ModularPacks.config.ScreenType;
 import io.github.tootertutor.ModularPacks.data.BackpackData;
 import io.github.tootertutor.ModularPacks.data.ItemStackCodec;
 import io.github.tootertutor.ModularPacks.gui.ModuleScreenHolder;
-import io.github.tootertutor.ModularPacks.item.Keys;
 
 final class JukeboxEngine {
 
@@ -36,20 +35,27 @@ final class JukeboxEngine {
         this.plugin = plugin;
     }
 
-    void stopIfActiveBackpackMissing(Player player, ItemStack[] inventoryContents) {
-        if (player == null || inventoryContents == null || inventoryContents.length == 0)
-            return;
-
-        JukeboxPlayback active = jukeboxByPlayer.get(player.getUniqueId());
-        if (active == null)
+    /**
+     * Stops music for players who no longer carry the backpack it comes from.
+     */
+    void stopIfActiveBackpackMissing(ActiveCarrierRegistry carriers) {
+        if (jukeboxByPlayer.isEmpty())
             return;
 
-        Keys keys = plugin.keys();
-        if (!containsBackpack(keys, inventoryContents, active.backpackId())) {
-            stopJukebox(player);
+        for (var e : new java.util.ArrayList<>(jukeboxByPlayer.entrySet())) {
+            if (carriers.carries(e.getKey(), e.getValue().backpackId()))
+                continue;
+            Player player = Bukkit.getPlayer(e.getKey());
+            if (player != null)
+                stopJukebox(player);
         }
     }
 
+    UUID activeBackpack(UUID playerId) {
+        JukeboxPlayback active = jukeboxByPlayer.get(playerId);
+        return active == null ? null : active.backpackId();
+    }
+
     void cleanupOfflinePlayers() {
         jukeboxByPlayer.entrySet().removeIf(e -> Bukkit.getPlayer(e.getKey()) == null);
     }
@@ -136,33 +142,6 @@ final class JukeboxEngine {
             stopDiscForListeners(current);
     }
 
-    private static boolean containsBackpack(Keys keys, ItemStack[] invContents, UUID backpackId) {
-        if (keys == null || invContents == null || backpackId == null)
-            return false;
-        for (ItemStack it : invContents) {
-            UUID id = readBackpackId(keys, it);
-            if (id != null && id.equals(backpackId))
-                return true;
-        }
-        return false;
-    }
-
-    private static UUID readBackpackId(Keys keys, ItemStack item) {
-        if (item == null || item.getType().isAir() || !item.hasItemMeta())
-            return null;
-        ItemMeta meta = item.getItemMeta();
-        if (meta == null)
-            return null;
-        String idStr = meta.getPersistentDataContainer().get(keys.BACKPACK_ID, PersistentDataType.STRING);
-        if (idStr == null || idStr.isBlank())
-            return null;
-        try {
-            return UUID.fromString(idStr);
-        } catch (IllegalArgumentException ex) {
-            return null;
-        }
-    }
-
     // ------------------------------------------------------------------------
     // Jukebox module implementation
     // ------------------------------------------------------------------------
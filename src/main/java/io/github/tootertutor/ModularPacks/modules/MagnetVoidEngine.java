@@ -5,24 +5,20 @@ import java.util.UUID;
 
 import org.bukkit.Location;
 import org.bukkit.Material;
-import org.bukkit.entity.Entity;
 import org.bukkit.entity.Item;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.ItemMeta;
-import org.bukkit.persistence.PersistentDataType;
 
 import io.github.tootertutor.ModularPacks.ModularPacksPlugin;
-import io.github.tootertutor.ModularPacks.data.ItemStackCodec;
-import io.github.tootertutor.ModularPacks.data.SQLiteBackpackRepository.VoidedItemRecord;
-import io.github.tootertutor.ModularPacks.item.Keys;
 
 final class MagnetVoidEngine {
 
     private final ModularPacksPlugin plugin;
+    private final ItemEntityIndex items;
 
-    MagnetVoidEngine(ModularPacksPlugin plugin) {
+    MagnetVoidEngine(ModularPacksPlugin plugin, ItemEntityIndex items) {
         this.plugin = plugin;
+        this.items = items;
     }
 
     boolean applyMagnet(
@@ -48,27 +44,29 @@ final class MagnetVoidEngine {
         boolean voidActive = backpackId != null && voidModuleId != null && voidWhitelist != null
                 && !voidWhitelist.isEmpty();
 
-        for (Entity ent : player.getNearbyEntities(range, range, range)) {
+        Location at = player.getLocation();
+        double height = player.getHeight();
+
+        for (ItemEntityIndex.Entry entry : items.nearby(player, range)) {
             if (processed >= maxEntities)
                 break;
-            if (!(ent instanceof Item itemEnt))
+            Item itemEnt = entry.item();
+            if (!itemEnt.isValid() || itemEnt.getPickupDelay() > 0)
+                continue;
+            // Backpacks/modules, container rules and admin blacklist (cached per entity)
+            if (!items.eligible(entry))
                 continue;
-            if (itemEnt.getPickupDelay() > 0)
+            Material type = entry.material();
+            if (!whitelist.isEmpty() && !whitelist.contains(type))
+                continue;
+            if (!inRange(at, height, itemEnt.getLocation(), range))
                 continue;
 
             ItemStack stack = itemEnt.getItemStack();
             if (stack == null || stack.getType().isAir())
                 continue;
-            // Never auto-pickup backpacks/modules (prevents nesting, module loss, etc.)
-            if (isProtectedFromVoid(stack))
-                continue;
-            // Container rules + admin blacklist
-            if (!plugin.cfg().isAllowedInBackpack(stack))
-                continue;
-            if (!whitelist.isEmpty() && !whitelist.contains(stack.getType()))
-                continue;
 
-            if (voidActive && voidWhitelist.contains(stack.getType()) && !isProtectedFromVoid(stack)) {
+            if (voidActive && voidWhitelist.contains(type)) {
                 boolean logged = tryLogVoidedItem(player, backpackId, backpackType, voidModuleId, stack,
                         itemEnt.getLocation());
                 if (logged) {
@@ -99,16 +97,15 @@ final class MagnetVoidEngine {
         return changed;
     }
 
-    private boolean isProtectedFromVoid(ItemStack stack) {
-        if (stack == null || stack.getType().isAir() || !stack.hasItemMeta())
-            return false;
-        ItemMeta meta = stack.getItemMeta();
-        if (meta == null)
+    // Same box getNearbyEntities(range, range, range) used: the player's bounding
+    // box grown by range on every side.
+    private static boolean inRange(Location at, double height, Location loc, double range) {
+        if (loc.getWorld() != at.getWorld())
             return false;
-        var pdc = meta.getPersistentDataContainer();
-        Keys keys = plugin.keys();
-        return pdc.has(keys.BACKPACK_ID, PersistentDataType.STRING)
-                || pdc.has(keys.MODULE_ID, PersistentDataType.STRING);
+        double dy = loc.getY() - at.getY();
+        return Math.abs(loc.getX() - at.getX()) <= range + 0.3
+                && Math.abs(loc.getZ() - at.getZ()) <= range + 0.3
+                && dy >= -range && dy <= height + range;
     }
 
     private boolean tryLogVoidedItem(
@@ -118,46 +115,9 @@ final class MagnetVoidEngine {
             UUID voidModuleId,
             ItemStack stack,
             Location loc) {
-        if (player == null || backpackId == null || voidModuleId == null || stack == null || stack.getType().isAir())
-            return false;
-
-        byte[] bytes;
-        try {
-            bytes = ItemStackCodec.toBytes(new ItemStack[] { stack.clone() });
-        } catch (Exception ex) {
-            plugin.getLogger().warning("Failed to serialize voided item: " + ex.getMessage());
-            return false;
-        }
-
-        String world = (loc == null || loc.getWorld() == null) ? null : loc.getWorld().getName();
-        Double x = loc == null ? null : loc.getX();
-        Double y = loc == null ? null : loc.getY();
-        Double z = loc == null ? null : loc.getZ();
-
-        try {
-            long id = plugin.repo().logVoidedItem(new VoidedItemRecord(
-                    null,
-                    System.currentTimeMillis(),
-                    player.getUniqueId().toString(),
-                    player.getName(),
-                    backpackId.toString(),
-                    backpackType,
-                    voidModuleId.toString(),
-                    stack.getType().name(),
-                    stack.getAmount(),
-                    bytes,
-                    world,
-                    x,
-                    y,
-                    z,
-                    null,
-                    null,
-                    null));
-            return id > 0;
-        } catch (Exception ex) {
-            plugin.getLogger().warning("Failed to log voided item to DB: " + ex.getMessage());
-            return false;
-        }
+        // Queued and written off-thread; false means the log is backed up, so the
+        // item stays on the ground.
+        return plugin.voidLog().offer(player, backpackId, backpackType, voidModuleId, stack, loc);
     }
 }
 
@@ -1,8 +1,12 @@
 package io.github.tootertutor.ModularPacks.modules;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashSet;
-import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
@@ -19,21 +23,31 @@ import io.github.tootertutor.ModularPacks.ModularPacksPlugin;
 import io.github.tootertutor.ModularPacks.config.BackpackTypeDef;
 import io.github.tootertutor.ModularPacks.config.ScreenType;
 import io.github.tootertutor.ModularPacks.data.BackpackData;
-import io.github.tootertutor.ModularPacks.data.ItemStackCodec;
 import io.github.tootertutor.ModularPacks.gui.BackpackMenuHolder;
 import io.github.tootertutor.ModularPacks.gui.ModuleScreenHolder;
 import io.github.tootertutor.ModularPacks.item.BackpackItems;
 import io.github.tootertutor.ModularPacks.item.Keys;
+import io.github.tootertutor.ModularPacks.perf.Perf;
 import io.github.tootertutor.ModularPacks.modules.FurnaceModuleLogic;
 
 /**
  * Periodically ticks open module screens and passive backpack modules.
  * Mutation-sensitive logic is skipped while the affected backpack GUI is open.
+ * Only backpacks the carrier registry knows to hold a passive module are
+ * ticked; see {@link ActiveCarrierRegistry}. Carried backpacks are staggered
+ * across the engine period and each passive engine has a per-tick time budget
+ * (Engine.TickBudgetMicros).
  */
 public final class ModuleEngineService {
 
-    private static final long ENGINE_PERIOD_TICKS = 10L;
+    private static final int ENGINE_PERIOD_TICKS = 10;
     private static final int ENGINE_DT_TICKS = 10;
+    // A carried backpack not seen by a pass for this long has left the inventory.
+    private static final int UNCARRIED_AFTER_TICKS = ENGINE_PERIOD_TICKS * 4;
+
+    private record Deferred(UUID playerId, UUID backpackId, String backpackType,
+            Set<ActiveCarrierRegistry.Passive> work) {
+    }
 
     private final ModularPacksPlugin plugin;
     private final BackpackItems backpackItems;
@@ -42,6 +56,11 @@ public final class ModuleEngineService {
     private final MagnetVoidEngine magnetVoidEngine;
     private final FurnaceEngine furnaceEngine;
     private final RestockEngine restockEngine;
+    private final ActiveCarrierRegistry carriers;
+    private final ItemEntityIndex items;
+    private final Map<ActiveCarrierRegistry.Passive, EngineBudget> budgets = new EnumMap<>(
+            ActiveCarrierRegistry.Passive.class);
+    private final Map<UUID, Deferred> deferred = new LinkedHashMap<>();
     private BukkitTask task;
 
     public ModuleEngineService(ModularPacksPlugin plugin) {
@@ -49,28 +68,73 @@ public final class ModuleEngineService {
         this.backpackItems = new BackpackItems(plugin);
         this.feedingEngine = new FeedingEngine(plugin);
         this.jukeboxEngine = new JukeboxEngine(plugin);
-        this.magnetVoidEngine = new MagnetVoidEngine(plugin);
+        this.items = new ItemEntityIndex(plugin);
+        this.magnetVoidEngine = new MagnetVoidEngine(plugin, items);
         this.furnaceEngine = new FurnaceEngine(plugin);
         this.restockEngine = new RestockEngine(plugin);
+        this.carriers = new ActiveCarrierRegistry(plugin);
+        for (ActiveCarrierRegistry.Passive p : ActiveCarrierRegistry.Passive.values()) {
+            budgets.put(p, new EngineBudget());
+        }
+    }
+
+    public ActiveCarrierRegistry carriers() {
+        return carriers;
+    }
+
+    public ItemEntityIndex items() {
+        return items;
     }
 
     public void start() {
         if (task != null)
             return;
-        task = Bukkit.getScheduler().runTaskTimer(plugin, this::tickOpenScreens, ENGINE_PERIOD_TICKS,
-                ENGINE_PERIOD_TICKS);
+        carriers.markAllDirty();
+        items.rebuild();
+        task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
     }
 
     public void stop() {
         if (task != null)
             task.cancel();
         task = null;
+        deferred.clear();
+        furnaceEngine.settleAll();
+    }
+
+    /**
+     * Brings a closed furnace module up to date before its state is read or
+     * replaced (screen open, module removal).
+     */
+    public boolean settleFurnace(BackpackData data, UUID moduleId) {
+        return furnaceEngine.settleInstalledFurnace(data, moduleId);
     }
 
-    private void tickOpenScreens() {
+    /**
+     * Runs every server tick:
+     * - open module screens tick on the engine period, as before
+     * - carried backpacks are spread over the period by a hash of their id, so
+     * each backpack still ticks once per period but not all in the same tick
+     * - work an engine couldn't fit in its budget is retried first next tick
+     */
+    private void tick() {
+        int now = Bukkit.getCurrentTick();
+        boolean periodTick = Math.floorMod(now, ENGINE_PERIOD_TICKS) == 0;
+
+        var cfg = plugin.cfg();
+        budgets.get(ActiveCarrierRegistry.Passive.FEEDING).reset(cfg.engineBudgetFeedingMicros());
+        budgets.get(ActiveCarrierRegistry.Passive.MAGNET).reset(cfg.engineBudgetMagnetMicros());
+        budgets.get(ActiveCarrierRegistry.Passive.RESTOCK).reset(cfg.engineBudgetRestockMicros());
+        budgets.get(ActiveCarrierRegistry.Passive.FURNACE).reset(cfg.engineBudgetFurnaceMicros());
+
         Set<UUID> openModuleIds = new HashSet<>();
         Set<UUID> openBackpackIds = new HashSet<>();
+        tickOpenScreens(openModuleIds, openBackpackIds, periodTick);
 
+        tickCarriedBackpacks(now, periodTick, openModuleIds, openBackpackIds);
+    }
+
+    private void tickOpenScreens(Set<UUID> openModuleIds, Set<UUID> openBackpackIds, boolean periodTick) {
         for (Player player : Bukkit.getOnlinePlayers()) {
             Inventory top = player.getOpenInventory().getTopInventory();
             if (top.getHolder() instanceof BackpackMenuHolder bmh) {
@@ -81,7 +145,7 @@ public final class ModuleEngineService {
                 if (session != null) {
                     openModuleIds.add(session.moduleId());
                     ScreenType st = session.screenType();
-                    if (st == ScreenType.SMELTING || st == ScreenType.BLASTING || st == ScreenType.SMOKING) {
+                    if (periodTick && isFurnaceLike(st)) {
                         furnaceEngine.tickFurnaceScreen(player, session.backpackId(), session.backpackType(),
                                 session.moduleId(), st, top, ENGINE_DT_TICKS);
                     }
@@ -95,53 +159,79 @@ public final class ModuleEngineService {
             openModuleIds.add(msh.moduleId());
 
             ScreenType st = msh.screenType();
-            if (st == ScreenType.SMELTING || st == ScreenType.BLASTING || st == ScreenType.SMOKING) {
+            if (periodTick && isFurnaceLike(st)) {
                 furnaceEngine.tickFurnaceScreen(player, msh.backpackId(), msh.backpackType(), msh.moduleId(), st, top,
                         ENGINE_DT_TICKS);
             }
 
             // Later: add other engines here (stonecutter, smithing, etc.)
         }
-
-        tickCarriedBackpacks(openModuleIds, openBackpackIds);
     }
 
-    private void tickCarriedBackpacks(Set<UUID> openModuleIds, Set<UUID> openBackpackIds) {
-        Keys keys = plugin.keys();
-
-        for (Player player : Bukkit.getOnlinePlayers()) {
-            Set<UUID> processedBackpacks = new HashSet<>();
-            ItemStack[] contents = player.getInventory().getContents();
-            if (contents == null || contents.length == 0)
-                continue;
+    private void tickCarriedBackpacks(int now, boolean periodTick, Set<UUID> openModuleIds,
+            Set<UUID> openBackpackIds) {
+        carriers.refresh();
 
+        if (periodTick) {
             // If the backpack that was providing music is no longer in the player's
             // inventory, stop the track.
-            jukeboxEngine.stopIfActiveBackpackMissing(player, contents);
+            jukeboxEngine.stopIfActiveBackpackMissing(carriers);
+        }
 
-            for (ItemStack item : contents) {
-                UUID backpackId = readBackpackId(keys, item);
-                if (backpackId == null)
+        // Leftovers from the previous tick go first so they can't be starved.
+        if (!deferred.isEmpty()) {
+            List<Deferred> carried = new ArrayList<>(deferred.values());
+            deferred.clear();
+            for (Deferred d : carried) {
+                Player player = Bukkit.getPlayer(d.playerId());
+                if (player == null || !player.isOnline() || !carriers.carries(d.playerId(), d.backpackId()))
                     continue;
-                if (!processedBackpacks.add(backpackId))
+                tickBackpack(player, d.backpackId(), d.backpackType(), d.work(), false, now, openModuleIds,
+                        openBackpackIds);
+            }
+        }
+
+        int bucket = Math.floorMod(now, ENGINE_PERIOD_TICKS);
+        for (UUID playerId : new ArrayList<>(carriers.players())) {
+            Player player = Bukkit.getPlayer(playerId);
+            if (player == null || !player.isOnline())
+                continue;
+
+            UUID musicFrom = jukeboxEngine.activeBackpack(playerId);
+            for (ActiveCarrierRegistry.Carried carried : new ArrayList<>(carriers.carried(playerId))) {
+                if (Math.floorMod(carried.backpackId().hashCode(), ENGINE_PERIOD_TICKS) != bucket)
                     continue;
 
-                String backpackType = readBackpackType(keys, item);
-                if (backpackType == null || backpackType.isBlank())
+                // Nothing passive installed: nothing to tick (unless it still owns the music,
+                // so the jukebox gets a chance to stop it).
+                if (carried.passives().isEmpty() && !carried.backpackId().equals(musicFrom))
                     continue;
 
-                tickBackpack(player, backpackId, backpackType, openModuleIds, openBackpackIds);
+                tickBackpack(player, carried.backpackId(), carried.backpackType(), carried.passives(), true, now,
+                        openModuleIds, openBackpackIds);
             }
         }
 
-        // Cleanup stale entries for offline players
-        jukeboxEngine.cleanupOfflinePlayers();
+        if (periodTick) {
+            // Cleanup stale entries for offline players
+            jukeboxEngine.cleanupOfflinePlayers();
+            // Furnaces only cook while carried: settle the ones that were put away.
+            furnaceEngine.settleUncarried(now, UNCARRIED_AFTER_TICKS);
+        }
     }
 
+    /**
+     * @param work    passive engines to run for this backpack
+     * @param jukebox whether this is the backpack's scheduled pass (deferred
+     *                leftovers don't touch the jukebox)
+     */
     private void tickBackpack(
             Player player,
             UUID backpackId,
             String backpackType,
+            Set<ActiveCarrierRegistry.Passive> work,
+            boolean jukebox,
+            int now,
             Set<UUID> openModuleIds,
             Set<UUID> openBackpackIds) {
 
@@ -149,60 +239,113 @@ public final class ModuleEngineService {
         if (typeDef == null)
             return;
 
-        BackpackData data = plugin.repo().loadOrCreate(backpackId, backpackType);
+        BackpackData data = plugin.cache().loadOrCreate(backpackId, backpackType);
 
         boolean allowContentsMutations = openBackpackIds == null || !openBackpackIds.contains(backpackId);
+        boolean mutatesContents = work.contains(ActiveCarrierRegistry.Passive.FEEDING)
+                || work.contains(ActiveCarrierRegistry.Passive.MAGNET)
+                || work.contains(ActiveCarrierRegistry.Passive.RESTOCK);
 
         boolean changedAny = false;
 
         // Passive modules that mutate backpack contents (skip while that backpack GUI
         // is open)
-        if (allowContentsMutations) {
+        if (allowContentsMutations && mutatesContents) {
             ItemStack[] logical = ensureLogicalContentsSize(data, typeDef.rows() * 9);
+            boolean changedContents = false;
 
-            UUID voidId = findInstalledModuleId(data, "Void");
-            Set<Material> voidWhitelist = (voidId == null) ? Set.of() : readWhitelistFromState(data, voidId);
-
-            UUID feedingId = findInstalledModuleId(data, "Feeding");
-            if (feedingId != null) {
+            UUID feedingId = work.contains(ActiveCarrierRegistry.Passive.FEEDING)
+                    ? findInstalledModuleId(data, "Feeding")
+                    : null;
+            if (feedingId != null && enter(ActiveCarrierRegistry.Passive.FEEDING, player, backpackId, backpackType)) {
+                long t0 = System.nanoTime();
                 ItemStack feedingSnapshot = resolveModuleSnapshotItem(data, feedingId);
-                List<Material> orderedWhitelist = readWhitelistOrderedFromState(data, feedingId);
-                changedAny |= feedingEngine.applyFeeding(player, logical, feedingSnapshot, orderedWhitelist);
+                List<Material> orderedWhitelist = settings(data, feedingId).orderedWhitelist();
+                changedContents |= feedingEngine.applyFeeding(player, logical, feedingSnapshot, orderedWhitelist);
+                budgets.get(ActiveCarrierRegistry.Passive.FEEDING).charge(t0);
+                Perf.ENGINE_FEEDING.stop(t0);
             }
 
-            UUID magnetId = findInstalledModuleId(data, "Magnet");
-            if (magnetId != null) {
-                changedAny |= magnetVoidEngine.applyMagnet(player, logical, readWhitelistFromState(data, magnetId),
-                        backpackId, backpackType, voidId, voidWhitelist);
+            UUID magnetId = work.contains(ActiveCarrierRegistry.Passive.MAGNET)
+                    ? findInstalledModuleId(data, "Magnet")
+                    : null;
+            if (magnetId != null && enter(ActiveCarrierRegistry.Passive.MAGNET, player, backpackId, backpackType)) {
+                long t0 = System.nanoTime();
+                UUID voidId = findInstalledModuleId(data, "Void");
+                Set<Material> voidWhitelist = (voidId == null) ? Set.of() : settings(data, voidId).whitelist();
+                changedContents |= magnetVoidEngine.applyMagnet(player, logical,
+                        settings(data, magnetId).whitelist(), backpackId, backpackType, voidId, voidWhitelist);
+                budgets.get(ActiveCarrierRegistry.Passive.MAGNET).charge(t0);
+                Perf.ENGINE_MAGNET.stop(t0);
             }
 
-            UUID restockId = findInstalledModuleId(data, "Restock");
-            if (restockId != null) {
-                int threshold = readRestockThresholdFromState(data, restockId);
-                java.util.List<ItemStack> whitelist = readRestockWhitelistFromState(data, restockId);
-                changedAny |= restockEngine.applyRestock(player, logical, threshold, whitelist);
+            UUID restockId = work.contains(ActiveCarrierRegistry.Passive.RESTOCK)
+                    ? findInstalledModuleId(data, "Restock")
+                    : null;
+            if (restockId != null && enter(ActiveCarrierRegistry.Passive.RESTOCK, player, backpackId, backpackType)) {
+                long t0 = System.nanoTime();
+                int threshold = settings(data, restockId).restockThreshold();
+                java.util.List<ItemStack> whitelist = settings(data, restockId).restockWhitelist();
+                changedContents |= restockEngine.applyRestock(player, logical, threshold, whitelist);
+                budgets.get(ActiveCarrierRegistry.Passive.RESTOCK).charge(t0);
+                Perf.ENGINE_RESTOCK.stop(t0);
             }
 
-            if (changedAny) {
-                data.contentsBytes(ItemStackCodec.toBytes(logical));
+            if (changedContents) {
+                data.markContentsDirty();
+                changedAny = true;
             }
         }
 
-        // Ticking module states (furnace-like) is safe even if backpack GUI is open.
-        changedAny |= furnaceEngine.tickInstalledFurnaces(data, openModuleIds, ENGINE_DT_TICKS);
+        // Closed furnaces are simulated lazily; a pass only keeps their clock running
+        // (and anchors newly installed/closed ones). Safe even if backpack GUI is open.
+        if (work.contains(ActiveCarrierRegistry.Passive.FURNACE)
+                && enter(ActiveCarrierRegistry.Passive.FURNACE, player, backpackId, backpackType)) {
+            long t0 = System.nanoTime();
+            changedAny |= furnaceEngine.touchInstalledFurnaces(backpackId, backpackType, data, openModuleIds, now);
+            budgets.get(ActiveCarrierRegistry.Passive.FURNACE).charge(t0);
+            Perf.ENGINE_FURNACE.stop(t0);
+        }
 
         // Jukebox does not mutate contents; safe even while GUI is open.
-        UUID jukeboxId = findInstalledModuleId(data, "Jukebox");
-        ItemStack jukeboxSnapshot = jukeboxId == null ? null : resolveModuleSnapshotItem(data, jukeboxId);
-        jukeboxEngine.tickJukebox(player, backpackId, data, jukeboxId, jukeboxSnapshot);
+        if (jukebox) {
+            long t0 = Perf.start();
+            UUID jukeboxId = findInstalledModuleId(data, "Jukebox");
+            ItemStack jukeboxSnapshot = jukeboxId == null ? null : resolveModuleSnapshotItem(data, jukeboxId);
+            jukeboxEngine.tickJukebox(player, backpackId, data, jukeboxId, jukeboxSnapshot);
+            Perf.ENGINE_JUKEBOX.stop(t0);
+        }
 
         if (changedAny) {
-            plugin.repo().saveBackpack(data);
+            plugin.cache().saveBackpack(data);
             refreshBackpackItemsFor(player, backpackId, typeDef, data);
             plugin.sessions().refreshLinkedBackpacksThrottled(backpackId, data);
         }
     }
 
+    /**
+     * Checks the engine's budget; if it is spent, queues this engine for this
+     * backpack on the next tick instead.
+     */
+    private boolean enter(ActiveCarrierRegistry.Passive engine, Player player, UUID backpackId,
+            String backpackType) {
+        if (budgets.get(engine).tryEnter())
+            return true;
+
+        Deferred d = deferred.get(backpackId);
+        if (d == null) {
+            d = new Deferred(player.getUniqueId(), backpackId, backpackType,
+                    EnumSet.noneOf(ActiveCarrierRegistry.Passive.class));
+            deferred.put(backpackId, d);
+        }
+        d.work().add(engine);
+        return false;
+    }
+
+    private static boolean isFurnaceLike(ScreenType st) {
+        return st == ScreenType.SMELTING || st == ScreenType.BLASTING || st == ScreenType.SMOKING;
+    }
+
     private void refreshBackpackItemsFor(Player player, UUID backpackId, BackpackTypeDef typeDef,
             BackpackData data) {
         if (player == null || backpackId == null || typeDef == null || data == null)
@@ -235,154 +378,22 @@ public final class ModuleEngineService {
     private ItemStack[] ensureLogicalContentsSize(BackpackData data, int size) {
         if (size < 0)
             size = 0;
-        ItemStack[] logical = ItemStackCodec.fromBytes(data.contentsBytes());
-        if (logical.length != size) {
-            ItemStack[] resized = new ItemStack[size];
-            System.arraycopy(logical, 0, resized, 0, Math.min(logical.length, size));
-            logical = resized;
-        }
-        return logical;
+        return data.contentsOfSize(size);
     }
 
     private UUID findInstalledModuleId(BackpackData data, String targetModuleType) {
         if (data == null || targetModuleType == null)
             return null;
-
-        for (UUID moduleId : data.installedModules().values()) {
-            if (moduleId == null)
-                continue;
-            ItemStack moduleItem = resolveModuleSnapshotItem(data, moduleId);
-            if (moduleItem == null || !moduleItem.hasItemMeta())
-                continue;
-
-            ItemMeta meta = moduleItem.getItemMeta();
-            if (meta == null)
-                continue;
-
-            String moduleType = meta.getPersistentDataContainer().get(plugin.keys().MODULE_TYPE,
-                    PersistentDataType.STRING);
-            if (moduleType == null || !moduleType.equalsIgnoreCase(targetModuleType))
-                continue;
-
-            var def = plugin.cfg().findUpgrade(moduleType);
-            if (def == null || !def.enabled())
-                continue;
-
-            Byte enabled = meta.getPersistentDataContainer().get(plugin.keys().MODULE_ENABLED, PersistentDataType.BYTE);
-            if (enabled != null && enabled == 0)
-                continue;
-
-            return moduleId;
-        }
-        return null;
+        return InstalledModuleIndex.of(plugin, data).findActive(targetModuleType);
     }
 
     private ItemStack resolveModuleSnapshotItem(BackpackData data, UUID moduleId) {
-        byte[] snap = data.installedSnapshots().get(moduleId);
-        if (snap == null)
-            return null;
-        ItemStack[] arr;
-        try {
-            arr = ItemStackCodec.fromBytes(snap);
-        } catch (Exception ignored) {
-            return null;
-        }
-        if (arr.length == 0)
-            return null;
-        return arr[0];
-    }
-
-    private Set<Material> readWhitelistFromState(BackpackData data, UUID moduleId) {
-        if (data == null || moduleId == null)
-            return Set.of();
-        byte[] bytes = data.moduleStates().get(moduleId);
-        if (bytes == null || bytes.length == 0)
-            return Set.of();
-
-        ItemStack[] arr = ItemStackCodec.fromBytes(bytes);
-        if (arr == null || arr.length == 0)
-            return Set.of();
-
-        Set<Material> out = new LinkedHashSet<>();
-        for (ItemStack it : arr) {
-            if (it == null || it.getType().isAir())
-                continue;
-            out.add(it.getType());
-        }
-        return out;
-    }
-
-    private List<Material> readWhitelistOrderedFromState(BackpackData data, UUID moduleId) {
-        if (data == null || moduleId == null)
-            return java.util.Collections.emptyList();
-        byte[] bytes = data.moduleStates().get(moduleId);
-        if (bytes == null || bytes.length == 0)
-            return java.util.Collections.emptyList();
-
-        ItemStack[] arr = ItemStackCodec.fromBytes(bytes);
-        if (arr == null || arr.length == 0)
-            return java.util.Collections.emptyList();
-
-        java.util.LinkedHashSet<Material> seen = new java.util.LinkedHashSet<>();
-        for (ItemStack it : arr) {
-            if (it == null || it.getType().isAir())
-                continue;
-            seen.add(it.getType());
-        }
-        return new java.util.ArrayList<>(seen);
+        InstalledModuleIndex.Descriptor d = InstalledModuleIndex.of(plugin, data).get(moduleId);
+        return d == null ? null : d.snapshot();
     }
 
-    private int readRestockThresholdFromState(BackpackData data, UUID moduleId) {
-        if (data == null || moduleId == null)
-            return RestockEngine.clampThreshold(0);
-        byte[] bytes = data.moduleStates().get(moduleId);
-        if (bytes == null || bytes.length == 0)
-            return RestockEngine.clampThreshold(0);
-
-        ItemStack[] arr = ItemStackCodec.fromBytes(bytes);
-        if (arr == null || arr.length == 0)
-            return RestockEngine.clampThreshold(0);
-
-        // Prefer merged-state index 9 (whitelist[0..8] + threshold[9]).
-        if (arr.length > 9 && arr[9] != null && !arr[9].getType().isAir()) {
-            return RestockEngine.clampThreshold(arr[9].getAmount());
-        }
-
-        // Back-compat (old hopper-only): slot 2 is the center.
-        if (arr.length > 2 && arr[2] != null && !arr[2].getType().isAir()) {
-            return RestockEngine.clampThreshold(arr[2].getAmount());
-        }
-
-        return RestockEngine.clampThreshold(0);
-    }
-
-    private java.util.List<ItemStack> readRestockWhitelistFromState(BackpackData data, UUID moduleId) {
-        if (data == null || moduleId == null)
-            return java.util.Collections.emptyList();
-        byte[] bytes = data.moduleStates().get(moduleId);
-        if (bytes == null || bytes.length == 0)
-            return java.util.Collections.emptyList();
-
-        ItemStack[] arr;
-        try {
-            arr = ItemStackCodec.fromBytes(bytes);
-        } catch (Exception ex) {
-            return java.util.Collections.emptyList();
-        }
-        if (arr == null || arr.length == 0)
-            return java.util.Collections.emptyList();
-
-        int limit = Math.min(9, arr.length);
-        java.util.ArrayList<ItemStack> out = new java.util.ArrayList<>();
-        for (int i = 0; i < limit; i++) {
-            ItemStack it = arr[i];
-            if (it == null || it.getType().isAir())
-                continue;
-            ItemStack s = it.clone();
-            s.setAmount(1);
-            out.add(s);
-        }
-        return out;
+    private InstalledModuleIndex.Settings settings(BackpackData data, UUID moduleId) {
+        return InstalledModuleIndex.of(plugin, data).settings(data, moduleId);
     }
 
     private static UUID readBackpackId(Keys keys, ItemStack item) {
@@ -400,13 +411,4 @@ public final class ModuleEngineService {
             return null;
         }
     }
-
-    private static String readBackpackType(Keys keys, ItemStack item) {
-        if (item == null || item.getType().isAir() || !item.hasItemMeta())
-            return null;
-        ItemMeta meta = item.getItemMeta();
-        if (meta == null)
-            return null;
-        return meta.getPersistentDataContainer().get(keys.BACKPACK_TYPE, PersistentDataType.STRING);
-    }
 }
@@ -1,8 +1,5 @@
 package io.github.tootertutor.ModularPacks.modules;
 
-import java.util.Iterator;
-
-import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.InventoryClickEvent;
@@ -17,6 +14,7 @@ import org.bukkit.inventory.meta.trim.TrimMaterial;
 import org.bukkit.plugin.Plugin;
 
 import io.github.tootertutor.ModularPacks.listeners.ModuleClickHandler;
+import io.github.tootertutor.ModularPacks.recipes.RecipeManager;
 
 public final class SmithingModuleLogic {
 
@@ -28,7 +26,7 @@ public final class SmithingModuleLogic {
     private SmithingModuleLogic() {
     }
 
-    public static void updateResult(Inventory inv) {
+    public static void updateResult(RecipeManager recipes, Inventory inv) {
         if (inv == null || inv.getSize() < 4)
             return;
 
@@ -36,23 +34,23 @@ public final class SmithingModuleLogic {
         ItemStack base = inv.getItem(BASE_SLOT);
         ItemStack addition = inv.getItem(ADDITION_SLOT);
 
-        ItemStack result = computeResult(template, base, addition);
+        ItemStack result = computeResult(recipes, template, base, addition);
         inv.setItem(OUTPUT_SLOT, result);
     }
 
-    public static boolean handleClick(InventoryClickEvent e, Player player) {
-        return handleClick(null, e, player);
+    public static boolean handleClick(RecipeManager recipes, InventoryClickEvent e, Player player) {
+        return handleClick(null, recipes, e, player);
     }
 
-    public static boolean handleClick(Plugin plugin, InventoryClickEvent e, Player player) {
+    public static boolean handleClick(Plugin plugin, RecipeManager recipes, InventoryClickEvent e, Player player) {
         Inventory inv = e.getView().getTopInventory();
         if (inv == null || inv.getSize() < 4)
             return false;
 
         return ModuleClickHandler.handleOutput(plugin, e, player, OUTPUT_SLOT,
-                () -> craftOnceToCursor(player, inv),
-                () -> craftShift(player, inv),
-                () -> updateResult(inv));
+                () -> craftOnceToCursor(recipes, player, inv),
+                () -> craftShift(recipes, player, inv),
+                () -> updateResult(recipes, inv));
     }
 
     public static int preferredInsertSlot(ItemStack stack) {
@@ -71,12 +69,12 @@ public final class SmithingModuleLogic {
         return BASE_SLOT;
     }
 
-    private static void craftShift(Player player, Inventory inv) {
+    private static void craftShift(RecipeManager recipes, Player player, Inventory inv) {
         for (int i = 0; i < 64; i++) {
             ItemStack template = inv.getItem(TEMPLATE_SLOT);
             ItemStack base = inv.getItem(BASE_SLOT);
             ItemStack addition = inv.getItem(ADDITION_SLOT);
-            ItemStack result = computeResult(template, base, addition);
+            ItemStack result = computeResult(recipes, template, base, addition);
             if (result == null || result.getType().isAir())
                 return;
 
@@ -90,11 +88,11 @@ public final class SmithingModuleLogic {
         }
     }
 
-    private static void craftOnceToCursor(Player player, Inventory inv) {
+    private static void craftOnceToCursor(RecipeManager recipes, Player player, Inventory inv) {
         ItemStack template = inv.getItem(TEMPLATE_SLOT);
         ItemStack base = inv.getItem(BASE_SLOT);
         ItemStack addition = inv.getItem(ADDITION_SLOT);
-        ItemStack out = computeResult(template, base, addition);
+        ItemStack out = computeResult(recipes, template, base, addition);
         if (out == null || out.getType().isAir())
             return;
 
@@ -117,13 +115,12 @@ public final class SmithingModuleLogic {
         inv.setItem(ADDITION_SLOT, decrementOne(addition));
     }
 
-    private static ItemStack computeResult(ItemStack template, ItemStack base, ItemStack addition) {
-        if (isEmpty(template) || isEmpty(base) || isEmpty(addition))
+    private static ItemStack computeResult(RecipeManager recipes, ItemStack template, ItemStack base,
+            ItemStack addition) {
+        if (recipes == null || isEmpty(template) || isEmpty(base) || isEmpty(addition))
             return null;
 
-        Iterator<Recipe> it = Bukkit.recipeIterator();
-        while (it.hasNext()) {
-            Recipe r = it.next();
+        for (Recipe r : recipes.stationTables().smithingCandidates(template, base, addition)) {
             if (r instanceof SmithingTransformRecipe tr) {
                 if (matchesTransform(tr, template, base, addition)) {
                     ItemStack result = tr.getResult();
@@ -1,17 +1,14 @@
 package io.github.tootertutor.ModularPacks.modules;
 
-import java.util.Iterator;
-
-import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.Recipe;
 import org.bukkit.inventory.StonecuttingRecipe;
 import org.bukkit.plugin.Plugin;
 
 import io.github.tootertutor.ModularPacks.listeners.ModuleClickHandler;
+import io.github.tootertutor.ModularPacks.recipes.RecipeManager;
 
 public final class StonecutterModuleLogic {
 
@@ -21,7 +18,7 @@ public final class StonecutterModuleLogic {
     private StonecutterModuleLogic() {
     }
 
-    public static void updateResult(Inventory inv) {
+    public static void updateResult(RecipeManager recipes, Inventory inv) {
         if (inv == null || inv.getSize() < 2)
             return;
 
@@ -31,7 +28,7 @@ public final class StonecutterModuleLogic {
             return;
         }
 
-        StonecuttingRecipe recipe = findFirstMatch(input);
+        StonecuttingRecipe recipe = findFirstMatch(recipes, input);
         if (recipe == null) {
             inv.setItem(OUTPUT_SLOT, null);
             return;
@@ -46,28 +43,28 @@ public final class StonecutterModuleLogic {
         inv.setItem(OUTPUT_SLOT, result.clone());
     }
 
-    public static boolean handleClick(InventoryClickEvent e, Player player) {
-        return handleClick(null, e, player);
+    public static boolean handleClick(RecipeManager recipes, InventoryClickEvent e, Player player) {
+        return handleClick(null, recipes, e, player);
     }
 
-    public static boolean handleClick(Plugin plugin, InventoryClickEvent e, Player player) {
+    public static boolean handleClick(Plugin plugin, RecipeManager recipes, InventoryClickEvent e, Player player) {
         Inventory inv = e.getView().getTopInventory();
         if (inv == null || inv.getSize() < 2)
             return false;
 
         return ModuleClickHandler.handleOutput(plugin, e, player, OUTPUT_SLOT,
-                () -> craftOnceToCursor(player, inv),
-                () -> craftShift(player, inv),
-                () -> updateResult(inv));
+                () -> craftOnceToCursor(recipes, player, inv),
+                () -> craftShift(recipes, player, inv),
+                () -> updateResult(recipes, inv));
     }
 
-    private static void craftShift(Player player, Inventory inv) {
+    private static void craftShift(RecipeManager recipes, Player player, Inventory inv) {
         for (int i = 0; i < 64; i++) {
             ItemStack input = inv.getItem(INPUT_SLOT);
             if (input == null || input.getType().isAir())
                 return;
 
-            StonecuttingRecipe recipe = findFirstMatch(input);
+            StonecuttingRecipe recipe = findFirstMatch(recipes, input);
             if (recipe == null)
                 return;
 
@@ -83,12 +80,12 @@ public final class StonecutterModuleLogic {
         }
     }
 
-    private static void craftOnceToCursor(Player player, Inventory inv) {
+    private static void craftOnceToCursor(RecipeManager recipes, Player player, Inventory inv) {
         ItemStack input = inv.getItem(INPUT_SLOT);
         if (input == null || input.getType().isAir())
             return;
 
-        StonecuttingRecipe recipe = findFirstMatch(input);
+        StonecuttingRecipe recipe = findFirstMatch(recipes, input);
         if (recipe == null)
             return;
 
@@ -113,16 +110,10 @@ public final class StonecutterModuleLogic {
         inv.setItem(INPUT_SLOT, decrementOne(input));
     }
 
-    private static StonecuttingRecipe findFirstMatch(ItemStack input) {
-        Iterator<Recipe> it = Bukkit.recipeIterator();
-        while (it.hasNext()) {
-            Recipe r = it.next();
-            if (!(r instanceof StonecuttingRecipe sc))
-                continue;
-            if (sc.getInputChoice() != null && sc.getInputChoice().test(input))
-                return sc;
-        }
-        return null;
+    private static StonecuttingRecipe findFirstMatch(RecipeManager recipes, ItemStack input) {
+        if (recipes == null)
+            return null;
+        return recipes.stationTables().firstStonecutting(input);
     }
 
     private static ItemStack decrementOne(ItemStack stack) {
@@ -55,7 +55,7 @@ public final class StonecutterModuleUi {
 
         Inventory top = view.getTopInventory();
 
-        BackpackData data = plugin.repo().loadOrCreate(backpackId, backpackType);
+        BackpackData data = plugin.cache().loadOrCreate(backpackId, backpackType);
         byte[] state = data.moduleStates().get(moduleId);
         if (state != null && state.length > 0) {
             try {
@@ -105,9 +105,9 @@ public final class StonecutterModuleUi {
         // Prevent vanilla from returning inputs on close; they are stored in module state.
         inv.clear();
 
-        BackpackData data = plugin.repo().loadOrCreate(session.backpackId(), session.backpackType());
+        BackpackData data = plugin.cache().loadOrCreate(session.backpackId(), session.backpackType());
         data.moduleStates().put(session.moduleId(), ItemStackCodec.toBytes(items));
-        plugin.repo().saveBackpack(data);
+        plugin.cache().saveBackpack(data);
         plugin.sessions().refreshLinkedBackpacksThrottled(session.backpackId(), data);
         plugin.sessions().onRelatedInventoryClose(player, session.backpackId());
     }
@@ -1,13 +1,27 @@
 package io.github.tootertutor.ModularPacks.modules;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Locale;
 
 import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.YamlConfiguration;
 
+import io.github.tootertutor.ModularPacks.data.BinaryModuleStateCodec;
+
+/**
+ * Tank module state.
+ * - v1 layout: expMode (boolean), fluid bucket material (length-prefixed
+ * string), fluidBuckets, expLevels (ints)
+ * - the old YAML snapshots (v1 water/lava and v2) still decode and are
+ * rewritten on the next save
+ */
 public final class TankStateCodec {
 
+    public static final BinaryModuleStateCodec<State> CODEC = new Codec();
+
     private TankStateCodec() {
     }
 
@@ -26,45 +40,82 @@ public final class TankStateCodec {
     }
 
     public static byte[] encode(State s) {
-        YamlConfiguration yaml = new YamlConfiguration();
-        yaml.set("v", 2);
-        yaml.set("expMode", s.expMode);
-        yaml.set("fluidBucketMaterial", s.fluidBucketMaterial);
-        yaml.set("fluidBuckets", Math.max(0, s.fluidBuckets));
-        yaml.set("expLevels", Math.max(0, s.expLevels));
-        return yaml.saveToString().getBytes(StandardCharsets.UTF_8);
+        return CODEC.encode(s);
     }
 
     public static State decode(byte[] bytes) {
-        State s = new State();
-        if (bytes == null || bytes.length == 0)
-            return s;
-
-        String str = new String(bytes, StandardCharsets.UTF_8);
-        YamlConfiguration yaml = new YamlConfiguration();
-        try {
-            yaml.loadFromString(str);
-        } catch (InvalidConfigurationException e) {
-            return s;
+        return CODEC.decode(bytes);
+    }
+
+    private static final class Codec extends BinaryModuleStateCodec<State> {
+
+        @Override
+        public String id() {
+            return "Tank";
+        }
+
+        @Override
+        protected int version() {
+            return 1;
+        }
+
+        @Override
+        protected State empty() {
+            return new State();
         }
 
-        // v2 fields
-        s.expMode = yaml.getBoolean("expMode", false);
-        s.fluidBucketMaterial = yaml.getString("fluidBucketMaterial");
-        s.fluidBuckets = Math.max(0, yaml.getInt("fluidBuckets", 0));
-        s.expLevels = Math.max(0, yaml.getInt("expLevels", 0));
-
-        // v1 compatibility (waterBuckets/lavaBuckets)
-        int water = Math.max(0, yaml.getInt("waterBuckets", 0));
-        int lava = Math.max(0, yaml.getInt("lavaBuckets", 0));
-        if (s.fluidBuckets <= 0 && water > 0) {
-            s.fluidBucketMaterial = "WATER_BUCKET";
-            s.fluidBuckets = water;
-        } else if (s.fluidBuckets <= 0 && lava > 0) {
-            s.fluidBucketMaterial = "LAVA_BUCKET";
-            s.fluidBuckets = lava;
+        @Override
+        protected void write(DataOutputStream out, State s) throws IOException {
+            out.writeBoolean(s.expMode);
+            writeString(out, s.fluidBucketMaterial);
+            out.writeInt(Math.max(0, s.fluidBuckets));
+            out.writeInt(Math.max(0, s.expLevels));
         }
 
+        @Override
+        protected State read(DataInputStream in, int version) throws IOException {
+            State s = new State();
+            s.expMode = in.readBoolean();
+            s.fluidBucketMaterial = readString(in);
+            s.fluidBuckets = Math.max(0, in.readInt());
+            s.expLevels = Math.max(0, in.readInt());
+            return sanitize(s);
+        }
+
+        @Override
+        protected State decodeLegacy(byte[] bytes) {
+            State s = new State();
+
+            String str = new String(bytes, StandardCharsets.UTF_8);
+            YamlConfiguration yaml = new YamlConfiguration();
+            try {
+                yaml.loadFromString(str);
+            } catch (InvalidConfigurationException e) {
+                return s;
+            }
+
+            // v2 fields
+            s.expMode = yaml.getBoolean("expMode", false);
+            s.fluidBucketMaterial = yaml.getString("fluidBucketMaterial");
+            s.fluidBuckets = Math.max(0, yaml.getInt("fluidBuckets", 0));
+            s.expLevels = Math.max(0, yaml.getInt("expLevels", 0));
+
+            // v1 compatibility (waterBuckets/lavaBuckets)
+            int water = Math.max(0, yaml.getInt("waterBuckets", 0));
+            int lava = Math.max(0, yaml.getInt("lavaBuckets", 0));
+            if (s.fluidBuckets <= 0 && water > 0) {
+                s.fluidBucketMaterial = "WATER_BUCKET";
+                s.fluidBuckets = water;
+            } else if (s.fluidBuckets <= 0 && lava > 0) {
+                s.fluidBucketMaterial = "LAVA_BUCKET";
+                s.fluidBuckets = lava;
+            }
+
+            return sanitize(s);
+        }
+    }
+
+    private static State sanitize(State s) {
         // sanitize impossible mixed states
         if (s.expLevels > 0) {
             s.expMode = true;
@@ -0,0 +1,112 @@
+package io.github.tootertutor.ModularPacks.perf;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Built-in instrumentation behind /backpack perf.
+ * - stats are static so codecs and the repository can record without a plugin
+ * handle
+ * - when disabled (Perf.Enabled: false) start() returns 0 and every record is a
+ * no-op
+ */
+public final class Perf {
+
+    private static final List<PerfStat> ALL = new ArrayList<>();
+    private static volatile boolean enabled = true;
+
+    // Passive engines (ModuleEngineService)
+    public static final PerfStat ENGINE_FEEDING = nanos("engine.feeding");
+    public static final PerfStat ENGINE_MAGNET = nanos("engine.magnet");
+    public static final PerfStat ENGINE_RESTOCK = nanos("engine.restock");
+    public static final PerfStat ENGINE_FURNACE = nanos("engine.furnace");
+    public static final PerfStat ENGINE_JUKEBOX = nanos("engine.jukebox");
+
+    // SQLite, one per statement
+    public static final PerfStat SQL_LOAD = nanos("sql.load");
+    public static final PerfStat SQL_FIND_TYPE = nanos("sql.find_type");
+    public static final PerfStat SQL_ENSURE = nanos("sql.ensure");
+    public static final PerfStat SQL_SAVE = nanos("sql.save");
+    public static final PerfStat SQL_SAVE_MODULES = nanos("sql.save_modules");
+    public static final PerfStat SQL_BATCH_UPDATE = nanos("sql.batch_update");
+    public static final PerfStat SQL_BATCH_DELETE = nanos("sql.batch_delete");
+    public static final PerfStat SQL_BATCH_INSERT = nanos("sql.batch_insert");
+    public static final PerfStat SQL_COMMIT = nanos("sql.commit");
+    public static final PerfStat SQL_VOID_LOG = nanos("sql.void_log");
+
+    // Log-structured store (Storage.Backend: LOG), one per backpack load / append / compaction
+    public static final PerfStat STORE_LOAD = nanos("store.load");
+    public static final PerfStat STORE_APPEND = nanos("store.append");
+    public static final PerfStat STORE_APPEND_BYTES = stat("store.append_bytes", PerfStat.Unit.BYTES);
+    public static final PerfStat STORE_COMPACT = nanos("store.compact");
+
+    // VoidLogQueue (rows queued, items folded into a queued row, items refused while full)
+    public static final PerfStat VOID_LOG_QUEUED = stat("void_log.queued", PerfStat.Unit.COUNT);
+    public static final PerfStat VOID_LOG_AGGREGATED = stat("void_log.aggregated", PerfStat.Unit.COUNT);
+    public static final PerfStat VOID_LOG_REJECTED = stat("void_log.rejected", PerfStat.Unit.COUNT);
+
+    // ItemStack[] codec
+    public static final PerfStat CODEC_ENCODE = nanos("codec.encode");
+    public static final PerfStat CODEC_DECODE = nanos("codec.decode");
+    public static final PerfStat CODEC_ENCODE_BYTES = stat("codec.encode_bytes", PerfStat.Unit.BYTES);
+    public static final PerfStat CODEC_DECODE_BYTES = stat("codec.decode_bytes", PerfStat.Unit.BYTES);
+
+    // Per-slot storage (slots re-serialized per refresh, slot rows written per
+    // backpack save, saves that had to rewrite every slot)
+    public static final PerfStat SLOTS_ENCODED = stat("storage.slots_encoded", PerfStat.Unit.COUNT);
+    public static final PerfStat SLOTS_WRITTEN = stat("storage.slots_written", PerfStat.Unit.COUNT);
+    public static final PerfStat SLOTS_FULL_REWRITE = stat("storage.slots_full_rewrite", PerfStat.Unit.COUNT);
+
+    // Module state codecs (furnace/tank snapshots)
+    public static final PerfStat MODULE_STATE_ENCODE = nanos("module_state.encode");
+    public static final PerfStat MODULE_STATE_DECODE = nanos("module_state.decode");
+    public static final PerfStat MODULE_STATE_LEGACY = stat("module_state.legacy_decode", PerfStat.Unit.COUNT);
+
+    // BackpackDataCache
+    public static final PerfStat CACHE_HIT = stat("cache.hit", PerfStat.Unit.COUNT);
+    public static final PerfStat CACHE_MISS = stat("cache.miss", PerfStat.Unit.COUNT);
+    // entries added by login prefetch, per login
+    public static final PerfStat CACHE_PREFETCHED = stat("cache.prefetched", PerfStat.Unit.COUNT);
+
+    // BackpackSessionManager.refreshLinkedBackpacksThrottled (online inventory scan)
+    public static final PerfStat LINKED_REFRESH = nanos("sessions.linked_refresh");
+
+    private Perf() {
+    }
+
+    private static PerfStat nanos(String name) {
+        return stat(name, PerfStat.Unit.NANOS);
+    }
+
+    private static PerfStat stat(String name, PerfStat.Unit unit) {
+        PerfStat s = new PerfStat(name, unit);
+        ALL.add(s);
+        return s;
+    }
+
+    public static boolean enabled() {
+        return enabled;
+    }
+
+    public static void enabled(boolean value) {
+        enabled = value;
+    }
+
+    /**
+     * Start time for {@link PerfStat#stop(long)}; 0 while metrics are off.
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    public static List<PerfStat> all() {
+        return Collections.unmodifiableList(ALL);
+    }
+
+    public static void resetAll() {
+        for (PerfStat s : ALL) {
+            s.reset();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package io.github.tootertutor.ModularPacks.perf;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Locale;
+
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import io.github.tootertutor.ModularPacks.ModularPacksPlugin;
+
+/**
+ * Optional periodic dump of the 1m window of every stat to
+ * {@code perf/perf-<date>.csv} in the data folder (Perf.CsvDumpIntervalSeconds).
+ */
+public final class PerfCsvDumper {
+
+    static final String HEADER = "timestamp,window_s,stat,unit,count,sum,avg,p50,p95,p99,max,per_s";
+
+    private final ModularPacksPlugin plugin;
+    private final File dir;
+    private BukkitTask task;
+
+    public PerfCsvDumper(ModularPacksPlugin plugin) {
+        this.plugin = plugin;
+        this.dir = new File(plugin.getDataFolder(), "perf");
+    }
+
+    /**
+     * (Re)starts or stops the dump task to match the current config.
+     */
+    public void apply() {
+        stop();
+        int seconds = plugin.cfg().perfCsvDumpIntervalSeconds();
+        if (seconds <= 0 || !plugin.cfg().perfEnabled())
+            return;
+
+        long period = seconds * 20L;
+        task = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, () -> {
+            try {
+                dump(60);
+            } catch (Exception ex) {
+                plugin.getLogger().warning("Perf CSV dump failed: " + ex.getMessage());
+            }
+        }, period, period);
+    }
+
+    public void stop() {
+        if (task != null)
+            task.cancel();
+        task = null;
+    }
+
+    /**
+     * Appends one row per stat. Safe off the main thread.
+     *
+     * @return the file written to
+     */
+    public File dump(int windowSeconds) throws IOException {
+        dir.mkdirs();
+        File file = new File(dir, "perf-" + LocalDate.now() + ".csv");
+
+        StringBuilder sb = new StringBuilder(4096);
+        if (!file.exists())
+            sb.append(HEADER).append('\n');
+
+        String ts = Instant.now().toString();
+        for (PerfStat stat : Perf.all()) {
+            PerfStat.Snapshot s = stat.snapshot(windowSeconds);
+            sb.append(ts).append(',')
+                    .append(windowSeconds).append(',')
+                    .append(s.name()).append(',')
+                    .append(s.unit().name().toLowerCase(Locale.ROOT)).append(',')
+                    .append(s.count()).append(',')
+                    .append(s.sum()).append(',')
+                    .append(String.format(Locale.ROOT, "%.1f", s.avg())).append(',')
+                    .append(s.p50()).append(',')
+                    .append(s.p95()).append(',')
+                    .append(s.p99()).append(',')
+                    .append(s.max()).append(',')
+                    .append(String.format(Locale.ROOT, "%.2f", s.perSecond()))
+                    .append('\n');
+        }
+
+        Files.writeString(file.toPath(), sb.toString(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        return file;
+    }
+}
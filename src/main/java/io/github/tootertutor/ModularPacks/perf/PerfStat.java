@@ -0,0 +1,177 @@
+package io.github.tootertutor.ModularPacks.perf;
+
+/**
+ * One instrumented value stream (durations, byte sizes or plain events).
+ * - totals since the last reset, plus 10s slots covering the last 5 minutes
+ * - log2 histogram, so percentiles are upper bounds within a factor of 2
+ * - synchronized: writes come from the main thread and the DB writer thread,
+ * which rarely collide
+ */
+public final class PerfStat {
+
+    public enum Unit {
+        NANOS, BYTES, COUNT
+    }
+
+    private static final int BUCKETS = 64;
+    static final int SLOT_SECONDS = 10;
+    private static final int SLOTS = 30;
+
+    private static final class Slot {
+        long epoch = -1L;
+        long count;
+        long sum;
+        long max;
+        final long[] hist = new long[BUCKETS];
+
+        void reset(long epoch) {
+            this.epoch = epoch;
+            count = 0L;
+            sum = 0L;
+            max = 0L;
+            java.util.Arrays.fill(hist, 0L);
+        }
+    }
+
+    public record Snapshot(String name, Unit unit, long count, long sum, long max, long p50, long p95, long p99,
+            double seconds) {
+
+        public double avg() {
+            return count == 0 ? 0.0 : (double) sum / count;
+        }
+
+        public double perSecond() {
+            return seconds <= 0 ? 0.0 : count / seconds;
+        }
+    }
+
+    private final String name;
+    private final Unit unit;
+
+    private long count;
+    private long sum;
+    private long max;
+    private final long[] hist = new long[BUCKETS];
+    private final Slot[] slots = new Slot[SLOTS];
+    private long resetAtMillis = System.currentTimeMillis();
+
+    PerfStat(String name, Unit unit) {
+        this.name = name;
+        this.unit = unit;
+        for (int i = 0; i < SLOTS; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public Unit unit() {
+        return unit;
+    }
+
+    public void record(long value) {
+        if (!Perf.enabled())
+            return;
+        if (value < 0)
+            value = 0;
+
+        long epoch = System.currentTimeMillis() / (SLOT_SECONDS * 1000L);
+        int b = bucket(value);
+        synchronized (this) {
+            count++;
+            sum += value;
+            if (value > max)
+                max = value;
+            hist[b]++;
+
+            Slot s = slots[(int) (epoch % SLOTS)];
+            if (s.epoch != epoch)
+                s.reset(epoch);
+            s.count++;
+            s.sum += value;
+            if (value > s.max)
+                s.max = value;
+            s.hist[b]++;
+        }
+    }
+
+    public void inc() {
+        record(1L);
+    }
+
+    /**
+     * Records the time since {@code startNanos}, as returned by
+     * {@link Perf#start()}. A 0 start (metrics off) is ignored.
+     */
+    public void stop(long startNanos) {
+        if (startNanos != 0L)
+            record(System.nanoTime() - startNanos);
+    }
+
+    public synchronized void reset() {
+        count = 0L;
+        sum = 0L;
+        max = 0L;
+        java.util.Arrays.fill(hist, 0L);
+        for (Slot s : slots) {
+            s.reset(-1L);
+        }
+        resetAtMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * @param windowSeconds 0 for everything since the last reset, otherwise a
+     *                      rolling window (rounded up to whole 10s slots, max 5
+     *                      minutes)
+     */
+    public synchronized Snapshot snapshot(int windowSeconds) {
+        long nowMillis = System.currentTimeMillis();
+        double sinceReset = Math.max(0.001, (nowMillis - resetAtMillis) / 1000.0);
+
+        if (windowSeconds <= 0) {
+            return new Snapshot(name, unit, count, sum, max, percentile(hist, count, max, 0.50),
+                    percentile(hist, count, max, 0.95), percentile(hist, count, max, 0.99), sinceReset);
+        }
+
+        int wanted = Math.min(SLOTS, (windowSeconds + SLOT_SECONDS - 1) / SLOT_SECONDS);
+        long epoch = nowMillis / (SLOT_SECONDS * 1000L);
+
+        long c = 0L, s = 0L, m = 0L;
+        long[] h = new long[BUCKETS];
+        for (Slot slot : slots) {
+            if (slot.epoch < 0 || slot.epoch <= epoch - wanted)
+                continue;
+            c += slot.count;
+            s += slot.sum;
+            if (slot.max > m)
+                m = slot.max;
+            for (int i = 0; i < BUCKETS; i++) {
+                h[i] += slot.hist[i];
+            }
+        }
+        double seconds = Math.min(sinceReset, (double) wanted * SLOT_SECONDS);
+        return new Snapshot(name, unit, c, s, m, percentile(h, c, m, 0.50), percentile(h, c, m, 0.95),
+                percentile(h, c, m, 0.99), seconds);
+    }
+
+    private static int bucket(long value) {
+        return value <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(value);
+    }
+
+    private static long percentile(long[] h, long count, long max, double q) {
+        if (count == 0)
+            return 0L;
+        long rank = (long) Math.ceil(q * count);
+        long seen = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += h[i];
+            if (seen >= rank) {
+                long upper = i == 0 ? 0L : (i >= 63 ? Long.MAX_VALUE : (1L << i) - 1);
+                return Math.min(upper, max);
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,149 @@
+package io.github.tootertutor.ModularPacks.recipes;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.inventory.BlastingRecipe;
+import org.bukkit.inventory.CookingRecipe;
+import org.bukkit.inventory.FurnaceRecipe;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.Recipe;
+import org.bukkit.inventory.RecipeChoice;
+import org.bukkit.inventory.SmokingRecipe;
+
+import io.github.tootertutor.ModularPacks.config.ScreenType;
+
+/**
+ * Furnace / blast furnace / smoker recipes indexed by screen type and input
+ * material.
+ * - MaterialChoice inputs go into per-material buckets
+ * - anything else (ExactChoice, custom choices) is kept in a small per-type
+ * list and tested one by one
+ * - ties resolve to the recipe that comes first in the server registry, same
+ * as a plain recipeIterator() walk
+ * - misses can be re-checked against the live registry with {@link #scan},
+ * rate limited per input material by {@link #shouldRecheckMiss}
+ */
+public final class CookingRecipeIndex {
+
+    private record Entry(int order, CookingRecipe<?> recipe) {
+    }
+
+    private final Map<ScreenType, Map<Material, List<Entry>>> byMaterial = new EnumMap<>(ScreenType.class);
+    private final Map<ScreenType, List<Entry>> complex = new EnumMap<>(ScreenType.class);
+    // tick each (type, material) miss was last checked against the registry
+    private final Map<ScreenType, Map<Material, Integer>> missChecked = new EnumMap<>(ScreenType.class);
+
+    private CookingRecipeIndex() {
+    }
+
+    static CookingRecipeIndex build() {
+        CookingRecipeIndex idx = new CookingRecipeIndex();
+
+        int order = 0;
+        Iterator<Recipe> it = Bukkit.recipeIterator();
+        while (it.hasNext()) {
+            Recipe r = it.next();
+            order++;
+            if (!(r instanceof CookingRecipe<?> cr))
+                continue;
+
+            ScreenType type = screenTypeOf(r);
+            if (type == null)
+                continue;
+
+            RecipeChoice choice = cr.getInputChoice();
+            if (choice == null)
+                continue;
+
+            Entry entry = new Entry(order, cr);
+            if (choice instanceof RecipeChoice.MaterialChoice mc) {
+                Map<Material, List<Entry>> buckets = idx.byMaterial.computeIfAbsent(type,
+                        k -> new EnumMap<>(Material.class));
+                for (Material m : mc.getChoices()) {
+                    buckets.computeIfAbsent(m, k -> new ArrayList<>(1)).add(entry);
+                }
+            } else {
+                idx.complex.computeIfAbsent(type, k -> new ArrayList<>()).add(entry);
+            }
+        }
+        return idx;
+    }
+
+    public CookingRecipe<?> find(ScreenType type, ItemStack input) {
+        if (type == null || input == null || input.getType().isAir())
+            return null;
+
+        Entry best = null;
+
+        Map<Material, List<Entry>> buckets = byMaterial.get(type);
+        List<Entry> fast = buckets == null ? null : buckets.get(input.getType());
+        if (fast != null) {
+            for (Entry e : fast) {
+                if (e.recipe().getInputChoice().test(input)) {
+                    best = e;
+                    break;
+                }
+            }
+        }
+
+        List<Entry> slow = complex.get(type);
+        if (slow != null) {
+            for (Entry e : slow) {
+                if (best != null && e.order() > best.order())
+                    break;
+                if (e.recipe().getInputChoice().test(input)) {
+                    best = e;
+                    break;
+                }
+            }
+        }
+
+        return best == null ? null : best.recipe();
+    }
+
+    /**
+     * True at most once per recheckTicks for a given type and input material.
+     */
+    boolean shouldRecheckMiss(ScreenType type, Material input, int now, int recheckTicks) {
+        Map<Material, Integer> checked = missChecked.computeIfAbsent(type, k -> new EnumMap<>(Material.class));
+        Integer last = checked.get(input);
+        if (last != null && now - last < recheckTicks)
+            return false;
+        checked.put(input, now);
+        return true;
+    }
+
+    /**
+     * Plain recipeIterator() walk, for recipes added after the index was built.
+     */
+    static CookingRecipe<?> scan(ScreenType type, ItemStack input) {
+        if (type == null || input == null || input.getType().isAir())
+            return null;
+        Iterator<Recipe> it = Bukkit.recipeIterator();
+        while (it.hasNext()) {
+            Recipe r = it.next();
+            if (!(r instanceof CookingRecipe<?> cr) || screenTypeOf(r) != type)
+                continue;
+            RecipeChoice choice = cr.getInputChoice();
+            if (choice != null && choice.test(input))
+                return cr;
+        }
+        return null;
+    }
+
+    private static ScreenType screenTypeOf(Recipe r) {
+        if (r instanceof BlastingRecipe)
+            return ScreenType.BLASTING;
+        if (r instanceof SmokingRecipe)
+            return ScreenType.SMOKING;
+        if (r instanceof FurnaceRecipe)
+            return ScreenType.SMELTING;
+        return null;
+    }
+}
@@ -0,0 +1,127 @@
+package io.github.tootertutor.ModularPacks.recipes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.Recipe;
+import org.bukkit.inventory.RecipeChoice;
+import org.bukkit.inventory.ShapedRecipe;
+import org.bukkit.inventory.ShapelessRecipe;
+
+/**
+ * Prefilter for crafting-grid recipe matching.
+ * - every shaped/shapeless recipe is filed under each material any of its
+ * ingredients accepts
+ * - recipes with choices we can't enumerate are always returned as candidates
+ * - candidates come back in server registry order, so first-match semantics
+ * are the same as a recipeIterator() walk
+ */
+public final class CraftingRecipeIndex {
+
+    private final Map<Material, List<Recipe>> byMaterial = new EnumMap<>(Material.class);
+    private final Map<Recipe, Set<Material>> accepted = new IdentityHashMap<>();
+    private final Map<Recipe, Integer> order = new IdentityHashMap<>();
+    private final List<Recipe> complex = new ArrayList<>();
+
+    private CraftingRecipeIndex() {
+    }
+
+    static CraftingRecipeIndex build() {
+        CraftingRecipeIndex idx = new CraftingRecipeIndex();
+
+        int n = 0;
+        Iterator<Recipe> it = Bukkit.recipeIterator();
+        while (it.hasNext()) {
+            Recipe r = it.next();
+            n++;
+
+            Collection<RecipeChoice> choices;
+            if (r instanceof ShapedRecipe shaped) {
+                choices = shaped.getChoiceMap().values();
+            } else if (r instanceof ShapelessRecipe shapeless) {
+                choices = shapeless.getChoiceList();
+            } else {
+                continue;
+            }
+
+            idx.order.put(r, n);
+            Set<Material> mats = acceptedMaterials(choices);
+            if (mats == null) {
+                idx.complex.add(r);
+                continue;
+            }
+
+            idx.accepted.put(r, mats);
+            for (Material m : mats) {
+                idx.byMaterial.computeIfAbsent(m, k -> new ArrayList<>()).add(r);
+            }
+        }
+        return idx;
+    }
+
+    /**
+     * Recipes that could possibly match this grid, in registry order.
+     */
+    public List<Recipe> candidates(ItemStack[] matrix) {
+        Set<Material> present = EnumSet.noneOf(Material.class);
+        for (ItemStack in : matrix) {
+            if (in != null && !in.getType().isAir())
+                present.add(in.getType());
+        }
+        if (present.isEmpty())
+            return List.of();
+
+        // Every non-empty slot has to be consumed by some ingredient, so the
+        // smallest bucket among the present materials is a complete candidate set.
+        List<Recipe> smallest = null;
+        for (Material m : present) {
+            List<Recipe> bucket = byMaterial.get(m);
+            if (bucket == null) {
+                smallest = List.of();
+                break;
+            }
+            if (smallest == null || bucket.size() < smallest.size())
+                smallest = bucket;
+        }
+
+        List<Recipe> out = new ArrayList<>();
+        for (Recipe r : smallest) {
+            if (accepted.get(r).containsAll(present))
+                out.add(r);
+        }
+        if (!complex.isEmpty()) {
+            out.addAll(complex);
+            out.sort((a, b) -> Integer.compare(order.get(a), order.get(b)));
+        }
+        return out;
+    }
+
+    private static Set<Material> acceptedMaterials(Collection<RecipeChoice> choices) {
+        Set<Material> out = EnumSet.noneOf(Material.class);
+        for (RecipeChoice choice : choices) {
+            if (choice == null)
+                continue;
+            if (choice instanceof RecipeChoice.MaterialChoice mc) {
+                out.addAll(mc.getChoices());
+            } else if (choice instanceof RecipeChoice.ExactChoice ec) {
+                for (ItemStack s : ec.getChoices()) {
+                    if (s != null)
+                        out.add(s.getType());
+                }
+            } else {
+                return null;
+            }
+        }
+        return out;
+    }
+}
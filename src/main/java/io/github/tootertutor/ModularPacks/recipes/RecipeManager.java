@@ -22,6 +22,8 @@ import org.bukkit.event.inventory.CraftItemEvent;
 import org.bukkit.event.inventory.PrepareItemCraftEvent;
 import org.bukkit.event.inventory.PrepareSmithingEvent;
 import org.bukkit.event.inventory.SmithItemEvent;
+import org.bukkit.event.server.ServerLoadEvent;
+import org.bukkit.inventory.CookingRecipe;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.Recipe;
 import org.bukkit.inventory.RecipeChoice;
@@ -32,9 +34,11 @@ import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.persistence.PersistentDataContainer;
 import org.bukkit.persistence.PersistentDataType;
 
+import io.github.papermc.paper.event.server.ServerResourcesReloadedEvent;
 import io.github.tootertutor.ModularPacks.ModularPacksPlugin;
 import io.github.tootertutor.ModularPacks.config.BackpackTypeDef;
 import io.github.tootertutor.ModularPacks.config.Placeholders;
+import io.github.tootertutor.ModularPacks.config.ScreenType;
 import io.github.tootertutor.ModularPacks.item.BackpackItems;
 import io.github.tootertutor.ModularPacks.item.CustomModelDataUtil;
 import io.github.tootertutor.ModularPacks.item.Keys;
@@ -62,6 +66,18 @@ public final class RecipeManager implements Listener {
     private final Map<NamespacedKey, DynamicRecipe> dynamic = new HashMap<>();
     private final Map<String, SmithingUpgrade> smithingUpgrades = new HashMap<>();
 
+    private static final int MISS_RECHECK_TICKS = 20 * 30;
+
+    // Bumped whenever the server recipe set may have changed; lookup indexes
+    // below rebuild lazily when they see a new value.
+    private int generation;
+    private CookingRecipeIndex cookingIndex;
+    private int cookingIndexGeneration = -1;
+    private CraftingRecipeIndex craftingIndex;
+    private int craftingIndexGeneration = -1;
+    private StationRecipeTables stationTables;
+    private int stationTablesGeneration = -1;
+
     public RecipeManager(ModularPacksPlugin plugin) {
         this.plugin = plugin;
         this.backpackItems = new BackpackItems(plugin);
@@ -71,6 +87,7 @@ public final class RecipeManager implements Listener {
     public void reload() {
         unregisterAll();
         registerAll();
+        invalidateIndexes();
         try {
             Bukkit.updateRecipes();
         } catch (Throwable t) {
@@ -151,15 +168,15 @@ public final class RecipeManager implements Listener {
                 result = backpackItems.createExisting(upgradeFromId, dyn.id);
 
                 // Persist the type change while keeping contents/modules.
-                String oldType = plugin.repo().findBackpackType(upgradeFromId);
+                String oldType = plugin.cache().findBackpackType(upgradeFromId);
                 if (oldType == null || oldType.isBlank())
                     oldType = upgradeFromType;
                 if (oldType == null || oldType.isBlank())
                     oldType = dyn.id;
 
-                var data = plugin.repo().loadOrCreate(upgradeFromId, oldType);
+                var data = plugin.cache().loadOrCreate(upgradeFromId, oldType);
                 data.backpackType(dyn.id);
-                plugin.repo().saveBackpack(data);
+                plugin.cache().saveBackpack(data);
                 plugin.sessions().refreshLinkedBackpacksThrottled(upgradeFromId, data);
             } else {
                 // New backpack (no base ingredient): new UUID.
@@ -178,6 +195,81 @@ public final class RecipeManager implements Listener {
 
     public void close() {
         unregisterAll();
+        invalidateIndexes();
+    }
+
+    /**
+     * Changes every time the server recipe registry may have changed (our own
+     * reload/close, or a datapack reload).
+     */
+    public int generation() {
+        return generation;
+    }
+
+    public void invalidateIndexes() {
+        generation++;
+    }
+
+    public CookingRecipeIndex cookingIndex() {
+        if (cookingIndex == null || cookingIndexGeneration != generation) {
+            cookingIndex = CookingRecipeIndex.build();
+            cookingIndexGeneration = generation;
+        }
+        return cookingIndex;
+    }
+
+    /**
+     * Cooking recipe for a module furnace. Recipes other plugins add or remove
+     * at runtime don't bump the generation, so an indexed hit is checked
+     * against the registry and a miss is re-checked with a full walk (at most
+     * once per MISS_RECHECK_TICKS per input material); either finding
+     * rebuilds the indexes.
+     */
+    public CookingRecipe<?> findCookingRecipe(ScreenType type, ItemStack input) {
+        CookingRecipeIndex idx = cookingIndex();
+        CookingRecipe<?> recipe = idx.find(type, input);
+        if (recipe != null) {
+            if (Bukkit.getRecipe(recipe.getKey()) != null)
+                return recipe;
+            invalidateIndexes();
+            return cookingIndex().find(type, input);
+        }
+        if (input == null || input.getType().isAir()
+                || !idx.shouldRecheckMiss(type, input.getType(), Bukkit.getCurrentTick(), MISS_RECHECK_TICKS))
+            return null;
+
+        recipe = CookingRecipeIndex.scan(type, input);
+        if (recipe != null)
+            invalidateIndexes();
+        return recipe;
+    }
+
+    public CraftingRecipeIndex craftingIndex() {
+        if (craftingIndex == null || craftingIndexGeneration != generation) {
+            craftingIndex = CraftingRecipeIndex.build();
+            craftingIndexGeneration = generation;
+        }
+        return craftingIndex;
+    }
+
+    public StationRecipeTables stationTables() {
+        if (stationTables == null || stationTablesGeneration != generation) {
+            stationTables = StationRecipeTables.build();
+            stationTablesGeneration = generation;
+        }
+        return stationTables;
+    }
+
+    @EventHandler
+    public void onServerResourcesReloaded(ServerResourcesReloadedEvent e) {
+        // /minecraft:reload swaps the datapack recipe set
+        invalidateIndexes();
+    }
+
+    @EventHandler
+    public void onServerLoad(ServerLoadEvent e) {
+        // after startup / reload every plugin has registered its recipes
+        invalidateIndexes();
     }
 
     private void unregisterAll() {
@@ -676,7 +768,7 @@ public final class RecipeManager implements Listener {
         if (parsed == null)
             return;
 
-        String oldType = plugin.repo().findBackpackType(parsed.uuid());
+        String oldType = plugin.cache().findBackpackType(parsed.uuid());
         if (oldType == null) {
             // fallback to whatever type was on the input equipment item
             ItemStack base = e.getInventory() != null ? e.getInventory().getInputEquipment() : null;
@@ -688,12 +780,12 @@ public final class RecipeManager implements Listener {
         if (oldType == null)
             oldType = newType;
 
-        var data = plugin.repo().loadOrCreate(parsed.uuid(), oldType);
+        var data = plugin.cache().loadOrCreate(parsed.uuid(), oldType);
         data.backpackType(newType);
-        plugin.repo().saveBackpack(data);
+        plugin.cache().saveBackpack(data);
         plugin.sessions().refreshLinkedBackpacksThrottled(parsed.uuid(), data);
 
-        plugin.repo().ensureBackpackExists(parsed.uuid(), newType, player.getUniqueId(), player.getName());
+        plugin.cache().ensureBackpackExists(parsed.uuid(), newType, player.getUniqueId(), player.getName());
     }
 
     private static NamespacedKey recipeKey(Recipe recipe) {
@@ -738,7 +830,7 @@ public final class RecipeManager implements Listener {
         UUIDUtils.Parsed parsed = UUIDUtils.tryParse(idStr);
         if (parsed == null)
             return;
-        plugin.repo().ensureBackpackExists(parsed.uuid(), typeId, owner.getUniqueId(), owner.getName());
+        plugin.cache().ensureBackpackExists(parsed.uuid(), typeId, owner.getUniqueId(), owner.getName());
     }
 
     private String resolveBackpackTypeId(String baseStr) {
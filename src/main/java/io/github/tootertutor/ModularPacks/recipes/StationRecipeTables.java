@@ -0,0 +1,175 @@
+package io.github.tootertutor.ModularPacks.recipes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.Recipe;
+import org.bukkit.inventory.RecipeChoice;
+import org.bukkit.inventory.SmithingRecipe;
+import org.bukkit.inventory.SmithingTransformRecipe;
+import org.bukkit.inventory.SmithingTrimRecipe;
+import org.bukkit.inventory.StonecuttingRecipe;
+
+/**
+ * Lookup tables for the stonecutter and smithing modules, built once from the
+ * server registry instead of walking recipeIterator() per click.
+ * - stonecutting: input material -> recipes (registry order)
+ * - smithing: (template, base, addition) materials -> candidate recipes,
+ * filled lazily from a per-template index
+ * - choices we can't enumerate match any material; callers still run
+ * RecipeChoice.test() on the actual items
+ * - owned by RecipeManager, rebuilt when its recipe generation changes
+ */
+public final class StationRecipeTables {
+
+    private record SmithingKey(Material template, Material base, Material addition) {
+    }
+
+    // null set = "any material" (non-enumerable choice)
+    private record SmithingEntry(SmithingRecipe recipe, Set<Material> bases, Set<Material> additions) {
+    }
+
+    private final Map<Recipe, Integer> order = new IdentityHashMap<>();
+
+    private final Map<Material, List<StonecuttingRecipe>> stonecuttingByInput = new EnumMap<>(Material.class);
+    private final List<StonecuttingRecipe> stonecuttingComplex = new ArrayList<>();
+
+    private final Map<Material, List<SmithingEntry>> smithingByTemplate = new EnumMap<>(Material.class);
+    private final List<SmithingEntry> smithingComplex = new ArrayList<>();
+    private final Map<SmithingKey, List<SmithingRecipe>> smithingMemo = new HashMap<>();
+
+    private StationRecipeTables() {
+    }
+
+    static StationRecipeTables build() {
+        StationRecipeTables t = new StationRecipeTables();
+
+        int n = 0;
+        Iterator<Recipe> it = Bukkit.recipeIterator();
+        while (it.hasNext()) {
+            Recipe r = it.next();
+            n++;
+
+            if (r instanceof StonecuttingRecipe sc) {
+                t.order.put(sc, n);
+                Set<Material> inputs = materialsOf(sc.getInputChoice());
+                if (inputs == null) {
+                    t.stonecuttingComplex.add(sc);
+                    continue;
+                }
+                for (Material m : inputs) {
+                    t.stonecuttingByInput.computeIfAbsent(m, k -> new ArrayList<>()).add(sc);
+                }
+            } else if (r instanceof SmithingRecipe sr) {
+                t.order.put(sr, n);
+                SmithingEntry entry = new SmithingEntry(sr, materialsOf(sr.getBase()), materialsOf(sr.getAddition()));
+                Set<Material> templates = materialsOf(templateOf(sr));
+                if (templates == null) {
+                    t.smithingComplex.add(entry);
+                    continue;
+                }
+                for (Material m : templates) {
+                    t.smithingByTemplate.computeIfAbsent(m, k -> new ArrayList<>()).add(entry);
+                }
+            }
+        }
+        return t;
+    }
+
+    /**
+     * All stonecutting recipes accepting this input, in registry order.
+     */
+    public List<StonecuttingRecipe> stonecutting(ItemStack input) {
+        if (input == null || input.getType().isAir())
+            return List.of();
+
+        List<StonecuttingRecipe> bucket = stonecuttingByInput.getOrDefault(input.getType(), List.of());
+        List<StonecuttingRecipe> out = new ArrayList<>(bucket.size());
+        for (StonecuttingRecipe sc : bucket) {
+            if (sc.getInputChoice().test(input))
+                out.add(sc);
+        }
+        if (!stonecuttingComplex.isEmpty()) {
+            for (StonecuttingRecipe sc : stonecuttingComplex) {
+                if (sc.getInputChoice() != null && sc.getInputChoice().test(input))
+                    out.add(sc);
+            }
+            out.sort((a, b) -> Integer.compare(order.get(a), order.get(b)));
+        }
+        return out;
+    }
+
+    public StonecuttingRecipe firstStonecutting(ItemStack input) {
+        List<StonecuttingRecipe> all = stonecutting(input);
+        return all.isEmpty() ? null : all.get(0);
+    }
+
+    /**
+     * Smithing recipes whose template/base/addition could accept these item
+     * types, in registry order. Items still need a RecipeChoice.test().
+     */
+    public List<SmithingRecipe> smithingCandidates(ItemStack template, ItemStack base, ItemStack addition) {
+        if (template == null || base == null || addition == null)
+            return List.of();
+
+        SmithingKey key = new SmithingKey(template.getType(), base.getType(), addition.getType());
+        List<SmithingRecipe> cached = smithingMemo.get(key);
+        if (cached != null)
+            return cached;
+
+        List<SmithingRecipe> out = new ArrayList<>();
+        collectSmithing(smithingByTemplate.getOrDefault(key.template(), List.of()), key, out);
+        collectSmithing(smithingComplex, key, out);
+        out.sort((a, b) -> Integer.compare(order.get(a), order.get(b)));
+
+        List<SmithingRecipe> frozen = Collections.unmodifiableList(out);
+        smithingMemo.put(key, frozen);
+        return frozen;
+    }
+
+    private static void collectSmithing(List<SmithingEntry> from, SmithingKey key, List<SmithingRecipe> out) {
+        for (SmithingEntry e : from) {
+            if (e.bases() != null && !e.bases().contains(key.base()))
+                continue;
+            if (e.additions() != null && !e.additions().contains(key.addition()))
+                continue;
+            out.add(e.recipe());
+        }
+    }
+
+    private static RecipeChoice templateOf(SmithingRecipe r) {
+        if (r instanceof SmithingTransformRecipe tr)
+            return tr.getTemplate();
+        if (r instanceof SmithingTrimRecipe trim)
+            return trim.getTemplate();
+        return null;
+    }
+
+    private static Set<Material> materialsOf(RecipeChoice choice) {
+        if (choice instanceof RecipeChoice.MaterialChoice mc) {
+            Set<Material> out = EnumSet.noneOf(Material.class);
+            out.addAll(mc.getChoices());
+            return out;
+        }
+        if (choice instanceof RecipeChoice.ExactChoice ec) {
+            Set<Material> out = EnumSet.noneOf(Material.class);
+            for (ItemStack s : ec.getChoices()) {
+                if (s != null)
+                    out.add(s.getType());
+            }
+            return out;
+        }
+        return null;
+    }
+}